@@ -0,0 +1,12 @@
+package com.infocurso.backend.config;
+
+/**
+ * Mensaje STOMP ya serializado que un nodo reenvía al resto.
+ */
+public record MensajeRelay(
+        String nodo,
+        String destino,
+        String tipoContenido,
+        byte[] contenido
+) {
+}
@@ -0,0 +1,20 @@
+package com.infocurso.backend.config;
+
+import com.infocurso.backend.service.AlmacenamientoService;
+import jakarta.servlet.MultipartConfigElement;
+import org.springframework.boot.autoconfigure.web.servlet.MultipartProperties;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+@Configuration
+public class MultipartConfig {
+
+    // Las partes se guardan dentro del almacén: al aceptar una subida el fichero se mueve, no se copia.
+    // Tiene que ser una ruta absoluta; una relativa Tomcat la resuelve contra su directorio de trabajo.
+    @Bean
+    public MultipartConfigElement multipartConfigElement(MultipartProperties propiedades,
+                                                         AlmacenamientoService almacenamiento) {
+        propiedades.setLocation(almacenamiento.getTemporales().toString());
+        return propiedades.createMultipartConfig();
+    }
+}
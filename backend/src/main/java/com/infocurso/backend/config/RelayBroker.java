@@ -0,0 +1,91 @@
+package com.infocurso.backend.config;
+
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.context.SmartLifecycle;
+import org.springframework.context.annotation.Lazy;
+import org.springframework.messaging.Message;
+import org.springframework.messaging.MessageChannel;
+import org.springframework.messaging.MessageHeaders;
+import org.springframework.messaging.simp.SimpMessageHeaderAccessor;
+import org.springframework.messaging.simp.SimpMessageType;
+import org.springframework.messaging.support.ChannelInterceptor;
+import org.springframework.messaging.support.MessageBuilder;
+import org.springframework.stereotype.Component;
+import org.springframework.util.MimeTypeUtils;
+
+import java.util.UUID;
+
+/**
+ * Reparte entre nodos lo que se difunde por el brokerChannel. Cada nodo sigue usando su SimpleBroker:
+ * los mensajes a /topic/... y /user/... que se generan aquí se publican en el {@link TransporteRelay},
+ * y los que llegan de otros nodos se reinyectan en el brokerChannel local marcados con su origen
+ * para no volver a publicarlos. Los /user/... se resuelven en cada nodo contra sus propias sesiones.
+ * Sin transporte configurado no hace nada.
+ */
+@Component
+public class RelayBroker implements ChannelInterceptor, SmartLifecycle {
+
+    static final String CABECERA_NODO_ORIGEN = "relayNodoOrigen";
+
+    private final String nodo = UUID.randomUUID().toString();
+    private final TransporteRelay transporte;
+    private final MessageChannel brokerChannel;
+    private volatile boolean running;
+
+    public RelayBroker(ObjectProvider<TransporteRelay> transporte,
+                       @Lazy @Qualifier("brokerChannel") MessageChannel brokerChannel) {
+        this.transporte = transporte.getIfAvailable();
+        this.brokerChannel = brokerChannel;
+    }
+
+    public boolean activo() {
+        return transporte != null;
+    }
+
+    @Override
+    public Message<?> preSend(Message<?> message, MessageChannel channel) {
+        MessageHeaders cabeceras = message.getHeaders();
+        String destino = SimpMessageHeaderAccessor.getDestination(cabeceras);
+        if (SimpMessageHeaderAccessor.getMessageType(cabeceras) == SimpMessageType.MESSAGE
+                && cabeceras.get(CABECERA_NODO_ORIGEN) == null
+                && destino != null
+                && (destino.startsWith("/topic/") || destino.startsWith("/user/"))
+                && message.getPayload() instanceof byte[] contenido) {
+            Object tipo = cabeceras.get(MessageHeaders.CONTENT_TYPE);
+            transporte.publicar(new MensajeRelay(nodo, destino, tipo != null ? tipo.toString() : null, contenido));
+        }
+        return message;
+    }
+
+    private void entregar(MensajeRelay mensaje) {
+        if (nodo.equals(mensaje.nodo())) {
+            return;
+        }
+        SimpMessageHeaderAccessor accessor = SimpMessageHeaderAccessor.create(SimpMessageType.MESSAGE);
+        accessor.setDestination(mensaje.destino());
+        if (mensaje.tipoContenido() != null) {
+            accessor.setContentType(MimeTypeUtils.parseMimeType(mensaje.tipoContenido()));
+        }
+        accessor.setHeader(CABECERA_NODO_ORIGEN, mensaje.nodo());
+        brokerChannel.send(MessageBuilder.createMessage(mensaje.contenido(), accessor.getMessageHeaders()));
+    }
+
+    @Override
+    public void start() {
+        if (activo()) {
+            transporte.recibir(this::entregar);
+        }
+        running = true;
+    }
+
+    @Override
+    public void stop() {
+        running = false;
+    }
+
+    @Override
+    public boolean isRunning() {
+        return running;
+    }
+}
@@ -0,0 +1,17 @@
+package com.infocurso.backend.config;
+
+import java.util.function.Consumer;
+
+/**
+ * Canal entre los nodos del backend para los mensajes STOMP que difunde cada uno. Con varias
+ * réplicas, un mensaje a /topic/... o /user/... generado en un nodo se reenvía a los demás,
+ * que lo entregan a sus propias sesiones. Se elige con app.websocket.relay.transporte.
+ */
+public interface TransporteRelay {
+
+    // No debe bloquear al hilo que difunde el mensaje
+    void publicar(MensajeRelay mensaje);
+
+    // Recibe los mensajes publicados por todos los nodos, incluido el propio
+    void recibir(Consumer<MensajeRelay> receptor);
+}
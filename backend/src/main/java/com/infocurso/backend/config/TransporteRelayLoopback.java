@@ -0,0 +1,39 @@
+package com.infocurso.backend.config;
+
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.function.Consumer;
+
+/**
+ * Transporte dentro de la misma JVM: cada contexto de Spring que lo usa hace de nodo.
+ * Sirve para desarrollo y pruebas con varios nodos sin servicios externos.
+ */
+@Component
+@ConditionalOnProperty(name = "app.websocket.relay.transporte", havingValue = "loopback")
+public class TransporteRelayLoopback implements TransporteRelay, DisposableBean {
+
+    // Compartida por todos los contextos de la JVM
+    private static final List<Consumer<MensajeRelay>> NODOS = new CopyOnWriteArrayList<>();
+
+    private final List<Consumer<MensajeRelay>> propios = new CopyOnWriteArrayList<>();
+
+    @Override
+    public void publicar(MensajeRelay mensaje) {
+        NODOS.forEach(nodo -> nodo.accept(mensaje));
+    }
+
+    @Override
+    public void recibir(Consumer<MensajeRelay> receptor) {
+        propios.add(receptor);
+        NODOS.add(receptor);
+    }
+
+    @Override
+    public void destroy() {
+        NODOS.removeAll(propios);
+    }
+}
@@ -0,0 +1,191 @@
+package com.infocurso.backend.config;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.postgresql.PGConnection;
+import org.postgresql.PGNotification;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.context.SmartLifecycle;
+import org.springframework.stereotype.Component;
+
+import javax.sql.DataSource;
+import java.io.IOException;
+import java.sql.Array;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Consumer;
+
+/**
+ * Transporte sobre LISTEN/NOTIFY de la base de datos que ya comparten todos los nodos, así que
+ * no hace falta ningún broker externo. Un hilo publica los mensajes pendientes por lotes y otro
+ * mantiene una conexión escuchando el canal.
+ * <p>
+ * NOTIFY admite cargas de unos 8000 bytes: los mensajes mayores solo se entregan en el nodo local.
+ */
+@Component
+@ConditionalOnProperty(name = "app.websocket.relay.transporte", havingValue = "postgres")
+public class TransporteRelayPostgres implements TransporteRelay, SmartLifecycle {
+
+    private static final Logger logger = LoggerFactory.getLogger(TransporteRelayPostgres.class);
+
+    private static final String CANAL = "chat_relay";
+    private static final int TAMANO_MAXIMO = 7900;
+    private static final int TAMANO_LOTE = 100;
+
+    private final DataSource dataSource;
+    private final ObjectMapper objectMapper;
+    private final BlockingQueue<String> pendientes = new LinkedBlockingQueue<>(10_000);
+    private final List<Consumer<MensajeRelay>> receptores = new CopyOnWriteArrayList<>();
+
+    private volatile boolean activo;
+    private Thread publicador;
+    private Thread escucha;
+
+    public TransporteRelayPostgres(DataSource dataSource, ObjectMapper objectMapper) {
+        this.dataSource = dataSource;
+        this.objectMapper = objectMapper;
+    }
+
+    @Override
+    public void publicar(MensajeRelay mensaje) {
+        String carga;
+        try {
+            carga = objectMapper.writeValueAsString(mensaje);
+        } catch (JsonProcessingException e) {
+            logger.warn("No se pudo serializar el mensaje para {}", mensaje.destino(), e);
+            return;
+        }
+        if (carga.length() > TAMANO_MAXIMO) {
+            logger.warn("Mensaje para {} demasiado grande para NOTIFY ({} bytes), solo se entrega en este nodo",
+                    mensaje.destino(), carga.length());
+            return;
+        }
+        if (!pendientes.offer(carga)) {
+            logger.warn("Cola de relay llena, se descarta el mensaje para {}", mensaje.destino());
+        }
+    }
+
+    @Override
+    public void recibir(Consumer<MensajeRelay> receptor) {
+        receptores.add(receptor);
+    }
+
+    private void buclePublicacion() {
+        List<String> lote = new ArrayList<>(TAMANO_LOTE);
+        while (activo || !pendientes.isEmpty()) {
+            try {
+                String primero = pendientes.poll(500, TimeUnit.MILLISECONDS);
+                if (primero == null) {
+                    continue;
+                }
+                lote.add(primero);
+                pendientes.drainTo(lote, TAMANO_LOTE - 1);
+                notificar(lote);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return;
+            } catch (SQLException e) {
+                logger.warn("No se pudieron publicar {} mensajes de relay", lote.size(), e);
+            } finally {
+                lote.clear();
+            }
+        }
+    }
+
+    // Un solo viaje a la base de datos por lote; las notificaciones llegan en el mismo orden
+    private void notificar(List<String> lote) throws SQLException {
+        try (Connection connection = dataSource.getConnection();
+             PreparedStatement st = connection.prepareStatement(
+                     "SELECT pg_notify('" + CANAL + "', carga) FROM unnest(?) AS carga")) {
+            Array cargas = connection.createArrayOf("text", lote.toArray());
+            st.setArray(1, cargas);
+            st.execute();
+            cargas.free();
+        }
+    }
+
+    // La conexión de escucha queda fuera del pool mientras el nodo esté activo
+    private void bucleEscucha() {
+        while (activo) {
+            try (Connection connection = dataSource.getConnection()) {
+                connection.setAutoCommit(true);
+                try (Statement st = connection.createStatement()) {
+                    st.execute("LISTEN " + CANAL);
+                }
+                PGConnection pg = connection.unwrap(PGConnection.class);
+                while (activo) {
+                    PGNotification[] notificaciones = pg.getNotifications(500);
+                    if (notificaciones != null) {
+                        for (PGNotification notificacion : notificaciones) {
+                            entregar(notificacion.getParameter());
+                        }
+                    }
+                }
+            } catch (SQLException e) {
+                if (activo) {
+                    logger.warn("Se perdió la conexión de escucha del relay, reintentando", e);
+                    esperar();
+                }
+            }
+        }
+    }
+
+    private void entregar(String carga) {
+        try {
+            MensajeRelay mensaje = objectMapper.readValue(carga, MensajeRelay.class);
+            receptores.forEach(receptor -> receptor.accept(mensaje));
+        } catch (IOException | RuntimeException e) {
+            logger.warn("No se pudo entregar un mensaje de relay", e);
+        }
+    }
+
+    private void esperar() {
+        try {
+            TimeUnit.SECONDS.sleep(1);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    @Override
+    public void start() {
+        activo = true;
+        escucha = new Thread(this::bucleEscucha, "relay-postgres-escucha");
+        escucha.setDaemon(true);
+        escucha.start();
+        publicador = new Thread(this::buclePublicacion, "relay-postgres-publicacion");
+        publicador.start();
+    }
+
+    @Override
+    public void stop() {
+        activo = false;
+        try {
+            publicador.join(TimeUnit.SECONDS.toMillis(5));
+            escucha.join(TimeUnit.SECONDS.toMillis(2));
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    @Override
+    public boolean isRunning() {
+        return activo;
+    }
+
+    // Igual que la cola de escritura del chat: se para después del servidor web
+    @Override
+    public int getPhase() {
+        return SmartLifecycle.DEFAULT_PHASE - 4096;
+    }
+}
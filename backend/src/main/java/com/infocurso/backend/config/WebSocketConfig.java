@@ -1,24 +1,96 @@
 package com.infocurso.backend.config;
 
+import lombok.RequiredArgsConstructor;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.context.annotation.Configuration;
+import org.springframework.messaging.simp.config.ChannelRegistration;
 import org.springframework.messaging.simp.config.MessageBrokerRegistry;
+import org.springframework.util.unit.DataSize;
 import org.springframework.web.socket.config.annotation.EnableWebSocketMessageBroker;
 import org.springframework.web.socket.config.annotation.StompEndpointRegistry;
 import org.springframework.web.socket.config.annotation.WebSocketMessageBrokerConfigurer;
+import org.springframework.web.socket.config.annotation.WebSocketTransportRegistration;
+
+import java.time.Duration;
 
 @Configuration
 @EnableWebSocketMessageBroker
+@RequiredArgsConstructor
 public class WebSocketConfig implements WebSocketMessageBrokerConfigurer {
 
+    private final RelayBroker relayBroker;
+
+    // Hilos que procesan los frames que llegan de los clientes (@MessageMapping)
+    @Value("${app.websocket.inbound.core-pool-size:8}")
+    private int inboundCorePoolSize;
+
+    @Value("${app.websocket.inbound.max-pool-size:32}")
+    private int inboundMaxPoolSize;
+
+    @Value("${app.websocket.inbound.queue-capacity:1000}")
+    private int inboundQueueCapacity;
+
+    // Hilos que escriben en las sesiones. Una sesión lenta solo retiene uno: el resto de
+    // mensajes para ella se acumulan en su buffer mientras los hilos siguen con otras sesiones.
+    @Value("${app.websocket.outbound.core-pool-size:8}")
+    private int outboundCorePoolSize;
+
+    @Value("${app.websocket.outbound.max-pool-size:32}")
+    private int outboundMaxPoolSize;
+
+    @Value("${app.websocket.outbound.queue-capacity:5000}")
+    private int outboundQueueCapacity;
+
+    // Una sesión que tarda más que esto en aceptar un envío, o que acumula más de
+    // send-buffer-size pendientes, se cierra; el cliente se reconecta y recarga el historial.
+    @Value("${app.websocket.send-time-limit:5s}")
+    private Duration sendTimeLimit;
+
+    @Value("${app.websocket.send-buffer-size:256KB}")
+    private DataSize sendBufferSize;
+
+    @Value("${app.websocket.message-size-limit:64KB}")
+    private DataSize messageSizeLimit;
+
     @Override
     public void configureMessageBroker(MessageBrokerRegistry config) {
-        config.enableSimpleBroker("/topic", "/user/queue");
+        // /user/queue/x se traduce a /queue/x-user{sesión}, así que el broker tiene que aceptar /queue
+        config.enableSimpleBroker("/topic", "/queue");
         config.setApplicationDestinationPrefixes("/app");
         config.setUserDestinationPrefix("/user"); // para mensajes privados
+
+        // Con varias réplicas, lo que se difunde en este nodo llega también a las sesiones de los demás
+        if (relayBroker.activo()) {
+            config.configureBrokerChannel().interceptors(relayBroker);
+        }
     }
 
     @Override
     public void registerStompEndpoints(StompEndpointRegistry registry) {
         registry.addEndpoint("/ws-chat").setAllowedOriginPatterns("*").withSockJS();
     }
+
+    @Override
+    public void configureClientInboundChannel(ChannelRegistration registration) {
+        registration.taskExecutor()
+                .corePoolSize(inboundCorePoolSize)
+                .maxPoolSize(inboundMaxPoolSize)
+                .queueCapacity(inboundQueueCapacity);
+    }
+
+    @Override
+    public void configureClientOutboundChannel(ChannelRegistration registration) {
+        registration.taskExecutor()
+                .corePoolSize(outboundCorePoolSize)
+                .maxPoolSize(outboundMaxPoolSize)
+                .queueCapacity(outboundQueueCapacity);
+    }
+
+    @Override
+    public void configureWebSocketTransport(WebSocketTransportRegistration registration) {
+        registration
+                .setSendTimeLimit((int) sendTimeLimit.toMillis())
+                .setSendBufferSizeLimit((int) sendBufferSize.toBytes())
+                .setMessageSizeLimit((int) messageSizeLimit.toBytes());
+    }
 }
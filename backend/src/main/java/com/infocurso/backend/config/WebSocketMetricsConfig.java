@@ -0,0 +1,73 @@
+package com.infocurso.backend.config;
+
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskExecutor;
+import org.springframework.web.socket.config.WebSocketMessageBrokerStats;
+import org.springframework.web.socket.messaging.SubProtocolWebSocketHandler;
+
+import java.util.function.ToIntFunction;
+
+/**
+ * Métricas del broker STOMP: profundidad de las colas de los canales inbound/outbound y
+ * sesiones abiertas o cerradas por superar los límites de envío (clientes lentos).
+ * Se consultan en /actuator/metrics/chat.websocket.*
+ */
+@Configuration
+public class WebSocketMetricsConfig {
+
+    @Bean
+    public MeterBinder webSocketMetricas(
+            @Qualifier("clientInboundChannelExecutor") ThreadPoolTaskExecutor inbound,
+            @Qualifier("clientOutboundChannelExecutor") ThreadPoolTaskExecutor outbound,
+            WebSocketMessageBrokerStats stats) {
+        return registry -> {
+            registrarCanal(registry, "inbound", inbound);
+            registrarCanal(registry, "outbound", outbound);
+
+            registrarSesiones(registry, stats, "websocket", SubProtocolWebSocketHandler.Stats::getWebSocketSessions);
+            registrarSesiones(registry, stats, "streaming", SubProtocolWebSocketHandler.Stats::getHttpStreamingSessions);
+            registrarSesiones(registry, stats, "polling", SubProtocolWebSocketHandler.Stats::getHttpPollingSessions);
+
+            registrarCierres(registry, stats, "limite_envio", SubProtocolWebSocketHandler.Stats::getLimitExceededSessions);
+            registrarCierres(registry, stats, "error_transporte", SubProtocolWebSocketHandler.Stats::getTransportErrorSessions);
+            registrarCierres(registry, stats, "sin_mensajes", SubProtocolWebSocketHandler.Stats::getNoMessagesReceivedSessions);
+        };
+    }
+
+    private static void registrarCanal(MeterRegistry registry, String canal, ThreadPoolTaskExecutor executor) {
+        Gauge.builder("chat.websocket.canal.cola", executor, e -> e.getThreadPoolExecutor().getQueue().size())
+                .description("Mensajes esperando un hilo del canal")
+                .tag("canal", canal)
+                .register(registry);
+        Gauge.builder("chat.websocket.canal.hilos.activos", executor, ThreadPoolTaskExecutor::getActiveCount)
+                .tag("canal", canal)
+                .register(registry);
+    }
+
+    private static void registrarSesiones(MeterRegistry registry, WebSocketMessageBrokerStats stats, String tipo,
+                                          ToIntFunction<SubProtocolWebSocketHandler.Stats> valor) {
+        Gauge.builder("chat.websocket.sesiones", stats, s -> leer(s, valor))
+                .description("Sesiones STOMP abiertas")
+                .tag("tipo", tipo)
+                .register(registry);
+    }
+
+    private static void registrarCierres(MeterRegistry registry, WebSocketMessageBrokerStats stats, String motivo,
+                                         ToIntFunction<SubProtocolWebSocketHandler.Stats> valor) {
+        FunctionCounter.builder("chat.websocket.sesiones.cerradas", stats, s -> leer(s, valor))
+                .description("Sesiones cerradas por el servidor; limite_envio son clientes demasiado lentos")
+                .tag("motivo", motivo)
+                .register(registry);
+    }
+
+    private static double leer(WebSocketMessageBrokerStats stats, ToIntFunction<SubProtocolWebSocketHandler.Stats> valor) {
+        SubProtocolWebSocketHandler.Stats sesiones = stats.getWebSocketSessionStats();
+        return sesiones != null ? valor.applyAsInt(sesiones) : 0;
+    }
+}
@@ -3,7 +3,9 @@ package com.infocurso.backend.controller;
 import com.infocurso.backend.dto.*;
 import com.infocurso.backend.service.AdminService;
 import com.infocurso.backend.service.AlumnoCursoService;
+import com.infocurso.backend.service.CatalogoCursosService;
 import com.infocurso.backend.service.CursoService;
+import com.infocurso.backend.service.EstadisticaAlumnoCursoService;
 import com.infocurso.backend.service.EstadisticasSistemaService;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.http.ResponseEntity;
@@ -27,12 +29,22 @@ public class AdminController {
     private AlumnoCursoService alumnoCursoService;
     @Autowired
     private EstadisticasSistemaService estadisticasSistemaService;
+    @Autowired
+    private EstadisticaAlumnoCursoService estadisticaAlumnoCursoService;
+    @Autowired
+    private CatalogoCursosService catalogoCursosService;
 
     @GetMapping("/estadisticas")
     public EstadisticasSistemaDTO getEstadisticasSistema() {
         return estadisticasSistemaService.getEstadisticasSistema();
     }
 
+    // Repara la tabla de estadísticas por alumno y curso desde las tablas de origen
+    @PostMapping("/estadisticas/reconstruir")
+    public ResponseEntity<Map<String, Integer>> reconstruirEstadisticas() {
+        return ResponseEntity.ok(Map.of("filas", estadisticaAlumnoCursoService.reconstruir()));
+    }
+
     @PostMapping("/curso")
     public ResponseEntity<CursoDTO> crearCurso(@RequestBody CursoDTO dto) {
         return ResponseEntity.ok(adminService.crearCurso(dto));
@@ -62,9 +74,14 @@ public class AdminController {
     public void crearEventoAdmin(@PathVariable UUID cursoId, @RequestBody EventoCursoDTO dto) {
         adminService.crearEventoAdmin(cursoId, dto);
     }
+    // Resumen paginado; el detalle de cada curso está en /curso/{cursoId}
     @GetMapping("/cursos")
-    public List<CursoDTO> listarCursos() {
-        return cursoService.getTodosLosCursos();
+    public PaginaCursosDTO listarCursos(
+            @RequestParam(required = false) Integer pagina,
+            @RequestParam(required = false) Integer tamano,
+            @RequestParam(required = false) String orden,
+            @RequestParam(required = false) String filtro) {
+        return catalogoCursosService.buscar(pagina, tamano, orden, filtro);
     }
     @GetMapping("/profesores")
     public ResponseEntity<List<UsuarioDTO>> listarProfesores() {
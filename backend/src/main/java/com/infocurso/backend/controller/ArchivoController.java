@@ -1,6 +1,9 @@
 package com.infocurso.backend.controller;
 
 
+import com.infocurso.backend.service.AlmacenamientoService;
+import lombok.RequiredArgsConstructor;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.http.HttpStatus;
 import org.springframework.web.bind.annotation.PostMapping;
 import org.springframework.web.bind.annotation.RequestMapping;
@@ -10,18 +13,17 @@ import org.springframework.web.multipart.MultipartFile;
 import org.springframework.web.server.ResponseStatusException;
 
 import java.io.IOException;
-import java.nio.file.Files;
-import java.nio.file.Path;
-import java.nio.file.Paths;
-import java.nio.file.StandardCopyOption;
 import java.util.Map;
-import java.util.UUID;
 
 @RestController
 @RequestMapping("/api/archivos")
+@RequiredArgsConstructor
 public class ArchivoController {
 
-    private final String rutaBase = "uploads"; // puedes hacerla configurable
+    private final AlmacenamientoService almacenamiento;
+
+    @Value("${app.base-url}")
+    private String baseUrl;
 
     @PostMapping("/imagen")
     public Map<String, Object> subirImagen(@RequestParam("file") MultipartFile file) throws IOException {
@@ -29,15 +31,11 @@ public class ArchivoController {
             throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "Archivo vacío");
         }
 
-        String nombreArchivo = UUID.randomUUID() + "_" + file.getOriginalFilename();
-        Path destino = Paths.get(rutaBase).resolve(nombreArchivo);
-        Files.createDirectories(destino.getParent());
-        Files.copy(file.getInputStream(), destino, StandardCopyOption.REPLACE_EXISTING);
+        String nombreArchivo = almacenamiento.guardar(file);
 
         // ⚠️ IMPORTANTE: URL ABSOLUTA
-        String urlPublica = "http://localhost:8080/archivos/" + nombreArchivo;
+        String urlPublica = baseUrl + "/archivos/" + nombreArchivo;
 
         return Map.of("url", urlPublica);
     }
 }
-
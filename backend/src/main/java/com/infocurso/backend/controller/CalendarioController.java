@@ -0,0 +1,36 @@
+package com.infocurso.backend.controller;
+
+import com.infocurso.backend.dto.EntradaCalendarioDTO;
+import com.infocurso.backend.entity.Usuario;
+import com.infocurso.backend.service.CalendarioService;
+import lombok.RequiredArgsConstructor;
+import org.springframework.format.annotation.DateTimeFormat;
+import org.springframework.security.access.prepost.PreAuthorize;
+import org.springframework.security.core.annotation.AuthenticationPrincipal;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.bind.annotation.RestController;
+
+import java.time.LocalDate;
+import java.util.List;
+import java.util.UUID;
+
+@RestController
+@RequestMapping("/api/calendario")
+@RequiredArgsConstructor
+public class CalendarioController {
+
+    private final CalendarioService calendarioService;
+
+    // ?cursos=a,b&desde=2026-10-01&hasta=2026-10-31; sin cursos, todos los del usuario
+    @GetMapping
+    @PreAuthorize("hasAnyRole('ALUMNO', 'PROFESOR', 'ADMINISTRADOR')")
+    public List<EntradaCalendarioDTO> getCalendario(
+            @AuthenticationPrincipal Usuario usuario,
+            @RequestParam(required = false) List<UUID> cursos,
+            @RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate desde,
+            @RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate hasta) {
+        return calendarioService.getCalendario(usuario, cursos, desde, hasta);
+    }
+}
@@ -2,6 +2,7 @@ package com.infocurso.backend.controller;
 
 import com.infocurso.backend.dto.ChatMessage;
 import com.infocurso.backend.entity.Mensaje;
+import com.infocurso.backend.exception.ResourceNotFoundException;
 import com.infocurso.backend.repository.MensajeRepository;
 import com.infocurso.backend.repository.UsuarioRepository;
 import lombok.RequiredArgsConstructor;
@@ -21,8 +22,11 @@ public class ChatController {
 
     @MessageMapping("/chat")
     public void enviar(ChatMessage msg) {
-        var emisor = usuarioRepository.getReferenceById(msg.getEmisorId());
-        var receptor = usuarioRepository.getReferenceById(msg.getReceptorId());
+        // Fuera de transacción: una referencia perezosa no podría leer nombre ni email
+        var emisor = usuarioRepository.findById(msg.getEmisorId())
+                .orElseThrow(() -> new ResourceNotFoundException("Usuario no encontrado"));
+        var receptor = usuarioRepository.findById(msg.getReceptorId())
+                .orElseThrow(() -> new ResourceNotFoundException("Usuario no encontrado"));
 
         Mensaje nuevo = Mensaje.builder()
                 .emisor(emisor)
@@ -41,8 +45,9 @@ public class ChatController {
 
         msg.setFechaEnvio(nuevo.getFechaEnvio());
 
+        // El nombre del usuario en la sesión STOMP es su email, igual que en NotificacionService
         messagingTemplate.convertAndSendToUser(
-                receptor.getId().toString(),
+                receptor.getEmail(),
                 "/queue/messages",
                 msg
         );
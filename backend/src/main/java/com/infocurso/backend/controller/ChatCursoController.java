@@ -1,8 +1,8 @@
 package com.infocurso.backend.controller;
 
 import com.infocurso.backend.dto.MensajeCursoDTO;
+import com.infocurso.backend.dto.PaginaMensajesCursoDTO;
 import com.infocurso.backend.entity.Usuario;
-import com.infocurso.backend.repository.MensajeCursoRepository;
 import com.infocurso.backend.service.ChatCursoService;
 import lombok.RequiredArgsConstructor;
 import org.springframework.messaging.handler.annotation.DestinationVariable;
@@ -23,7 +23,6 @@ import java.util.UUID;
 public class ChatCursoController {
 
     private final ChatCursoService chatCursoService;
-    private final MensajeCursoRepository mensajeCursoRepository;
     private final SimpMessagingTemplate messagingTemplate;
 
     // ✅ Marcar mensajes como leídos (con broadcast de read receipts)
@@ -31,15 +30,16 @@ public class ChatCursoController {
     public void marcarMensajesComoLeidos(
             @PathVariable UUID cursoId,
             @AuthenticationPrincipal Usuario usuario) {
-        List<UUID> mensajesLeidos = chatCursoService.marcarMensajesComoLeidos(cursoId, usuario.getId());
-
-        // Broadcast read receipts a todos los usuarios del curso
-        messagingTemplate.convertAndSend(
-                "/topic/curso/" + cursoId + "/read-receipts",
-                Map.of(
-                        "userId", usuario.getId().toString(),
-                        "userName", usuario.getNombre(),
-                        "messageIds", mensajesLeidos));
+        // Broadcast read receipts a todos los usuarios del curso, solo si se ha leído algo nuevo
+        chatCursoService.marcarMensajesComoLeidos(cursoId, usuario.getId())
+                .filter(lectura -> lectura.hastaSecuencia() > lectura.desdeSecuencia())
+                .ifPresent(lectura -> messagingTemplate.convertAndSend(
+                        "/topic/curso/" + cursoId + "/read-receipts",
+                        Map.of(
+                                "userId", usuario.getId().toString(),
+                                "userName", usuario.getNombre(),
+                                "desdeSecuencia", lectura.desdeSecuencia(),
+                                "hastaSecuencia", lectura.hastaSecuencia())));
     }
 
     // ✅ Obtener número de mensajes no leídos
@@ -50,6 +50,12 @@ public class ChatCursoController {
         return chatCursoService.getNumeroMensajesNoLeidos(cursoId, usuario.getId());
     }
 
+    // ✅ No leídos de todos los cursos del usuario en una sola llamada
+    @GetMapping("/no-leidos")
+    public Map<UUID, Long> getMensajesNoLeidosPorCurso(@AuthenticationPrincipal Usuario usuario) {
+        return chatCursoService.getMensajesNoLeidosPorCurso(usuario.getId());
+    }
+
     @PostMapping("/{cursoId}")
     public void enviarMensaje(
             @PathVariable UUID cursoId,
@@ -59,12 +65,20 @@ public class ChatCursoController {
         chatCursoService.enviarMensajeCurso(cursoId, usuario, contenido);
     }
 
+    // Solo la página más reciente; el resto del historial se pide a /historial
     @GetMapping("/{cursoId}")
     public List<MensajeCursoDTO> getMensajes(@PathVariable UUID cursoId) {
-        return mensajeCursoRepository.findAllByCursoIdOrderByFechaEnvioAsc(cursoId)
-                .stream()
-                .map(MensajeCursoDTO::from)
-                .toList();
+        return chatCursoService.obtenerHistorial(cursoId, null, null, null).mensajes();
+    }
+
+    // ✅ Historial paginado por cursor
+    @GetMapping("/{cursoId}/historial")
+    public PaginaMensajesCursoDTO getHistorial(
+            @PathVariable UUID cursoId,
+            @RequestParam(required = false) String antes,
+            @RequestParam(required = false) String despues,
+            @RequestParam(required = false) Integer limite) {
+        return chatCursoService.obtenerHistorial(cursoId, antes, despues, limite);
     }
 
     // ✅ WebSocket: Typing indicators
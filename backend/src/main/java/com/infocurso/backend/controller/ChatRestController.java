@@ -1,23 +1,30 @@
 package com.infocurso.backend.controller;
 
+import com.infocurso.backend.dto.ConversacionDTO;
+import com.infocurso.backend.dto.ErrorDTO;
 import com.infocurso.backend.dto.MensajeCursoDTO;
 import com.infocurso.backend.dto.MensajeCursoVistaDTO;
-import com.infocurso.backend.dto.MensajeDTO;
+import com.infocurso.backend.dto.PaginaMensajesPrivadosDTO;
 // import com.infocurso.backend.entity.Mensaje;
-import com.infocurso.backend.entity.MensajeCurso;
-import com.infocurso.backend.repository.CursoRepository;
-import com.infocurso.backend.repository.MensajeCursoRepository;
-import com.infocurso.backend.repository.MensajeRepository;
+import com.infocurso.backend.entity.Usuario;
+import com.infocurso.backend.exception.ResourceNotFoundException;
 import com.infocurso.backend.repository.UsuarioRepository;
+import com.infocurso.backend.service.ChatCursoService;
+import com.infocurso.backend.service.ChatPrivadoService;
 import lombok.RequiredArgsConstructor;
+import org.springframework.http.HttpStatus;
+import org.springframework.messaging.handler.annotation.MessageExceptionHandler;
 import org.springframework.messaging.handler.annotation.MessageMapping;
 import org.springframework.messaging.handler.annotation.Payload;
-import org.springframework.messaging.simp.SimpMessagingTemplate;
-import org.springframework.transaction.annotation.Transactional;
+import org.springframework.messaging.simp.annotation.SendToUser;
+import org.springframework.security.core.annotation.AuthenticationPrincipal;
 import org.springframework.web.bind.annotation.GetMapping;
 import org.springframework.web.bind.annotation.PathVariable;
+import org.springframework.web.bind.annotation.PostMapping;
 import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
 import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.server.ResponseStatusException;
 
 import java.time.LocalDateTime;
 import java.util.List;
@@ -32,55 +39,75 @@ public class ChatRestController {
 
     private static final Logger logger = LoggerFactory.getLogger(ChatRestController.class);
 
-    private final MensajeRepository mensajeRepository;
-    private final MensajeCursoRepository mensajeCursoRepository;
-    private final SimpMessagingTemplate messagingTemplate;
-    private final CursoRepository cursoRepository;
     private final UsuarioRepository usuarioRepository;
+    private final ChatCursoService chatCursoService;
+    private final ChatPrivadoService chatPrivadoService;
 
-    // Conversación privada entre dos usuarios
-    @GetMapping("/privado/{user1}/{user2}")
-    public List<MensajeDTO> getConversacion(@PathVariable UUID user1, @PathVariable UUID user2) {
-        return mensajeRepository.obtenerConversacion(user1, user2)
-                .stream()
-                .map(MensajeDTO::from)
-                .toList();
+    // Conversaciones privadas del usuario, de la más reciente a la más antigua
+    @GetMapping("/conversaciones")
+    public List<ConversacionDTO> getConversaciones(@AuthenticationPrincipal Usuario usuario) {
+        return chatPrivadoService.obtenerBandeja(usuario.getId());
+    }
+
+    // Conversación privada con otro usuario, paginada por cursor como el historial de los cursos
+    @GetMapping("/privado/{otroId}")
+    public PaginaMensajesPrivadosDTO getConversacion(
+            @PathVariable UUID otroId,
+            @AuthenticationPrincipal Usuario usuario,
+            @RequestParam(required = false) String antes,
+            @RequestParam(required = false) String despues,
+            @RequestParam(required = false) Integer limite) {
+        return chatPrivadoService.obtenerConversacion(usuario.getId(), otroId, antes, despues, limite);
+    }
+
+    @PostMapping("/privado/{otroId}/leidos")
+    public int marcarLeidos(@PathVariable UUID otroId, @AuthenticationPrincipal Usuario usuario) {
+        return chatPrivadoService.marcarLeidos(usuario.getId(), otroId);
     }
 
+    // Solo la página más reciente; el historial completo está en /api/chat-curso/{cursoId}/historial
     @GetMapping("/curso/{cursoId}")
     public List<MensajeCursoVistaDTO> obtenerMensajes(@PathVariable UUID cursoId) {
-        return mensajeCursoRepository.findAllByCursoIdOrderByFechaEnvioAsc(cursoId)
+        return chatCursoService.obtenerHistorial(cursoId, null, null, null).mensajes()
                 .stream()
                 .map(MensajeCursoVistaDTO::from)
                 .toList();
     }
 
     @MessageMapping("/curso-chat")
-    @Transactional
     public void enviarMensajeCurso(@Payload MensajeCursoDTO dto) {
         logger.debug("🎯 enviarMensajeCurso invocado para CursoId: {}", dto.getCursoId());
 
-        try {
-            MensajeCurso mensaje = MensajeCurso.builder()
-                    .curso(cursoRepository.getReferenceById(dto.getCursoId()))
-                    .emisor(usuarioRepository.getReferenceById(dto.getAutor().getId()))
-                    .contenido(dto.getContenido())
-                    .fechaEnvio(LocalDateTime.now())
-                    .build();
-
-            mensajeCursoRepository.save(mensaje);
-            logger.debug("✅ Mensaje guardado en BD");
-
-            MensajeCursoDTO dtoEnriquecido = MensajeCursoDTO.from(mensaje);
-            System.out.println("📤 Broadcasting mensaje a: /topic/curso/" + dto.getCursoId());
+        // El servicio hace el broadcast a /topic/curso/{id} y deja el mensaje en la cola de escritura
+        Usuario emisor = usuarioRepository.findById(dto.getAutor().getId())
+                .orElseThrow(() -> new ResourceNotFoundException("Usuario no encontrado"));
+        chatCursoService.enviarMensajeCurso(dto.getCursoId(), emisor, dto.getContenido());
+        logger.debug("✅ Mensaje enviado por WebSocket");
+    }
 
-            messagingTemplate.convertAndSend(
-                    "/topic/curso/" + dto.getCursoId(),
-                    dtoEnriquecido);
-            logger.debug("✅ Mensaje enviado por WebSocket");
-        } catch (Exception e) {
+    // Por STOMP no hay respuesta HTTP: el rechazo (p. ej. el 503 de la cola de escritura llena) se
+    // devuelve solo a la sesión que envió, que puede avisar o reintentar
+    @MessageExceptionHandler
+    @SendToUser(destinations = "/queue/errors", broadcast = false)
+    public ErrorDTO mensajeRechazado(Exception e) {
+        HttpStatus estado;
+        if (e instanceof ResponseStatusException rechazo) {
+            estado = HttpStatus.valueOf(rechazo.getStatusCode().value());
+        } else if (e instanceof ResourceNotFoundException) {
+            estado = HttpStatus.NOT_FOUND;
+        } else {
+            estado = HttpStatus.INTERNAL_SERVER_ERROR;
+        }
+        if (estado.is5xxServerError()) {
             logger.error("❌ Error procesando mensaje: {}", e.getMessage(), e);
         }
+        return ErrorDTO.builder()
+                .error(estado.getReasonPhrase())
+                .message(e instanceof ResponseStatusException rechazo ? rechazo.getReason() : e.getMessage())
+                .status(estado.value())
+                .timestamp(LocalDateTime.now())
+                .path("/app/curso-chat")
+                .build();
     }
 
 }
@@ -1,11 +1,15 @@
 package com.infocurso.backend.controller;
 
 import com.infocurso.backend.dto.CursoDTO;
+import com.infocurso.backend.dto.PaginaResultadosBusquedaDTO;
+import com.infocurso.backend.entity.Usuario;
 // import com.infocurso.backend.entity.Curso;
+import com.infocurso.backend.service.BusquedaService;
 import com.infocurso.backend.service.CursoService;
 import lombok.RequiredArgsConstructor;
 import org.springframework.http.ResponseEntity;
 import org.springframework.security.access.prepost.PreAuthorize;
+import org.springframework.security.core.annotation.AuthenticationPrincipal;
 import org.springframework.web.bind.annotation.*;
 
 import java.util.UUID;
@@ -16,6 +20,7 @@ import java.util.UUID;
 public class CursoController {
 
     private final CursoService cursoService;
+    private final BusquedaService busquedaService;
 
     @GetMapping("/{id}")
     @PreAuthorize("hasAnyRole('ALUMNO', 'PROFESOR', 'ADMINISTRADOR')")
@@ -25,6 +30,18 @@ public class CursoController {
 
     }
 
+    // Búsqueda en la wiki, las aportaciones, las prácticas, los eventos y el chat del curso
+    @GetMapping("/{id}/buscar")
+    @PreAuthorize("hasAnyRole('ALUMNO', 'PROFESOR', 'ADMINISTRADOR')")
+    public PaginaResultadosBusquedaDTO buscar(
+            @PathVariable UUID id,
+            @AuthenticationPrincipal Usuario usuario,
+            @RequestParam("q") String consulta,
+            @RequestParam(required = false) Integer pagina,
+            @RequestParam(required = false) Integer tamano) {
+        return busquedaService.buscar(id, usuario, consulta, pagina, tamano);
+    }
+
     @DeleteMapping("/{id}")
     @PreAuthorize("hasRole('PROFESOR')")
     public void eliminarCurso(@PathVariable UUID id) {
@@ -0,0 +1,192 @@
+package com.infocurso.backend.controller;
+
+import com.infocurso.backend.service.AlmacenamientoService;
+import com.infocurso.backend.service.AvatarService;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.CacheControl;
+import org.springframework.http.ContentDisposition;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpRange;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.http.MediaTypeFactory;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.PathVariable;
+import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.context.request.ServletWebRequest;
+import org.springframework.web.server.ResponseStatusException;
+
+import java.io.IOException;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.channels.WritableByteChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.time.Duration;
+import java.util.List;
+import java.util.Optional;
+
+/**
+ * Descarga de los archivos subidos. Con el conector NIO de Tomcat el contenido se envía con sendfile
+ * desde el propio hilo del poller, así que una descarga lenta de un proyecto grande no retiene un hilo
+ * de peticiones; si no, se copia con FileChannel.transferTo. Admite un rango por petición (reanudar
+ * descargas, vídeo), ETag/Last-Modified para las revalidaciones y caché larga: un archivo no cambia
+ * una vez subido, y los nuevos se sirven por el hash de su contenido.
+ */
+@RestController
+public class DescargaArchivoController {
+
+    private static final String SENDFILE_SOPORTADO = "org.apache.tomcat.sendfile.support";
+    private static final String SENDFILE_ARCHIVO = "org.apache.tomcat.sendfile.filename";
+    private static final String SENDFILE_INICIO = "org.apache.tomcat.sendfile.start";
+    private static final String SENDFILE_FIN = "org.apache.tomcat.sendfile.end";
+
+    private final AlmacenamientoService almacenamiento;
+    private final AvatarService avatares;
+    private final CacheControl cacheControl;
+
+    public DescargaArchivoController(AlmacenamientoService almacenamiento,
+                                     AvatarService avatares,
+                                     @Value("${app.almacenamiento.cache-max-age:365d}") Duration cacheMaxAge) {
+        this.almacenamiento = almacenamiento;
+        this.avatares = avatares;
+        this.cacheControl = CacheControl.maxAge(cacheMaxAge).cachePublic();
+    }
+
+    @GetMapping("/archivos/{hash}/{nombre}")
+    public void descargarBlob(@PathVariable String hash,
+                              @PathVariable String nombre,
+                              HttpServletRequest request,
+                              HttpServletResponse response) throws IOException {
+        Path archivo = almacenamiento.buscarBlob(hash)
+                .orElseThrow(() -> new ResponseStatusException(HttpStatus.NOT_FOUND, "Archivo no encontrado"));
+        response.setHeader(HttpHeaders.CONTENT_DISPOSITION, ContentDisposition.inline()
+                .filename(nombre).build().toString());
+        // El hash identifica el contenido: la ETag no depende de la fecha del archivo en esta réplica
+        servir(archivo, nombre, "\"" + hash + "\"", cacheControl, request, response);
+    }
+
+    /**
+     * Avatar con el tamaño más pequeño que cubra {@code tam} píxeles, en WebP si el navegador lo acepta.
+     * Mientras se generan las variantes se sirve el original sin caché, para que la siguiente petición
+     * ya reciba la variante.
+     */
+    @GetMapping("/uploads/avatars/{nombre}")
+    public void descargarAvatar(@PathVariable String nombre,
+                                @RequestParam(required = false) Integer tam,
+                                HttpServletRequest request,
+                                HttpServletResponse response) throws IOException {
+        String accept = request.getHeader(HttpHeaders.ACCEPT);
+        boolean aceptaWebp = accept != null && accept.contains("image/webp");
+        Optional<AvatarService.AvatarServido> avatar = avatares.buscar(nombre, tam, aceptaWebp);
+        if (avatar.isPresent()) {
+            AvatarService.AvatarServido servido = avatar.get();
+            response.setHeader(HttpHeaders.VARY, HttpHeaders.ACCEPT);
+            servir(servido.archivo(), servido.archivo().getFileName().toString(),
+                    "\"" + servido.etiqueta() + "\"",
+                    servido.definitivo() ? cacheControl : CacheControl.noCache(), request, response);
+            return;
+        }
+        // Avatares de antes de guardarlos por hash
+        Path archivo = almacenamiento.buscar("avatars/" + nombre)
+                .orElseThrow(() -> new ResponseStatusException(HttpStatus.NOT_FOUND, "Avatar no encontrado"));
+        servir(archivo, nombre, etiquetaPorFecha(archivo), cacheControl, request, response);
+    }
+
+    // Archivos subidos antes de guardarlos por hash
+    @GetMapping("/archivos/{nombre}")
+    public void descargar(@PathVariable String nombre,
+                          HttpServletRequest request,
+                          HttpServletResponse response) throws IOException {
+        Path archivo = almacenamiento.buscar(nombre)
+                .orElseThrow(() -> new ResponseStatusException(HttpStatus.NOT_FOUND, "Archivo no encontrado"));
+        servir(archivo, nombre, etiquetaPorFecha(archivo), cacheControl, request, response);
+    }
+
+    private static String etiquetaPorFecha(Path archivo) throws IOException {
+        return "\"" + Long.toHexString(Files.size(archivo)) + "-"
+                + Long.toHexString(Files.getLastModifiedTime(archivo).toMillis()) + "\"";
+    }
+
+    private void servir(Path archivo, String nombre, String etag, CacheControl cache,
+                        HttpServletRequest request, HttpServletResponse response) throws IOException {
+        long longitud = Files.size(archivo);
+        long modificado = Files.getLastModifiedTime(archivo).toMillis();
+
+        response.setHeader(HttpHeaders.CACHE_CONTROL, cache.getHeaderValue());
+        response.setHeader(HttpHeaders.ACCEPT_RANGES, "bytes");
+        // Pone ETag y Last-Modified y, si el cliente ya tiene esta versión, responde 304
+        if (new ServletWebRequest(request, response).checkNotModified(etag, modificado)) {
+            return;
+        }
+        response.setContentType(MediaTypeFactory.getMediaType(nombre)
+                .orElse(MediaType.APPLICATION_OCTET_STREAM).toString());
+
+        long inicio = 0;
+        long fin = longitud - 1;
+        String rango = request.getHeader(HttpHeaders.RANGE);
+        if (rango != null && rangoVigente(request, etag, modificado)) {
+            List<HttpRange> rangos;
+            try {
+                rangos = HttpRange.parseRanges(rango);
+            } catch (IllegalArgumentException e) {
+                rangos = List.of();
+            }
+            // Con varios rangos se envía el archivo entero, que el estándar también permite
+            if (rangos.size() == 1) {
+                inicio = rangos.get(0).getRangeStart(longitud);
+                fin = rangos.get(0).getRangeEnd(longitud);
+                // HttpRange no comprueba que el inicio caiga dentro del archivo
+                if (inicio >= longitud || inicio > fin) {
+                    response.setHeader(HttpHeaders.CONTENT_RANGE, "bytes */" + longitud);
+                    response.setStatus(HttpStatus.REQUESTED_RANGE_NOT_SATISFIABLE.value());
+                    return;
+                }
+                response.setStatus(HttpStatus.PARTIAL_CONTENT.value());
+                response.setHeader(HttpHeaders.CONTENT_RANGE, "bytes " + inicio + "-" + fin + "/" + longitud);
+            }
+        }
+        response.setContentLengthLong(fin - inicio + 1);
+
+        if (!"HEAD".equals(request.getMethod())) {
+            enviar(archivo, inicio, fin - inicio + 1, request, response);
+        }
+    }
+
+    // If-Range: el rango solo vale si el cliente tiene la misma versión; si no, va el archivo entero
+    private boolean rangoVigente(HttpServletRequest request, String etag, long modificado) {
+        String siRango = request.getHeader(HttpHeaders.IF_RANGE);
+        if (siRango == null) {
+            return true;
+        }
+        if (siRango.startsWith("\"") || siRango.startsWith("W/")) {
+            return siRango.equals(etag);
+        }
+        try {
+            return request.getDateHeader(HttpHeaders.IF_RANGE) == modificado / 1000 * 1000;
+        } catch (IllegalArgumentException e) {
+            return false;
+        }
+    }
+
+    private void enviar(Path archivo, long inicio, long longitud,
+                        HttpServletRequest request, HttpServletResponse response) throws IOException {
+        if (Boolean.TRUE.equals(request.getAttribute(SENDFILE_SOPORTADO))) {
+            request.setAttribute(SENDFILE_ARCHIVO, archivo.toString());
+            request.setAttribute(SENDFILE_INICIO, inicio);
+            request.setAttribute(SENDFILE_FIN, inicio + longitud);
+            return;
+        }
+        try (FileChannel canal = FileChannel.open(archivo, StandardOpenOption.READ)) {
+            WritableByteChannel salida = Channels.newChannel(response.getOutputStream());
+            long enviados = 0;
+            while (enviados < longitud) {
+                enviados += canal.transferTo(inicio + enviados, longitud - enviados, salida);
+            }
+        }
+    }
+}
@@ -3,6 +3,7 @@ package com.infocurso.backend.controller;
 import com.infocurso.backend.dto.EntregaPracticaDTO;
 import com.infocurso.backend.entity.Practica;
 import com.infocurso.backend.entity.Usuario;
+import com.infocurso.backend.service.AlmacenamientoService;
 import com.infocurso.backend.service.EntregaPracticaService;
 import com.infocurso.backend.service.PracticaService;
 import jakarta.transaction.Transactional;
@@ -15,9 +16,6 @@ import org.springframework.web.bind.annotation.*;
 import org.springframework.web.multipart.MultipartFile;
 
 import java.io.IOException;
-import java.nio.file.Files;
-import java.nio.file.Path;
-import java.nio.file.Paths;
 import java.util.List;
 import java.util.Map;
 import java.util.UUID;
@@ -30,6 +28,7 @@ public class EntregaPracticaController {
 
     private final EntregaPracticaService entregaService;
     private final PracticaService practicaService;
+    private final AlmacenamientoService almacenamiento;
 
     // Entregar o actualizar una práctica
     @PostMapping("/practica/{practicaId}/entregar")
@@ -64,15 +63,8 @@ public class EntregaPracticaController {
             @PathVariable UUID practicaId,
             @RequestParam("file") MultipartFile archivo,
             @AuthenticationPrincipal Usuario principal) throws IOException {
-        Path uploadsDir = Paths.get("uploads");
-        Files.createDirectories(uploadsDir); // ← crea si no existe
-
-        String nombreArchivo = UUID.randomUUID() + "-" + archivo.getOriginalFilename();
-        Path destino = uploadsDir.resolve(nombreArchivo);
-
-        try (var inputStream = archivo.getInputStream()) {
-            Files.copy(inputStream, destino);
-        }
+        // La parte ya está en disco: se mueve al almacén sin leerla
+        String nombreArchivo = almacenamiento.guardar(archivo);
 
         // ✅ Construye URL absoluta usando baseUrl
         String url = baseUrl + "/archivos/" + nombreArchivo;
@@ -2,6 +2,7 @@ package com.infocurso.backend.controller;
 
 import com.infocurso.backend.dto.EventoCursoDTO;
 import com.infocurso.backend.entity.EventoCurso;
+import com.infocurso.backend.entity.Usuario;
 import com.infocurso.backend.service.EventoCursoService;
 import lombok.RequiredArgsConstructor;
 import org.springframework.http.ResponseEntity;
@@ -29,8 +30,8 @@ public class EventoCursoController {
     }
 
     @GetMapping("/curso/{cursoId}")
-    public ResponseEntity<?> listarEventos(@PathVariable UUID cursoId) {
-        return ResponseEntity.ok(eventoService.listarEventosPorCurso(cursoId));
+    public ResponseEntity<?> listarEventos(@PathVariable UUID cursoId, @AuthenticationPrincipal Usuario usuario) {
+        return ResponseEntity.ok(eventoService.listarEventosPorCurso(cursoId, usuario));
     }
 }
 
@@ -3,7 +3,9 @@ package com.infocurso.backend.controller;
 import com.infocurso.backend.dto.*;
 import com.infocurso.backend.entity.Usuario;
 import com.infocurso.backend.service.ExamenService;
+import com.infocurso.backend.service.ImportacionNotasService;
 import lombok.RequiredArgsConstructor;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.security.access.prepost.PreAuthorize;
 import org.springframework.security.core.annotation.AuthenticationPrincipal;
@@ -18,6 +20,7 @@ import java.util.UUID;
 public class ExamenController {
 
     private final ExamenService examenService;
+    private final ImportacionNotasService importacionNotasService;
 
     // Obtener todos los exámenes del curso
     @GetMapping
@@ -107,15 +110,33 @@ public class ExamenController {
         return ResponseEntity.ok(examenService.registrarNota(examenId, dto));
     }
 
-    // Registrar múltiples notas (profesor/admin)
+    // Registrar múltiples notas (profesor/admin); las filas con errores se devuelven y no impiden guardar el resto
     @PostMapping("/{examenId}/notas/multiple")
     @PreAuthorize("hasAnyRole('PROFESOR', 'ADMINISTRADOR')")
-    public ResponseEntity<Void> registrarNotasMultiples(
+    public ResultadoImportacionNotasDTO registrarNotasMultiples(
             @PathVariable UUID cursoId,
             @PathVariable UUID examenId,
             @RequestBody List<RegistrarNotaDTO> notas) {
-        examenService.registrarNotasMultiples(examenId, notas);
-        return ResponseEntity.ok().build();
+        return importacionNotasService.importar(cursoId, examenId, notas);
+    }
+
+    // Importar las notas de toda la clase desde JSON o desde un CSV de una hoja de cálculo (profesor/admin)
+    @PostMapping(value = "/{examenId}/notas/importar", consumes = MediaType.APPLICATION_JSON_VALUE)
+    @PreAuthorize("hasAnyRole('PROFESOR', 'ADMINISTRADOR')")
+    public ResultadoImportacionNotasDTO importarNotas(
+            @PathVariable UUID cursoId,
+            @PathVariable UUID examenId,
+            @RequestBody List<RegistrarNotaDTO> notas) {
+        return importacionNotasService.importar(cursoId, examenId, notas);
+    }
+
+    @PostMapping(value = "/{examenId}/notas/importar", consumes = "text/csv")
+    @PreAuthorize("hasAnyRole('PROFESOR', 'ADMINISTRADOR')")
+    public ResultadoImportacionNotasDTO importarNotasCsv(
+            @PathVariable UUID cursoId,
+            @PathVariable UUID examenId,
+            @RequestBody String csv) {
+        return importacionNotasService.importarCsv(cursoId, examenId, csv);
     }
 
     // Eliminar nota (profesor/admin)
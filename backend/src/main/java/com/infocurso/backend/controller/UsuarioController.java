@@ -3,6 +3,7 @@ package com.infocurso.backend.controller;
 import com.infocurso.backend.dto.PerfilDTO;
 import com.infocurso.backend.dto.UsuarioDTO;
 import com.infocurso.backend.entity.Usuario;
+import com.infocurso.backend.service.ReferenciasArchivosService;
 import com.infocurso.backend.service.UsuarioService;
 import lombok.RequiredArgsConstructor;
 import org.springframework.beans.factory.annotation.Value;
@@ -26,6 +27,7 @@ public class UsuarioController {
 
     private final UsuarioService usuarioService;
     private final com.infocurso.backend.service.NotificacionService notificacionService;
+    private final ReferenciasArchivosService referenciasArchivos;
 
     @GetMapping("/notificaciones")
     @PreAuthorize("isAuthenticated()")
@@ -66,16 +68,20 @@ public class UsuarioController {
     }
 
     @PutMapping("/perfil")
-    public PerfilDTO actualizarPerfil(@AuthenticationPrincipal Usuario usuario, @RequestBody Map<String, String> body) {
+    public PerfilDTO actualizarPerfil(@AuthenticationPrincipal Usuario autenticado, @RequestBody Map<String, String> body) {
         String nuevoNombre = body.get("nombre");
         String avatarUrl = body.get("avatarUrl");
 
+        // El usuario autenticado sale de la caché: se cambia la fila actual, no esa copia
+        Usuario usuario = usuarioService.getById(autenticado.getId());
         if (nuevoNombre != null)
             usuario.setNombre(nuevoNombre);
+        String avatarAnterior = usuario.getAvatarUrl();
         if (avatarUrl != null)
             usuario.setAvatarUrl(avatarUrl);
 
         usuario = usuarioService.save(usuario);
+        referenciasArchivos.cambiar(avatarAnterior, usuario.getAvatarUrl());
         return PerfilDTO.from(usuario);
     }
 
@@ -86,8 +92,8 @@ public class UsuarioController {
     @PreAuthorize("isAuthenticated()")
     public ResponseEntity<String> subirAvatar(@AuthenticationPrincipal Usuario usuario,
             @RequestParam("file") MultipartFile file) throws IOException {
-        String nombreArchivo = usuarioService.actualizarAvatar(usuario.getId(), file);
-        String avatarUrl = appBaseUrl + "/uploads/avatars/" + nombreArchivo;
+        // Responde en cuanto la imagen está guardada; las variantes por tamaño se generan después
+        String avatarUrl = appBaseUrl + usuarioService.actualizarAvatar(usuario.getId(), file);
         return ResponseEntity.ok(avatarUrl);
     }
 
@@ -1,14 +1,20 @@
 package com.infocurso.backend.controller;
 
 import com.infocurso.backend.dto.AportacionWikiDTO;
+import com.infocurso.backend.dto.PaginaAportacionesWikiDTO;
+import com.infocurso.backend.dto.PaginaRevisionesWikiDTO;
 import com.infocurso.backend.entity.Usuario;
 import com.infocurso.backend.service.UsuarioService;
 import com.infocurso.backend.service.WikiService;
 import lombok.RequiredArgsConstructor;
+import org.springframework.http.CacheControl;
+import org.springframework.http.ResponseEntity;
 import org.springframework.security.core.Authentication;
+import org.springframework.security.core.annotation.AuthenticationPrincipal;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.context.request.WebRequest;
 
-import java.util.List;
+import java.util.Optional;
 import java.util.UUID;
 
 @RestController
@@ -19,19 +25,51 @@ public class WikiController {
     private final WikiService wikiService;
     private final UsuarioService usuarioService;
 
+    // La ETag es el hash de la revisión actual: si el cliente ya la tiene, 304 sin leer el contenido
     @GetMapping("/{cursoId}")
-    public String getContenido(@PathVariable UUID cursoId) {
-        return wikiService.getContenidoWiki(cursoId);
+    public ResponseEntity<String> getContenido(@PathVariable UUID cursoId, WebRequest request) {
+        Optional<String> hash = wikiService.getHashActual(cursoId);
+        if (hash.isPresent() && request.checkNotModified(hash.get())) {
+            return null;
+        }
+        return wikiService.getVersionActual(cursoId)
+                .map(version -> ResponseEntity.ok()
+                        .cacheControl(CacheControl.noCache())
+                        .eTag(version.hash())
+                        .body(version.html()))
+                .orElseGet(() -> ResponseEntity.ok().body(WikiService.SIN_CONTENIDO));
     }
 
     @PostMapping("/{cursoId}")
-    public void actualizarContenido(@PathVariable UUID cursoId, @RequestBody String html) {
-        wikiService.actualizarContenidoWiki(cursoId, html);
+    public void actualizarContenido(@PathVariable UUID cursoId,
+                                    @RequestBody String html,
+                                    @AuthenticationPrincipal Usuario usuario) {
+        wikiService.actualizarContenidoWiki(cursoId, html, usuario);
     }
 
+    @GetMapping("/{cursoId}/revisiones")
+    public PaginaRevisionesWikiDTO getRevisiones(@PathVariable UUID cursoId,
+                                                 @RequestParam(required = false) Integer pagina,
+                                                 @RequestParam(required = false) Integer tamano) {
+        return wikiService.getRevisiones(cursoId, pagina, tamano);
+    }
+
+    @GetMapping("/{cursoId}/revisiones/{numero}")
+    public String getRevision(@PathVariable UUID cursoId, @PathVariable int numero) {
+        return wikiService.getContenidoRevision(cursoId, numero);
+    }
+
+    // Aportaciones con el principio del texto, paginadas por cursor de la más reciente a la más antigua
     @GetMapping("/{cursoId}/aportaciones")
-    public List<AportacionWikiDTO> getAportaciones(@PathVariable UUID cursoId) {
-        return wikiService.getAportaciones(cursoId);
+    public PaginaAportacionesWikiDTO getAportaciones(@PathVariable UUID cursoId,
+                                                     @RequestParam(required = false) String antes,
+                                                     @RequestParam(required = false) Integer limite) {
+        return wikiService.getAportaciones(cursoId, antes, limite);
+    }
+
+    @GetMapping("/{cursoId}/aportaciones/{aportacionId}")
+    public AportacionWikiDTO getAportacion(@PathVariable UUID cursoId, @PathVariable UUID aportacionId) {
+        return wikiService.getAportacion(cursoId, aportacionId);
     }
 
     @PostMapping("/{cursoId}/aportaciones")
@@ -47,8 +85,10 @@ public class WikiController {
     }
 
     @PutMapping("/{cursoId}")
-    public void actualizarContenidoPut(@PathVariable UUID cursoId, @RequestBody String html) {
-        wikiService.actualizarContenidoWiki(cursoId, html);
+    public void actualizarContenidoPut(@PathVariable UUID cursoId,
+                                       @RequestBody String html,
+                                       @AuthenticationPrincipal Usuario usuario) {
+        wikiService.actualizarContenidoWiki(cursoId, html, usuario);
     }
 
 }
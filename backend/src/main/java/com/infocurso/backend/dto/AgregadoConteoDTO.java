@@ -0,0 +1,12 @@
+package com.infocurso.backend.dto;
+
+import java.util.UUID;
+
+/**
+ * Recuento agrupado por id (curso, alumno...) según la consulta que lo construya.
+ */
+public record AgregadoConteoDTO(
+        UUID id,
+        Long total
+) {
+}
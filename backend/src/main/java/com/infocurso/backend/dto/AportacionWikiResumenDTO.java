@@ -0,0 +1,28 @@
+package com.infocurso.backend.dto;
+
+import java.time.LocalDateTime;
+import java.util.UUID;
+
+/**
+ * Una aportación en el listado de la wiki: los primeros {@value #LONGITUD_VISTA_PREVIA} caracteres y
+ * el autor. Si {@code truncada}, el texto entero se pide aparte ({@link AportacionWikiDTO}).
+ */
+public record AportacionWikiResumenDTO(
+        UUID id,
+        UUID autorId,
+        String autorNombre,
+        String autorAvatarUrl,
+        String vistaPrevia,
+        boolean truncada,
+        LocalDateTime fecha
+) {
+
+    public static final int LONGITUD_VISTA_PREVIA = 280;
+
+    // Para la consulta de AportacionWikiRepository, que devuelve la longitud del texto completo
+    public AportacionWikiResumenDTO(UUID id, UUID autorId, String autorNombre, String autorAvatarUrl,
+                                    String vistaPrevia, Integer longitud, LocalDateTime fecha) {
+        this(id, autorId, autorNombre, autorAvatarUrl, vistaPrevia,
+                longitud != null && longitud > LONGITUD_VISTA_PREVIA, fecha);
+    }
+}
@@ -0,0 +1,19 @@
+package com.infocurso.backend.dto;
+
+import java.time.LocalDateTime;
+import java.util.UUID;
+
+/**
+ * Una entrada de la bandeja de mensajes privados: el otro usuario, el último mensaje
+ * y cuántos de los que ha enviado siguen sin leer.
+ */
+public record ConversacionDTO(
+        UUID usuarioId,
+        String usuarioNombre,
+        String usuarioAvatarUrl,
+        String ultimoMensaje,
+        LocalDateTime fechaUltimoMensaje,
+        boolean ultimoMensajePropio,
+        long noLeidos
+) {
+}
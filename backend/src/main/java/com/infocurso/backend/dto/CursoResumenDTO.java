@@ -0,0 +1,21 @@
+package com.infocurso.backend.dto;
+
+import java.time.LocalDate;
+import java.util.UUID;
+
+/**
+ * Fila del catálogo de cursos del administrador: los datos del curso y sus cuentas, sin las colecciones.
+ * El detalle completo es {@link CursoDTO}. El próximo evento es el primero desde hoy, si lo hay.
+ */
+public record CursoResumenDTO(
+        UUID id,
+        String nombre,
+        String descripcion,
+        String profesorNombre,
+        long totalAlumnos,
+        long totalPracticas,
+        long totalModulos,
+        LocalDate proximoEventoFecha,
+        String proximoEventoTitulo
+) {
+}
@@ -0,0 +1,35 @@
+package com.infocurso.backend.dto;
+
+import org.springframework.http.HttpStatus;
+import org.springframework.web.server.ResponseStatusException;
+
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDateTime;
+import java.util.Base64;
+import java.util.UUID;
+
+/**
+ * Posición de una aportación en la wiki de un curso: (fecha, id).
+ * Viaja al cliente como texto opaco en base64url, como {@link CursorMensajeDTO}.
+ */
+public record CursorAportacionWikiDTO(LocalDateTime fecha, UUID id) {
+
+    public static CursorAportacionWikiDTO from(AportacionWikiResumenDTO aportacion) {
+        return new CursorAportacionWikiDTO(aportacion.fecha(), aportacion.id());
+    }
+
+    public String codificar() {
+        String valor = fecha + "|" + id;
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(valor.getBytes(StandardCharsets.UTF_8));
+    }
+
+    public static CursorAportacionWikiDTO decodificar(String cursor) {
+        try {
+            String valor = new String(Base64.getUrlDecoder().decode(cursor), StandardCharsets.UTF_8);
+            String[] partes = valor.split("\\|", 2);
+            return new CursorAportacionWikiDTO(LocalDateTime.parse(partes[0]), UUID.fromString(partes[1]));
+        } catch (RuntimeException e) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "Cursor de aportaciones no válido");
+        }
+    }
+}
@@ -0,0 +1,35 @@
+package com.infocurso.backend.dto;
+
+import org.springframework.http.HttpStatus;
+import org.springframework.web.server.ResponseStatusException;
+
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDateTime;
+import java.util.Base64;
+import java.util.UUID;
+
+/**
+ * Posición de un mensaje en el historial del chat: (fechaEnvio, id).
+ * Viaja al cliente como texto opaco en base64url.
+ */
+public record CursorMensajeDTO(LocalDateTime fechaEnvio, UUID id) {
+
+    public static CursorMensajeDTO from(MensajeCursoDTO mensaje) {
+        return new CursorMensajeDTO(mensaje.getFechaEnvio(), mensaje.getId());
+    }
+
+    public String codificar() {
+        String valor = fechaEnvio + "|" + id;
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(valor.getBytes(StandardCharsets.UTF_8));
+    }
+
+    public static CursorMensajeDTO decodificar(String cursor) {
+        try {
+            String valor = new String(Base64.getUrlDecoder().decode(cursor), StandardCharsets.UTF_8);
+            String[] partes = valor.split("\\|", 2);
+            return new CursorMensajeDTO(LocalDateTime.parse(partes[0]), UUID.fromString(partes[1]));
+        } catch (RuntimeException e) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "Cursor de mensajes no válido");
+        }
+    }
+}
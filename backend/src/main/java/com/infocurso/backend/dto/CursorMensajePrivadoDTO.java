@@ -0,0 +1,34 @@
+package com.infocurso.backend.dto;
+
+import org.springframework.http.HttpStatus;
+import org.springframework.web.server.ResponseStatusException;
+
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDateTime;
+import java.util.Base64;
+
+/**
+ * Posición de un mensaje en una conversación privada: (fechaEnvio, id).
+ * Viaja al cliente como texto opaco en base64url, como {@link CursorMensajeDTO}.
+ */
+public record CursorMensajePrivadoDTO(LocalDateTime fechaEnvio, Long id) {
+
+    public static CursorMensajePrivadoDTO from(MensajeDTO mensaje) {
+        return new CursorMensajePrivadoDTO(mensaje.getFechaEnvio(), mensaje.getId());
+    }
+
+    public String codificar() {
+        String valor = fechaEnvio + "|" + id;
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(valor.getBytes(StandardCharsets.UTF_8));
+    }
+
+    public static CursorMensajePrivadoDTO decodificar(String cursor) {
+        try {
+            String valor = new String(Base64.getUrlDecoder().decode(cursor), StandardCharsets.UTF_8);
+            String[] partes = valor.split("\\|", 2);
+            return new CursorMensajePrivadoDTO(LocalDateTime.parse(partes[0]), Long.valueOf(partes[1]));
+        } catch (RuntimeException e) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "Cursor de mensajes no válido");
+        }
+    }
+}
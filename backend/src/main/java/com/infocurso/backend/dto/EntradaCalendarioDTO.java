@@ -0,0 +1,22 @@
+package com.infocurso.backend.dto;
+
+import java.time.LocalDateTime;
+import java.util.UUID;
+
+/**
+ * Una entrada del calendario: EVENTO, EXAMEN, PRACTICA (su fecha de entrega), MODULO o UNIDAD.
+ * {@code detalle} es el tipo del evento o del examen, o el módulo de la unidad; {@code fin} solo
+ * lo tienen los módulos y las unidades. Las fechas sin hora van con {@code todoElDia}.
+ */
+public record EntradaCalendarioDTO(
+        String tipo,
+        UUID id,
+        UUID cursoId,
+        String cursoNombre,
+        String titulo,
+        String detalle,
+        LocalDateTime inicio,
+        LocalDateTime fin,
+        boolean todoElDia
+) {
+}
@@ -0,0 +1,10 @@
+package com.infocurso.backend.dto;
+
+/**
+ * Mensajes del chat de un curso que un usuario acaba de leer: secuencias en (desde, hasta].
+ */
+public record LecturaMensajesCursoDTO(
+        long desdeSecuencia,
+        long hastaSecuencia
+) {
+}
@@ -1,19 +1,24 @@
 package com.infocurso.backend.dto;
 
 import com.infocurso.backend.entity.MensajeCurso;
+import lombok.AllArgsConstructor;
 import lombok.Builder;
 import lombok.Data;
+import lombok.NoArgsConstructor;
 
 import java.time.LocalDateTime;
 import java.util.UUID;
 
 @Data
 @Builder
+@NoArgsConstructor
+@AllArgsConstructor
 public class MensajeCursoDTO {
     private UUID id;
     private UUID cursoId;
     private String contenido;
     private LocalDateTime fechaEnvio;
+    private Long secuencia;
     private AutorDTO autor;
 
     @Data
@@ -30,6 +35,7 @@ public class MensajeCursoDTO {
                 mensaje.getCurso().getId(),
                 mensaje.getContenido(),
                 mensaje.getFechaEnvio(),
+                mensaje.getSecuencia(),
                 AutorDTO.builder()
                         .id(mensaje.getEmisor().getId())
                         .nombre(mensaje.getEmisor().getNombre())
@@ -38,11 +44,13 @@ public class MensajeCursoDTO {
         );
     }
 
-    public MensajeCursoDTO(UUID id, UUID cursoId, String contenido, LocalDateTime fechaEnvio, AutorDTO autor) {
-        this.id = id;
-        this.cursoId = cursoId;
-        this.contenido = contenido;
-        this.fechaEnvio = fechaEnvio;
-        this.autor = autor;
+    // Usado por las consultas de proyección: evita cargar MensajeCurso y Usuario como entidades
+    public MensajeCursoDTO(UUID id, UUID cursoId, String contenido, LocalDateTime fechaEnvio, Long secuencia,
+                           UUID autorId, String autorNombre, String autorAvatarUrl) {
+        this(id, cursoId, contenido, fechaEnvio, secuencia, AutorDTO.builder()
+                .id(autorId)
+                .nombre(autorNombre)
+                .avatarUrl(autorAvatarUrl)
+                .build());
     }
 }
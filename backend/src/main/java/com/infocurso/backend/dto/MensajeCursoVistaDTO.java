@@ -40,5 +40,19 @@ public class MensajeCursoVistaDTO {
                 )
                 .build();
     }
+
+    public static MensajeCursoVistaDTO from(MensajeCursoDTO mensaje) {
+        return MensajeCursoVistaDTO.builder()
+                .id(mensaje.getId())
+                .contenido(mensaje.getContenido())
+                .fechaEnvio(mensaje.getFechaEnvio().toString())
+                .autor(
+                        AutorDTO.builder()
+                                .id(mensaje.getAutor().getId())
+                                .nombre(mensaje.getAutor().getNombre())
+                                .build()
+                )
+                .build();
+    }
 }
 
@@ -10,6 +10,8 @@ import java.util.UUID;
 @Data
 @Builder
 public class MensajeDTO {
+    private Long id;
+
     private UUID emisorId;
     private String emisorNombre;
     private String emisorAvatarUrl;
@@ -20,9 +22,11 @@ public class MensajeDTO {
 
     private String contenido;
     private LocalDateTime fechaEnvio;
+    private boolean leido;
 
     public static MensajeDTO from(Mensaje mensaje) {
         return MensajeDTO.builder()
+                .id(mensaje.getId())
                 .emisorId(mensaje.getEmisor().getId())
                 .emisorNombre(mensaje.getEmisor().getNombre())
                 .emisorAvatarUrl(mensaje.getEmisor().getAvatarUrl())
@@ -33,6 +37,7 @@ public class MensajeDTO {
 
                 .contenido(mensaje.getContenido())
                 .fechaEnvio(mensaje.getFechaEnvio())
+                .leido(mensaje.isLeido())
                 .build();
     }
 }
@@ -7,6 +7,7 @@ import lombok.Data;
 import lombok.NoArgsConstructor;
 
 import java.time.LocalDate;
+import java.util.ArrayList;
 import java.util.List;
 import java.util.Objects;
 import java.util.UUID;
@@ -23,6 +24,11 @@ public class ModuloDTO {
     private LocalDate fechaFin;
     private List<UnidadFormativaDTO> unidades;
 
+    // Proyección de las consultas: las unidades se añaden después
+    public ModuloDTO(UUID id, String nombre, LocalDate fechaInicio, LocalDate fechaFin) {
+        this(id, nombre, fechaInicio, fechaFin, new ArrayList<>());
+    }
+
     public static ModuloDTO from(Modulo modulo) {
         if (modulo == null) {
             return null;
@@ -0,0 +1,14 @@
+package com.infocurso.backend.dto;
+
+import java.util.List;
+
+/**
+ * Página de aportaciones de la wiki, de la más reciente a la más antigua. {@code cursorAnterior}
+ * apunta a la última de la página y se pasa como "antes" para pedir las anteriores.
+ */
+public record PaginaAportacionesWikiDTO(
+        List<AportacionWikiResumenDTO> aportaciones,
+        String cursorAnterior,
+        boolean hayAnteriores
+) {
+}
@@ -0,0 +1,15 @@
+package com.infocurso.backend.dto;
+
+import java.util.List;
+
+/**
+ * Página del catálogo de cursos. {@code pagina} empieza en 0 y {@code total} cuenta los cursos que
+ * cumplen el filtro.
+ */
+public record PaginaCursosDTO(
+        List<CursoResumenDTO> cursos,
+        int pagina,
+        int tamano,
+        long total
+) {
+}
@@ -0,0 +1,16 @@
+package com.infocurso.backend.dto;
+
+import java.util.List;
+
+/**
+ * Página del historial del chat de un curso, con los mensajes en orden cronológico.
+ * Los cursores apuntan al primer y al último mensaje de la página.
+ */
+public record PaginaMensajesCursoDTO(
+        List<MensajeCursoDTO> mensajes,
+        String cursorAnterior,
+        String cursorPosterior,
+        boolean hayAnteriores,
+        boolean hayPosteriores
+) {
+}
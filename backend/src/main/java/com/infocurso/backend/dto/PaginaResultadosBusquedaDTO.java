@@ -0,0 +1,14 @@
+package com.infocurso.backend.dto;
+
+import java.util.List;
+
+/**
+ * Página de resultados de una búsqueda, del más relevante al menos.
+ */
+public record PaginaResultadosBusquedaDTO(
+        List<ResultadoBusquedaDTO> resultados,
+        int pagina,
+        int tamano,
+        boolean hayMas
+) {
+}
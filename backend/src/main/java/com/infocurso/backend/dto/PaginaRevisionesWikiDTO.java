@@ -0,0 +1,14 @@
+package com.infocurso.backend.dto;
+
+import java.util.List;
+
+/**
+ * Página del historial de la wiki de un curso, de la revisión más reciente a la más antigua.
+ */
+public record PaginaRevisionesWikiDTO(
+        List<RevisionWikiDTO> revisiones,
+        int pagina,
+        int tamano,
+        long total
+) {
+}
@@ -0,0 +1,20 @@
+package com.infocurso.backend.dto;
+
+import java.time.LocalDateTime;
+import java.util.UUID;
+
+/**
+ * Un resultado de la búsqueda en un curso. {@code tipo} es WIKI, APORTACION, PRACTICA, EVENTO o
+ * MENSAJE; las prácticas y los eventos tienen título y las aportaciones y los mensajes autor.
+ * {@code fragmento} es texto escapado en el que solo las coincidencias van entre {@code <mark>}.
+ */
+public record ResultadoBusquedaDTO(
+        String tipo,
+        UUID id,
+        String titulo,
+        String autor,
+        String fragmento,
+        LocalDateTime fecha,
+        double relevancia
+) {
+}
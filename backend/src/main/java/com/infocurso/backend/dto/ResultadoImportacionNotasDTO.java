@@ -0,0 +1,20 @@
+package com.infocurso.backend.dto;
+
+import java.util.List;
+
+/**
+ * Resultado de importar las notas de un examen. Las filas con errores no se guardan y no impiden
+ * guardar las demás; {@code sinCambios} son las que ya tenían esa nota y esas observaciones.
+ */
+public record ResultadoImportacionNotasDTO(
+        int guardadas,
+        int sinCambios,
+        List<ErrorFila> errores
+) {
+    /**
+     * @param fila   número de fila en el CSV (contando la cabecera) o posición en el JSON, desde 1
+     * @param alumno el alumno tal como venía en la fila
+     */
+    public record ErrorFila(int fila, String alumno, String mensaje) {
+    }
+}
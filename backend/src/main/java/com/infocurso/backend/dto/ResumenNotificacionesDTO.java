@@ -0,0 +1,10 @@
+package com.infocurso.backend.dto;
+
+import java.util.List;
+
+/**
+ * Aviso por WebSocket cuando a un usuario le llegan varias notificaciones a la vez. {@code total}
+ * puede ser mayor que las que se incluyen; el resto están en su lista de notificaciones.
+ */
+public record ResumenNotificacionesDTO(int total, List<NotificacionDTO> notificaciones) {
+}
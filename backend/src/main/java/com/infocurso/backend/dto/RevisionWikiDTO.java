@@ -0,0 +1,17 @@
+package com.infocurso.backend.dto;
+
+import java.time.LocalDateTime;
+import java.util.UUID;
+
+/**
+ * Una entrada del historial de la wiki, sin el contenido; el HTML de la revisión se pide aparte.
+ * {@code tamano} es la longitud del HTML en caracteres.
+ */
+public record RevisionWikiDTO(
+        int numero,
+        LocalDateTime fecha,
+        UUID autorId,
+        String autorNombre,
+        int tamano
+) {
+}
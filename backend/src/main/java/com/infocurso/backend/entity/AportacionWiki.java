@@ -16,10 +16,10 @@ public class AportacionWiki {
     @GeneratedValue
     private UUID id;
 
-    @ManyToOne
+    @ManyToOne(fetch = FetchType.LAZY)
     private WikiCurso wiki;
 
-    @ManyToOne
+    @ManyToOne(fetch = FetchType.LAZY)
     private Usuario autor;
 
     @Column(columnDefinition = "TEXT")
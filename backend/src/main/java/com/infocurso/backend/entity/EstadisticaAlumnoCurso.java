@@ -0,0 +1,82 @@
+package com.infocurso.backend.entity;
+
+import jakarta.persistence.*;
+import lombok.*;
+
+import java.time.LocalDateTime;
+import java.util.UUID;
+
+/**
+ * Fila precalculada con los contadores de un alumno en un curso.
+ * La mantiene EstadisticaAlumnoCursoService a partir de entregas, notas de examen y asistencias.
+ */
+@Entity
+@Getter
+@Setter
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+@Table(uniqueConstraints = {
+    @UniqueConstraint(name = "uk_estadistica_curso_alumno", columnNames = {"curso_id", "alumno_id"})
+})
+public class EstadisticaAlumnoCurso {
+
+    @Id
+    @GeneratedValue
+    private UUID id;
+
+    private UUID cursoId;
+    private UUID alumnoId;
+
+    private long entregas;
+    private long practicasCalificadas;
+    private double sumaNotasPracticas;
+    private long examenesCalificados;
+    private double sumaNotasExamenes;
+
+    private long asistencias;
+    private long presentes;
+    private long ausentes;
+    private long retrasos;
+    private long justificados;
+
+    private LocalDateTime actualizado;
+
+    public static EstadisticaAlumnoCurso vacia(UUID cursoId, UUID alumnoId) {
+        return EstadisticaAlumnoCurso.builder().cursoId(cursoId).alumnoId(alumnoId).build();
+    }
+
+    // Suma los contadores de dos filas del mismo curso (p. ej. para totales por curso)
+    public EstadisticaAlumnoCurso sumar(EstadisticaAlumnoCurso otra) {
+        return EstadisticaAlumnoCurso.builder()
+                .cursoId(cursoId)
+                .entregas(entregas + otra.entregas)
+                .practicasCalificadas(practicasCalificadas + otra.practicasCalificadas)
+                .sumaNotasPracticas(sumaNotasPracticas + otra.sumaNotasPracticas)
+                .examenesCalificados(examenesCalificados + otra.examenesCalificados)
+                .sumaNotasExamenes(sumaNotasExamenes + otra.sumaNotasExamenes)
+                .asistencias(asistencias + otra.asistencias)
+                .presentes(presentes + otra.presentes)
+                .ausentes(ausentes + otra.ausentes)
+                .retrasos(retrasos + otra.retrasos)
+                .justificados(justificados + otra.justificados)
+                .build();
+    }
+
+    public Double promedioPracticas() {
+        return practicasCalificadas > 0 ? sumaNotasPracticas / practicasCalificadas : null;
+    }
+
+    public Double promedioExamenes() {
+        return examenesCalificados > 0 ? sumaNotasExamenes / examenesCalificados : null;
+    }
+
+    public long entregasPendientes() {
+        return entregas - practicasCalificadas;
+    }
+
+    // Presentes, retrasos y justificados cuentan como asistencia
+    public double porcentajeAsistencia() {
+        return asistencias > 0 ? (presentes + retrasos + justificados) * 100.0 / asistencias : 0;
+    }
+}
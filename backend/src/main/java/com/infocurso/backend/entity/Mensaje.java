@@ -1,15 +1,18 @@
 package com.infocurso.backend.entity;
 
+import jakarta.persistence.Column;
 import jakarta.persistence.Entity;
 import jakarta.persistence.GeneratedValue;
 import jakarta.persistence.Id;
 import jakarta.persistence.ManyToOne;
+import jakarta.persistence.PrePersist;
 import lombok.AllArgsConstructor;
 import lombok.Builder;
 import lombok.Data;
 import lombok.NoArgsConstructor;
 
 import java.time.LocalDateTime;
+import java.util.UUID;
 
 @Entity
 @Data
@@ -29,5 +32,25 @@ public class Mensaje {
 
     private String contenido;
     private LocalDateTime fechaEnvio;
+
+    // Clave de la pareja de usuarios, la misma en los dos sentidos; indexada con fecha_envio (V12)
+    @Column(length = 73)
+    private String conversacion;
+
+    // Solo lo marca el receptor
+    private boolean leido;
+
+    public static String claveConversacion(UUID usuario1, UUID usuario2) {
+        String a = usuario1.toString();
+        String b = usuario2.toString();
+        return a.compareTo(b) <= 0 ? a + ":" + b : b + ":" + a;
+    }
+
+    @PrePersist
+    void asignarConversacion() {
+        if (conversacion == null && emisor != null && receptor != null) {
+            conversacion = claveConversacion(emisor.getId(), receptor.getId());
+        }
+    }
 }
 
@@ -26,5 +26,8 @@ public class MensajeCurso {
     private String contenido;
 
     private LocalDateTime fechaEnvio;
+
+    // Posición del mensaje dentro del chat del curso (1, 2, 3...)
+    private Long secuencia;
 }
 
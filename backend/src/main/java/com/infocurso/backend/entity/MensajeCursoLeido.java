@@ -3,6 +3,8 @@ package com.infocurso.backend.entity;
 import jakarta.persistence.Entity;
 import jakarta.persistence.GeneratedValue;
 import jakarta.persistence.Id;
+import jakarta.persistence.Table;
+import jakarta.persistence.UniqueConstraint;
 import lombok.*;
 
 import java.util.UUID;
@@ -13,6 +15,9 @@ import java.util.UUID;
 @Builder
 @NoArgsConstructor
 @AllArgsConstructor
+@Table(uniqueConstraints = {
+    @UniqueConstraint(name = "uk_mensaje_curso_leido_curso_usuario", columnNames = {"curso_id", "usuario_id"})
+})
 public class MensajeCursoLeido {
     @Id
     @GeneratedValue
@@ -20,6 +25,10 @@ public class MensajeCursoLeido {
 
     private UUID cursoId;
     private UUID usuarioId;
-    private UUID ultimoMensajeLeidoId;
-}
 
+    // Secuencia del último mensaje del curso que el usuario ha visto
+    private long ultimaSecuenciaLeida;
+
+    // Mensajes enviados por el propio usuario por encima de su marca de lectura
+    private long mensajesPropios;
+}
@@ -0,0 +1,48 @@
+package com.infocurso.backend.entity;
+
+import jakarta.persistence.*;
+import lombok.*;
+
+import java.time.LocalDateTime;
+import java.util.UUID;
+
+/**
+ * Un guardado de la wiki de un curso. Si {@code base} es null, {@code datos} es el HTML completo;
+ * si no, las diferencias con la revisión completa número {@code base} (ver DeltaTexto).
+ */
+@Entity
+@Getter @Setter
+@NoArgsConstructor @AllArgsConstructor
+@Builder
+public class RevisionWiki {
+
+    @Id
+    @GeneratedValue
+    private UUID id;
+
+    @ManyToOne(fetch = FetchType.LAZY)
+    private WikiCurso wiki;
+
+    private int numero;
+
+    private Integer base;
+
+    @Column(nullable = false)
+    private byte[] datos;
+
+    // SHA-256 del HTML en hexadecimal
+    @Column(length = 64, nullable = false)
+    private String hash;
+
+    // Longitud del HTML en caracteres
+    private int tamano;
+
+    // Hashes de los blobs que enlaza el HTML, para ReferenciasArchivosService
+    @Column(columnDefinition = "text[]")
+    private String[] enlaces;
+
+    @ManyToOne(fetch = FetchType.LAZY)
+    private Usuario autor;
+
+    private LocalDateTime fecha;
+}
@@ -1,5 +1,16 @@
 package com.infocurso.backend.entity;
 
+import java.util.List;
+
 public enum VisibilidadEvento {
-    ADMIN, PROFESOR, ALUMNO, TODOS
+    ADMIN, PROFESOR, ALUMNO, TODOS;
+
+    // Cada rol ve los eventos dirigidos a él y a los roles por debajo; el administrador, todos
+    public static List<VisibilidadEvento> visiblesPara(Rol rol) {
+        return switch (rol) {
+            case ADMINISTRADOR -> List.of(values());
+            case PROFESOR -> List.of(PROFESOR, ALUMNO, TODOS);
+            case ALUMNO -> List.of(ALUMNO, TODOS);
+        };
+    }
 }
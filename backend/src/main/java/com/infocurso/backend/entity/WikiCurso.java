@@ -18,8 +18,7 @@ public class WikiCurso {
     @OneToOne
     private Curso curso;
 
-    @Column(columnDefinition = "TEXT")
-    private String contenido;
+    // El contenido está en sus revisiones (RevisionWiki)
 
 }
 
@@ -7,6 +7,7 @@ import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.MethodArgumentNotValidException;
 import org.springframework.web.bind.annotation.ExceptionHandler;
 import org.springframework.web.bind.annotation.RestControllerAdvice;
+import org.springframework.web.server.ResponseStatusException;
 
 import org.springframework.security.access.AccessDeniedException;
 import org.springframework.security.authentication.BadCredentialsException;
@@ -72,6 +73,20 @@ public class GlobalExceptionHandler {
                 return new ResponseEntity<>(error, HttpStatus.FORBIDDEN);
         }
 
+        @ExceptionHandler(ResponseStatusException.class)
+        public ResponseEntity<ErrorDTO> handleResponseStatusException(ResponseStatusException ex,
+                        HttpServletRequest request) {
+                HttpStatus status = HttpStatus.valueOf(ex.getStatusCode().value());
+                ErrorDTO error = ErrorDTO.builder()
+                                .timestamp(LocalDateTime.now())
+                                .status(status.value())
+                                .error(status.getReasonPhrase())
+                                .message(ex.getReason())
+                                .path(request.getRequestURI())
+                                .build();
+                return new ResponseEntity<>(error, status);
+        }
+
         @ExceptionHandler(Exception.class)
 
         public ResponseEntity<ErrorDTO> handleGlobalException(Exception ex, HttpServletRequest request) {
@@ -1,11 +1,49 @@
 package com.infocurso.backend.repository;
 
+import com.infocurso.backend.dto.AportacionWikiResumenDTO;
 import com.infocurso.backend.entity.AportacionWiki;
+import org.springframework.data.domain.Limit;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 
+import java.time.LocalDateTime;
 import java.util.List;
+import java.util.Optional;
 import java.util.UUID;
 
 public interface AportacionWikiRepository extends JpaRepository<AportacionWiki, UUID> {
-    List<AportacionWiki> findByWikiCursoIdOrderByFechaDesc(UUID cursoId);
+
+    String RESUMEN = "SELECT new com.infocurso.backend.dto.AportacionWikiResumenDTO("
+            + "a.id, u.id, u.nombre, u.avatarUrl, "
+            + "substring(a.contenido, 1, " + AportacionWikiResumenDTO.LONGITUD_VISTA_PREVIA + "), "
+            + "length(a.contenido), a.fecha) "
+            + "FROM AportacionWiki a LEFT JOIN a.autor u ";
+
+    // Por wiki y no por curso para que la página salga en el orden de idx_aportacion_wiki_wiki_fecha_id.
+    // Los listados solo leen el principio del texto: las aportaciones enteras se piden de una en una
+    @Query(RESUMEN + """
+            WHERE a.wiki.id = :wikiId
+            ORDER BY a.fecha DESC, a.id DESC
+            """)
+    List<AportacionWikiResumenDTO> findUltimas(@Param("wikiId") UUID wikiId, Limit limite);
+
+    // "fecha <= :fecha" por separado para que el índice empiece en el cursor y no recorra las más recientes
+
+    @Query(RESUMEN + """
+            WHERE a.wiki.id = :wikiId
+              AND a.fecha <= :fecha
+              AND (a.fecha < :fecha OR a.id < :id)
+            ORDER BY a.fecha DESC, a.id DESC
+            """)
+    List<AportacionWikiResumenDTO> findAnteriores(@Param("wikiId") UUID wikiId,
+                                                  @Param("fecha") LocalDateTime fecha,
+                                                  @Param("id") UUID id,
+                                                  Limit limite);
+
+    @Query("""
+            SELECT a FROM AportacionWiki a LEFT JOIN FETCH a.autor
+            WHERE a.id = :id AND a.wiki.curso.id = :cursoId
+            """)
+    Optional<AportacionWiki> findByIdAndCursoId(@Param("id") UUID id, @Param("cursoId") UUID cursoId);
 }
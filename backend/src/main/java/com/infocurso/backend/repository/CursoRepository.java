@@ -1,5 +1,8 @@
 package com.infocurso.backend.repository;
 
+import com.infocurso.backend.dto.AgregadoConteoDTO;
+import com.infocurso.backend.dto.AlumnoDTO;
+import com.infocurso.backend.dto.ModuloDTO;
 import com.infocurso.backend.entity.Curso;
 import com.infocurso.backend.entity.Usuario;
 import com.infocurso.backend.entity.AlumnoCurso;
@@ -8,6 +11,7 @@ import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.query.Param;
 
+import java.util.Collection;
 import java.util.List;
 import java.util.Optional;
 import java.util.UUID;
@@ -29,22 +33,51 @@ public interface CursoRepository extends JpaRepository<Curso, UUID> {
     @Query("SELECT c FROM Curso c WHERE c.id = :id")
     Optional<Curso> findByIdConRelaciones(@Param("id") UUID id);
 
-    @EntityGraph(attributePaths = { "profesor", "alumnos", "practicas", "modulos", "modulos.unidades", "eventos" })
-    @Query("SELECT c FROM Curso c")
-    List<Curso> findAllConRelaciones();
+    @Query("SELECT c.id FROM Curso c")
+    List<UUID> findAllIds();
+
+    @Query("SELECT ac.curso FROM AlumnoCurso ac WHERE ac.alumno.id = :alumnoId")
+    List<Curso> findCursosByAlumnoId(@Param("alumnoId") UUID alumnoId);
+
+    @Query("SELECT ac.curso.id FROM AlumnoCurso ac WHERE ac.alumno.id = :alumnoId")
+    List<UUID> findIdsByAlumnoId(@Param("alumnoId") UUID alumnoId);
+
+    @Query("SELECT c.id FROM Curso c WHERE c.profesor.id = :profesorId")
+    List<UUID> findIdsByProfesorId(@Param("profesorId") UUID profesorId);
+
+    @Query("SELECT a FROM Curso c JOIN c.alumnos a WHERE c.id = :cursoId")
+    List<Usuario> findAlumnosByCursoId(@Param("cursoId") UUID cursoId);
+
+    // La matrícula está en curso_alumnos (admin) o en alumno_curso (inscripciones); vale cualquiera
+    @Query(value = """
+                SELECT alumno_id FROM curso_alumnos WHERE curso_id = :cursoId AND alumno_id IN (:alumnoIds)
+                UNION
+                SELECT alumno_id FROM alumno_curso WHERE curso_id = :cursoId AND alumno_id IN (:alumnoIds)
+            """, nativeQuery = true)
+    List<UUID> findAlumnosMatriculados(@Param("cursoId") UUID cursoId, @Param("alumnoIds") Collection<UUID> alumnoIds);
 
     @Query("""
-                SELECT DISTINCT c FROM Curso c
-                LEFT JOIN FETCH c.profesor
-                LEFT JOIN FETCH c.alumnos
-                LEFT JOIN FETCH c.practicas
-                LEFT JOIN FETCH c.modulos m
-                LEFT JOIN FETCH m.unidades
-                LEFT JOIN FETCH c.eventos
-                WHERE c.id = :id
+                SELECT new com.infocurso.backend.dto.AlumnoDTO(a.id, a.nombre, a.email, a.avatarUrl)
+                FROM Curso c JOIN c.alumnos a
+                WHERE c.id = :cursoId
+                ORDER BY a.nombre
             """)
-    Optional<Curso> findByIdConTodo(@Param("id") UUID id);
+    List<AlumnoDTO> findAlumnosDTOByCursoId(@Param("cursoId") UUID cursoId);
 
-    @Query("SELECT ac.curso FROM AlumnoCurso ac WHERE ac.alumno.id = :alumnoId")
-    List<Curso> findCursosByAlumnoId(@Param("alumnoId") UUID alumnoId);
+    // Sin unidades: las carga UnidadFormativaRepository.findDTOByCursoId
+    @Query("""
+                SELECT new com.infocurso.backend.dto.ModuloDTO(m.id, m.nombre, m.fechaInicio, m.fechaFin)
+                FROM Curso c JOIN c.modulos m
+                WHERE c.id = :cursoId
+                ORDER BY index(m)
+            """)
+    List<ModuloDTO> findModulosDTOByCursoId(@Param("cursoId") UUID cursoId);
+
+    @Query("""
+                SELECT new com.infocurso.backend.dto.AgregadoConteoDTO(c.id, COUNT(a))
+                FROM Curso c LEFT JOIN c.alumnos a
+                WHERE c.profesor.id = :profesorId
+                GROUP BY c.id
+            """)
+    List<AgregadoConteoDTO> contarAlumnosPorCursoDeProfesor(@Param("profesorId") UUID profesorId);
 }
@@ -0,0 +1,133 @@
+package com.infocurso.backend.repository;
+
+import com.infocurso.backend.entity.EstadisticaAlumnoCurso;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.util.Collection;
+import java.util.List;
+import java.util.Optional;
+import java.util.UUID;
+
+public interface EstadisticaAlumnoCursoRepository extends JpaRepository<EstadisticaAlumnoCurso, UUID> {
+
+    List<EstadisticaAlumnoCurso> findByAlumnoId(UUID alumnoId);
+
+    List<EstadisticaAlumnoCurso> findByCursoId(UUID cursoId);
+
+    List<EstadisticaAlumnoCurso> findByCursoIdIn(Collection<UUID> cursoIds);
+
+    Optional<EstadisticaAlumnoCurso> findByCursoIdAndAlumnoId(UUID cursoId, UUID alumnoId);
+
+    /**
+     * Recalcula la fila de un alumno en un curso a partir de las tablas de origen.
+     * Si ya no quedan datos, la fila se queda a cero.
+     */
+    @Modifying
+    @Transactional
+    @Query(value = """
+            WITH practicas AS (
+                SELECT COUNT(*) AS entregas, COUNT(e.nota) AS calificadas, COALESCE(SUM(e.nota), 0) AS suma
+                FROM entrega_practica e
+                JOIN practica p ON p.id = e.practica_id
+                WHERE p.curso_id = :cursoId AND e.alumno_id = :alumnoId
+            ), examenes AS (
+                SELECT COUNT(n.nota) AS calificados, COALESCE(SUM(n.nota), 0) AS suma
+                FROM nota_examen n
+                JOIN examen x ON x.id = n.examen_id
+                WHERE x.curso_id = :cursoId AND n.alumno_id = :alumnoId
+            ), asistencias AS (
+                SELECT COUNT(*) AS total,
+                       COUNT(*) FILTER (WHERE a.estado = 'PRESENTE') AS presentes,
+                       COUNT(*) FILTER (WHERE a.estado = 'AUSENTE') AS ausentes,
+                       COUNT(*) FILTER (WHERE a.estado = 'RETRASO') AS retrasos,
+                       COUNT(*) FILTER (WHERE a.estado = 'JUSTIFICADO') AS justificados
+                FROM asistencia a
+                WHERE a.curso_id = :cursoId AND a.alumno_id = :alumnoId
+            )
+            INSERT INTO estadistica_alumno_curso (id, curso_id, alumno_id, entregas, practicas_calificadas,
+                    suma_notas_practicas, examenes_calificados, suma_notas_examenes, asistencias, presentes,
+                    ausentes, retrasos, justificados, actualizado)
+            SELECT gen_random_uuid(), :cursoId, :alumnoId, p.entregas, p.calificadas, p.suma, x.calificados, x.suma,
+                   a.total, a.presentes, a.ausentes, a.retrasos, a.justificados, now()
+            FROM practicas p, examenes x, asistencias a
+            ON CONFLICT (curso_id, alumno_id) DO UPDATE SET
+                entregas = EXCLUDED.entregas,
+                practicas_calificadas = EXCLUDED.practicas_calificadas,
+                suma_notas_practicas = EXCLUDED.suma_notas_practicas,
+                examenes_calificados = EXCLUDED.examenes_calificados,
+                suma_notas_examenes = EXCLUDED.suma_notas_examenes,
+                asistencias = EXCLUDED.asistencias,
+                presentes = EXCLUDED.presentes,
+                ausentes = EXCLUDED.ausentes,
+                retrasos = EXCLUDED.retrasos,
+                justificados = EXCLUDED.justificados,
+                actualizado = EXCLUDED.actualizado
+            """, nativeQuery = true)
+    int recalcular(@Param("cursoId") UUID cursoId, @Param("alumnoId") UUID alumnoId);
+
+    /**
+     * Recalcula todas las filas de un curso en una sola sentencia: los alumnos con datos
+     * en origen y los que ya tenían fila (que se ponen a cero si han dejado de tenerlos).
+     */
+    @Modifying
+    @Transactional
+    @Query(value = """
+            WITH practicas AS (
+                SELECT e.alumno_id, COUNT(*) AS entregas, COUNT(e.nota) AS calificadas, COALESCE(SUM(e.nota), 0) AS suma
+                FROM entrega_practica e
+                JOIN practica p ON p.id = e.practica_id
+                WHERE p.curso_id = :cursoId
+                GROUP BY e.alumno_id
+            ), examenes AS (
+                SELECT n.alumno_id, COUNT(n.nota) AS calificados, COALESCE(SUM(n.nota), 0) AS suma
+                FROM nota_examen n
+                JOIN examen x ON x.id = n.examen_id
+                WHERE x.curso_id = :cursoId
+                GROUP BY n.alumno_id
+            ), asistencias AS (
+                SELECT a.alumno_id,
+                       COUNT(*) AS total,
+                       COUNT(*) FILTER (WHERE a.estado = 'PRESENTE') AS presentes,
+                       COUNT(*) FILTER (WHERE a.estado = 'AUSENTE') AS ausentes,
+                       COUNT(*) FILTER (WHERE a.estado = 'RETRASO') AS retrasos,
+                       COUNT(*) FILTER (WHERE a.estado = 'JUSTIFICADO') AS justificados
+                FROM asistencia a
+                WHERE a.curso_id = :cursoId
+                GROUP BY a.alumno_id
+            ), alumnos AS (
+                SELECT alumno_id FROM practicas
+                UNION SELECT alumno_id FROM examenes
+                UNION SELECT alumno_id FROM asistencias
+                UNION SELECT alumno_id FROM estadistica_alumno_curso WHERE curso_id = :cursoId
+            )
+            INSERT INTO estadistica_alumno_curso (id, curso_id, alumno_id, entregas, practicas_calificadas,
+                    suma_notas_practicas, examenes_calificados, suma_notas_examenes, asistencias, presentes,
+                    ausentes, retrasos, justificados, actualizado)
+            SELECT gen_random_uuid(), :cursoId, al.alumno_id,
+                   COALESCE(p.entregas, 0), COALESCE(p.calificadas, 0), COALESCE(p.suma, 0),
+                   COALESCE(x.calificados, 0), COALESCE(x.suma, 0),
+                   COALESCE(a.total, 0), COALESCE(a.presentes, 0), COALESCE(a.ausentes, 0),
+                   COALESCE(a.retrasos, 0), COALESCE(a.justificados, 0), now()
+            FROM alumnos al
+            LEFT JOIN practicas p ON p.alumno_id = al.alumno_id
+            LEFT JOIN examenes x ON x.alumno_id = al.alumno_id
+            LEFT JOIN asistencias a ON a.alumno_id = al.alumno_id
+            ON CONFLICT (curso_id, alumno_id) DO UPDATE SET
+                entregas = EXCLUDED.entregas,
+                practicas_calificadas = EXCLUDED.practicas_calificadas,
+                suma_notas_practicas = EXCLUDED.suma_notas_practicas,
+                examenes_calificados = EXCLUDED.examenes_calificados,
+                suma_notas_examenes = EXCLUDED.suma_notas_examenes,
+                asistencias = EXCLUDED.asistencias,
+                presentes = EXCLUDED.presentes,
+                ausentes = EXCLUDED.ausentes,
+                retrasos = EXCLUDED.retrasos,
+                justificados = EXCLUDED.justificados,
+                actualizado = EXCLUDED.actualizado
+            """, nativeQuery = true)
+    int recalcularCurso(@Param("cursoId") UUID cursoId);
+}
@@ -0,0 +1,62 @@
+package com.infocurso.backend.repository;
+
+import com.infocurso.backend.entity.Usuario;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.Repository;
+
+import java.util.UUID;
+
+/**
+ * Contadores globales del panel de administración calculados en la base de datos.
+ * No expone findAll: ninguna entidad se carga en memoria para contar.
+ */
+public interface EstadisticasSistemaRepository extends Repository<Usuario, UUID> {
+
+    interface ResumenSistema {
+        Long getTotalUsuarios();
+        Long getTotalAlumnos();
+        Long getTotalProfesores();
+        Long getTotalAdministradores();
+        Long getTotalCursos();
+        Long getCursosActivos();
+        Long getTotalPracticas();
+        Long getTotalExamenes();
+        Long getEntregasTotales();
+        Long getEntregasPendientes();
+        Long getTotalAsistencias();
+        Long getAsistenciasPresentes();
+    }
+
+    @Query(value = """
+            SELECT u.total_usuarios          AS "totalUsuarios",
+                   u.total_alumnos           AS "totalAlumnos",
+                   u.total_profesores        AS "totalProfesores",
+                   u.total_administradores   AS "totalAdministradores",
+                   c.total_cursos            AS "totalCursos",
+                   c.cursos_activos          AS "cursosActivos",
+                   p.total_practicas         AS "totalPracticas",
+                   ex.total_examenes         AS "totalExamenes",
+                   e.entregas_totales        AS "entregasTotales",
+                   e.entregas_pendientes     AS "entregasPendientes",
+                   a.total_asistencias       AS "totalAsistencias",
+                   a.asistencias_presentes   AS "asistenciasPresentes"
+            FROM (SELECT COUNT(*)                                        AS total_usuarios,
+                         COUNT(*) FILTER (WHERE rol = 'ALUMNO')          AS total_alumnos,
+                         COUNT(*) FILTER (WHERE rol = 'PROFESOR')        AS total_profesores,
+                         COUNT(*) FILTER (WHERE rol = 'ADMINISTRADOR')   AS total_administradores
+                  FROM usuario) u,
+                 (SELECT COUNT(*) AS total_cursos,
+                         COUNT(*) FILTER (WHERE EXISTS (
+                             SELECT 1 FROM curso_alumnos ca WHERE ca.curso_id = cu.id)) AS cursos_activos
+                  FROM curso cu) c,
+                 (SELECT COUNT(*) AS total_practicas FROM practica) p,
+                 (SELECT COUNT(*) AS total_examenes FROM examen) ex,
+                 (SELECT COUNT(*)                                 AS entregas_totales,
+                         COUNT(*) FILTER (WHERE nota IS NULL)     AS entregas_pendientes
+                  FROM entrega_practica) e,
+                 (SELECT COUNT(*) AS total_asistencias,
+                         COUNT(*) FILTER (WHERE estado IN ('PRESENTE', 'RETRASO', 'JUSTIFICADO')) AS asistencias_presentes
+                  FROM asistencia) a
+            """, nativeQuery = true)
+    ResumenSistema obtenerResumen();
+}
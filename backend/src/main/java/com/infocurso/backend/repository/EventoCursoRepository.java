@@ -1,15 +1,30 @@
 package com.infocurso.backend.repository;
 
+import com.infocurso.backend.dto.EventoCursoDTO;
 import com.infocurso.backend.entity.EventoCurso;
+import com.infocurso.backend.entity.VisibilidadEvento;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
+import java.util.Collection;
 import java.util.List;
 import java.util.UUID;
 
 @Repository
 public interface EventoCursoRepository extends JpaRepository<EventoCurso, UUID> {
     List<EventoCurso> findByCursoId(UUID cursoId);
+
+    List<EventoCurso> findByCursoIdAndVisibleParaInOrderByFecha(UUID cursoId, Collection<VisibilidadEvento> visibles);
+
+    @Query("""
+            SELECT new com.infocurso.backend.dto.EventoCursoDTO(e.titulo, e.descripcion, e.tipo, e.visiblePara, e.fecha)
+            FROM EventoCurso e
+            WHERE e.curso.id = :cursoId
+            ORDER BY e.fecha
+            """)
+    List<EventoCursoDTO> findDTOByCursoId(@Param("cursoId") UUID cursoId);
 }
 
 
@@ -1,11 +1,13 @@
 package com.infocurso.backend.repository;
 
+import com.infocurso.backend.dto.AgregadoConteoDTO;
 import com.infocurso.backend.entity.Examen;
 import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.query.Param;
 
 import java.time.LocalDateTime;
+import java.util.Collection;
 import java.util.List;
 import java.util.UUID;
 
@@ -20,4 +22,20 @@ public interface ExamenRepository extends JpaRepository<Examen, UUID> {
     List<Examen> findExamenesPasados(@Param("cursoId") UUID cursoId);
 
     long countByCursoIdAndFechaAfter(UUID cursoId, LocalDateTime fecha);
+
+    @Query("""
+            SELECT new com.infocurso.backend.dto.AgregadoConteoDTO(e.curso.id, COUNT(e))
+            FROM Examen e
+            WHERE e.curso.profesor.id = :profesorId AND e.fecha > CURRENT_TIMESTAMP
+            GROUP BY e.curso.id
+            """)
+    List<AgregadoConteoDTO> contarProximosPorCursoDeProfesor(@Param("profesorId") UUID profesorId);
+
+    @Query("""
+            SELECT new com.infocurso.backend.dto.AgregadoConteoDTO(e.curso.id, COUNT(e))
+            FROM Examen e
+            WHERE e.curso.id IN :cursoIds AND e.fecha > CURRENT_TIMESTAMP
+            GROUP BY e.curso.id
+            """)
+    List<AgregadoConteoDTO> contarProximosPorCursos(@Param("cursoIds") Collection<UUID> cursoIds);
 }
@@ -2,11 +2,74 @@ package com.infocurso.backend.repository;
 
 import com.infocurso.backend.entity.MensajeCursoLeido;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.transaction.annotation.Transactional;
 
+import java.util.List;
 import java.util.Optional;
 import java.util.UUID;
 
 public interface MensajeCursoLeidoRepository extends JpaRepository<MensajeCursoLeido, UUID> {
+
+    // Secuencias que pasan a estar leídas: (desde, hasta]
+    interface RangoLeido {
+        Long getDesde();
+        Long getHasta();
+    }
+
+    interface NoLeidosCurso {
+        UUID getCursoId();
+        Long getNoLeidos();
+    }
+
     Optional<MensajeCursoLeido> findByCursoIdAndUsuarioId(UUID cursoId, UUID usuarioId);
-}
 
+    // Mueve la marca de lectura hasta el último mensaje del curso en una sola sentencia.
+    // No devuelve nada si el curso todavía no tiene mensajes.
+    @Transactional
+    @Query(value = """
+            WITH anterior AS (
+                SELECT ultima_secuencia_leida
+                FROM mensaje_curso_leido
+                WHERE curso_id = :cursoId AND usuario_id = :usuarioId
+            )
+            INSERT INTO mensaje_curso_leido (id, curso_id, usuario_id, ultima_secuencia_leida, mensajes_propios)
+            SELECT gen_random_uuid(), s.curso_id, :usuarioId, s.ultima, 0
+            FROM mensaje_curso_secuencia s
+            WHERE s.curso_id = :cursoId
+            ON CONFLICT (curso_id, usuario_id) DO UPDATE
+            SET ultima_secuencia_leida = GREATEST(mensaje_curso_leido.ultima_secuencia_leida,
+                                                  EXCLUDED.ultima_secuencia_leida),
+                mensajes_propios = 0
+            RETURNING COALESCE((SELECT ultima_secuencia_leida FROM anterior), 0) AS "desde",
+                      ultima_secuencia_leida AS "hasta"
+            """, nativeQuery = true)
+    Optional<RangoLeido> marcarLeidos(@Param("cursoId") UUID cursoId, @Param("usuarioId") UUID usuarioId);
+
+    @Query(value = """
+            SELECT GREATEST(
+                COALESCE((SELECT s.ultima FROM mensaje_curso_secuencia s WHERE s.curso_id = :cursoId), 0)
+                - COALESCE((SELECT l.ultima_secuencia_leida + l.mensajes_propios
+                            FROM mensaje_curso_leido l
+                            WHERE l.curso_id = :cursoId AND l.usuario_id = :usuarioId), 0),
+                0)
+            """, nativeQuery = true)
+    long contarNoLeidos(@Param("cursoId") UUID cursoId, @Param("usuarioId") UUID usuarioId);
+
+    // No leídos de todos los cursos del usuario, como alumno o como profesor
+    @Query(value = """
+            SELECT c.curso_id AS "cursoId",
+                   GREATEST(COALESCE(s.ultima, 0)
+                            - COALESCE(l.ultima_secuencia_leida, 0)
+                            - COALESCE(l.mensajes_propios, 0), 0) AS "noLeidos"
+            FROM (SELECT ac.curso_id FROM alumno_curso ac WHERE ac.alumno_id = :usuarioId
+                  UNION
+                  SELECT ca.curso_id FROM curso_alumnos ca WHERE ca.alumno_id = :usuarioId
+                  UNION
+                  SELECT cu.id FROM curso cu WHERE cu.profesor_id = :usuarioId) c
+            LEFT JOIN mensaje_curso_secuencia s ON s.curso_id = c.curso_id
+            LEFT JOIN mensaje_curso_leido l ON l.curso_id = c.curso_id AND l.usuario_id = :usuarioId
+            """, nativeQuery = true)
+    List<NoLeidosCurso> contarNoLeidosPorCurso(@Param("usuarioId") UUID usuarioId);
+}
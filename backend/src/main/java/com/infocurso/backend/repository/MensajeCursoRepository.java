@@ -1,31 +1,54 @@
 package com.infocurso.backend.repository;
 
+import com.infocurso.backend.dto.MensajeCursoDTO;
 import com.infocurso.backend.entity.MensajeCurso;
+import org.springframework.data.domain.Limit;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 
 import java.time.LocalDateTime;
 import java.util.List;
-import java.util.Optional;
 import java.util.UUID;
 
 public interface MensajeCursoRepository extends JpaRepository<MensajeCurso, UUID> {
 
-    // ✅ Último mensaje del curso (por fecha)
-    Optional<MensajeCurso> findTopByCursoIdOrderByFechaEnvioDesc(UUID cursoId);
-
-    // ✅ Mensajes posteriores a una fecha, emitidos por otros usuarios
-    int countByCursoIdAndFechaEnvioAfterAndEmisorIdNot(UUID cursoId, LocalDateTime fecha, UUID emisorId);
-
-    // ✅ Si nunca ha leído, contar todos los mensajes de otros
-    int countByCursoIdAndEmisorIdNot(UUID cursoId, UUID emisorId);
-
-    // ✅ Obtener mensajes de otros usuarios (para read receipts)
-    List<MensajeCurso> findByCursoIdAndEmisorIdNot(UUID cursoId, UUID emisorId);
-
-    // ✅ Obtener mensajes posteriores a una fecha de otros usuarios
-    List<MensajeCurso> findByCursoIdAndFechaEnvioAfterAndEmisorIdNot(
-            UUID cursoId, LocalDateTime fecha, UUID emisorId);
-
-    // (opcional) Obtener todos los mensajes de un curso ordenados
-    List<MensajeCurso> findAllByCursoIdOrderByFechaEnvioAsc(UUID cursoId);
+    // Historial paginado por cursor (fechaEnvio, id). La condición redundante sobre fechaEnvio
+    // permite recorrer el índice (curso_id, fecha_envio) desde la posición del cursor.
+    @Query("""
+            SELECT new com.infocurso.backend.dto.MensajeCursoDTO(
+                m.id, m.curso.id, m.contenido, m.fechaEnvio, m.secuencia, e.id, e.nombre, e.avatarUrl)
+            FROM MensajeCurso m JOIN m.emisor e
+            WHERE m.curso.id = :cursoId
+            ORDER BY m.fechaEnvio DESC, m.id DESC
+            """)
+    List<MensajeCursoDTO> findUltimosMensajes(@Param("cursoId") UUID cursoId, Limit limite);
+
+    @Query("""
+            SELECT new com.infocurso.backend.dto.MensajeCursoDTO(
+                m.id, m.curso.id, m.contenido, m.fechaEnvio, m.secuencia, e.id, e.nombre, e.avatarUrl)
+            FROM MensajeCurso m JOIN m.emisor e
+            WHERE m.curso.id = :cursoId
+              AND m.fechaEnvio <= :fecha
+              AND (m.fechaEnvio < :fecha OR m.id < :id)
+            ORDER BY m.fechaEnvio DESC, m.id DESC
+            """)
+    List<MensajeCursoDTO> findMensajesAnteriores(@Param("cursoId") UUID cursoId,
+                                                 @Param("fecha") LocalDateTime fecha,
+                                                 @Param("id") UUID id,
+                                                 Limit limite);
+
+    @Query("""
+            SELECT new com.infocurso.backend.dto.MensajeCursoDTO(
+                m.id, m.curso.id, m.contenido, m.fechaEnvio, m.secuencia, e.id, e.nombre, e.avatarUrl)
+            FROM MensajeCurso m JOIN m.emisor e
+            WHERE m.curso.id = :cursoId
+              AND m.fechaEnvio >= :fecha
+              AND (m.fechaEnvio > :fecha OR m.id > :id)
+            ORDER BY m.fechaEnvio ASC, m.id ASC
+            """)
+    List<MensajeCursoDTO> findMensajesPosteriores(@Param("cursoId") UUID cursoId,
+                                                  @Param("fecha") LocalDateTime fecha,
+                                                  @Param("id") UUID id,
+                                                  Limit limite);
 }
@@ -1,22 +1,58 @@
 package com.infocurso.backend.repository;
 
 import com.infocurso.backend.entity.Mensaje;
+import org.springframework.data.domain.Limit;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
 import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.transaction.annotation.Transactional;
 
+import java.time.LocalDateTime;
 import java.util.List;
 import java.util.UUID;
 
 public interface MensajeRepository extends JpaRepository<Mensaje, Long> {
-    List<Mensaje> findByEmisorIdAndReceptorIdOrReceptorIdAndEmisorIdOrderByFechaEnvio(
-            UUID emisorId, UUID receptorId, UUID receptorId2, UUID emisorId2
-    );
 
+    // Conversación paginada por cursor (fechaEnvio, id) sobre el índice (conversacion, fecha_envio, id).
+    // Como en MensajeCursoRepository, la condición redundante sobre fechaEnvio acota el recorrido.
     @Query("""
-    SELECT m FROM Mensaje m 
-    WHERE (m.emisor.id = :emisorId AND m.receptor.id = :receptorId)
-       OR (m.emisor.id = :receptorId AND m.receptor.id = :emisorId)
-    ORDER BY m.fechaEnvio
-""")
-    List<Mensaje> obtenerConversacion(UUID emisorId, UUID receptorId);
+            SELECT m FROM Mensaje m JOIN FETCH m.emisor JOIN FETCH m.receptor
+            WHERE m.conversacion = :conversacion
+            ORDER BY m.fechaEnvio DESC, m.id DESC
+            """)
+    List<Mensaje> findUltimosMensajes(@Param("conversacion") String conversacion, Limit limite);
+
+    @Query("""
+            SELECT m FROM Mensaje m JOIN FETCH m.emisor JOIN FETCH m.receptor
+            WHERE m.conversacion = :conversacion
+              AND m.fechaEnvio <= :fecha
+              AND (m.fechaEnvio < :fecha OR m.id < :id)
+            ORDER BY m.fechaEnvio DESC, m.id DESC
+            """)
+    List<Mensaje> findMensajesAnteriores(@Param("conversacion") String conversacion,
+                                         @Param("fecha") LocalDateTime fecha,
+                                         @Param("id") Long id,
+                                         Limit limite);
+
+    @Query("""
+            SELECT m FROM Mensaje m JOIN FETCH m.emisor JOIN FETCH m.receptor
+            WHERE m.conversacion = :conversacion
+              AND m.fechaEnvio >= :fecha
+              AND (m.fechaEnvio > :fecha OR m.id > :id)
+            ORDER BY m.fechaEnvio ASC, m.id ASC
+            """)
+    List<Mensaje> findMensajesPosteriores(@Param("conversacion") String conversacion,
+                                          @Param("fecha") LocalDateTime fecha,
+                                          @Param("id") Long id,
+                                          Limit limite);
+
+    // Usa el índice parcial de no leídos (V12): solo toca las filas que cambian
+    @Transactional
+    @Modifying
+    @Query("""
+            UPDATE Mensaje m SET m.leido = true
+            WHERE m.conversacion = :conversacion AND m.receptor.id = :receptorId AND m.leido = false
+            """)
+    int marcarLeidos(@Param("conversacion") String conversacion, @Param("receptorId") UUID receptorId);
 }
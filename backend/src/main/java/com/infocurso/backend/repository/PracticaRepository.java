@@ -1,8 +1,13 @@
 package com.infocurso.backend.repository;
 
+import com.infocurso.backend.dto.AgregadoConteoDTO;
+import com.infocurso.backend.dto.PracticaDTO;
 import com.infocurso.backend.entity.Practica;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 
+import java.util.Collection;
 import java.util.List;
 import java.util.UUID;
 
@@ -10,5 +15,21 @@ public interface PracticaRepository extends JpaRepository<Practica, UUID> {
     List<Practica> findByCursoId(UUID cursoId);
 
     long countByCursoId(UUID cursoId);
+
+    @Query("""
+            SELECT new com.infocurso.backend.dto.PracticaDTO(p.id, p.titulo, p.descripcion, p.fechaEntrega)
+            FROM Practica p
+            WHERE p.curso.id = :cursoId
+            ORDER BY p.fechaEntrega
+            """)
+    List<PracticaDTO> findDTOByCursoId(@Param("cursoId") UUID cursoId);
+
+    @Query("""
+            SELECT new com.infocurso.backend.dto.AgregadoConteoDTO(p.curso.id, COUNT(p))
+            FROM Practica p
+            WHERE p.curso.id IN :cursoIds
+            GROUP BY p.curso.id
+            """)
+    List<AgregadoConteoDTO> contarPorCursos(@Param("cursoIds") Collection<UUID> cursoIds);
 }
 
@@ -0,0 +1,51 @@
+package com.infocurso.backend.repository;
+
+import com.infocurso.backend.dto.RevisionWikiDTO;
+import com.infocurso.backend.entity.RevisionWiki;
+import org.springframework.data.domain.Limit;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+
+import java.util.List;
+import java.util.Optional;
+import java.util.UUID;
+
+public interface RevisionWikiRepository extends JpaRepository<RevisionWiki, UUID> {
+
+    interface Cabecera {
+        int getNumero();
+
+        String getHash();
+    }
+
+    // Número y hash de la última revisión, sin leer los datos: basta para responder a If-None-Match
+    @Query("""
+            SELECT r.numero AS numero, r.hash AS hash
+            FROM RevisionWiki r
+            WHERE r.wiki.curso.id = :cursoId
+            ORDER BY r.numero DESC
+            """)
+    List<Cabecera> findCabeceras(@Param("cursoId") UUID cursoId, Limit limite);
+
+    Optional<RevisionWiki> findFirstByWikiIdOrderByNumeroDesc(UUID wikiId);
+
+    Optional<RevisionWiki> findByWikiIdAndNumero(UUID wikiId, int numero);
+
+    @Query("""
+            SELECT r FROM RevisionWiki r
+            WHERE r.wiki.curso.id = :cursoId AND r.numero = :numero
+            """)
+    Optional<RevisionWiki> findByCursoIdAndNumero(@Param("cursoId") UUID cursoId, @Param("numero") int numero);
+
+    @Query(value = """
+            SELECT new com.infocurso.backend.dto.RevisionWikiDTO(r.numero, r.fecha, a.id, a.nombre, r.tamano)
+            FROM RevisionWiki r LEFT JOIN r.autor a
+            WHERE r.wiki.curso.id = :cursoId
+            ORDER BY r.numero DESC
+            """,
+            countQuery = "SELECT count(r) FROM RevisionWiki r WHERE r.wiki.curso.id = :cursoId")
+    Page<RevisionWikiDTO> findHistorial(@Param("cursoId") UUID cursoId, Pageable pagina);
+}
@@ -1,10 +1,23 @@
 package com.infocurso.backend.repository;
 
+import com.infocurso.backend.dto.UnidadFormativaDTO;
 import com.infocurso.backend.entity.UnidadFormativa;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 
+import java.util.List;
 import java.util.UUID;
 
 public interface UnidadFormativaRepository extends JpaRepository<UnidadFormativa, UUID> {
+
+    // Las de todos los módulos del curso, en el orden de cada módulo
+    @Query("""
+            SELECT new com.infocurso.backend.dto.UnidadFormativaDTO(u.id, u.nombre, u.fechaInicio, u.fechaFin, m.id)
+            FROM UnidadFormativa u JOIN u.modulo m
+            WHERE m.curso.id = :cursoId
+            ORDER BY u.ordenUnidad
+            """)
+    List<UnidadFormativaDTO> findDTOByCursoId(@Param("cursoId") UUID cursoId);
 }
 
@@ -17,5 +17,13 @@ public interface UsuarioRepository extends JpaRepository<Usuario, UUID> {
     @Query("SELECT u FROM Usuario u WHERE u.rol = 'PROFESOR'")
     List<Usuario> findProfesores();
 
+    // Matriculados por el administrador (curso_alumnos) o inscritos (alumno_curso)
+    @Query("""
+            SELECT u FROM Usuario u
+            WHERE u.id IN (SELECT a.id FROM Curso c JOIN c.alumnos a WHERE c.id = :cursoId)
+               OR u.id IN (SELECT ac.alumno.id FROM AlumnoCurso ac WHERE ac.curso.id = :cursoId)
+            """)
+    List<Usuario> findMatriculadosEnCurso(@Param("cursoId") UUID cursoId);
+
     long countByRol(Rol rol);
 }
@@ -1,12 +1,34 @@
 package com.infocurso.backend.repository;
 
 import com.infocurso.backend.entity.WikiCurso;
+import jakarta.persistence.LockModeType;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Lock;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 
 import java.util.Optional;
 import java.util.UUID;
 
 public interface WikiCursoRepository extends JpaRepository<WikiCurso, UUID> {
     Optional<WikiCurso> findByCursoId(UUID cursoId);
+
+    @Query("SELECT w.id FROM WikiCurso w WHERE w.curso.id = :cursoId")
+    Optional<UUID> findIdByCursoId(@Param("cursoId") UUID cursoId);
+
+    // Los guardados de una misma wiki se ordenan en esta fila para numerar sus revisiones
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    @Query("SELECT w FROM WikiCurso w WHERE w.curso.id = :cursoId")
+    Optional<WikiCurso> findByCursoIdParaGuardar(@Param("cursoId") UUID cursoId);
+
+    // Vector de búsqueda de la versión actual (V14); en las demás tablas la columna es generada
+    @Modifying
+    @Query(value = """
+            UPDATE wiki_curso
+            SET busqueda = to_tsvector('spanish'::regconfig, coalesce(texto_busqueda(:contenido), ''))
+            WHERE id = :wikiId
+            """, nativeQuery = true)
+    int actualizarBusqueda(@Param("wikiId") UUID wikiId, @Param("contenido") String contenido);
 }
 
@@ -0,0 +1,19 @@
+package com.infocurso.backend.security;
+
+import java.time.Duration;
+
+/**
+ * Dónde viven los buckets del {@link RateLimitFilter}. La clave ya incluye la regla, así que la
+ * capacidad y el periodo de una misma clave no cambian entre llamadas.
+ */
+public interface AlmacenBuckets {
+
+    /**
+     * Consume un token del bucket de la clave, creándolo lleno si no existe.
+     *
+     * @return false si el bucket está vacío y hay que rechazar la petición
+     */
+    boolean consumir(String clave, long capacidad, Duration periodo);
+
+    long numeroBuckets();
+}
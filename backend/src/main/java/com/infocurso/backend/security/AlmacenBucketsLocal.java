@@ -0,0 +1,47 @@
+package com.infocurso.backend.security;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import io.github.bucket4j.Bandwidth;
+import io.github.bucket4j.Bucket;
+import io.github.bucket4j.Refill;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+
+/**
+ * Buckets en memoria de este nodo, acotados en número y descartados tras un tiempo sin uso.
+ * Un bucket descartado vuelve lleno, igual que si el cliente hubiera esperado a que se rellenase,
+ * siempre que la inactividad sea mayor que el periodo de las reglas.
+ */
+@Component
+@ConditionalOnProperty(name = "app.rate-limit.almacen", havingValue = "local", matchIfMissing = true)
+public class AlmacenBucketsLocal implements AlmacenBuckets {
+
+    private final Cache<String, Bucket> buckets;
+
+    public AlmacenBucketsLocal(PropiedadesRateLimit propiedades) {
+        this.buckets = Caffeine.newBuilder()
+                .maximumSize(propiedades.maximoBuckets())
+                .expireAfterAccess(propiedades.inactividad())
+                .build();
+    }
+
+    @Override
+    public boolean consumir(String clave, long capacidad, Duration periodo) {
+        return buckets.get(clave, c -> crearBucket(capacidad, periodo)).tryConsume(1);
+    }
+
+    @Override
+    public long numeroBuckets() {
+        // Caffeine desaloja en segundo plano; sin esto la métrica puede pasarse del máximo un rato
+        buckets.cleanUp();
+        return buckets.estimatedSize();
+    }
+
+    private Bucket crearBucket(long capacidad, Duration periodo) {
+        Bandwidth limit = Bandwidth.classic(capacidad, Refill.intervally(capacidad, periodo));
+        return Bucket.builder().addLimit(limit).build();
+    }
+}
@@ -0,0 +1,68 @@
+package com.infocurso.backend.security;
+
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+
+/**
+ * Buckets en la tabla limite_tasa, compartidos por todas las réplicas, que ya usan la misma base de
+ * datos. Cada consumo es un único UPSERT: el bloqueo de la fila hace atómico el rellenado y el
+ * consumo aunque lleguen peticiones de la misma clave a varios nodos a la vez.
+ * <p>
+ * El rellenado es continuo (capacidad / periodo tokens por segundo), no por intervalos como en
+ * {@link AlmacenBucketsLocal}; a efectos del límite por minuto es equivalente.
+ */
+@Component
+@ConditionalOnProperty(name = "app.rate-limit.almacen", havingValue = "postgres")
+public class AlmacenBucketsPostgres implements AlmacenBuckets {
+
+    // Tokens disponibles tras rellenar el bucket existente hasta ahora
+    private static final String DISPONIBLES = """
+            LEAST(?, l.tokens + EXTRACT(EPOCH FROM clock_timestamp() - l.actualizado) * ?)""";
+
+    private static final String CONSUMIR = """
+            INSERT INTO limite_tasa AS l (clave, tokens, actualizado, permitido)
+            VALUES (?, ? - 1, clock_timestamp(), ? >= 1)
+            ON CONFLICT (clave) DO UPDATE SET
+                tokens = CASE WHEN %1$s >= 1 THEN %1$s - 1 ELSE %1$s END,
+                actualizado = clock_timestamp(),
+                permitido = %1$s >= 1
+            RETURNING permitido
+            """.formatted(DISPONIBLES);
+
+    private final JdbcTemplate jdbcTemplate;
+    private final Duration inactividad;
+
+    public AlmacenBucketsPostgres(JdbcTemplate jdbcTemplate, PropiedadesRateLimit propiedades) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.inactividad = propiedades.inactividad();
+    }
+
+    @Override
+    public boolean consumir(String clave, long capacidad, Duration periodo) {
+        double ritmo = capacidad / (periodo.toNanos() / 1e9);
+        Boolean permitido = jdbcTemplate.queryForObject(CONSUMIR, Boolean.class,
+                clave, capacidad, capacidad,
+                capacidad, ritmo,
+                capacidad, ritmo,
+                capacidad, ritmo,
+                capacidad, ritmo);
+        return Boolean.TRUE.equals(permitido);
+    }
+
+    @Override
+    public long numeroBuckets() {
+        Long total = jdbcTemplate.queryForObject("SELECT COUNT(*) FROM limite_tasa", Long.class);
+        return total != null ? total : 0;
+    }
+
+    // Un bucket inactivo más que un periodo está lleno: borrarlo no cambia nada para el cliente
+    @Scheduled(fixedDelay = 60_000)
+    public void limpiar() {
+        jdbcTemplate.update("DELETE FROM limite_tasa WHERE actualizado < clock_timestamp() - ? * interval '1 millisecond'",
+                inactividad.toMillis());
+    }
+}
@@ -0,0 +1,88 @@
+package com.infocurso.backend.security;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.infocurso.backend.entity.Rol;
+import com.infocurso.backend.entity.Usuario;
+import com.infocurso.backend.repository.UsuarioRepository;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.time.Duration;
+import java.util.Optional;
+import java.util.UUID;
+
+/**
+ * Usuarios autenticados por email, para no ir a la base de datos en cada petición. Quien cambie
+ * nombre, email, rol o avatar de un usuario, o lo borre, tiene que llamar a {@link #invalidar(String)}.
+ * La invalidación solo afecta a este nodo: en el resto el cambio se ve al caducar la entrada,
+ * por eso la duración es corta.
+ * <p>
+ * Se guarda una copia inmutable de los campos y cada petición recibe un {@link Usuario} nuevo: lo
+ * que una petición cambie en el suyo no lo ve ninguna otra ni se queda en la caché.
+ */
+@Component
+public class CacheUsuarios {
+
+    private final UsuarioRepository usuarioRepository;
+    private final Cache<String, UsuarioCacheado> usuarios;
+
+    private record UsuarioCacheado(UUID id, String nombre, String email, String passwordHash,
+                                   String avatarUrl, Rol rol) {
+
+        static UsuarioCacheado de(Usuario usuario) {
+            return new UsuarioCacheado(usuario.getId(), usuario.getNombre(), usuario.getEmail(),
+                    usuario.getPasswordHash(), usuario.getAvatarUrl(), usuario.getRol());
+        }
+
+        Usuario usuario() {
+            return Usuario.builder()
+                    .id(id)
+                    .nombre(nombre)
+                    .email(email)
+                    .passwordHash(passwordHash)
+                    .avatarUrl(avatarUrl)
+                    .rol(rol)
+                    .build();
+        }
+    }
+
+    public CacheUsuarios(UsuarioRepository usuarioRepository,
+                         @Value("${app.seguridad.cache-usuarios.tamano-maximo:10000}") long tamanoMaximo,
+                         @Value("${app.seguridad.cache-usuarios.duracion:30s}") Duration duracion) {
+        this.usuarioRepository = usuarioRepository;
+        this.usuarios = Caffeine.newBuilder()
+                .maximumSize(tamanoMaximo)
+                .expireAfterWrite(duracion)
+                .build();
+    }
+
+    public Optional<Usuario> buscarPorEmail(String email) {
+        // Los emails que no existen no se guardan: el loader devuelve null
+        return Optional.ofNullable(usuarios.get(email, e -> usuarioRepository.findByEmail(e)
+                        .map(UsuarioCacheado::de)
+                        .orElse(null)))
+                .map(UsuarioCacheado::usuario);
+    }
+
+    /**
+     * Dentro de una transacción se invalida también al confirmarla: mientras tanto otra petición
+     * podría volver a cargar el usuario sin el cambio y dejarlo en la caché.
+     */
+    public void invalidar(String email) {
+        if (email == null) {
+            return;
+        }
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    usuarios.invalidate(email);
+                }
+            });
+        }
+        usuarios.invalidate(email);
+    }
+}
@@ -1,8 +1,6 @@
 package com.infocurso.backend.security;
 
 import com.infocurso.backend.entity.Usuario;
-import com.infocurso.backend.repository.UsuarioRepository;
-import io.jsonwebtoken.Claims;
 import jakarta.servlet.FilterChain;
 import jakarta.servlet.ServletException;
 import jakarta.servlet.http.Cookie;
@@ -10,21 +8,21 @@ import jakarta.servlet.http.HttpServletRequest;
 import jakarta.servlet.http.HttpServletResponse;
 import lombok.RequiredArgsConstructor;
 import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
-// import org.springframework.security.core.authority.SimpleGrantedAuthority;
 import org.springframework.security.core.context.SecurityContextHolder;
 import org.springframework.security.web.authentication.WebAuthenticationDetailsSource;
 import org.springframework.stereotype.Component;
 import org.springframework.web.filter.OncePerRequestFilter;
 
 import java.io.IOException;
-// import java.util.List;
 
 @Component
 @RequiredArgsConstructor
 public class JwtAuthenticationFilter extends OncePerRequestFilter {
 
+    private static final WebAuthenticationDetailsSource DETAILS_SOURCE = new WebAuthenticationDetailsSource();
+
     private final JwtUtil jwtUtil;
-    private final UsuarioRepository usuarioRepository;
+    private final CacheUsuarios cacheUsuarios;
 
     @Override
     protected void doFilterInternal(HttpServletRequest request,
@@ -37,7 +35,6 @@ public class JwtAuthenticationFilter extends OncePerRequestFilter {
             for (Cookie cookie : request.getCookies()) {
                 if ("jwt".equals(cookie.getName())) {
                     token = cookie.getValue();
-                    // System.out.println("🍪 Token encontrado en cookie");
                     break;
                 }
             }
@@ -48,32 +45,25 @@ public class JwtAuthenticationFilter extends OncePerRequestFilter {
             String authHeader = request.getHeader("Authorization");
             if (authHeader != null && authHeader.startsWith("Bearer ")) {
                 token = authHeader.substring(7);
-                // System.out.println("📋 Token encontrado en header Authorization");
             }
         }
 
-        if (token != null && jwtUtil.esTokenValido(token)) {
-            Claims claims = jwtUtil.getAllClaims(token);
-            String email = claims.getSubject();
-            // String rol = claims.get("rol", String.class);
-
-            Usuario usuario = usuarioRepository.findByEmail(email).orElse(null);
+        // Firma verificada una sola vez por token y usuario desde la caché, sin consulta por petición
+        if (token != null) {
+            Usuario usuario = jwtUtil.emailVerificado(token)
+                    .flatMap(cacheUsuarios::buscarPorEmail)
+                    .orElse(null);
             if (usuario != null) {
-                System.out.println("✅ Usuario autenticado: " + email + " Authorities: " + usuario.getAuthorities());
-
                 UsernamePasswordAuthenticationToken authToken = new UsernamePasswordAuthenticationToken(
                         usuario,
                         null,
                         usuario.getAuthorities());
 
-                authToken.setDetails(new WebAuthenticationDetailsSource().buildDetails(request));
+                authToken.setDetails(DETAILS_SOURCE.buildDetails(request));
                 SecurityContextHolder.getContext().setAuthentication(authToken);
             }
         }
 
         filterChain.doFilter(request, response);
-        // System.out.println(
-        // "👉 Usuario autenticado en contexto: " +
-        // SecurityContextHolder.getContext().getAuthentication());
     }
 }
@@ -1,11 +1,20 @@
 package com.infocurso.backend.security;
 
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
 import io.jsonwebtoken.*;
 import io.jsonwebtoken.security.Keys;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Component;
 
+import java.nio.charset.StandardCharsets;
 import java.security.Key;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.time.Duration;
 import java.util.Date;
+import java.util.HexFormat;
+import java.util.Optional;
 import java.util.UUID;
 
 @Component
@@ -14,8 +23,22 @@ public class JwtUtil {
     private static final String SECRET_KEY = "mi-clave-secreta-super-segura-para-jwt-con-mas-de-32-bytes";
     private static final long EXPIRATION_MS = 1000 * 60 * 60 * 24; // 1 día
 
-    private Key getKey() {
-        return Keys.hmacShaKeyFor(SECRET_KEY.getBytes());
+    // La clave y el parser son inmutables y seguros entre hilos: se construyen una sola vez
+    private final Key key = Keys.hmacShaKeyFor(SECRET_KEY.getBytes());
+    private final JwtParser parser = Jwts.parserBuilder().setSigningKey(key).build();
+
+    // Tokens cuya firma ya se comprobó, por el hash del token para no guardar el token en claro
+    private final Cache<String, TokenVerificado> verificados;
+
+    private record TokenVerificado(String email, long expiraEn) {
+    }
+
+    public JwtUtil(@Value("${app.seguridad.cache-tokens.tamano-maximo:10000}") long tamanoMaximo,
+                   @Value("${app.seguridad.cache-tokens.duracion:5m}") Duration duracion) {
+        this.verificados = Caffeine.newBuilder()
+                .maximumSize(tamanoMaximo)
+                .expireAfterWrite(duracion)
+                .build();
     }
 
     public String generarToken(String email, UUID userId, String rol) {
@@ -25,7 +48,7 @@ public class JwtUtil {
                 .claim("rol", rol)
                 .setIssuedAt(new Date())
                 .setExpiration(new Date(System.currentTimeMillis() + EXPIRATION_MS))
-                .signWith(getKey(), SignatureAlgorithm.HS256)
+                .signWith(key, SignatureAlgorithm.HS256)
                 .compact();
     }
 
@@ -46,15 +69,45 @@ public class JwtUtil {
         }
     }
 
+    /**
+     * Email del token si la firma es válida y no ha caducado. Solo se verifica la firma la primera
+     * vez que se ve el token; después basta con su hash y la caducidad que se guardó con él.
+     */
+    public Optional<String> emailVerificado(String token) {
+        String hash = hash(token);
+        TokenVerificado verificado = verificados.getIfPresent(hash);
+        if (verificado == null) {
+            try {
+                Claims claims = getClaims(token);
+                Date expiracion = claims.getExpiration();
+                verificado = new TokenVerificado(claims.getSubject(),
+                        expiracion != null ? expiracion.getTime() : Long.MAX_VALUE);
+            } catch (JwtException | IllegalArgumentException e) {
+                return Optional.empty();
+            }
+            verificados.put(hash, verificado);
+        }
+        if (verificado.expiraEn() <= System.currentTimeMillis()) {
+            verificados.invalidate(hash);
+            return Optional.empty();
+        }
+        return Optional.ofNullable(verificado.email());
+    }
+
     public Claims getAllClaims(String token) {
         return getClaims(token);
     }
 
     private Claims getClaims(String token) {
-        return Jwts.parserBuilder()
-                .setSigningKey(getKey())
-                .build()
-                .parseClaimsJws(token)
-                .getBody();
+        return parser.parseClaimsJws(token).getBody();
+    }
+
+    private static String hash(String token) {
+        try {
+            MessageDigest digest = MessageDigest.getInstance("SHA-256");
+            return HexFormat.of().formatHex(digest.digest(token.getBytes(StandardCharsets.US_ASCII)));
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 no disponible", e);
+        }
     }
 }
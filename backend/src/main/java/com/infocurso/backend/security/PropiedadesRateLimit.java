@@ -0,0 +1,41 @@
+package com.infocurso.backend.security;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.boot.context.properties.bind.DefaultValue;
+
+import java.time.Duration;
+import java.util.List;
+
+/**
+ * Configuración de app.rate-limit. A cada petición se le aplica la primera regla que encaje por
+ * ruta, método y rol; los campos vacíos de una regla encajan con todo. Sin regla no hay límite.
+ *
+ * @param almacen       local (memoria de cada nodo) o postgres (compartido entre réplicas)
+ * @param maximoBuckets buckets en memoria como mucho; se descartan antes los menos usados
+ * @param inactividad   tiempo sin peticiones tras el que se descarta un bucket
+ */
+@ConfigurationProperties(prefix = "app.rate-limit")
+public record PropiedadesRateLimit(
+        @DefaultValue("local") String almacen,
+        @DefaultValue("100000") long maximoBuckets,
+        @DefaultValue("10m") Duration inactividad,
+        List<Regla> reglas) {
+
+    /**
+     * @param ruta   patrón Ant sobre la URI, p. ej. /api/auth/**
+     * @param metodo método HTTP
+     * @param rol    rol del usuario autenticado, sin el prefijo ROLE_
+     */
+    public record Regla(
+            String nombre,
+            String ruta,
+            String metodo,
+            String rol,
+            long capacidad,
+            Duration periodo) {
+    }
+
+    public List<Regla> reglas() {
+        return reglas != null ? reglas : List.of();
+    }
+}
@@ -1,30 +1,50 @@
 package com.infocurso.backend.security;
 
-import io.github.bucket4j.Bandwidth;
-import io.github.bucket4j.Bucket;
-import io.github.bucket4j.Refill;
+import com.infocurso.backend.entity.Usuario;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
 import jakarta.servlet.FilterChain;
 import jakarta.servlet.ServletException;
 import jakarta.servlet.http.HttpServletRequest;
 import jakarta.servlet.http.HttpServletResponse;
 import org.springframework.http.HttpStatus;
+import org.springframework.security.core.Authentication;
+import org.springframework.security.core.context.SecurityContextHolder;
 import org.springframework.stereotype.Component;
+import org.springframework.util.AntPathMatcher;
 import org.springframework.web.filter.OncePerRequestFilter;
 
 import java.io.IOException;
-import java.time.Duration;
+import java.util.HashMap;
+import java.util.List;
 import java.util.Map;
-import java.util.concurrent.ConcurrentHashMap;
 
+/**
+ * Límite de peticiones por regla (ver {@link PropiedadesRateLimit}) y por usuario o, sin sesión,
+ * por IP. Se registra como filtro de servlet normal, detrás de la cadena de Spring Security,
+ * así que el usuario del JWT ya está en el contexto cuando se elige la regla.
+ */
 @Component
 public class RateLimitFilter extends OncePerRequestFilter {
 
-    private final Map<String, Bucket> cache = new ConcurrentHashMap<>();
+    private final AlmacenBuckets almacen;
+    private final List<PropiedadesRateLimit.Regla> reglas;
+    private final Map<String, Counter> rechazos = new HashMap<>();
+    private final AntPathMatcher pathMatcher = new AntPathMatcher();
 
-    private Bucket createBucket() {
-        // Límite: 100 requests por minuto
-        Bandwidth limit = Bandwidth.classic(100, Refill.intervally(100, Duration.ofMinutes(1)));
-        return Bucket.builder().addLimit(limit).build();
+    public RateLimitFilter(AlmacenBuckets almacen, PropiedadesRateLimit propiedades, MeterRegistry registry) {
+        this.almacen = almacen;
+        this.reglas = propiedades.reglas();
+        for (PropiedadesRateLimit.Regla regla : reglas) {
+            rechazos.put(regla.nombre(), Counter.builder("rate_limit.rechazos")
+                    .description("Peticiones rechazadas por superar el límite")
+                    .tag("regla", regla.nombre())
+                    .register(registry));
+        }
+        Gauge.builder("rate_limit.buckets", almacen, AlmacenBuckets::numeroBuckets)
+                .description("Buckets de rate limiting en el almacén")
+                .register(registry);
     }
 
     @Override
@@ -32,18 +52,53 @@ public class RateLimitFilter extends OncePerRequestFilter {
             HttpServletResponse response,
             FilterChain filterChain) throws ServletException, IOException {
 
-        String key = getClientIP(request);
-        Bucket bucket = cache.computeIfAbsent(key, k -> createBucket());
+        Authentication autenticacion = SecurityContextHolder.getContext().getAuthentication();
+        PropiedadesRateLimit.Regla regla = buscarRegla(request, autenticacion);
+        if (regla == null) {
+            filterChain.doFilter(request, response);
+            return;
+        }
 
-        if (bucket.tryConsume(1)) {
+        String key = regla.nombre() + ":" + getClientKey(request, autenticacion);
+        if (almacen.consumir(key, regla.capacidad(), regla.periodo())) {
             filterChain.doFilter(request, response);
         } else {
+            rechazos.get(regla.nombre()).increment();
             response.setStatus(HttpStatus.TOO_MANY_REQUESTS.value());
             response.setContentType("application/json");
             response.getWriter().write("{\"error\":\"Too many requests. Please try again later.\"}");
         }
     }
 
+    private PropiedadesRateLimit.Regla buscarRegla(HttpServletRequest request, Authentication autenticacion) {
+        for (PropiedadesRateLimit.Regla regla : reglas) {
+            if (regla.ruta() != null && !pathMatcher.match(regla.ruta(), request.getRequestURI())) {
+                continue;
+            }
+            if (regla.metodo() != null && !regla.metodo().equalsIgnoreCase(request.getMethod())) {
+                continue;
+            }
+            if (regla.rol() != null && !tieneRol(autenticacion, regla.rol())) {
+                continue;
+            }
+            return regla;
+        }
+        return null;
+    }
+
+    private boolean tieneRol(Authentication autenticacion, String rol) {
+        return autenticacion != null && autenticacion.getAuthorities().stream()
+                .anyMatch(a -> ("ROLE_" + rol).equals(a.getAuthority()));
+    }
+
+    // Un usuario autenticado tiene su propio límite aunque comparta IP (NAT, redes móviles)
+    private String getClientKey(HttpServletRequest request, Authentication autenticacion) {
+        if (autenticacion != null && autenticacion.getPrincipal() instanceof Usuario usuario) {
+            return usuario.getId().toString();
+        }
+        return getClientIP(request);
+    }
+
     private String getClientIP(HttpServletRequest request) {
         String xfHeader = request.getHeader("X-Forwarded-For");
         if (xfHeader == null) {
@@ -30,6 +30,7 @@ public class SecurityConfig {
                 .authorizeHttpRequests(auth -> auth
                         .requestMatchers("/api/auth/**").permitAll()
                         .requestMatchers("/actuator/health").permitAll()
+                        .requestMatchers("/actuator/metrics/**").hasRole("ADMINISTRADOR")
                         .requestMatchers("/uploads/avatars/**").permitAll()
                         .requestMatchers("/ws-chat/**").permitAll()
                         .requestMatchers("/api/chat/**").hasAnyRole("ALUMNO", "PROFESOR", "ADMINISTRADOR")
@@ -3,6 +3,7 @@ package com.infocurso.backend.service;
 import com.infocurso.backend.dto.*;
 import com.infocurso.backend.entity.*;
 import com.infocurso.backend.repository.*;
+import com.infocurso.backend.security.CacheUsuarios;
 import jakarta.transaction.Transactional;
 import lombok.RequiredArgsConstructor;
 import org.springframework.http.HttpStatus;
@@ -25,6 +26,10 @@ public class AdminServiceImpl implements AdminService {
         private final ModuloRepository moduloRepository;
         private final UnidadFormativaRepository unidadRepository;
         private final PasswordEncoder passwordEncoder;
+        private final CacheUsuarios cacheUsuarios;
+        private final ReferenciasArchivosService referenciasArchivos;
+        private final CursoService cursoService;
+        private final CalendarioService calendarioService;
 
         @Override
         public CursoDTO crearCurso(CursoDTO dto) {
@@ -34,15 +39,7 @@ public class AdminServiceImpl implements AdminService {
                                 .build();
                 cursoRepository.save(curso);
 
-                // recarga el curso con relaciones
-                Curso cursoConRelaciones = cursoRepository.findByIdConRelaciones(curso.getId())
-                                .orElseThrow(() -> new RuntimeException("Error al recargar el curso"));
-
-                List<AlumnoDTO> alumnos = cursoConRelaciones.getAlumnos() != null
-                                ? cursoConRelaciones.getAlumnos().stream().map(AlumnoDTO::from).toList()
-                                : List.of();
-
-                return CursoDTO.from(cursoConRelaciones, alumnos);
+                return cursoService.getCursoDTO(curso.getId());
         }
 
         @Override
@@ -79,13 +76,9 @@ public class AdminServiceImpl implements AdminService {
                 curso.agregarModulo(modulo);
 
                 cursoRepository.save(curso); // guarda módulo también gracias a cascade
+                calendarioService.invalidar(cursoId);
 
-                Curso actualizado = cursoRepository.findByIdConTodo(cursoId)
-                                .orElseThrow(() -> new RuntimeException("Curso no encontrado tras guardar módulo"));
-
-                List<AlumnoDTO> alumnos = actualizado.getAlumnos().stream().map(AlumnoDTO::from).toList();
-
-                return CursoDTO.from(actualizado, alumnos);
+                return cursoService.getCursoDTO(cursoId);
         }
 
         @Override
@@ -106,29 +99,17 @@ public class AdminServiceImpl implements AdminService {
 
                 // 2. GUARDAR EL MÓDULO, no la unidad
                 moduloRepository.save(modulo); // Cascade.ALL guarda también la unidad
+                calendarioService.invalidar(modulo.getCurso().getId());
                 return dto;
         }
 
         @Override
         public void crearEventoAdmin(UUID cursoId, EventoCursoDTO dto) {
-                Curso curso = cursoRepository.findByIdConRelaciones(cursoId)
+                Curso curso = cursoRepository.findById(cursoId)
                                 .orElseThrow(() -> new RuntimeException("Curso no encontrado"));
 
-                EventoCurso evento = EventoCurso.builder()
-                                .titulo(dto.titulo())
-                                .descripcion(dto.descripcion())
-                                .fecha(dto.fecha())
-                                .tipo(dto.tipo())
-                                .visiblePara(dto.visiblePara())
-                                .curso(curso)
-                                .autor(null) // Se puede completar con el usuario autenticado
-                                .build();
-
-                // ✅ Añadir el evento al curso ANTES de guardar
-                curso.getEventos().add(evento);
-
-                // ✅ Guardar el curso para que persista la relación
-                cursoRepository.save(curso);
+                // Sin autor; el mismo alta que los eventos del profesor, con su aviso a los alumnos
+                cursoService.crearEventoCurso(curso, dto, null);
         }
 
         public List<UsuarioDTO> listarProfesores() {
@@ -147,14 +128,15 @@ public class AdminServiceImpl implements AdminService {
                 modulo.setFechaInicio(dto.getFechaInicio());
                 modulo.setFechaFin(dto.getFechaFin());
                 moduloRepository.save(modulo);
+                calendarioService.invalidar(modulo.getCurso().getId());
         }
 
         @Override
         public void eliminarModulo(UUID id) {
-                if (!moduloRepository.existsById(id)) {
-                        throw new RuntimeException("Módulo no encontrado");
-                }
-                moduloRepository.deleteById(id);
+                Modulo modulo = moduloRepository.findById(id)
+                                .orElseThrow(() -> new RuntimeException("Módulo no encontrado"));
+                moduloRepository.delete(modulo);
+                calendarioService.invalidar(modulo.getCurso().getId());
         }
 
         @Override
@@ -166,14 +148,15 @@ public class AdminServiceImpl implements AdminService {
                 uf.setFechaInicio(dto.getFechaInicio());
                 uf.setFechaFin(dto.getFechaFin());
                 unidadRepository.save(uf);
+                calendarioService.invalidar(uf.getModulo().getCurso().getId());
         }
 
         @Override
         public void eliminarUnidad(UUID id) {
-                if (!unidadRepository.existsById(id)) {
-                        throw new RuntimeException("Unidad no encontrada");
-                }
-                unidadRepository.deleteById(id);
+                UnidadFormativa uf = unidadRepository.findById(id)
+                                .orElseThrow(() -> new RuntimeException("Unidad no encontrada"));
+                unidadRepository.delete(uf);
+                calendarioService.invalidar(uf.getModulo().getCurso().getId());
         }
 
         @Override
@@ -223,20 +206,26 @@ public class AdminServiceImpl implements AdminService {
                                 .orElseThrow(() -> new ResponseStatusException(HttpStatus.NOT_FOUND,
                                                 "Usuario no encontrado"));
 
+                // El email anterior es la clave con la que el usuario está en la caché de autenticación
+                cacheUsuarios.invalidar(usuario.getEmail());
+
                 usuario.setNombre(dto.nombre());
                 usuario.setEmail(dto.email());
                 usuario.setRol(Rol.valueOf(dto.rol()));
 
                 usuario = usuarioRepository.save(usuario);
+                cacheUsuarios.invalidar(usuario.getEmail());
                 return UsuarioDTO.from(usuario);
         }
 
         @Override
         public void eliminarUsuario(UUID id) {
-                if (!usuarioRepository.existsById(id)) {
-                        throw new ResponseStatusException(HttpStatus.NOT_FOUND, "Usuario no encontrado");
-                }
+                Usuario usuario = usuarioRepository.findById(id)
+                                .orElseThrow(() -> new ResponseStatusException(HttpStatus.NOT_FOUND,
+                                                "Usuario no encontrado"));
                 usuarioRepository.deleteById(id);
+                referenciasArchivos.cambiar(usuario.getAvatarUrl(), null);
+                cacheUsuarios.invalidar(usuario.getEmail());
         }
 
 }
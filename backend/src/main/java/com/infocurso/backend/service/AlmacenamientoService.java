@@ -0,0 +1,235 @@
+package com.infocurso.backend.service;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionTemplate;
+import org.springframework.util.FileSystemUtils;
+import org.springframework.util.StringUtils;
+import org.springframework.web.multipart.MultipartFile;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.security.DigestOutputStream;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.time.Duration;
+import java.util.HexFormat;
+import java.util.List;
+import java.util.Optional;
+import java.util.UUID;
+import java.util.regex.Pattern;
+
+/**
+ * Archivos subidos por los usuarios bajo app.almacenamiento.raiz, guardados por el SHA-256 de su
+ * contenido en blobs/ab/abcd...: subir dos veces lo mismo ocupa disco una vez. La ruta pública es
+ * /archivos/{hash}/{nombre}; el nombre solo sirve para el tipo de contenido y la descarga.
+ * <p>
+ * Las partes multipart se escriben en disco desde el primer byte dentro de {@link #getTemporales()}
+ * (ver MultipartConfig), en el mismo sistema de archivos: guardar una subida es moverla, leerla una vez
+ * para el hash y, si el blob ya existía, borrarla. Las referencias a cada blob las lleva
+ * {@link ReferenciasArchivosService}.
+ */
+@Service
+public class AlmacenamientoService {
+
+    private static final Pattern HASH = Pattern.compile("[0-9a-f]{64}");
+    private static final int LONGITUD_MAXIMA_NOMBRE = 100;
+
+    private final Path raiz;
+    private final Path temporales;
+    private final Path blobs;
+    private final JdbcTemplate jdbcTemplate;
+    private final TransactionTemplate transactionTemplate;
+
+    /**
+     * Escribe un contenido generado (p. ej. una miniatura) que se guarda como blob.
+     */
+    @FunctionalInterface
+    public interface EscritorContenido {
+        void escribir(OutputStream salida) throws IOException;
+    }
+
+    public AlmacenamientoService(@Value("${app.almacenamiento.raiz:uploads}") String raiz,
+                                 JdbcTemplate jdbcTemplate,
+                                 TransactionTemplate transactionTemplate) {
+        this.raiz = Paths.get(raiz).toAbsolutePath().normalize();
+        this.temporales = this.raiz.resolve(".tmp");
+        this.blobs = this.raiz.resolve("blobs");
+        this.jdbcTemplate = jdbcTemplate;
+        this.transactionTemplate = transactionTemplate;
+        try {
+            Files.createDirectories(temporales);
+            Files.createDirectories(blobs);
+        } catch (IOException e) {
+            throw new UncheckedIOException("No se pudo crear el almacén de archivos en " + this.raiz, e);
+        }
+    }
+
+    public Path getRaiz() {
+        return raiz;
+    }
+
+    public Path getTemporales() {
+        return temporales;
+    }
+
+    /**
+     * Guarda la subida y devuelve su ruta pública relativa, {hash}/{nombre}, la que va tras /archivos/.
+     */
+    public String guardar(MultipartFile archivo) throws IOException {
+        Path temporal = temporales.resolve(UUID.randomUUID().toString());
+        try {
+            // transferTo(File) mueve el fichero temporal de la parte; transferTo(Path) lo copiaría por streams
+            archivo.transferTo(temporal.toFile());
+            MessageDigest digest = sha256();
+            try (FileChannel canal = FileChannel.open(temporal, StandardOpenOption.READ)) {
+                ByteBuffer buffer = ByteBuffer.allocateDirect(64 * 1024);
+                while (canal.read(buffer) != -1) {
+                    buffer.flip();
+                    digest.update(buffer);
+                    buffer.clear();
+                }
+            }
+            String hash = HexFormat.of().formatHex(digest.digest());
+            registrar(temporal, hash);
+            return hash + "/" + limpiarNombre(archivo.getOriginalFilename());
+        } finally {
+            Files.deleteIfExists(temporal);
+        }
+    }
+
+    /**
+     * Guarda un contenido que se genera al vuelo, calculando el hash mientras se escribe.
+     */
+    public String guardar(String nombre, EscritorContenido escritor) throws IOException {
+        Path temporal = temporales.resolve(UUID.randomUUID().toString());
+        try {
+            MessageDigest digest = sha256();
+            try (OutputStream salida = new DigestOutputStream(Files.newOutputStream(temporal), digest)) {
+                escritor.escribir(salida);
+            }
+            String hash = HexFormat.of().formatHex(digest.digest());
+            registrar(temporal, hash);
+            return hash + "/" + limpiarNombre(nombre);
+        } finally {
+            Files.deleteIfExists(temporal);
+        }
+    }
+
+    /**
+     * Alta del blob antes que el archivo: si la recolección lo está borrando, el upsert espera a que
+     * termine y después se vuelve a poner el archivo. Renovar actualizado le da al blob el periodo de
+     * gracia entera para que alguien lo referencie.
+     */
+    private void registrar(Path temporal, String hash) throws IOException {
+        long tamano = Files.size(temporal);
+        jdbcTemplate.update("""
+                INSERT INTO blob_archivo (hash, tamano, referencias, actualizado)
+                VALUES (?, ?, 0, now())
+                ON CONFLICT (hash) DO UPDATE SET actualizado = now()
+                """, hash, tamano);
+        Path destino = rutaBlob(hash);
+        if (!Files.exists(destino)) {
+            Files.createDirectories(destino.getParent());
+            Files.move(temporal, destino, StandardCopyOption.ATOMIC_MOVE);
+        }
+    }
+
+    /**
+     * Blob con ese hash, si existe.
+     */
+    public Optional<Path> buscarBlob(String hash) {
+        if (!HASH.matcher(hash).matches()) {
+            return Optional.empty();
+        }
+        Path archivo = rutaBlob(hash);
+        return Files.isRegularFile(archivo) ? Optional.of(archivo) : Optional.empty();
+    }
+
+    /**
+     * Archivo de antes de los blobs, guardado con ese nombre en la raíz. No deja salir de la raíz
+     * ni servir temporales o blobs por esta vía.
+     */
+    public Optional<Path> buscar(String nombre) {
+        Path archivo = raiz.resolve(nombre).normalize();
+        if (!archivo.startsWith(raiz) || archivo.startsWith(temporales) || archivo.startsWith(blobs)
+                || !Files.isRegularFile(archivo)) {
+            return Optional.empty();
+        }
+        return Optional.of(archivo);
+    }
+
+    /**
+     * Borra los blobs sin referencias desde hace más de la gracia. Las filas quedan bloqueadas hasta
+     * borrar sus archivos, así que una subida del mismo contenido espera y vuelve a crear el blob.
+     *
+     * @return blobs borrados
+     */
+    public int eliminarHuerfanos(Duration gracia) {
+        Integer borrados = transactionTemplate.execute(status -> {
+            List<String> huerfanos = jdbcTemplate.queryForList("""
+                    SELECT hash FROM blob_archivo
+                    WHERE referencias = 0 AND actualizado < now() - make_interval(secs => ?)
+                    LIMIT 1000
+                    FOR UPDATE SKIP LOCKED
+                    """, String.class, gracia.toSeconds());
+            for (String hash : huerfanos) {
+                try {
+                    Files.deleteIfExists(rutaBlob(hash));
+                    FileSystemUtils.deleteRecursively(rutaDerivados(hash));
+                } catch (IOException e) {
+                    throw new UncheckedIOException(e);
+                }
+            }
+            jdbcTemplate.batchUpdate("DELETE FROM blob_archivo WHERE hash = ?", huerfanos, huerfanos.size(),
+                    (ps, hash) -> ps.setString(1, hash));
+            return huerfanos.size();
+        });
+        return borrados != null ? borrados : 0;
+    }
+
+    private Path rutaBlob(String hash) {
+        return blobs.resolve(hash.substring(0, 2)).resolve(hash);
+    }
+
+    /**
+     * Directorio para lo que se genera a partir de un blob (p. ej. las variantes de un avatar). Se borra
+     * con el blob, así que su contenido se puede nombrar solo por el hash del original.
+     */
+    public Path rutaDerivados(String hash) {
+        if (!HASH.matcher(hash).matches()) {
+            throw new IllegalArgumentException("Hash no válido: " + hash);
+        }
+        return blobs.resolve(hash.substring(0, 2)).resolve(hash + ".d");
+    }
+
+    private static MessageDigest sha256() {
+        try {
+            return MessageDigest.getInstance("SHA-256");
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 no disponible", e);
+        }
+    }
+
+    // Sin rutas ni caracteres que haya que escapar en la URL pública, que se guarda en columnas de 255.
+    // Si hay que acortarlo se queda el final, donde está la extensión
+    private static String limpiarNombre(String nombreOriginal) {
+        String nombre = StringUtils.getFilename(StringUtils.cleanPath(nombreOriginal != null ? nombreOriginal : ""));
+        if (!StringUtils.hasText(nombre)) {
+            return "archivo";
+        }
+        nombre = nombre.replaceAll("[^A-Za-z0-9._-]", "_");
+        return nombre.length() > LONGITUD_MAXIMA_NOMBRE
+                ? nombre.substring(nombre.length() - LONGITUD_MAXIMA_NOMBRE)
+                : nombre;
+    }
+}
@@ -5,27 +5,49 @@ import com.infocurso.backend.dto.EstadisticasAsistenciaDTO;
 import com.infocurso.backend.dto.RegistroAsistenciaDTO;
 import com.infocurso.backend.entity.Asistencia;
 import com.infocurso.backend.entity.Curso;
+import com.infocurso.backend.entity.EstadisticaAlumnoCurso;
 import com.infocurso.backend.entity.EstadoAsistencia;
 import com.infocurso.backend.entity.Usuario;
 import com.infocurso.backend.repository.AsistenciaRepository;
 import com.infocurso.backend.repository.CursoRepository;
+import com.infocurso.backend.repository.EstadisticaAlumnoCursoRepository;
 import com.infocurso.backend.repository.UsuarioRepository;
 import lombok.RequiredArgsConstructor;
 import org.springframework.http.HttpStatus;
+import org.springframework.jdbc.core.JdbcTemplate;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionTemplate;
 import org.springframework.web.server.ResponseStatusException;
 
+import java.sql.Date;
 import java.time.LocalDate;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
+import java.util.Set;
 import java.util.UUID;
+import java.util.stream.Collectors;
 
 @Service
 @RequiredArgsConstructor
 public class AsistenciaService {
 
+    // Usa la restricción única (alumno_id, curso_id, fecha) de Asistencia; si la fila existe conserva su id
+    private static final String SQL_GUARDAR_ASISTENCIA = """
+            INSERT INTO asistencia (id, alumno_id, curso_id, fecha, estado, observaciones)
+            VALUES (gen_random_uuid(), ?, ?, ?, ?, ?)
+            ON CONFLICT (alumno_id, curso_id, fecha)
+            DO UPDATE SET estado = EXCLUDED.estado, observaciones = EXCLUDED.observaciones
+            """;
+
     private final AsistenciaRepository asistenciaRepository;
     private final CursoRepository cursoRepository;
     private final UsuarioRepository usuarioRepository;
+    private final EstadisticaAlumnoCursoRepository estadisticaRepository;
+    private final EstadisticaAlumnoCursoService estadisticaService;
+    private final JdbcTemplate jdbcTemplate;
+    private final TransactionTemplate transactionTemplate;
 
     public List<AsistenciaDTO> getAsistenciaCurso(UUID cursoId) {
         return asistenciaRepository.findByCursoIdOrderByFechaDesc(cursoId)
@@ -74,13 +96,49 @@ public class AsistenciaService {
         }
 
         asistencia = asistenciaRepository.save(asistencia);
+        estadisticaService.actualizar(cursoId, alumno.getId());
         return AsistenciaDTO.from(asistencia);
     }
 
+    /**
+     * Pasa lista de una vez: comprueba la matrícula de todos los alumnos con una consulta y guarda las
+     * filas con un único lote de upserts, todo en una transacción. Si algún alumno no está matriculado
+     * no se guarda nada. Un alumno repetido para la misma fecha se queda con el último registro.
+     */
     public void registrarAsistenciaMultiple(UUID cursoId, List<RegistroAsistenciaDTO> registros) {
+        Map<String, RegistroAsistenciaDTO> porAlumnoYFecha = new LinkedHashMap<>();
         for (RegistroAsistenciaDTO dto : registros) {
-            registrarAsistencia(cursoId, dto);
+            if (dto.alumnoId() == null || dto.fecha() == null || dto.estado() == null) {
+                throw new ResponseStatusException(HttpStatus.BAD_REQUEST,
+                        "Cada registro necesita alumnoId, fecha y estado");
+            }
+            porAlumnoYFecha.put(dto.alumnoId() + "/" + dto.fecha(), dto);
+        }
+        if (porAlumnoYFecha.isEmpty()) {
+            return;
         }
+        Set<UUID> alumnoIds = porAlumnoYFecha.values().stream()
+                .map(RegistroAsistenciaDTO::alumnoId)
+                .collect(Collectors.toSet());
+
+        transactionTemplate.executeWithoutResult(status -> {
+            Set<UUID> noMatriculados = new HashSet<>(alumnoIds);
+            cursoRepository.findAlumnosMatriculados(cursoId, alumnoIds).forEach(noMatriculados::remove);
+            if (!noMatriculados.isEmpty()) {
+                if (!cursoRepository.existsById(cursoId)) {
+                    throw new ResponseStatusException(HttpStatus.NOT_FOUND, "Curso no encontrado");
+                }
+                throw new ResponseStatusException(HttpStatus.BAD_REQUEST,
+                        "Alumnos no matriculados en el curso: " + noMatriculados);
+            }
+
+            jdbcTemplate.batchUpdate(SQL_GUARDAR_ASISTENCIA, porAlumnoYFecha.values().stream()
+                    .map(dto -> new Object[]{dto.alumnoId(), cursoId, Date.valueOf(dto.fecha()),
+                            dto.estado().name(), dto.observaciones()})
+                    .toList());
+        });
+        // Fuera de la transacción: si falla, la asistencia ya está guardada y la reconciliación lo corrige
+        estadisticaService.actualizarCurso(cursoId);
     }
 
     public AsistenciaDTO actualizarAsistencia(UUID asistenciaId, EstadoAsistencia estado, String observaciones) {
@@ -90,37 +148,33 @@ public class AsistenciaService {
         asistencia.setEstado(estado);
         asistencia.setObservaciones(observaciones);
         asistencia = asistenciaRepository.save(asistencia);
+        estadisticaService.actualizar(asistencia.getCurso().getId(), asistencia.getAlumno().getId());
         return AsistenciaDTO.from(asistencia);
     }
 
     public void eliminarAsistencia(UUID asistenciaId) {
-        if (!asistenciaRepository.existsById(asistenciaId)) {
-            throw new ResponseStatusException(HttpStatus.NOT_FOUND, "Registro no encontrado");
-        }
-        asistenciaRepository.deleteById(asistenciaId);
+        Asistencia asistencia = asistenciaRepository.findById(asistenciaId)
+                .orElseThrow(() -> new ResponseStatusException(HttpStatus.NOT_FOUND, "Registro no encontrado"));
+        asistenciaRepository.delete(asistencia);
+        estadisticaService.actualizar(asistencia.getCurso().getId(), asistencia.getAlumno().getId());
     }
 
     public EstadisticasAsistenciaDTO getEstadisticasAlumno(UUID alumnoId, UUID cursoId) {
         Usuario alumno = usuarioRepository.findById(alumnoId)
                 .orElseThrow(() -> new ResponseStatusException(HttpStatus.NOT_FOUND, "Alumno no encontrado"));
 
-        long total = asistenciaRepository.countByAlumnoAndCurso(alumnoId, cursoId);
-        long presentes = asistenciaRepository.countByAlumnoAndCursoAndEstado(alumnoId, cursoId, EstadoAsistencia.PRESENTE);
-        long ausentes = asistenciaRepository.countByAlumnoAndCursoAndEstado(alumnoId, cursoId, EstadoAsistencia.AUSENTE);
-        long retrasos = asistenciaRepository.countByAlumnoAndCursoAndEstado(alumnoId, cursoId, EstadoAsistencia.RETRASO);
-        long justificados = asistenciaRepository.countByAlumnoAndCursoAndEstado(alumnoId, cursoId, EstadoAsistencia.JUSTIFICADO);
-
-        double porcentaje = total > 0 ? ((presentes + retrasos + justificados) * 100.0 / total) : 0;
+        EstadisticaAlumnoCurso estadistica = estadisticaRepository.findByCursoIdAndAlumnoId(cursoId, alumnoId)
+                .orElseGet(() -> EstadisticaAlumnoCurso.vacia(cursoId, alumnoId));
 
         return new EstadisticasAsistenciaDTO(
                 alumnoId,
                 alumno.getNombre(),
-                total,
-                presentes,
-                ausentes,
-                retrasos,
-                justificados,
-                Math.round(porcentaje * 100.0) / 100.0
+                estadistica.getAsistencias(),
+                estadistica.getPresentes(),
+                estadistica.getAusentes(),
+                estadistica.getRetrasos(),
+                estadistica.getJustificados(),
+                Math.round(estadistica.porcentajeAsistencia() * 100.0) / 100.0
         );
     }
 
@@ -0,0 +1,219 @@
+package com.infocurso.backend.service;
+
+import jakarta.annotation.PreDestroy;
+import net.coobird.thumbnailator.Thumbnails;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.core.task.TaskRejectedException;
+import org.springframework.http.HttpStatus;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskExecutor;
+import org.springframework.stereotype.Service;
+import org.springframework.util.FileSystemUtils;
+import org.springframework.util.unit.DataSize;
+import org.springframework.web.multipart.MultipartFile;
+import org.springframework.web.server.ResponseStatusException;
+
+import javax.imageio.ImageIO;
+import javax.imageio.ImageReader;
+import javax.imageio.stream.ImageInputStream;
+import java.awt.image.BufferedImage;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Locale;
+import java.util.Optional;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * Avatares subidos por los usuarios. La imagen se guarda tal cual en {@link AlmacenamientoService} y la
+ * petición termina; un pool acotado genera después las variantes de cada tamaño (y WebP si hay un
+ * escritor de ImageIO para él) en el directorio de derivados del blob.
+ * <p>
+ * La URL de un avatar es /uploads/avatars/{hash}.{ext}, con el hash del original: mientras no están las
+ * variantes se sirve el original, y después la variante más pequeña que cubra el tamaño pedido.
+ * <p>
+ * El formato sale del contenido, no del nombre del archivo. PNG y JPEG se guardan tal cual; el resto de
+ * formatos que ImageIO sabe leer (GIF, BMP, WebP con su plugin) se convierten a PNG al subirlos, así que
+ * la extensión de la URL siempre corresponde a lo que se sirve. De un GIF animado queda el primer fotograma.
+ */
+@Service
+public class AvatarService {
+
+    private static final Logger logger = LoggerFactory.getLogger(AvatarService.class);
+
+    private static final Pattern NOMBRE = Pattern.compile("([0-9a-f]{64})\\.(png|jpg)");
+
+    /**
+     * Archivo que responde a una petición de avatar. {@code definitivo} es falso mientras se sirve el
+     * original porque las variantes aún no están.
+     */
+    public record AvatarServido(Path archivo, String etiqueta, boolean definitivo) {
+    }
+
+    private final AlmacenamientoService almacenamiento;
+    private final List<Integer> tamanos;
+    private final DataSize tamanoMaximo;
+    private final boolean webp;
+    private final ThreadPoolTaskExecutor executor;
+    private final Set<String> enCurso = ConcurrentHashMap.newKeySet();
+
+    public AvatarService(AlmacenamientoService almacenamiento,
+                         @Value("${app.avatares.tamanos:32,64,128,300}") List<Integer> tamanos,
+                         @Value("${app.avatares.tamano-maximo:10MB}") DataSize tamanoMaximo,
+                         @Value("${app.avatares.hilos:2}") int hilos,
+                         @Value("${app.avatares.cola:100}") int cola) {
+        this.almacenamiento = almacenamiento;
+        this.tamanos = tamanos.stream().sorted().toList();
+        this.tamanoMaximo = tamanoMaximo;
+        this.webp = ImageIO.getImageWritersByFormatName("webp").hasNext();
+        // No es un bean: uno de tipo Executor sustituiría al applicationTaskExecutor de Spring Boot
+        this.executor = new ThreadPoolTaskExecutor();
+        executor.setCorePoolSize(hilos);
+        executor.setMaxPoolSize(hilos);
+        executor.setQueueCapacity(cola);
+        executor.setThreadNamePrefix("avatares-");
+        executor.setWaitForTasksToCompleteOnShutdown(true);
+        executor.setAwaitTerminationSeconds(30);
+        executor.initialize();
+    }
+
+    /**
+     * Guarda la imagen y encola sus variantes. Devuelve la URL relativa del avatar, que ya se puede usar.
+     */
+    public String guardar(MultipartFile archivo) throws IOException {
+        if (archivo.isEmpty() || archivo.getContentType() == null || !archivo.getContentType().startsWith("image/")) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "El avatar tiene que ser una imagen");
+        }
+        if (archivo.getSize() > tamanoMaximo.toBytes()) {
+            throw new ResponseStatusException(HttpStatus.PAYLOAD_TOO_LARGE, "El avatar no puede superar " + tamanoMaximo);
+        }
+        String original = formatoReal(archivo)
+                .orElseThrow(() -> new ResponseStatusException(HttpStatus.UNSUPPORTED_MEDIA_TYPE,
+                        "Formato de imagen no soportado"));
+        String formato = original.equals("jpg") ? "jpg" : "png";
+
+        String hash = (original.equals(formato) ? almacenamiento.guardar(archivo) : guardarComoPng(archivo))
+                .substring(0, 64);
+        if (!Files.isDirectory(almacenamiento.rutaDerivados(hash)) && enCurso.add(hash)) {
+            try {
+                executor.execute(() -> generarVariantes(hash, formato));
+            } catch (TaskRejectedException e) {
+                enCurso.remove(hash);
+                throw new ResponseStatusException(HttpStatus.SERVICE_UNAVAILABLE,
+                        "Hay demasiados avatares en proceso, inténtalo de nuevo en unos segundos");
+            }
+        }
+        return "/uploads/avatars/" + hash + "." + formato;
+    }
+
+    // Nombre de ImageIO del formato del contenido ("jpeg" pasa a "jpg"), si hay un lector para él
+    private static Optional<String> formatoReal(MultipartFile archivo) throws IOException {
+        try (InputStream contenido = archivo.getInputStream();
+             ImageInputStream entrada = ImageIO.createImageInputStream(contenido)) {
+            if (entrada == null) {
+                return Optional.empty();
+            }
+            Iterator<ImageReader> lectores = ImageIO.getImageReaders(entrada);
+            if (!lectores.hasNext()) {
+                return Optional.empty();
+            }
+            String formato = lectores.next().getFormatName().toLowerCase(Locale.ROOT);
+            return Optional.of(formato.equals("jpeg") ? "jpg" : formato);
+        }
+    }
+
+    private String guardarComoPng(MultipartFile archivo) throws IOException {
+        BufferedImage imagen;
+        try (InputStream contenido = archivo.getInputStream()) {
+            imagen = ImageIO.read(contenido);
+        }
+        if (imagen == null) {
+            throw new ResponseStatusException(HttpStatus.UNSUPPORTED_MEDIA_TYPE, "Formato de imagen no soportado");
+        }
+        return almacenamiento.guardar("avatar.png", salida -> ImageIO.write(imagen, "png", salida));
+    }
+
+    /**
+     * Lo que hay que servir para /uploads/avatars/{nombre}?tam=..., o vacío si el nombre no es de un
+     * avatar guardado por hash.
+     */
+    public Optional<AvatarServido> buscar(String nombre, Integer tamano, boolean aceptaWebp) {
+        Matcher matcher = NOMBRE.matcher(nombre);
+        if (!matcher.matches()) {
+            return Optional.empty();
+        }
+        String hash = matcher.group(1);
+        String formato = matcher.group(2);
+        Path derivados = almacenamiento.rutaDerivados(hash);
+        if (Files.isDirectory(derivados)) {
+            // Sin tamaño, o mayor que todos, la más grande
+            int mayor = tamanos.get(tamanos.size() - 1);
+            int elegido = tamano == null ? mayor : tamanos.stream()
+                    .filter(t -> t >= tamano)
+                    .findFirst()
+                    .orElse(mayor);
+            for (String extension : aceptaWebp && webp ? List.of("webp", formato) : List.of(formato)) {
+                Path variante = derivados.resolve(elegido + "." + extension);
+                if (Files.isRegularFile(variante)) {
+                    return Optional.of(new AvatarServido(variante, hash + "-" + elegido + "." + extension, true));
+                }
+            }
+        }
+        return almacenamiento.buscarBlob(hash).map(original -> new AvatarServido(original, hash, false));
+    }
+
+    // Se genera todo en un temporal y se mueve de una vez: el directorio de derivados existe solo completo
+    private void generarVariantes(String hash, String formato) {
+        Path temporal = almacenamiento.getTemporales().resolve(UUID.randomUUID().toString());
+        try {
+            Path original = almacenamiento.buscarBlob(hash).orElseThrow();
+            BufferedImage imagen = ImageIO.read(original.toFile());
+            if (imagen == null) {
+                logger.warn("El avatar {} no es una imagen que se pueda leer; se servirá el original", hash);
+                return;
+            }
+            Files.createDirectories(temporal);
+            for (int tamano : tamanos) {
+                escribir(imagen, tamano, formato, temporal);
+                if (webp) {
+                    escribir(imagen, tamano, "webp", temporal);
+                }
+            }
+            Path derivados = almacenamiento.rutaDerivados(hash);
+            if (!Files.exists(derivados)) {
+                Files.move(temporal, derivados, StandardCopyOption.ATOMIC_MOVE);
+            }
+        } catch (IOException | RuntimeException e) {
+            logger.warn("No se pudieron generar las variantes del avatar {}", hash, e);
+        } finally {
+            enCurso.remove(hash);
+            try {
+                FileSystemUtils.deleteRecursively(temporal);
+            } catch (IOException e) {
+                logger.warn("No se pudo borrar el temporal {}", temporal, e);
+            }
+        }
+    }
+
+    private static void escribir(BufferedImage imagen, int tamano, String formato, Path directorio) throws IOException {
+        Thumbnails.of(imagen)
+                .size(tamano, tamano)
+                .outputFormat(formato)
+                .outputQuality(0.8f)
+                .toFile(directorio.resolve(tamano + "." + formato).toFile());
+    }
+
+    @PreDestroy
+    public void detener() {
+        executor.shutdown();
+    }
+}
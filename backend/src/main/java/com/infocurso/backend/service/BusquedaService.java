@@ -0,0 +1,169 @@
+package com.infocurso.backend.service;
+
+import com.infocurso.backend.dto.PaginaResultadosBusquedaDTO;
+import com.infocurso.backend.dto.ResultadoBusquedaDTO;
+import com.infocurso.backend.entity.Curso;
+import com.infocurso.backend.entity.Rol;
+import com.infocurso.backend.entity.Usuario;
+import com.infocurso.backend.entity.VisibilidadEvento;
+import com.infocurso.backend.exception.ResourceNotFoundException;
+import com.infocurso.backend.repository.CursoRepository;
+import lombok.RequiredArgsConstructor;
+import org.springframework.http.HttpStatus;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.security.access.AccessDeniedException;
+import org.springframework.stereotype.Service;
+import org.springframework.web.server.ResponseStatusException;
+import org.springframework.web.util.HtmlUtils;
+
+import java.sql.Timestamp;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+
+/**
+ * Búsqueda de texto en el contenido de un curso: wiki, aportaciones, prácticas, eventos y chat. Cada
+ * tabla tiene su tsvector en español con un índice GIN (V14); una consulta los recorre todos, ordena
+ * por relevancia y solo calcula los fragmentos resaltados de la página que se devuelve.
+ */
+@Service
+@RequiredArgsConstructor
+public class BusquedaService {
+
+    public static final int TAMANO_PAGINA_POR_DEFECTO = 20;
+    public static final int TAMANO_PAGINA_MAXIMO = 50;
+    public static final int LONGITUD_MAXIMA_CONSULTA = 200;
+
+    // ts_headline marca las coincidencias con caracteres de uso privado; el resto del fragmento se
+    // escapa antes de cambiarlos por <mark>, porque el texto (chat, aportaciones) lo escriben usuarios
+    private static final String INICIO_MARCA = "\uE000";
+    private static final String FIN_MARCA = "\uE001";
+    private static final String OPCIONES_FRAGMENTO = "StartSel=" + INICIO_MARCA + ", StopSel=" + FIN_MARCA
+            + ", MinWords=8, MaxWords=25, MaxFragments=2, FragmentDelimiter=\" … \"";
+
+    // ts_rank y no ts_rank_cd: con una palabra frecuente se puntúan miles de mensajes y cuesta la mitad.
+    // El rango se normaliza a 0..1 (opción 32) para comparar filas de tablas distintas
+    private static final String SQL_BUSCAR = """
+            WITH consulta AS (
+                SELECT websearch_to_tsquery('spanish'::regconfig, ?) AS q
+            ),
+            resultados AS (
+                SELECT 'WIKI' AS tipo, w.id, w.titulo, NULL::uuid AS autor_id, NULL::text AS texto,
+                       NULL::timestamp AS fecha, ts_rank(w.busqueda, c.q, 32) AS relevancia
+                FROM wiki_curso w, consulta c
+                WHERE w.curso_id = ? AND w.busqueda @@ c.q
+                UNION ALL
+                SELECT 'APORTACION', a.id, NULL, a.autor_id, a.contenido, a.fecha, ts_rank(a.busqueda, c.q, 32)
+                FROM aportacion_wiki a
+                JOIN wiki_curso w ON w.id = a.wiki_id
+                CROSS JOIN consulta c
+                WHERE w.curso_id = ? AND a.busqueda @@ c.q
+                UNION ALL
+                SELECT 'PRACTICA', p.id, p.titulo, NULL, p.descripcion, p.fecha_entrega, ts_rank(p.busqueda, c.q, 32)
+                FROM practica p, consulta c
+                WHERE p.curso_id = ? AND p.busqueda @@ c.q
+                UNION ALL
+                SELECT 'EVENTO', e.id, e.titulo, NULL, e.descripcion, e.fecha::timestamp, ts_rank(e.busqueda, c.q, 32)
+                FROM evento_curso e, consulta c
+                WHERE e.curso_id = ? AND e.visible_para = ANY (string_to_array(?, ',')) AND e.busqueda @@ c.q
+                UNION ALL
+                SELECT 'MENSAJE', m.id, NULL, m.emisor_id, m.contenido, m.fecha_envio, ts_rank(m.busqueda, c.q, 32)
+                FROM mensaje_curso m, consulta c
+                WHERE m.curso_id = ? AND m.busqueda @@ c.q
+            ),
+            pagina AS (
+                SELECT * FROM resultados
+                ORDER BY relevancia DESC, fecha DESC NULLS LAST, id
+                LIMIT ? OFFSET ?
+            )
+            SELECT r.tipo, r.id, r.titulo, u.nombre AS autor, r.fecha, r.relevancia,
+                   ts_headline('spanish'::regconfig, coalesce(texto_busqueda(r.texto), ''), c.q, ?) AS fragmento
+            FROM pagina r
+            CROSS JOIN consulta c
+            LEFT JOIN usuario u ON u.id = r.autor_id
+            ORDER BY r.relevancia DESC, r.fecha DESC NULLS LAST, r.id
+            """;
+
+    private static final String SQL_FRAGMENTO = """
+            SELECT ts_headline('spanish'::regconfig, coalesce(texto_busqueda(?), ''),
+                               websearch_to_tsquery('spanish'::regconfig, ?), ?)
+            """;
+
+    private final CursoRepository cursoRepository;
+    private final AlumnoCursoService alumnoCursoService;
+    private final WikiService wikiService;
+    private final JdbcTemplate jdbcTemplate;
+
+    public PaginaResultadosBusquedaDTO buscar(UUID cursoId, Usuario usuario, String consulta,
+                                              Integer pagina, Integer tamano) {
+        if (consulta == null || consulta.isBlank()) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "Indica qué buscar");
+        }
+        if (consulta.length() > LONGITUD_MAXIMA_CONSULTA) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST,
+                    "La búsqueda no puede pasar de " + LONGITUD_MAXIMA_CONSULTA + " caracteres");
+        }
+        String visibles = String.join(",", eventosVisibles(cursoId, usuario).stream().map(Enum::name).toList());
+
+        int numero = pagina == null ? 0 : Math.max(0, pagina);
+        int limite = tamano == null
+                ? TAMANO_PAGINA_POR_DEFECTO
+                : Math.max(1, Math.min(tamano, TAMANO_PAGINA_MAXIMO));
+        // Se pide un resultado de más para saber si hay otra página
+        List<ResultadoBusquedaDTO> resultados = new ArrayList<>(jdbcTemplate.query(SQL_BUSCAR, (rs, n) -> {
+                    Timestamp fecha = rs.getTimestamp("fecha");
+                    return new ResultadoBusquedaDTO(
+                            rs.getString("tipo"),
+                            rs.getObject("id", UUID.class),
+                            rs.getString("titulo"),
+                            rs.getString("autor"),
+                            resaltar(rs.getString("fragmento")),
+                            fecha != null ? fecha.toLocalDateTime() : null,
+                            rs.getDouble("relevancia"));
+                },
+                consulta, cursoId, cursoId, cursoId, cursoId, visibles, cursoId,
+                limite + 1, (long) numero * limite, OPCIONES_FRAGMENTO));
+
+        boolean hayMas = resultados.size() > limite;
+        if (hayMas) {
+            resultados.remove(limite);
+        }
+        // El texto de la wiki está en sus revisiones: el fragmento sale de la versión actual
+        resultados.replaceAll(r -> "WIKI".equals(r.tipo()) ? fragmentoWiki(cursoId, consulta, r) : r);
+        return new PaginaResultadosBusquedaDTO(List.copyOf(resultados), numero, limite, hayMas);
+    }
+
+    // Las mismas reglas que el resto de la API: el alumno tiene que estar inscrito y el profesor
+    // tiene que ser el del curso; cada uno ve los eventos dirigidos a su rol
+    private List<VisibilidadEvento> eventosVisibles(UUID cursoId, Usuario usuario) {
+        Curso curso = cursoRepository.findById(cursoId)
+                .orElseThrow(() -> new ResourceNotFoundException("Curso no encontrado"));
+        if (usuario.getRol() == Rol.PROFESOR
+                && (curso.getProfesor() == null || !curso.getProfesor().getId().equals(usuario.getId()))) {
+            throw new AccessDeniedException("No eres el profesor de este curso");
+        }
+        if (usuario.getRol() == Rol.ALUMNO && !alumnoCursoService.estaInscrito(cursoId, usuario.getId())) {
+            throw new AccessDeniedException("No estás inscrito en este curso");
+        }
+        return VisibilidadEvento.visiblesPara(usuario.getRol());
+    }
+
+    private ResultadoBusquedaDTO fragmentoWiki(UUID cursoId, String consulta, ResultadoBusquedaDTO resultado) {
+        String fragmento = wikiService.getVersionActual(cursoId)
+                .map(version -> jdbcTemplate.queryForObject(SQL_FRAGMENTO, String.class,
+                        version.html(), consulta, OPCIONES_FRAGMENTO))
+                .map(BusquedaService::resaltar)
+                .orElse("");
+        return new ResultadoBusquedaDTO(resultado.tipo(), resultado.id(), resultado.titulo(), resultado.autor(),
+                fragmento, resultado.fecha(), resultado.relevancia());
+    }
+
+    private static String resaltar(String fragmento) {
+        if (fragmento == null) {
+            return "";
+        }
+        return HtmlUtils.htmlEscape(fragmento.strip(), "UTF-8")
+                .replace(INICIO_MARCA, "<mark>")
+                .replace(FIN_MARCA, "</mark>");
+    }
+}
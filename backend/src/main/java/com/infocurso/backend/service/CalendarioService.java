@@ -0,0 +1,223 @@
+package com.infocurso.backend.service;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.infocurso.backend.dto.EntradaCalendarioDTO;
+import com.infocurso.backend.entity.Rol;
+import com.infocurso.backend.entity.Usuario;
+import com.infocurso.backend.entity.VisibilidadEvento;
+import com.infocurso.backend.repository.CursoRepository;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.HttpStatus;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.security.access.AccessDeniedException;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.web.server.ResponseStatusException;
+
+import java.time.Duration;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.temporal.ChronoUnit;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.UUID;
+import java.util.stream.Collectors;
+
+/**
+ * Calendario de uno o varios cursos: eventos, exámenes, entregas de prácticas, módulos y unidades
+ * en una sola lista ordenada por fecha. Se guarda en caché el calendario entero de cada curso para
+ * cada rol, con los eventos ya filtrados por visibilidad en la consulta; un curso tiene pocas
+ * decenas de fechas, así que el rango pedido se recorta en memoria. Quien cree, cambie o borre
+ * cualquiera de esas fechas, o el nombre del curso, tiene que llamar a {@link #invalidar(UUID)}.
+ * Como en {@link com.infocurso.backend.security.CacheUsuarios}, la invalidación solo afecta a este
+ * nodo y en el resto el cambio se ve al caducar la entrada.
+ */
+@Service
+public class CalendarioService {
+
+    public static final int DIAS_MAXIMOS = 366;
+    public static final int CURSOS_MAXIMOS = 50;
+
+    private static final Comparator<EntradaCalendarioDTO> ORDEN = Comparator
+            .comparing(EntradaCalendarioDTO::inicio)
+            .thenComparing(EntradaCalendarioDTO::tipo)
+            .thenComparing(EntradaCalendarioDTO::titulo, Comparator.nullsLast(Comparator.naturalOrder()))
+            .thenComparing(EntradaCalendarioDTO::id);
+
+    // Los cursos llegan como una lista separada por comas, igual que las visibilidades
+    private static final String SQL_CALENDARIO = """
+            SELECT r.*, c.nombre AS curso_nombre
+            FROM (
+                SELECT 'EVENTO' AS tipo, e.id, e.curso_id, e.titulo, e.tipo AS detalle,
+                       e.fecha::timestamp AS inicio, NULL::timestamp AS fin, true AS todo_el_dia
+                FROM evento_curso e
+                WHERE e.curso_id = ANY (string_to_array(?, ',')::uuid[])
+                  AND e.visible_para = ANY (string_to_array(?, ','))
+                  AND e.fecha IS NOT NULL
+                UNION ALL
+                SELECT 'EXAMEN', x.id, x.curso_id, x.titulo, x.tipo, x.fecha, NULL, false
+                FROM examen x
+                WHERE x.curso_id = ANY (string_to_array(?, ',')::uuid[])
+                UNION ALL
+                SELECT 'PRACTICA', p.id, p.curso_id, p.titulo, NULL, p.fecha_entrega, NULL, false
+                FROM practica p
+                WHERE p.curso_id = ANY (string_to_array(?, ',')::uuid[]) AND p.fecha_entrega IS NOT NULL
+                UNION ALL
+                SELECT 'MODULO', m.id, m.curso_id, m.nombre, NULL,
+                       coalesce(m.fecha_inicio, m.fecha_fin)::timestamp, m.fecha_fin::timestamp, true
+                FROM modulo m
+                WHERE m.curso_id = ANY (string_to_array(?, ',')::uuid[])
+                  AND coalesce(m.fecha_inicio, m.fecha_fin) IS NOT NULL
+                UNION ALL
+                SELECT 'UNIDAD', u.id, m.curso_id, u.nombre, m.nombre,
+                       coalesce(u.fecha_inicio, u.fecha_fin)::timestamp, u.fecha_fin::timestamp, true
+                FROM unidad_formativa u
+                JOIN modulo m ON m.id = u.modulo_id
+                WHERE m.curso_id = ANY (string_to_array(?, ',')::uuid[])
+                  AND coalesce(u.fecha_inicio, u.fecha_fin) IS NOT NULL
+            ) r
+            JOIN curso c ON c.id = r.curso_id
+            """;
+
+    private record Clave(UUID cursoId, Rol rol) {
+    }
+
+    private final CursoRepository cursoRepository;
+    private final JdbcTemplate jdbcTemplate;
+    private final Cache<Clave, List<EntradaCalendarioDTO>> calendarios;
+
+    public CalendarioService(CursoRepository cursoRepository,
+                             JdbcTemplate jdbcTemplate,
+                             @Value("${app.calendario.cache.tamano-maximo:5000}") long tamanoMaximo,
+                             @Value("${app.calendario.cache.duracion:5m}") Duration duracion) {
+        this.cursoRepository = cursoRepository;
+        this.jdbcTemplate = jdbcTemplate;
+        this.calendarios = Caffeine.newBuilder()
+                .maximumSize(tamanoMaximo)
+                .expireAfterWrite(duracion)
+                .build();
+    }
+
+    /**
+     * Fechas entre {@code desde} y {@code hasta}, ambos incluidos. Los módulos y las unidades salen
+     * si alguno de sus días cae en el rango. Sin cursos, los del usuario: en los que está inscrito
+     * el alumno o los que da el profesor.
+     */
+    public List<EntradaCalendarioDTO> getCalendario(Usuario usuario, Collection<UUID> cursoIds,
+                                                    LocalDate desde, LocalDate hasta) {
+        if (desde == null || hasta == null || hasta.isBefore(desde)) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "Rango de fechas no válido");
+        }
+        if (ChronoUnit.DAYS.between(desde, hasta) >= DIAS_MAXIMOS) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST,
+                    "El rango no puede pasar de " + DIAS_MAXIMOS + " días");
+        }
+
+        List<Clave> claves = cursosAccesibles(usuario, cursoIds).stream()
+                .map(id -> new Clave(id, usuario.getRol()))
+                .toList();
+        LocalDateTime inicioRango = desde.atStartOfDay();
+        LocalDateTime finRango = hasta.plusDays(1).atStartOfDay();
+
+        List<EntradaCalendarioDTO> entradas = new ArrayList<>();
+        calendarios.getAll(claves, this::cargar).values().forEach(calendario -> {
+            for (EntradaCalendarioDTO entrada : calendario) {
+                LocalDateTime ultimo = entrada.fin() != null ? entrada.fin() : entrada.inicio();
+                if (entrada.inicio().isBefore(finRango) && !ultimo.isBefore(inicioRango)) {
+                    entradas.add(entrada);
+                }
+            }
+        });
+        entradas.sort(ORDEN);
+        return entradas;
+    }
+
+    /**
+     * Dentro de una transacción se invalida también al confirmarla: mientras tanto otra petición
+     * podría volver a cargar el calendario sin el cambio y dejarlo en la caché.
+     */
+    public void invalidar(UUID cursoId) {
+        if (cursoId == null) {
+            return;
+        }
+        List<Clave> claves = Arrays.stream(Rol.values()).map(rol -> new Clave(cursoId, rol)).toList();
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    calendarios.invalidateAll(claves);
+                }
+            });
+        }
+        calendarios.invalidateAll(claves);
+    }
+
+    // Las mismas reglas que el resto de la API, comprobadas con una sola consulta para todos los cursos
+    private Set<UUID> cursosAccesibles(Usuario usuario, Collection<UUID> cursoIds) {
+        Set<UUID> pedidos = cursoIds == null ? Set.of() : new LinkedHashSet<>(cursoIds);
+        if (pedidos.size() > CURSOS_MAXIMOS) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST,
+                    "No se pueden pedir más de " + CURSOS_MAXIMOS + " cursos");
+        }
+        if (usuario.getRol() == Rol.ADMINISTRADOR) {
+            if (pedidos.isEmpty()) {
+                throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "Indica los cursos");
+            }
+            return pedidos;
+        }
+
+        Set<UUID> propios = new HashSet<>(usuario.getRol() == Rol.PROFESOR
+                ? cursoRepository.findIdsByProfesorId(usuario.getId())
+                : cursoRepository.findIdsByAlumnoId(usuario.getId()));
+        if (pedidos.isEmpty()) {
+            return propios;
+        }
+        if (!propios.containsAll(pedidos)) {
+            throw new AccessDeniedException(usuario.getRol() == Rol.PROFESOR
+                    ? "No eres el profesor de alguno de estos cursos"
+                    : "No estás inscrito en alguno de estos cursos");
+        }
+        return pedidos;
+    }
+
+    // Una sola consulta para todos los cursos que faltan en la caché; todas las claves son del mismo rol
+    private Map<Clave, List<EntradaCalendarioDTO>> cargar(Set<? extends Clave> claves) {
+        Rol rol = claves.iterator().next().rol();
+        String cursos = claves.stream().map(c -> c.cursoId().toString()).collect(Collectors.joining(","));
+        String visibles = VisibilidadEvento.visiblesPara(rol).stream()
+                .map(Enum::name)
+                .collect(Collectors.joining(","));
+
+        Map<Clave, List<EntradaCalendarioDTO>> cargados = new HashMap<>();
+        claves.forEach(clave -> cargados.put(clave, new ArrayList<>()));
+        jdbcTemplate.query(SQL_CALENDARIO, rs -> {
+            UUID cursoId = rs.getObject("curso_id", UUID.class);
+            cargados.get(new Clave(cursoId, rol)).add(new EntradaCalendarioDTO(
+                    rs.getString("tipo"),
+                    rs.getObject("id", UUID.class),
+                    cursoId,
+                    rs.getString("curso_nombre"),
+                    rs.getString("titulo"),
+                    rs.getString("detalle"),
+                    rs.getObject("inicio", LocalDateTime.class),
+                    rs.getObject("fin", LocalDateTime.class),
+                    rs.getBoolean("todo_el_dia")));
+        }, cursos, visibles, cursos, cursos, cursos, cursos);
+
+        cargados.replaceAll((clave, calendario) -> {
+            calendario.sort(ORDEN);
+            return List.copyOf(calendario);
+        });
+        return cargados;
+    }
+}
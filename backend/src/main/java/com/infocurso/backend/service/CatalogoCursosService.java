@@ -0,0 +1,133 @@
+package com.infocurso.backend.service;
+
+import com.infocurso.backend.dto.CursoResumenDTO;
+import com.infocurso.backend.dto.PaginaCursosDTO;
+import lombok.RequiredArgsConstructor;
+import org.springframework.http.HttpStatus;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.RowMapper;
+import org.springframework.stereotype.Service;
+import org.springframework.util.StringUtils;
+import org.springframework.web.server.ResponseStatusException;
+
+import java.sql.Date;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+
+/**
+ * Catálogo de cursos del administrador, paginado, ordenable y filtrable por el nombre del curso o del
+ * profesor. Cada cuenta sale de una subconsulta agrupada por curso que se une una vez, así que el coste
+ * crece con el número de filas de cada tabla y no con su producto, como al cargar todas las colecciones.
+ */
+@Service
+@RequiredArgsConstructor
+public class CatalogoCursosService {
+
+    public static final int TAMANO_PAGINA_POR_DEFECTO = 20;
+    public static final int TAMANO_PAGINA_MAXIMO = 100;
+
+    // Campos por los que se puede ordenar; el id desempata para que las páginas no se solapen
+    private static final Map<String, String> ORDENES = Map.of(
+            "nombre", "lower(c.nombre)",
+            "profesor", "lower(p.nombre)",
+            "alumnos", "alumnos",
+            "practicas", "practicas",
+            "modulos", "modulos",
+            "proximoEvento", "e.fecha");
+
+    private static final String DESDE = """
+            FROM curso c
+            LEFT JOIN usuario p ON p.id = c.profesor_id
+            """;
+
+    private static final String SELECT = """
+            SELECT c.id, c.nombre, c.descripcion, p.nombre AS profesor_nombre,
+                   coalesce(a.total, 0) AS alumnos,
+                   coalesce(pr.total, 0) AS practicas,
+                   coalesce(m.total, 0) AS modulos,
+                   e.fecha AS evento_fecha, e.titulo AS evento_titulo
+            """ + DESDE + """
+            LEFT JOIN (SELECT curso_id, count(*) AS total FROM curso_alumnos GROUP BY curso_id) a ON a.curso_id = c.id
+            LEFT JOIN (SELECT curso_id, count(*) AS total FROM practica GROUP BY curso_id) pr ON pr.curso_id = c.id
+            LEFT JOIN (SELECT curso_id, count(*) AS total FROM modulo GROUP BY curso_id) m ON m.curso_id = c.id
+            LEFT JOIN (
+                SELECT DISTINCT ON (curso_id) curso_id, fecha, titulo
+                FROM evento_curso
+                WHERE fecha >= ?
+                ORDER BY curso_id, fecha, id
+            ) e ON e.curso_id = c.id
+            """;
+
+    private static final RowMapper<CursoResumenDTO> FILA = (rs, n) -> {
+        Date fecha = rs.getDate("evento_fecha");
+        return new CursoResumenDTO(
+                rs.getObject("id", UUID.class),
+                rs.getString("nombre"),
+                rs.getString("descripcion"),
+                rs.getString("profesor_nombre"),
+                rs.getLong("alumnos"),
+                rs.getLong("practicas"),
+                rs.getLong("modulos"),
+                fecha != null ? fecha.toLocalDate() : null,
+                rs.getString("evento_titulo"));
+    };
+
+    private final JdbcTemplate jdbcTemplate;
+
+    /**
+     * @param orden  campo y, opcionalmente, dirección: "alumnos,desc". Por defecto, por nombre
+     * @param filtro texto que tiene que aparecer en el nombre del curso o del profesor
+     */
+    public PaginaCursosDTO buscar(Integer pagina, Integer tamano, String orden, String filtro) {
+        int numero = pagina == null ? 0 : Math.max(0, pagina);
+        int limite = tamano == null
+                ? TAMANO_PAGINA_POR_DEFECTO
+                : Math.max(1, Math.min(tamano, TAMANO_PAGINA_MAXIMO));
+
+        String where = "";
+        List<Object> parametrosFiltro = new ArrayList<>();
+        if (StringUtils.hasText(filtro)) {
+            where = "WHERE c.nombre ILIKE ? OR p.nombre ILIKE ?\n";
+            String patron = "%" + escaparLike(filtro.trim()) + "%";
+            parametrosFiltro.add(patron);
+            parametrosFiltro.add(patron);
+        }
+
+        Long total = jdbcTemplate.queryForObject("SELECT count(*) " + DESDE + where, Long.class,
+                parametrosFiltro.toArray());
+        if (total == null || total == 0 || (long) numero * limite >= total) {
+            return new PaginaCursosDTO(List.of(), numero, limite, total != null ? total : 0);
+        }
+
+        List<Object> parametros = new ArrayList<>();
+        parametros.add(LocalDate.now());
+        parametros.addAll(parametrosFiltro);
+        parametros.add(limite);
+        parametros.add((long) numero * limite);
+        List<CursoResumenDTO> cursos = jdbcTemplate.query(
+                SELECT + where + "ORDER BY " + ordenSql(orden) + ", c.id\nLIMIT ? OFFSET ?",
+                FILA, parametros.toArray());
+        return new PaginaCursosDTO(cursos, numero, limite, total);
+    }
+
+    private static String ordenSql(String orden) {
+        if (!StringUtils.hasText(orden)) {
+            return ORDENES.get("nombre") + " ASC NULLS LAST";
+        }
+        String[] partes = orden.split(",");
+        String campo = ORDENES.get(partes[0].trim());
+        String direccion = partes.length > 1 ? partes[1].trim().toUpperCase() : "ASC";
+        if (campo == null || partes.length > 2 || !(direccion.equals("ASC") || direccion.equals("DESC"))) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST,
+                    "Orden no válido: " + orden + ". Campos: " + String.join(", ", ORDENES.keySet()));
+        }
+        return campo + " " + direccion + " NULLS LAST";
+    }
+
+    private static String escaparLike(String texto) {
+        return texto.replace("\\", "\\\\").replace("%", "\\%").replace("_", "\\_");
+    }
+}
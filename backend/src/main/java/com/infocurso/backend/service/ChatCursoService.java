@@ -1,102 +1,121 @@
 package com.infocurso.backend.service;
 
-import com.infocurso.backend.entity.MensajeCurso;
+import com.infocurso.backend.dto.CursorMensajeDTO;
+import com.infocurso.backend.dto.LecturaMensajesCursoDTO;
+import com.infocurso.backend.dto.MensajeCursoDTO;
+import com.infocurso.backend.dto.PaginaMensajesCursoDTO;
 import com.infocurso.backend.entity.Usuario;
-import com.infocurso.backend.repository.CursoRepository;
 import com.infocurso.backend.repository.MensajeCursoRepository;
 import com.infocurso.backend.repository.MensajeCursoLeidoRepository;
-import com.infocurso.backend.entity.MensajeCursoLeido;
 import lombok.RequiredArgsConstructor;
+import org.springframework.data.domain.Limit;
+import org.springframework.http.HttpStatus;
 import org.springframework.messaging.simp.SimpMessagingTemplate;
 import org.springframework.stereotype.Service;
+import org.springframework.web.server.ResponseStatusException;
 
 import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Collections;
 import java.util.List;
+import java.util.Map;
+import java.util.Optional;
 import java.util.UUID;
+import java.util.stream.Collectors;
 
 @Service
 @RequiredArgsConstructor
 public class ChatCursoService {
 
+    public static final int TAMANO_PAGINA_POR_DEFECTO = 50;
+    public static final int TAMANO_PAGINA_MAXIMO = 200;
+
     private final MensajeCursoLeidoRepository leidoRepository;
     private final MensajeCursoRepository mensajeCursoRepository;
-    private final CursoRepository cursoRepository;
+    private final EscrituraMensajesCursoService escrituraMensajes;
     private final SimpMessagingTemplate messagingTemplate;
 
-    public List<UUID> marcarMensajesComoLeidos(UUID cursoId, UUID usuarioId) {
-        var leidoOpt = leidoRepository.findByCursoIdAndUsuarioId(cursoId, usuarioId);
-        UUID ultimoLeidoId = leidoOpt.map(MensajeCursoLeido::getUltimoMensajeLeidoId).orElse(null);
+    // Sin cursores devuelve la página más reciente; "antes" y "despues" son excluyentes
+    public PaginaMensajesCursoDTO obtenerHistorial(UUID cursoId, String antes, String despues, Integer limite) {
+        if (antes != null && despues != null) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "Indica solo uno de los cursores 'antes' o 'despues'");
+        }
 
-        // Obtener mensajes no leídos antes de marcar
-        List<MensajeCurso> mensajesNoLeidos;
-        if (ultimoLeidoId == null) {
-            mensajesNoLeidos = mensajeCursoRepository.findByCursoIdAndEmisorIdNot(cursoId, usuarioId);
-        } else {
-            var ultimoMensajeLeido = mensajeCursoRepository.findById(ultimoLeidoId);
-            if (ultimoMensajeLeido.isEmpty()) {
-                mensajesNoLeidos = List.of();
-            } else {
-                var fechaUltimoLeido = ultimoMensajeLeido.get().getFechaEnvio();
-                mensajesNoLeidos = mensajeCursoRepository
-                        .findByCursoIdAndFechaEnvioAfterAndEmisorIdNot(cursoId, fechaUltimoLeido, usuarioId);
-            }
+        int tamano = limite == null
+                ? TAMANO_PAGINA_POR_DEFECTO
+                : Math.max(1, Math.min(limite, TAMANO_PAGINA_MAXIMO));
+        // Se pide un mensaje de más para saber si quedan páginas en esa dirección
+        Limit consulta = Limit.of(tamano + 1);
+
+        if (despues != null) {
+            CursorMensajeDTO cursor = CursorMensajeDTO.decodificar(despues);
+            List<MensajeCursoDTO> mensajes = mensajeCursoRepository
+                    .findMensajesPosteriores(cursoId, cursor.fechaEnvio(), cursor.id(), consulta);
+            boolean hayPosteriores = mensajes.size() > tamano;
+            return pagina(hayPosteriores ? mensajes.subList(0, tamano) : mensajes, true, hayPosteriores);
         }
 
-        List<UUID> idsLeidos = mensajesNoLeidos.stream()
-                .map(MensajeCurso::getId)
-                .toList();
-
-        // Marcar como leído
-        var ultimoMensaje = mensajeCursoRepository.findTopByCursoIdOrderByFechaEnvioDesc(cursoId);
-        if (ultimoMensaje.isPresent()) {
-            MensajeCursoLeido leido = leidoOpt
-                    .orElseGet(() -> MensajeCursoLeido.builder()
-                            .cursoId(cursoId)
-                            .usuarioId(usuarioId)
-                            .build());
-
-            leido.setUltimoMensajeLeidoId(ultimoMensaje.get().getId());
-            leidoRepository.save(leido);
+        List<MensajeCursoDTO> mensajes;
+        if (antes != null) {
+            CursorMensajeDTO cursor = CursorMensajeDTO.decodificar(antes);
+            mensajes = mensajeCursoRepository
+                    .findMensajesAnteriores(cursoId, cursor.fechaEnvio(), cursor.id(), consulta);
+        } else {
+            mensajes = mensajeCursoRepository.findUltimosMensajes(cursoId, consulta);
         }
 
-        return idsLeidos;
+        boolean hayAnteriores = mensajes.size() > tamano;
+        // Las consultas hacia atrás devuelven los mensajes del más nuevo al más antiguo
+        List<MensajeCursoDTO> pagina = new ArrayList<>(hayAnteriores ? mensajes.subList(0, tamano) : mensajes);
+        Collections.reverse(pagina);
+        return pagina(pagina, hayAnteriores, antes != null);
     }
 
-    public int getNumeroMensajesNoLeidos(UUID cursoId, UUID usuarioId) {
-        var leidoOpt = leidoRepository.findByCursoIdAndUsuarioId(cursoId, usuarioId);
-
-        UUID ultimoLeidoId = leidoOpt.map(MensajeCursoLeido::getUltimoMensajeLeidoId).orElse(null);
-
-        // Si nunca ha leído ningún mensaje, contar todos excepto los suyos
-        if (ultimoLeidoId == null) {
-            return mensajeCursoRepository.countByCursoIdAndEmisorIdNot(cursoId, usuarioId);
-        }
+    private PaginaMensajesCursoDTO pagina(List<MensajeCursoDTO> mensajes, boolean hayAnteriores, boolean hayPosteriores) {
+        String cursorAnterior = mensajes.isEmpty() ? null : CursorMensajeDTO.from(mensajes.get(0)).codificar();
+        String cursorPosterior = mensajes.isEmpty()
+                ? null
+                : CursorMensajeDTO.from(mensajes.get(mensajes.size() - 1)).codificar();
+        return new PaginaMensajesCursoDTO(List.copyOf(mensajes), cursorAnterior, cursorPosterior,
+                hayAnteriores, hayPosteriores);
+    }
 
-        // Buscar la fecha del último mensaje leído
-        var ultimoMensajeLeido = mensajeCursoRepository.findById(ultimoLeidoId);
-        if (ultimoMensajeLeido.isEmpty())
-            return 0;
+    // Una sola sentencia: la marca de lectura pasa a la última secuencia del curso
+    public Optional<LecturaMensajesCursoDTO> marcarMensajesComoLeidos(UUID cursoId, UUID usuarioId) {
+        return leidoRepository.marcarLeidos(cursoId, usuarioId)
+                .map(rango -> new LecturaMensajesCursoDTO(rango.getDesde(), rango.getHasta()));
+    }
 
-        var fechaUltimoLeido = ultimoMensajeLeido.get().getFechaEnvio();
+    // No leídos = última secuencia del curso - marca de lectura - mensajes propios posteriores
+    public int getNumeroMensajesNoLeidos(UUID cursoId, UUID usuarioId) {
+        return (int) leidoRepository.contarNoLeidos(cursoId, usuarioId);
+    }
 
-        return mensajeCursoRepository.countByCursoIdAndFechaEnvioAfterAndEmisorIdNot(
-                cursoId, fechaUltimoLeido, usuarioId);
+    public Map<UUID, Long> getMensajesNoLeidosPorCurso(UUID usuarioId) {
+        return leidoRepository.contarNoLeidosPorCurso(usuarioId).stream()
+                .collect(Collectors.toMap(MensajeCursoLeidoRepository.NoLeidosCurso::getCursoId,
+                        MensajeCursoLeidoRepository.NoLeidosCurso::getNoLeidos));
     }
 
-    @org.springframework.transaction.annotation.Transactional
-    public void enviarMensajeCurso(UUID cursoId, Usuario usuario, String contenido) {
-        MensajeCurso mensaje = MensajeCurso.builder()
-                .curso(cursoRepository.getReferenceById(cursoId))
-                .emisor(usuario)
+    // El mensaje se difunde en cuanto llega; EscrituraMensajesCursoService lo guarda por lotes
+    // y publica después su secuencia en /topic/curso/{id}/secuencias
+    public MensajeCursoDTO enviarMensajeCurso(UUID cursoId, Usuario usuario, String contenido) {
+        MensajeCursoDTO mensaje = MensajeCursoDTO.builder()
+                .id(UUID.randomUUID())
+                .cursoId(cursoId)
                 .contenido(contenido)
                 .fechaEnvio(LocalDateTime.now())
+                .autor(MensajeCursoDTO.AutorDTO.builder()
+                        .id(usuario.getId())
+                        .nombre(usuario.getNombre())
+                        .avatarUrl(usuario.getAvatarUrl())
+                        .build())
                 .build();
-        mensajeCursoRepository.save(mensaje);
+        escrituraMensajes.encolar(mensaje);
 
         // Broadcast el mensaje a todos los suscriptores del curso
-        messagingTemplate.convertAndSend(
-                "/topic/curso/" + cursoId,
-                com.infocurso.backend.dto.MensajeCursoDTO.from(mensaje));
+        messagingTemplate.convertAndSend("/topic/curso/" + cursoId, mensaje);
+        return mensaje;
     }
 
 }
@@ -0,0 +1,126 @@
+package com.infocurso.backend.service;
+
+import com.infocurso.backend.dto.ConversacionDTO;
+import com.infocurso.backend.dto.CursorMensajePrivadoDTO;
+import com.infocurso.backend.dto.MensajeDTO;
+import com.infocurso.backend.dto.PaginaMensajesPrivadosDTO;
+import com.infocurso.backend.entity.Mensaje;
+import com.infocurso.backend.repository.MensajeRepository;
+import lombok.RequiredArgsConstructor;
+import org.springframework.data.domain.Limit;
+import org.springframework.http.HttpStatus;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Service;
+import org.springframework.web.server.ResponseStatusException;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.UUID;
+
+/**
+ * Mensajes privados entre dos usuarios. Cada conversación se localiza por su clave
+ * ({@link Mensaje#claveConversacion}) y se pagina por cursor igual que el chat de los cursos.
+ */
+@Service
+@RequiredArgsConstructor
+public class ChatPrivadoService {
+
+    public static final int TAMANO_PAGINA_POR_DEFECTO = 50;
+    public static final int TAMANO_PAGINA_MAXIMO = 200;
+
+    // Último mensaje de cada conversación del usuario y sus no leídos, en una consulta
+    private static final String SQL_BANDEJA = """
+            WITH ultimos AS (
+                SELECT DISTINCT ON (m.conversacion)
+                       m.conversacion, m.contenido, m.fecha_envio, m.emisor_id,
+                       CASE WHEN m.emisor_id = ? THEN m.receptor_id ELSE m.emisor_id END AS otro_id
+                FROM mensaje m
+                WHERE m.emisor_id = ? OR m.receptor_id = ?
+                ORDER BY m.conversacion, m.fecha_envio DESC, m.id DESC
+            ),
+            no_leidos AS (
+                SELECT conversacion, count(*) AS total
+                FROM mensaje
+                WHERE receptor_id = ? AND NOT leido
+                GROUP BY conversacion
+            )
+            SELECT u.id, u.nombre, u.avatar_url, ul.contenido, ul.fecha_envio,
+                   ul.emisor_id = ? AS propio, coalesce(n.total, 0) AS no_leidos
+            FROM ultimos ul
+            JOIN usuario u ON u.id = ul.otro_id
+            LEFT JOIN no_leidos n ON n.conversacion = ul.conversacion
+            ORDER BY ul.fecha_envio DESC
+            """;
+
+    private final MensajeRepository mensajeRepository;
+    private final JdbcTemplate jdbcTemplate;
+
+    // Sin cursores devuelve la página más reciente; "antes" y "despues" son excluyentes
+    public PaginaMensajesPrivadosDTO obtenerConversacion(UUID usuarioId, UUID otroId,
+                                                         String antes, String despues, Integer limite) {
+        if (antes != null && despues != null) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "Indica solo uno de los cursores 'antes' o 'despues'");
+        }
+
+        String conversacion = Mensaje.claveConversacion(usuarioId, otroId);
+        int tamano = limite == null
+                ? TAMANO_PAGINA_POR_DEFECTO
+                : Math.max(1, Math.min(limite, TAMANO_PAGINA_MAXIMO));
+        // Se pide un mensaje de más para saber si quedan páginas en esa dirección
+        Limit consulta = Limit.of(tamano + 1);
+
+        if (despues != null) {
+            CursorMensajePrivadoDTO cursor = CursorMensajePrivadoDTO.decodificar(despues);
+            List<MensajeDTO> mensajes = aDTO(mensajeRepository
+                    .findMensajesPosteriores(conversacion, cursor.fechaEnvio(), cursor.id(), consulta));
+            boolean hayPosteriores = mensajes.size() > tamano;
+            return pagina(hayPosteriores ? mensajes.subList(0, tamano) : mensajes, true, hayPosteriores);
+        }
+
+        List<MensajeDTO> mensajes;
+        if (antes != null) {
+            CursorMensajePrivadoDTO cursor = CursorMensajePrivadoDTO.decodificar(antes);
+            mensajes = aDTO(mensajeRepository
+                    .findMensajesAnteriores(conversacion, cursor.fechaEnvio(), cursor.id(), consulta));
+        } else {
+            mensajes = aDTO(mensajeRepository.findUltimosMensajes(conversacion, consulta));
+        }
+
+        boolean hayAnteriores = mensajes.size() > tamano;
+        // Las consultas hacia atrás devuelven los mensajes del más nuevo al más antiguo
+        List<MensajeDTO> pagina = new ArrayList<>(hayAnteriores ? mensajes.subList(0, tamano) : mensajes);
+        Collections.reverse(pagina);
+        return pagina(pagina, hayAnteriores, antes != null);
+    }
+
+    // Marca como leído lo que el otro usuario le ha enviado; devuelve cuántos mensajes cambian
+    public int marcarLeidos(UUID usuarioId, UUID otroId) {
+        return mensajeRepository.marcarLeidos(Mensaje.claveConversacion(usuarioId, otroId), usuarioId);
+    }
+
+    public List<ConversacionDTO> obtenerBandeja(UUID usuarioId) {
+        return jdbcTemplate.query(SQL_BANDEJA, (rs, n) -> new ConversacionDTO(
+                        rs.getObject("id", UUID.class),
+                        rs.getString("nombre"),
+                        rs.getString("avatar_url"),
+                        rs.getString("contenido"),
+                        rs.getTimestamp("fecha_envio") != null ? rs.getTimestamp("fecha_envio").toLocalDateTime() : null,
+                        rs.getBoolean("propio"),
+                        rs.getLong("no_leidos")),
+                usuarioId, usuarioId, usuarioId, usuarioId, usuarioId);
+    }
+
+    private static List<MensajeDTO> aDTO(List<Mensaje> mensajes) {
+        return mensajes.stream().map(MensajeDTO::from).toList();
+    }
+
+    private PaginaMensajesPrivadosDTO pagina(List<MensajeDTO> mensajes, boolean hayAnteriores, boolean hayPosteriores) {
+        String cursorAnterior = mensajes.isEmpty() ? null : CursorMensajePrivadoDTO.from(mensajes.get(0)).codificar();
+        String cursorPosterior = mensajes.isEmpty()
+                ? null
+                : CursorMensajePrivadoDTO.from(mensajes.get(mensajes.size() - 1)).codificar();
+        return new PaginaMensajesPrivadosDTO(List.copyOf(mensajes), cursorAnterior, cursorPosterior,
+                hayAnteriores, hayPosteriores);
+    }
+}
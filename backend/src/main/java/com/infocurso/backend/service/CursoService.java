@@ -7,29 +7,34 @@ import com.infocurso.backend.entity.*;
 import com.infocurso.backend.repository.CursoRepository;
 import com.infocurso.backend.repository.EventoCursoRepository;
 import com.infocurso.backend.repository.PracticaRepository;
+import com.infocurso.backend.repository.UnidadFormativaRepository;
 import lombok.RequiredArgsConstructor;
 import org.springframework.security.core.context.SecurityContextHolder;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
 
 // import java.time.LocalDate;
 import java.time.LocalDateTime;
 import java.util.List;
+import java.util.Map;
 import java.util.UUID;
-import org.slf4j.Logger;
-import org.slf4j.LoggerFactory;
+import java.util.function.Function;
+import java.util.stream.Collectors;
 
 @Service
 @RequiredArgsConstructor
 @SuppressWarnings("null")
 public class CursoService {
 
-    private static final Logger logger = LoggerFactory.getLogger(CursoService.class);
-
     private final CursoRepository cursoRepository;
     private final PracticaRepository practicaRepository;
     private final AlumnoConsultaService alumnoConsultaService;
     private final ObjectMapper objectMapper;
     private final EventoCursoRepository eventoCursoRepository;
+    private final UnidadFormativaRepository unidadFormativaRepository;
+    private final NotificacionService notificacionService;
+    private final CalendarioService calendarioService;
+    private final ReferenciasArchivosService referenciasArchivos;
 
     public Curso crearCurso(CursoDTO dto, Usuario profesor) {
         Curso curso = new Curso();
@@ -44,18 +49,12 @@ public class CursoService {
     }
 
     public CursoDTO getCursoById(UUID cursoId) {
-        Curso curso = cursoRepository.findByIdConRelaciones(cursoId)
-                .orElseThrow(() -> new RuntimeException("Curso no encontrado"));
-
-        List<AlumnoDTO> alumnos = curso.getAlumnos().stream()
-                .map(AlumnoDTO::from)
-                .toList();
-
-        return CursoDTO.from(curso, alumnos);
+        return getCursoDTO(cursoId);
     }
 
     public void eliminarCurso(UUID cursoId) {
         cursoRepository.deleteById(cursoId);
+        calendarioService.invalidar(cursoId);
     }
 
     public List<Curso> findByProfesor(Usuario profesor) {
@@ -78,25 +77,37 @@ public class CursoService {
                 .descripcion(descripcion)
                 .fechaEntrega(fechaEntrega)
                 .build();
-        return practicaRepository.save(practica);
+        practica = practicaRepository.save(practica);
+        referenciasArchivos.cambiar(null, descripcion);
+        calendarioService.invalidar(curso.getId());
+        notificacionService.enviarACurso(curso.getId(), new NotificacionService.Plantilla("PRACTICA",
+                "Nueva práctica en " + curso.getNombre() + ": '" + titulo + "'"));
+        return practica;
     }
 
+    @Transactional(readOnly = true)
     public CursoDTO getCursoConPrácticasYAlumnos(UUID cursoId) {
-        Curso curso = cursoRepository.findByIdConRelaciones(cursoId)
+        Curso curso = cursoRepository.findById(cursoId)
                 .orElseThrow(() -> new RuntimeException("Curso no encontrado"));
 
         List<AlumnoDTO> alumnos = alumnoConsultaService.listarAlumnosPorCurso(cursoId);
 
-        return CursoDTO.from(curso, alumnos);
+        return ensamblar(curso, alumnos);
     }
 
     public void eliminarPractica(UUID practicaId) {
-        practicaRepository.deleteById(practicaId);
+        practicaRepository.findById(practicaId).ifPresent(practica -> {
+            practicaRepository.delete(practica);
+            referenciasArchivos.cambiar(practica.getDescripcion(), null);
+            calendarioService.invalidar(practica.getCurso().getId());
+        });
     }
 
     public Practica editarPractica(UUID practicaId, CrearPracticaDTO dto) {
         Practica practica = practicaRepository.findById(practicaId)
                 .orElseThrow(() -> new RuntimeException("Práctica no encontrada"));
+        // Las imágenes que se quitan del editor dejan de contar; las nuevas empiezan a contar
+        String descripcionAnterior = practica.getDescripcion();
 
         try {
             practica.setTitulo(dto.titulo());
@@ -106,34 +117,45 @@ public class CursoService {
             throw new RuntimeException("Error al serializar la descripción", e);
         }
 
-        return practicaRepository.save(practica);
+        practica = practicaRepository.save(practica);
+        referenciasArchivos.cambiar(descripcionAnterior, practica.getDescripcion());
+        calendarioService.invalidar(practica.getCurso().getId());
+        return practica;
     }
 
     // Devuelve un CursoDTO completo con módulos, unidades, prácticas, alumnos, etc.
+    @Transactional(readOnly = true)
     public CursoDTO getCursoDTO(UUID id) {
-        logger.debug("🟢 Intentando cargar curso: {}", id);
-
-        Curso curso = cursoRepository.findByIdConTodo(id)
+        Curso curso = cursoRepository.findById(id)
                 .orElseThrow(() -> new RuntimeException("Curso no encontrado"));
 
-        try {
-            List<AlumnoDTO> alumnos = curso.getAlumnos() != null
-                    ? curso.getAlumnos().stream().map(AlumnoDTO::from).toList()
-                    : List.of();
-
-            // Construir el DTO
-            CursoDTO dto = CursoDTO.from(curso, alumnos);
-
-            // Log detallado del contenido del DTO
-            // Log detallado comentado para producción
-            // logger.debug("📦 CursoDTO generado: {}", dto);
-
-            return dto;
+        return ensamblar(curso, cursoRepository.findAlumnosDTOByCursoId(id));
+    }
 
-        } catch (Exception e) {
-            logger.error("❌ Error al construir CursoDTO: {}", e.getMessage());
-            throw e;
+    // Una consulta por colección, cada una con tantas filas como elementos. Cargarlas todas con
+    // JOIN FETCH devolvía alumnos × prácticas × módulos × unidades × eventos filas por curso.
+    private CursoDTO ensamblar(Curso curso, List<AlumnoDTO> alumnos) {
+        UUID id = curso.getId();
+
+        List<ModuloDTO> modulos = cursoRepository.findModulosDTOByCursoId(id);
+        Map<UUID, ModuloDTO> modulosPorId = modulos.stream()
+                .collect(Collectors.toMap(ModuloDTO::getId, Function.identity()));
+        for (UnidadFormativaDTO unidad : unidadFormativaRepository.findDTOByCursoId(id)) {
+            ModuloDTO modulo = modulosPorId.get(unidad.getModuloId());
+            if (modulo != null) {
+                modulo.getUnidades().add(unidad);
+            }
         }
+
+        return new CursoDTO(
+                id,
+                curso.getNombre(),
+                curso.getDescripcion(),
+                curso.getProfesor() != null ? UsuarioDTO.from(curso.getProfesor()) : null,
+                alumnos,
+                practicaRepository.findDTOByCursoId(id),
+                modulos,
+                eventoCursoRepository.findDTOByCursoId(id));
     }
 
     public void crearEventoCurso(Curso curso, EventoCursoDTO dto, Usuario autor) {
@@ -146,20 +168,18 @@ public class CursoService {
         evento.setVisiblePara(dto.visiblePara());
         evento.setAutor(autor);
         eventoCursoRepository.save(evento);
-    }
-
-    public List<CursoDTO> getTodosLosCursos() {
-        return cursoRepository.findAllConRelaciones().stream()
-                .map(curso -> CursoDTO.from(
-                        curso,
-                        curso.getAlumnos().stream().map(AlumnoDTO::from).toList()))
-                .toList();
+        calendarioService.invalidar(curso.getId());
+        if (dto.visiblePara() == VisibilidadEvento.ALUMNO || dto.visiblePara() == VisibilidadEvento.TODOS) {
+            notificacionService.enviarACurso(curso.getId(), new NotificacionService.Plantilla("EVENTO",
+                    "Nuevo evento en " + curso.getNombre() + ": '" + dto.titulo() + "'"));
+        }
     }
 
     public void actualizarNombre(UUID cursoId, String nuevoNombre) {
         Curso curso = cursoRepository.findById(cursoId).orElseThrow(() -> new RuntimeException("Curso no encontrado"));
         curso.setNombre(nuevoNombre);
         cursoRepository.save(curso);
+        calendarioService.invalidar(cursoId);
     }
 
     public void actualizarDescripcion(UUID cursoId, String nuevaDescripcion) {
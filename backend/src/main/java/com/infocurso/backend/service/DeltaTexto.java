@@ -0,0 +1,154 @@
+package com.infocurso.backend.service;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.zip.GZIPInputStream;
+import java.util.zip.GZIPOutputStream;
+
+/**
+ * Diferencias entre dos textos como una lista de operaciones: copiar un tramo de la base o insertar
+ * texto nuevo. Los tramos comunes se encuentran buscando en el texto nuevo los bloques de
+ * {@value #BLOQUE} caracteres de la base (con un hash rodante) y alargando cada coincidencia hacia los
+ * dos lados, así que una edición en cualquier parte de un documento grande cuesta lo que ocupa el
+ * cambio. Se trabaja con caracteres UTF-16, no con bytes, y el resultado va comprimido con gzip.
+ */
+final class DeltaTexto {
+
+    static final int BLOQUE = 32;
+
+    private static final long PRIMO = 1_000_003L;
+
+    private static final byte FIN = 0;
+    private static final byte COPIAR = 1;
+    private static final byte INSERTAR = 2;
+
+    private DeltaTexto() {
+    }
+
+    static byte[] calcular(String base, String nuevo) {
+        // Primer bloque con cada hash; las colisiones se descartan comparando el texto
+        Map<Long, Integer> bloques = new HashMap<>();
+        for (int i = 0; i + BLOQUE <= base.length(); i += BLOQUE) {
+            bloques.putIfAbsent(hash(base, i), i);
+        }
+        long potencia = 1;
+        for (int k = 1; k < BLOQUE; k++) {
+            potencia *= PRIMO;
+        }
+
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        try (DataOutputStream salida = new DataOutputStream(new GZIPOutputStream(bytes))) {
+            int pendiente = 0;
+            int i = 0;
+            long h = nuevo.length() >= BLOQUE ? hash(nuevo, 0) : 0;
+            while (i + BLOQUE <= nuevo.length()) {
+                Integer posicion = bloques.get(h);
+                if (posicion != null && base.regionMatches(posicion, nuevo, i, BLOQUE)) {
+                    int inicio = i;
+                    int inicioBase = posicion;
+                    while (inicio > pendiente && inicioBase > 0
+                            && nuevo.charAt(inicio - 1) == base.charAt(inicioBase - 1)) {
+                        inicio--;
+                        inicioBase--;
+                    }
+                    int fin = i + BLOQUE;
+                    int finBase = posicion + BLOQUE;
+                    while (fin < nuevo.length() && finBase < base.length()
+                            && nuevo.charAt(fin) == base.charAt(finBase)) {
+                        fin++;
+                        finBase++;
+                    }
+                    insertar(salida, nuevo, pendiente, inicio);
+                    salida.writeByte(COPIAR);
+                    salida.writeInt(inicioBase);
+                    salida.writeInt(fin - inicio);
+                    pendiente = fin;
+                    i = fin;
+                    if (i + BLOQUE <= nuevo.length()) {
+                        h = hash(nuevo, i);
+                    }
+                } else {
+                    if (i + BLOQUE < nuevo.length()) {
+                        h = (h - nuevo.charAt(i) * potencia) * PRIMO + nuevo.charAt(i + BLOQUE);
+                    }
+                    i++;
+                }
+            }
+            insertar(salida, nuevo, pendiente, nuevo.length());
+            salida.writeByte(FIN);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        return bytes.toByteArray();
+    }
+
+    static String aplicar(String base, byte[] delta) {
+        StringBuilder resultado = new StringBuilder(base.length());
+        try (DataInputStream entrada = new DataInputStream(new GZIPInputStream(new ByteArrayInputStream(delta)))) {
+            for (byte operacion = entrada.readByte(); operacion != FIN; operacion = entrada.readByte()) {
+                if (operacion == COPIAR) {
+                    int desde = entrada.readInt();
+                    resultado.append(base, desde, desde + entrada.readInt());
+                } else if (operacion == INSERTAR) {
+                    for (int n = entrada.readInt(); n > 0; n--) {
+                        resultado.append(entrada.readChar());
+                    }
+                } else {
+                    throw new IllegalArgumentException("Operación desconocida en el delta: " + operacion);
+                }
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        return resultado.toString();
+    }
+
+    static byte[] comprimir(String texto) {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        try (GZIPOutputStream salida = new GZIPOutputStream(bytes)) {
+            salida.write(texto.getBytes(StandardCharsets.UTF_8));
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        return bytes.toByteArray();
+    }
+
+    /**
+     * Texto de una revisión completa: gzip o, en las copiadas por la migración, UTF-8 sin comprimir
+     * (ningún HTML empieza por la marca de gzip, 1f 8b).
+     */
+    static String descomprimir(byte[] datos) {
+        if (datos.length < 2 || (datos[0] & 0xff) != 0x1f || (datos[1] & 0xff) != 0x8b) {
+            return new String(datos, StandardCharsets.UTF_8);
+        }
+        try (GZIPInputStream entrada = new GZIPInputStream(new ByteArrayInputStream(datos))) {
+            return new String(entrada.readAllBytes(), StandardCharsets.UTF_8);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    // UTF-16 tal cual: un tramo puede empezar o acabar en mitad de un par sustituto
+    private static void insertar(DataOutputStream salida, String texto, int desde, int hasta) throws IOException {
+        if (hasta > desde) {
+            salida.writeByte(INSERTAR);
+            salida.writeInt(hasta - desde);
+            salida.writeChars(texto.substring(desde, hasta));
+        }
+    }
+
+    private static long hash(String texto, int desde) {
+        long h = 0;
+        for (int k = desde; k < desde + BLOQUE; k++) {
+            h = h * PRIMO + texto.charAt(k);
+        }
+        return h;
+    }
+}
@@ -28,6 +28,8 @@ public class EntregaPracticaService {
     // private final CursoService cursoService;
     private final CursoRepository cursoRepository;
     private final UsuarioService usuarioService;
+    private final EstadisticaAlumnoCursoService estadisticaService;
+    private final ReferenciasArchivosService referenciasArchivos;
 
     public EntregaPractica entregarPractica(Usuario alumno, Practica practica, String archivoUrl, String comentario) {
         Optional<EntregaPractica> existente = entregaRepo.findByAlumnoIdAndPracticaId(alumno.getId(), practica.getId());
@@ -38,11 +40,15 @@ public class EntregaPracticaService {
                         .practica(practica)
                         .build());
 
+        String archivoAnterior = entrega.getArchivoUrl();
         entrega.setArchivoUrl(archivoUrl);
         entrega.setComentario(comentario);
         entrega.setFechaEntrega(LocalDateTime.now());
 
-        return entregaRepo.save(entrega);
+        entrega = entregaRepo.save(entrega);
+        referenciasArchivos.cambiar(archivoAnterior, archivoUrl);
+        estadisticaService.actualizar(practica.getCurso().getId(), alumno.getId());
+        return entrega;
     }
 
     public List<EntregaPractica> getEntregasPorPractica(UUID practicaId) {
@@ -65,6 +71,7 @@ public class EntregaPracticaService {
         entrega.setComentarioProfesor(dto.getComentarioProfesor());
         entrega.setFechaCalificacion(LocalDateTime.now());
         entregaRepo.save(entrega);
+        estadisticaService.actualizar(entrega.getPractica().getCurso().getId(), entrega.getAlumno().getId());
 
         notificacionService.enviar(
                 entrega.getAlumno(),
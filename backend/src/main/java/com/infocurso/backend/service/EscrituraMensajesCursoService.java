@@ -0,0 +1,306 @@
+package com.infocurso.backend.service;
+
+import com.infocurso.backend.dto.MensajeCursoDTO;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.SmartLifecycle;
+import org.springframework.dao.DataAccessResourceFailureException;
+import org.springframework.dao.RecoverableDataAccessException;
+import org.springframework.dao.TransientDataAccessException;
+import org.springframework.http.HttpStatus;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.messaging.simp.SimpMessagingTemplate;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.CannotCreateTransactionException;
+import org.springframework.transaction.support.TransactionTemplate;
+import org.springframework.web.server.ResponseStatusException;
+
+import java.sql.Timestamp;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Collectors;
+
+/**
+ * Escritura diferida de los mensajes del chat de curso. {@link ChatCursoService} difunde el mensaje
+ * en cuanto lo recibe y lo deja en una cola acotada; un único hilo la vacía por lotes, asigna los
+ * números de secuencia de cada curso y guarda las filas con inserciones JDBC en lote.
+ * <p>
+ * Si la cola está llena, quien envía espera hasta {@code app.chat.escritura.espera-maxima} y después
+ * recibe un 503. Al parar la aplicación se deja de aceptar mensajes y se guarda todo lo pendiente.
+ * <p>
+ * Los mensajes ya se han difundido cuando se escriben, así que solo se descarta uno si es inválido
+ * (curso o usuario borrados). Si la base de datos no responde, el mismo lote se reintenta con esperas
+ * crecientes y, mientras tanto, la cola se llena y los envíos nuevos reciben el 503.
+ */
+@Service
+public class EscrituraMensajesCursoService implements SmartLifecycle {
+
+    private static final Logger logger = LoggerFactory.getLogger(EscrituraMensajesCursoService.class);
+
+    private static final Duration PRIMER_REINTENTO = Duration.ofMillis(100);
+    private static final Duration REINTENTO_MAXIMO = Duration.ofSeconds(5);
+
+    private static final String SQL_RESERVAR_SECUENCIAS = """
+            INSERT INTO mensaje_curso_secuencia (curso_id, ultima)
+            VALUES (?, ?)
+            ON CONFLICT (curso_id) DO UPDATE SET ultima = mensaje_curso_secuencia.ultima + EXCLUDED.ultima
+            RETURNING ultima
+            """;
+
+    private static final String SQL_INSERTAR_MENSAJE = """
+            INSERT INTO mensaje_curso (id, curso_id, emisor_id, contenido, fecha_envio, secuencia)
+            VALUES (?, ?, ?, ?, ?, ?)
+            """;
+
+    private static final String SQL_SUMAR_PROPIOS = """
+            INSERT INTO mensaje_curso_leido (id, curso_id, usuario_id, ultima_secuencia_leida, mensajes_propios)
+            VALUES (gen_random_uuid(), ?, ?, 0, ?)
+            ON CONFLICT (curso_id, usuario_id)
+            DO UPDATE SET mensajes_propios = mensaje_curso_leido.mensajes_propios + EXCLUDED.mensajes_propios
+            """;
+
+    private record Pendiente(MensajeCursoDTO mensaje) {
+        UUID cursoId() {
+            return mensaje.getCursoId();
+        }
+
+        UUID emisorId() {
+            return mensaje.getAutor().getId();
+        }
+    }
+
+    private record Emisor(UUID cursoId, UUID usuarioId) {
+    }
+
+    private final JdbcTemplate jdbcTemplate;
+    private final TransactionTemplate transactionTemplate;
+    private final SimpMessagingTemplate messagingTemplate;
+    private final BlockingQueue<Pendiente> cola;
+    private final int tamanoLote;
+    private final Duration esperaMaxima;
+
+    private volatile boolean aceptando;
+    private volatile Thread escritor;
+
+    public EscrituraMensajesCursoService(JdbcTemplate jdbcTemplate,
+                                         TransactionTemplate transactionTemplate,
+                                         SimpMessagingTemplate messagingTemplate,
+                                         @Value("${app.chat.escritura.capacidad:10000}") int capacidad,
+                                         @Value("${app.chat.escritura.tamano-lote:200}") int tamanoLote,
+                                         @Value("${app.chat.escritura.espera-maxima:2s}") Duration esperaMaxima) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.transactionTemplate = transactionTemplate;
+        this.messagingTemplate = messagingTemplate;
+        this.cola = new ArrayBlockingQueue<>(capacidad);
+        this.tamanoLote = tamanoLote;
+        this.esperaMaxima = esperaMaxima;
+    }
+
+    public void encolar(MensajeCursoDTO mensaje) {
+        if (!aceptando) {
+            throw new ResponseStatusException(HttpStatus.SERVICE_UNAVAILABLE, "El chat se está deteniendo");
+        }
+        boolean encolado;
+        try {
+            encolado = cola.offer(new Pendiente(mensaje), esperaMaxima.toMillis(), TimeUnit.MILLISECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            encolado = false;
+        }
+        if (!encolado) {
+            throw new ResponseStatusException(HttpStatus.SERVICE_UNAVAILABLE,
+                    "Demasiados mensajes pendientes, inténtalo de nuevo");
+        }
+    }
+
+    public int pendientes() {
+        return cola.size();
+    }
+
+    private void bucleEscritura() {
+        List<Pendiente> lote = new ArrayList<>(tamanoLote);
+        while (aceptando || !cola.isEmpty()) {
+            try {
+                Pendiente primero = cola.poll(200, TimeUnit.MILLISECONDS);
+                if (primero == null) {
+                    continue;
+                }
+                lote.add(primero);
+                cola.drainTo(lote, tamanoLote - 1);
+                escribir(lote, true);
+            } catch (InterruptedException e) {
+                // Solo se interrumpe si la parada tarda demasiado; lo que quede en la cola se guarda en stop()
+                Thread.currentThread().interrupt();
+                if (!lote.isEmpty()) {
+                    logger.error("Se pierden {} mensajes de curso: la base de datos no respondía al parar", lote.size());
+                }
+                return;
+            } catch (RuntimeException e) {
+                logger.error("Error inesperado guardando mensajes de curso", e);
+            } finally {
+                lote.clear();
+            }
+        }
+    }
+
+    private void escribir(List<Pendiente> lote, boolean reintentar) throws InterruptedException {
+        Map<UUID, Map<UUID, Long>> secuencias;
+        try {
+            secuencias = guardar(lote, reintentar);
+        } catch (RuntimeException e) {
+            if (esTransitorio(e)) {
+                // Solo al parar, sin reintentos
+                logger.error("Se pierden {} mensajes de curso: la base de datos no responde", lote.size(), e);
+                return;
+            }
+            // Un mensaje inválido (curso o usuario borrados) no debe hacer perder el resto del lote
+            logger.warn("Falló el lote de {} mensajes de curso, se guardan uno a uno", lote.size(), e);
+            Map<UUID, Map<UUID, Long>> guardados = new LinkedHashMap<>();
+            for (Pendiente pendiente : lote) {
+                try {
+                    guardar(List.of(pendiente), reintentar)
+                            .forEach((cursoId, ids) -> guardados
+                                    .computeIfAbsent(cursoId, c -> new LinkedHashMap<>())
+                                    .putAll(ids));
+                } catch (RuntimeException error) {
+                    logger.error("Se descarta el mensaje {} del curso {}",
+                            pendiente.mensaje().getId(), pendiente.cursoId(), error);
+                }
+            }
+            secuencias = guardados;
+        }
+        publicarSecuencias(secuencias);
+    }
+
+    // Con reintentos, un error de conexión o de tiempo de espera no sale de aquí hasta que se guarda el lote
+    private Map<UUID, Map<UUID, Long>> guardar(List<Pendiente> lote, boolean reintentar) throws InterruptedException {
+        Duration espera = PRIMER_REINTENTO;
+        while (true) {
+            try {
+                return transactionTemplate.execute(estado -> guardarLote(lote));
+            } catch (RuntimeException e) {
+                if (!reintentar || !esTransitorio(e)) {
+                    throw e;
+                }
+                logger.warn("No se pudo guardar un lote de {} mensajes de curso, se reintenta en {} ms",
+                        lote.size(), espera.toMillis(), e);
+                TimeUnit.MILLISECONDS.sleep(espera.toMillis());
+                espera = espera.multipliedBy(2);
+                if (espera.compareTo(REINTENTO_MAXIMO) > 0) {
+                    espera = REINTENTO_MAXIMO;
+                }
+            }
+        }
+    }
+
+    // Fallos de la conexión o del servidor y no de los datos: el mismo lote puede guardarse más tarde
+    private static boolean esTransitorio(RuntimeException e) {
+        return e instanceof TransientDataAccessException
+                || e instanceof RecoverableDataAccessException
+                || e instanceof DataAccessResourceFailureException
+                || e instanceof CannotCreateTransactionException;
+    }
+
+    // Devuelve, por curso, la secuencia asignada a cada id de mensaje
+    private Map<UUID, Map<UUID, Long>> guardarLote(List<Pendiente> lote) {
+        Map<UUID, List<Pendiente>> porCurso = lote.stream()
+                .collect(Collectors.groupingBy(Pendiente::cursoId, LinkedHashMap::new, Collectors.toList()));
+
+        Map<UUID, Map<UUID, Long>> secuencias = new LinkedHashMap<>();
+        List<Object[]> filas = new ArrayList<>(lote.size());
+        for (Map.Entry<UUID, List<Pendiente>> curso : porCurso.entrySet()) {
+            List<Pendiente> mensajes = curso.getValue();
+            // Un solo UPDATE reserva todos los números del curso en este lote
+            Long ultima = jdbcTemplate.queryForObject(SQL_RESERVAR_SECUENCIAS, Long.class,
+                    curso.getKey(), mensajes.size());
+            long siguiente = ultima - mensajes.size() + 1;
+
+            Map<UUID, Long> ids = new LinkedHashMap<>();
+            for (Pendiente pendiente : mensajes) {
+                MensajeCursoDTO mensaje = pendiente.mensaje();
+                ids.put(mensaje.getId(), siguiente);
+                filas.add(new Object[]{
+                        mensaje.getId(),
+                        curso.getKey(),
+                        pendiente.emisorId(),
+                        mensaje.getContenido(),
+                        Timestamp.valueOf(mensaje.getFechaEnvio()),
+                        siguiente++
+                });
+            }
+            secuencias.put(curso.getKey(), ids);
+        }
+        jdbcTemplate.batchUpdate(SQL_INSERTAR_MENSAJE, filas);
+
+        Map<Emisor, Long> propios = lote.stream()
+                .collect(Collectors.groupingBy(p -> new Emisor(p.cursoId(), p.emisorId()), Collectors.counting()));
+        jdbcTemplate.batchUpdate(SQL_SUMAR_PROPIOS, propios.entrySet().stream()
+                .map(e -> new Object[]{e.getKey().cursoId(), e.getKey().usuarioId(), e.getValue()})
+                .toList());
+
+        return secuencias;
+    }
+
+    // Los clientes ya tienen el mensaje; aquí solo reciben la secuencia que le ha tocado
+    private void publicarSecuencias(Map<UUID, Map<UUID, Long>> secuencias) {
+        secuencias.forEach((cursoId, ids) -> {
+            try {
+                messagingTemplate.convertAndSend("/topic/curso/" + cursoId + "/secuencias", ids);
+            } catch (RuntimeException e) {
+                logger.debug("No se pudieron publicar las secuencias del curso {}", cursoId, e);
+            }
+        });
+    }
+
+    @Override
+    public void start() {
+        aceptando = true;
+        escritor = new Thread(this::bucleEscritura, "escritura-mensajes-curso");
+        escritor.start();
+    }
+
+    @Override
+    public void stop() {
+        aceptando = false;
+        Thread hilo = escritor;
+        if (hilo != null) {
+            try {
+                hilo.join(Duration.ofSeconds(30).toMillis());
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+            hilo.interrupt();
+        }
+        // Si el hilo no terminó a tiempo se guarda aquí lo que quede
+        List<Pendiente> resto = new ArrayList<>();
+        cola.drainTo(resto);
+        for (int i = 0; i < resto.size(); i += tamanoLote) {
+            try {
+                escribir(resto.subList(i, Math.min(i + tamanoLote, resto.size())), false);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        }
+        escritor = null;
+        logger.info("Escritura de mensajes de curso detenida");
+    }
+
+    @Override
+    public boolean isRunning() {
+        return escritor != null;
+    }
+
+    // Se para después del servidor web (DEFAULT_PHASE - 2048) y antes de cerrar el DataSource
+    @Override
+    public int getPhase() {
+        return SmartLifecycle.DEFAULT_PHASE - 4096;
+    }
+}
@@ -0,0 +1,70 @@
+package com.infocurso.backend.service;
+
+import com.infocurso.backend.repository.CursoRepository;
+import com.infocurso.backend.repository.EstadisticaAlumnoCursoRepository;
+import lombok.RequiredArgsConstructor;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import java.util.List;
+import java.util.UUID;
+
+/**
+ * Mantiene la tabla estadistica_alumno_curso. Los servicios que escriben entregas, notas de examen
+ * o asistencias llaman a {@link #actualizar} una vez guardado el cambio; la reconciliación periódica
+ * reconstruye la tabla desde las filas de origen por si alguna actualización se hubiera perdido.
+ */
+@Service
+@RequiredArgsConstructor
+public class EstadisticaAlumnoCursoService {
+
+    private static final Logger logger = LoggerFactory.getLogger(EstadisticaAlumnoCursoService.class);
+
+    private final EstadisticaAlumnoCursoRepository estadisticaRepository;
+    private final CursoRepository cursoRepository;
+
+    public void actualizar(UUID cursoId, UUID alumnoId) {
+        try {
+            estadisticaRepository.recalcular(cursoId, alumnoId);
+        } catch (RuntimeException e) {
+            // El cambio de origen ya está guardado: la reconciliación corregirá la fila
+            logger.warn("No se pudo actualizar la estadística del alumno {} en el curso {}", alumnoId, cursoId, e);
+        }
+    }
+
+    public void actualizarCurso(UUID cursoId) {
+        try {
+            estadisticaRepository.recalcularCurso(cursoId);
+        } catch (RuntimeException e) {
+            logger.warn("No se pudieron actualizar las estadísticas del curso {}", cursoId, e);
+        }
+    }
+
+    // Una transacción por curso para no bloquear toda la tabla durante la reconstrucción
+    public int reconstruir() {
+        List<UUID> cursoIds = cursoRepository.findAllIds();
+        int filas = 0;
+        for (UUID cursoId : cursoIds) {
+            filas += estadisticaRepository.recalcularCurso(cursoId);
+        }
+        logger.info("Estadísticas reconstruidas: {} cursos, {} filas", cursoIds.size(), filas);
+        return filas;
+    }
+
+    @Scheduled(cron = "${app.estadisticas.reconciliacion-cron:0 30 3 * * *}")
+    public void reconciliar() {
+        reconstruir();
+    }
+
+    // Primer arranque tras la migración: la tabla está vacía y hay que poblarla
+    @EventListener(ApplicationReadyEvent.class)
+    public void inicializar() {
+        if (estadisticaRepository.count() == 0) {
+            reconstruir();
+        }
+    }
+}
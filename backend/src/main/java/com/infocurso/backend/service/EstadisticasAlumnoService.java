@@ -1,31 +1,40 @@
 package com.infocurso.backend.service;
 
+import com.infocurso.backend.dto.AgregadoConteoDTO;
 import com.infocurso.backend.dto.EstadisticasAlumnoDTO;
 import com.infocurso.backend.dto.EstadisticasAlumnoDTO.ResumenCursoAlumnoDTO;
 import com.infocurso.backend.entity.Curso;
-import com.infocurso.backend.entity.EstadoAsistencia;
+import com.infocurso.backend.entity.EstadisticaAlumnoCurso;
 import com.infocurso.backend.repository.*;
 import lombok.RequiredArgsConstructor;
 import org.springframework.stereotype.Service;
 
-import java.time.LocalDateTime;
 import java.util.ArrayList;
 import java.util.List;
+import java.util.Map;
 import java.util.UUID;
+import java.util.function.Function;
+import java.util.stream.Collectors;
 
 @Service
 @RequiredArgsConstructor
 public class EstadisticasAlumnoService {
 
     private final CursoRepository cursoRepository;
-    private final EntregaPracticaRepository entregaPracticaRepository;
     private final PracticaRepository practicaRepository;
-    private final NotaExamenRepository notaExamenRepository;
     private final ExamenRepository examenRepository;
-    private final AsistenciaRepository asistenciaRepository;
+    private final EstadisticaAlumnoCursoRepository estadisticaRepository;
 
     public EstadisticasAlumnoDTO getEstadisticasAlumno(UUID alumnoId) {
         List<Curso> cursos = cursoRepository.findCursosByAlumnoId(alumnoId);
+        List<UUID> cursoIds = cursos.stream().map(Curso::getId).toList();
+
+        // Notas, entregas y asistencia del alumno en todos sus cursos en una sola lectura
+        Map<UUID, EstadisticaAlumnoCurso> estadisticas = estadisticaRepository.findByAlumnoId(alumnoId)
+                .stream()
+                .collect(Collectors.toMap(EstadisticaAlumnoCurso::getCursoId, Function.identity()));
+        Map<UUID, Long> practicasPorCurso = conteoPorCurso(practicaRepository.contarPorCursos(cursoIds));
+        Map<UUID, Long> proximosPorCurso = conteoPorCurso(examenRepository.contarProximosPorCursos(cursoIds));
 
         int totalPracticasEntregadas = 0;
         int totalPracticasPendientes = 0;
@@ -40,23 +49,26 @@ public class EstadisticasAlumnoService {
         for (Curso curso : cursos) {
             UUID cursoId = curso.getId();
 
+            EstadisticaAlumnoCurso estadistica = estadisticas.getOrDefault(cursoId,
+                    EstadisticaAlumnoCurso.vacia(cursoId, alumnoId));
+
             // Prácticas
-            long entregadas = entregaPracticaRepository.contarEntregasAlumno(alumnoId, cursoId);
-            long totalPracticas = practicaRepository.countByCursoId(cursoId);
+            long entregadas = estadistica.getEntregas();
+            long totalPracticas = practicasPorCurso.getOrDefault(cursoId, 0L);
             long pendientesCurso = totalPracticas - entregadas;
 
             totalPracticasEntregadas += (int) entregadas;
             totalPracticasPendientes += (int) pendientesCurso;
 
             // Nota de prácticas
-            Double notaPracticas = entregaPracticaRepository.calcularPromedioPracticasAlumno(alumnoId, cursoId);
+            Double notaPracticas = estadistica.promedioPracticas();
 
             // Nota de exámenes
-            Double notaExamenes = notaExamenRepository.calcularPromedioAlumno(alumnoId, cursoId);
-            Long examenesRealizados = notaExamenRepository.countByAlumnoAndCurso(alumnoId, cursoId);
+            Double notaExamenes = estadistica.promedioExamenes();
+            long examenesRealizados = estadistica.getExamenesCalificados();
 
             // Exámenes pendientes (futuros sin nota)
-            long totalExamenes = examenRepository.countByCursoIdAndFechaAfter(cursoId, LocalDateTime.now());
+            long totalExamenes = proximosPorCurso.getOrDefault(cursoId, 0L);
             totalExamenesPendientes += (int) totalExamenes;
 
             // Calcular nota actual del curso (60% exámenes, 40% prácticas)
@@ -67,13 +79,9 @@ public class EstadisticasAlumnoService {
             }
 
             // Asistencia
-            long totalClases = asistenciaRepository.countByAlumnoAndCurso(alumnoId, cursoId);
-            long presentes = asistenciaRepository.countByAlumnoAndCursoAndEstado(alumnoId, cursoId, EstadoAsistencia.PRESENTE);
-            long retrasos = asistenciaRepository.countByAlumnoAndCursoAndEstado(alumnoId, cursoId, EstadoAsistencia.RETRASO);
-            long justificados = asistenciaRepository.countByAlumnoAndCursoAndEstado(alumnoId, cursoId, EstadoAsistencia.JUSTIFICADO);
-
+            long totalClases = estadistica.getAsistencias();
             double porcentajeAsistenciaCurso = totalClases > 0
-                    ? ((presentes + retrasos + justificados) * 100.0 / totalClases)
+                    ? estadistica.porcentajeAsistencia()
                     : 100.0;
 
             if (totalClases > 0) {
@@ -88,7 +96,7 @@ public class EstadisticasAlumnoService {
                     (int) entregadas,
                     (int) pendientesCurso,
                     Math.round(porcentajeAsistenciaCurso * 100.0) / 100.0,
-                    examenesRealizados != null ? examenesRealizados.intValue() : 0,
+                    (int) examenesRealizados,
                     (int) totalExamenes
             ));
         }
@@ -112,6 +120,10 @@ public class EstadisticasAlumnoService {
         );
     }
 
+    private static Map<UUID, Long> conteoPorCurso(List<AgregadoConteoDTO> conteos) {
+        return conteos.stream().collect(Collectors.toMap(AgregadoConteoDTO::id, AgregadoConteoDTO::total));
+    }
+
     private Double calcularNotaFinal(Double notaPracticas, Double notaExamenes) {
         if (notaPracticas == null && notaExamenes == null) {
             return null;
@@ -1,29 +1,40 @@
 package com.infocurso.backend.service;
 
-import com.infocurso.backend.dto.EstadisticasProfesorDTO;
-import com.infocurso.backend.dto.ResumenCursoProfesorDTO;
+import com.infocurso.backend.dto.*;
 import com.infocurso.backend.entity.Curso;
-import com.infocurso.backend.entity.EstadoAsistencia;
+import com.infocurso.backend.entity.EstadisticaAlumnoCurso;
 import com.infocurso.backend.repository.*;
 import lombok.RequiredArgsConstructor;
 import org.springframework.stereotype.Service;
 
 import java.util.ArrayList;
 import java.util.List;
+import java.util.Map;
 import java.util.UUID;
+import java.util.function.Function;
+import java.util.stream.Collectors;
 
 @Service
 @RequiredArgsConstructor
 public class EstadisticasProfesorService {
 
     private final CursoRepository cursoRepository;
-    private final EntregaPracticaRepository entregaPracticaRepository;
     private final ExamenRepository examenRepository;
-    private final AsistenciaRepository asistenciaRepository;
-    private final NotaExamenRepository notaExamenRepository;
+    private final EstadisticaAlumnoCursoRepository estadisticaRepository;
 
     public EstadisticasProfesorDTO getEstadisticasProfesor(UUID profesorId) {
         List<Curso> cursos = cursoRepository.findByProfesorId(profesorId);
+        List<UUID> cursoIds = cursos.stream().map(Curso::getId).toList();
+
+        // El número de consultas no depende de cuántos cursos tenga el profesor
+        Map<UUID, Long> alumnosPorCurso = conteoPorCurso(cursoRepository.contarAlumnosPorCursoDeProfesor(profesorId));
+        Map<UUID, Long> proximosPorCurso = conteoPorCurso(examenRepository.contarProximosPorCursoDeProfesor(profesorId));
+
+        // Notas, entregas y asistencia: suma de las filas precalculadas de cada curso
+        Map<UUID, EstadisticaAlumnoCurso> estadisticasPorCurso = estadisticaRepository.findByCursoIdIn(cursoIds)
+                .stream()
+                .collect(Collectors.toMap(EstadisticaAlumnoCurso::getCursoId, Function.identity(),
+                        EstadisticaAlumnoCurso::sumar));
 
         int totalAlumnos = 0;
         int entregasPendientesTotal = 0;
@@ -35,34 +46,30 @@ public class EstadisticasProfesorService {
 
         for (Curso curso : cursos) {
             UUID cursoId = curso.getId();
-            int alumnosCurso = curso.getAlumnos() != null ? curso.getAlumnos().size() : 0;
+            int alumnosCurso = alumnosPorCurso.getOrDefault(cursoId, 0L).intValue();
             totalAlumnos += alumnosCurso;
 
+            EstadisticaAlumnoCurso estadistica = estadisticasPorCurso.getOrDefault(cursoId,
+                    EstadisticaAlumnoCurso.vacia(cursoId, null));
+
             // Entregas pendientes de calificar
-            Long pendientes = entregaPracticaRepository.contarEntregasPendientesCurso(cursoId);
-            int entregasPendientes = pendientes != null ? pendientes.intValue() : 0;
+            int entregasPendientes = (int) estadistica.entregasPendientes();
             entregasPendientesTotal += entregasPendientes;
 
             // Exámenes próximos
-            int examenesProximos = examenRepository.findProximosExamenes(cursoId).size();
+            int examenesProximos = proximosPorCurso.getOrDefault(cursoId, 0L).intValue();
             examenesProximosTotal += examenesProximos;
 
             // Asistencia media del curso
-            long totalAsistencias = asistenciaRepository.countByCurso(cursoId);
-            long presentes = asistenciaRepository.countByCursoAndEstado(cursoId, EstadoAsistencia.PRESENTE);
-            long retrasos = asistenciaRepository.countByCursoAndEstado(cursoId, EstadoAsistencia.RETRASO);
-            long justificados = asistenciaRepository.countByCursoAndEstado(cursoId, EstadoAsistencia.JUSTIFICADO);
-
-            double asistenciaMedia = 0;
-            if (totalAsistencias > 0) {
-                asistenciaMedia = ((presentes + retrasos + justificados) * 100.0) / totalAsistencias;
+            double asistenciaMedia = estadistica.porcentajeAsistencia();
+            if (estadistica.getAsistencias() > 0) {
                 asistenciaSuma += asistenciaMedia;
                 cursosConAsistencia++;
             }
 
             // Promedio de notas del curso (prácticas + exámenes)
-            Double promedioPracticas = entregaPracticaRepository.calcularPromedioNotasCurso(cursoId);
-            Double promedioExamenes = notaExamenRepository.calcularPromedioExamen(cursoId);
+            Double promedioPracticas = estadistica.promedioPracticas();
+            Double promedioExamenes = estadistica.promedioExamenes();
 
             double promedioNotas = 0;
             if (promedioPracticas != null && promedioExamenes != null) {
@@ -95,4 +102,8 @@ public class EstadisticasProfesorService {
                 resumenCursos
         );
     }
+
+    private static Map<UUID, Long> conteoPorCurso(List<AgregadoConteoDTO> conteos) {
+        return conteos.stream().collect(Collectors.toMap(AgregadoConteoDTO::id, AgregadoConteoDTO::total));
+    }
 }
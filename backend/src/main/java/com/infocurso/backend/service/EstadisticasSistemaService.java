@@ -1,9 +1,8 @@
 package com.infocurso.backend.service;
 
 import com.infocurso.backend.dto.EstadisticasSistemaDTO;
-import com.infocurso.backend.entity.EstadoAsistencia;
-import com.infocurso.backend.entity.Rol;
-import com.infocurso.backend.repository.*;
+import com.infocurso.backend.repository.EstadisticasSistemaRepository;
+import com.infocurso.backend.repository.EstadisticasSistemaRepository.ResumenSistema;
 import lombok.RequiredArgsConstructor;
 import org.springframework.stereotype.Service;
 
@@ -11,60 +10,30 @@ import org.springframework.stereotype.Service;
 @RequiredArgsConstructor
 public class EstadisticasSistemaService {
 
-    private final UsuarioRepository usuarioRepository;
-    private final CursoRepository cursoRepository;
-    private final PracticaRepository practicaRepository;
-    private final ExamenRepository examenRepository;
-    private final EntregaPracticaRepository entregaPracticaRepository;
-    private final AsistenciaRepository asistenciaRepository;
+    private final EstadisticasSistemaRepository estadisticasSistemaRepository;
 
     public EstadisticasSistemaDTO getEstadisticasSistema() {
-        // Usuarios por rol
-        long totalUsuarios = usuarioRepository.count();
-        long totalAlumnos = usuarioRepository.countByRol(Rol.ALUMNO);
-        long totalProfesores = usuarioRepository.countByRol(Rol.PROFESOR);
-        long totalAdministradores = usuarioRepository.countByRol(Rol.ADMINISTRADOR);
-
-        // Cursos
-        long totalCursos = cursoRepository.count();
-        // Consideramos cursos activos aquellos que tienen al menos un alumno
-        long cursosActivos = cursoRepository.findAll().stream()
-                .filter(c -> c.getAlumnos() != null && !c.getAlumnos().isEmpty())
-                .count();
-
-        // Prácticas y exámenes
-        long totalPracticas = practicaRepository.count();
-        long totalExamenes = examenRepository.count();
-
-        // Entregas
-        long entregasTotales = entregaPracticaRepository.count();
-        long entregasPendientes = entregaPracticaRepository.findAll().stream()
-                .filter(e -> e.getNota() == null)
-                .count();
-
-        // Asistencia media global
-        long totalAsistencias = asistenciaRepository.count();
-        long presentes = asistenciaRepository.findAll().stream()
-                .filter(a -> a.getEstado() == EstadoAsistencia.PRESENTE ||
-                             a.getEstado() == EstadoAsistencia.RETRASO ||
-                             a.getEstado() == EstadoAsistencia.JUSTIFICADO)
-                .count();
+        // Todos los contadores salen de una única consulta agregada
+        ResumenSistema resumen = estadisticasSistemaRepository.obtenerResumen();
 
+        // Presentes, retrasos y justificados cuentan como asistencia
+        long totalAsistencias = resumen.getTotalAsistencias();
         double asistenciaMedia = totalAsistencias > 0
-                ? (presentes * 100.0) / totalAsistencias
+                ? (resumen.getAsistenciasPresentes() * 100.0) / totalAsistencias
                 : 0;
 
+        // Consideramos cursos activos aquellos que tienen al menos un alumno
         return new EstadisticasSistemaDTO(
-                (int) totalUsuarios,
-                (int) totalAlumnos,
-                (int) totalProfesores,
-                (int) totalAdministradores,
-                (int) totalCursos,
-                (int) cursosActivos,
-                (int) totalPracticas,
-                (int) totalExamenes,
-                (int) entregasTotales,
-                (int) entregasPendientes,
+                resumen.getTotalUsuarios().intValue(),
+                resumen.getTotalAlumnos().intValue(),
+                resumen.getTotalProfesores().intValue(),
+                resumen.getTotalAdministradores().intValue(),
+                resumen.getTotalCursos().intValue(),
+                resumen.getCursosActivos().intValue(),
+                resumen.getTotalPracticas().intValue(),
+                resumen.getTotalExamenes().intValue(),
+                resumen.getEntregasTotales().intValue(),
+                resumen.getEntregasPendientes().intValue(),
                 Math.round(asistenciaMedia * 100.0) / 100.0
         );
     }
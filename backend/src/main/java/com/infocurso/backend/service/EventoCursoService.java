@@ -4,6 +4,7 @@ import com.infocurso.backend.dto.EventoCursoDTO;
 import com.infocurso.backend.entity.Curso;
 import com.infocurso.backend.entity.EventoCurso;
 import com.infocurso.backend.entity.Usuario;
+import com.infocurso.backend.entity.VisibilidadEvento;
 import com.infocurso.backend.repository.CursoRepository;
 import com.infocurso.backend.repository.EventoCursoRepository;
 import com.infocurso.backend.repository.UsuarioRepository;
@@ -20,6 +21,7 @@ public class EventoCursoService {
     private final EventoCursoRepository eventoRepo;
     private final CursoRepository cursoRepo;
     private final UsuarioRepository usuarioRepo;
+    private final CalendarioService calendarioService;
 
     public EventoCurso crearEvento(EventoCursoDTO dto, UUID cursoId, String autorEmail) {
         Curso curso = cursoRepo.findById(cursoId)
@@ -38,10 +40,14 @@ public class EventoCursoService {
                 .autor(autor)
                 .build();
 
-        return eventoRepo.save(evento);
+        evento = eventoRepo.save(evento);
+        calendarioService.invalidar(cursoId);
+        return evento;
     }
 
-    public List<EventoCurso> listarEventosPorCurso(UUID cursoId) {
-        return eventoRepo.findByCursoId(cursoId);
+    // Solo los eventos dirigidos al rol del usuario; el filtro va en la consulta
+    public List<EventoCurso> listarEventosPorCurso(UUID cursoId, Usuario usuario) {
+        return eventoRepo.findByCursoIdAndVisibleParaInOrderByFecha(cursoId,
+                VisibilidadEvento.visiblesPara(usuario.getRol()));
     }
 }
@@ -19,6 +19,9 @@ public class ExamenService {
     private final NotaExamenRepository notaExamenRepository;
     private final CursoRepository cursoRepository;
     private final UsuarioRepository usuarioRepository;
+    private final EstadisticaAlumnoCursoService estadisticaService;
+    private final NotificacionService notificacionService;
+    private final CalendarioService calendarioService;
 
     // Obtener todos los exámenes de un curso
     public List<ExamenDTO> getExamenesCurso(UUID cursoId) {
@@ -67,6 +70,9 @@ public class ExamenService {
                 .build();
 
         examen = examenRepository.save(examen);
+        calendarioService.invalidar(cursoId);
+        notificacionService.enviarACurso(cursoId, new NotificacionService.Plantilla("EXAMEN",
+                "Nuevo examen en " + curso.getNombre() + ": '" + examen.getTitulo() + "'"));
         return ExamenDTO.from(examen);
     }
 
@@ -84,15 +90,19 @@ public class ExamenService {
         }
 
         examen = examenRepository.save(examen);
+        calendarioService.invalidar(examen.getCurso().getId());
         return ExamenDTO.from(examen);
     }
 
     // Eliminar examen
     public void eliminarExamen(UUID examenId) {
-        if (!examenRepository.existsById(examenId)) {
-            throw new ResponseStatusException(HttpStatus.NOT_FOUND, "Examen no encontrado");
-        }
-        examenRepository.deleteById(examenId);
+        Examen examen = examenRepository.findById(examenId)
+                .orElseThrow(() -> new ResponseStatusException(HttpStatus.NOT_FOUND, "Examen no encontrado"));
+        UUID cursoId = examen.getCurso().getId();
+        examenRepository.delete(examen);
+        calendarioService.invalidar(cursoId);
+        // Se borran en cascada las notas de todos los alumnos del curso
+        estadisticaService.actualizarCurso(cursoId);
     }
 
     // Obtener notas de un examen
@@ -141,21 +151,15 @@ public class ExamenService {
         }
 
         nota = notaExamenRepository.save(nota);
+        estadisticaService.actualizar(examen.getCurso().getId(), alumno.getId());
         return NotaExamenDTO.from(nota);
     }
 
-    // Registrar múltiples notas
-    public void registrarNotasMultiples(UUID examenId, List<RegistrarNotaDTO> notas) {
-        for (RegistrarNotaDTO dto : notas) {
-            registrarNota(examenId, dto);
-        }
-    }
-
     // Eliminar nota
     public void eliminarNota(UUID notaId) {
-        if (!notaExamenRepository.existsById(notaId)) {
-            throw new ResponseStatusException(HttpStatus.NOT_FOUND, "Nota no encontrada");
-        }
-        notaExamenRepository.deleteById(notaId);
+        NotaExamen nota = notaExamenRepository.findById(notaId)
+                .orElseThrow(() -> new ResponseStatusException(HttpStatus.NOT_FOUND, "Nota no encontrada"));
+        notaExamenRepository.delete(nota);
+        estadisticaService.actualizar(nota.getExamen().getCurso().getId(), nota.getAlumno().getId());
     }
 }
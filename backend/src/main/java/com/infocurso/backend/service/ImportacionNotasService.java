@@ -0,0 +1,292 @@
+package com.infocurso.backend.service;
+
+import com.infocurso.backend.dto.RegistrarNotaDTO;
+import com.infocurso.backend.dto.ResultadoImportacionNotasDTO;
+import com.infocurso.backend.dto.ResultadoImportacionNotasDTO.ErrorFila;
+import com.infocurso.backend.entity.Examen;
+import com.infocurso.backend.entity.Usuario;
+import com.infocurso.backend.repository.ExamenRepository;
+import com.infocurso.backend.repository.UsuarioRepository;
+import lombok.RequiredArgsConstructor;
+import org.springframework.http.HttpStatus;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionTemplate;
+import org.springframework.web.server.ResponseStatusException;
+
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Objects;
+import java.util.UUID;
+
+/**
+ * Importación de las notas de un examen para toda la clase, desde un CSV exportado de una hoja de
+ * cálculo o desde JSON. Cada fila se valida por separado: las que tienen errores se devuelven en el
+ * resultado y el resto se guarda. Las notas que cambian se escriben con un único lote de upserts sobre
+ * la restricción única (examen_id, alumno_id) de NotaExamen, y sus alumnos reciben una notificación.
+ */
+@Service
+@RequiredArgsConstructor
+public class ImportacionNotasService {
+
+    public static final int MAXIMO_FILAS = 5000;
+
+    private static final int LONGITUD_MAXIMA_OBSERVACIONES = 255;
+
+    private static final String SQL_GUARDAR_NOTA = """
+            INSERT INTO nota_examen (id, examen_id, alumno_id, nota, observaciones, fecha_calificacion)
+            VALUES (gen_random_uuid(), ?, ?, ?, ?, ?)
+            ON CONFLICT (examen_id, alumno_id)
+            DO UPDATE SET nota = EXCLUDED.nota, observaciones = EXCLUDED.observaciones,
+                          fecha_calificacion = EXCLUDED.fecha_calificacion
+            """;
+
+    /**
+     * Una fila tal como llega, antes de validarla. {@code alumno} es el id o el email del alumno.
+     */
+    record FilaNota(int fila, String alumno, String nota, String observaciones) {
+    }
+
+    private record NotaValida(Usuario alumno, double nota, String observaciones) {
+    }
+
+    private record NotaGuardada(Double nota, String observaciones) {
+    }
+
+    private final ExamenRepository examenRepository;
+    private final UsuarioRepository usuarioRepository;
+    private final EstadisticaAlumnoCursoService estadisticaService;
+    private final NotificacionService notificacionService;
+    private final JdbcTemplate jdbcTemplate;
+    private final TransactionTemplate transactionTemplate;
+
+    public ResultadoImportacionNotasDTO importar(UUID cursoId, UUID examenId, List<RegistrarNotaDTO> notas) {
+        List<FilaNota> filas = new ArrayList<>();
+        for (int i = 0; i < notas.size(); i++) {
+            RegistrarNotaDTO dto = notas.get(i);
+            filas.add(new FilaNota(i + 1,
+                    dto.alumnoId() != null ? dto.alumnoId().toString() : null,
+                    dto.nota() != null ? dto.nota().toString() : null,
+                    dto.observaciones()));
+        }
+        return guardar(cursoId, examenId, filas);
+    }
+
+    /**
+     * Columnas alumno (id o email), nota y observaciones, separadas por comas o por punto y coma (lo que
+     * usa Excel en español, donde la nota puede llevar coma decimal). La cabecera es opcional.
+     */
+    public ResultadoImportacionNotasDTO importarCsv(UUID cursoId, UUID examenId, String csv) {
+        List<List<String>> registros = leerCsv(csv);
+        List<FilaNota> filas = new ArrayList<>();
+        for (int i = 0; i < registros.size(); i++) {
+            List<String> campos = registros.get(i);
+            if (i == 0 && esCabecera(campos.get(0))) {
+                continue;
+            }
+            if (campos.stream().allMatch(String::isBlank)) {
+                continue;
+            }
+            filas.add(new FilaNota(i + 1, campo(campos, 0), campo(campos, 1), campo(campos, 2)));
+        }
+        return guardar(cursoId, examenId, filas);
+    }
+
+    private ResultadoImportacionNotasDTO guardar(UUID cursoId, UUID examenId, List<FilaNota> filas) {
+        if (filas.size() > MAXIMO_FILAS) {
+            throw new ResponseStatusException(HttpStatus.PAYLOAD_TOO_LARGE,
+                    "Se pueden importar como mucho " + MAXIMO_FILAS + " notas a la vez");
+        }
+        Examen examen = examenRepository.findById(examenId)
+                .filter(e -> e.getCurso().getId().equals(cursoId))
+                .orElseThrow(() -> new ResponseStatusException(HttpStatus.NOT_FOUND, "Examen no encontrado"));
+
+        Map<UUID, Usuario> porId = new HashMap<>();
+        Map<String, Usuario> porEmail = new HashMap<>();
+        for (Usuario alumno : usuarioRepository.findMatriculadosEnCurso(cursoId)) {
+            porId.put(alumno.getId(), alumno);
+            if (alumno.getEmail() != null) {
+                porEmail.put(alumno.getEmail().toLowerCase(Locale.ROOT), alumno);
+            }
+        }
+
+        List<ErrorFila> errores = new ArrayList<>();
+        Map<UUID, Integer> filaDeAlumno = new HashMap<>();
+        Map<UUID, NotaValida> validas = new LinkedHashMap<>();
+        for (FilaNota fila : filas) {
+            String error;
+            Usuario alumno = buscarAlumno(fila.alumno(), porId, porEmail);
+            Double nota = leerNota(fila.nota());
+            if (alumno == null) {
+                error = fila.alumno() == null || fila.alumno().isBlank()
+                        ? "Falta el alumno"
+                        : "El alumno no está matriculado en el curso";
+            } else if (filaDeAlumno.containsKey(alumno.getId())) {
+                error = "Alumno repetido; ya tiene nota en la fila " + filaDeAlumno.get(alumno.getId());
+            } else if (fila.nota() == null || fila.nota().isBlank()) {
+                error = "Falta la nota";
+            } else if (nota == null) {
+                error = "La nota no es un número: " + fila.nota();
+            } else if (nota < 0 || nota > examen.getPuntuacionMaxima()) {
+                error = "La nota tiene que estar entre 0 y " + examen.getPuntuacionMaxima();
+            } else if (fila.observaciones() != null && fila.observaciones().length() > LONGITUD_MAXIMA_OBSERVACIONES) {
+                error = "Las observaciones no pueden superar " + LONGITUD_MAXIMA_OBSERVACIONES + " caracteres";
+            } else {
+                error = null;
+            }
+
+            if (error != null) {
+                errores.add(new ErrorFila(fila.fila(), fila.alumno(), error));
+                continue;
+            }
+            filaDeAlumno.put(alumno.getId(), fila.fila());
+            String observaciones = fila.observaciones() == null || fila.observaciones().isBlank()
+                    ? null
+                    : fila.observaciones().trim();
+            validas.put(alumno.getId(), new NotaValida(alumno, nota, observaciones));
+        }
+
+        List<NotaValida> cambiadas = validas.isEmpty() ? List.of() : transactionTemplate.execute(status -> {
+            Map<UUID, NotaGuardada> actuales = new HashMap<>();
+            jdbcTemplate.query("SELECT alumno_id, nota, observaciones FROM nota_examen WHERE examen_id = ?",
+                    rs -> {
+                        actuales.put(rs.getObject("alumno_id", UUID.class),
+                                new NotaGuardada(rs.getObject("nota", Double.class), rs.getString("observaciones")));
+                    },
+                    examenId);
+            // Reimportar la misma hoja no reescribe ni vuelve a notificar las notas que no han cambiado
+            List<NotaValida> nuevas = validas.values().stream()
+                    .filter(v -> !new NotaGuardada(v.nota(), v.observaciones()).equals(actuales.get(v.alumno().getId())))
+                    .toList();
+            Timestamp ahora = Timestamp.valueOf(LocalDateTime.now());
+            jdbcTemplate.batchUpdate(SQL_GUARDAR_NOTA, nuevas.stream()
+                    .map(v -> new Object[]{examenId, v.alumno().getId(), v.nota(), v.observaciones(), ahora})
+                    .toList());
+            return nuevas;
+        });
+
+        if (!cambiadas.isEmpty()) {
+            estadisticaService.actualizarCurso(cursoId);
+            notificacionService.enviar(
+                    cambiadas.stream().map(NotaValida::alumno).toList(),
+                    new NotificacionService.Plantilla("CALIFICACION",
+                            "Tienes nota en el examen '" + examen.getTitulo() + "'"));
+        }
+        return new ResultadoImportacionNotasDTO(cambiadas.size(), validas.size() - cambiadas.size(), errores);
+    }
+
+    private static Usuario buscarAlumno(String referencia, Map<UUID, Usuario> porId, Map<String, Usuario> porEmail) {
+        if (referencia == null || referencia.isBlank()) {
+            return null;
+        }
+        String texto = referencia.trim();
+        if (texto.contains("@")) {
+            return porEmail.get(texto.toLowerCase(Locale.ROOT));
+        }
+        try {
+            return porId.get(UUID.fromString(texto));
+        } catch (IllegalArgumentException e) {
+            return null;
+        }
+    }
+
+    private static Double leerNota(String texto) {
+        if (texto == null || texto.isBlank()) {
+            return null;
+        }
+        try {
+            double nota = Double.parseDouble(texto.trim().replace(',', '.'));
+            return Double.isFinite(nota) ? nota : null;
+        } catch (NumberFormatException e) {
+            return null;
+        }
+    }
+
+    // La primera fila es cabecera si su primera columna no es ni un id ni un email
+    private static boolean esCabecera(String primerCampo) {
+        String texto = primerCampo.trim();
+        if (texto.contains("@")) {
+            return false;
+        }
+        try {
+            UUID.fromString(texto);
+            return false;
+        } catch (IllegalArgumentException e) {
+            return true;
+        }
+    }
+
+    private static String campo(List<String> campos, int indice) {
+        if (indice >= campos.size()) {
+            return null;
+        }
+        String valor = campos.get(indice).trim();
+        return valor.isEmpty() ? null : valor;
+    }
+
+    /**
+     * CSV con comillas dobles ("" dentro de un campo entrecomillado es una comilla). El separador es el
+     * punto y coma si aparece en la primera línea fuera de comillas y la coma en otro caso.
+     */
+    static List<List<String>> leerCsv(String csv) {
+        String texto = Objects.requireNonNullElse(csv, "");
+        if (texto.startsWith("\uFEFF")) {
+            texto = texto.substring(1);
+        }
+        char separador = ',';
+        boolean entreComillas = false;
+        for (int i = 0; i < texto.length() && (entreComillas || texto.charAt(i) != '\n'); i++) {
+            char c = texto.charAt(i);
+            if (c == '"') {
+                entreComillas = !entreComillas;
+            } else if (c == ';' && !entreComillas) {
+                separador = ';';
+                break;
+            }
+        }
+
+        List<List<String>> registros = new ArrayList<>();
+        List<String> campos = new ArrayList<>();
+        StringBuilder campo = new StringBuilder();
+        entreComillas = false;
+        for (int i = 0; i < texto.length(); i++) {
+            char c = texto.charAt(i);
+            if (entreComillas) {
+                if (c == '"' && i + 1 < texto.length() && texto.charAt(i + 1) == '"') {
+                    campo.append('"');
+                    i++;
+                } else if (c == '"') {
+                    entreComillas = false;
+                } else {
+                    campo.append(c);
+                }
+            } else if (c == '"') {
+                entreComillas = true;
+            } else if (c == separador) {
+                campos.add(campo.toString());
+                campo.setLength(0);
+            } else if (c == '\n' || c == '\r') {
+                if (c == '\r' && i + 1 < texto.length() && texto.charAt(i + 1) == '\n') {
+                    i++;
+                }
+                campos.add(campo.toString());
+                campo.setLength(0);
+                registros.add(campos);
+                campos = new ArrayList<>();
+            } else {
+                campo.append(c);
+            }
+        }
+        if (campo.length() > 0 || !campos.isEmpty()) {
+            campos.add(campo.toString());
+            registros.add(campos);
+        }
+        return registros;
+    }
+}
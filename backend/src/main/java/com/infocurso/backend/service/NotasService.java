@@ -3,6 +3,7 @@ package com.infocurso.backend.service;
 import com.infocurso.backend.dto.ResumenAlumnoCursoDTO;
 import com.infocurso.backend.dto.ResumenNotasCursoDTO;
 import com.infocurso.backend.entity.Curso;
+import com.infocurso.backend.entity.EstadisticaAlumnoCurso;
 import com.infocurso.backend.entity.Usuario;
 import com.infocurso.backend.repository.*;
 import lombok.RequiredArgsConstructor;
@@ -10,62 +11,34 @@ import org.springframework.stereotype.Service;
 
 import java.util.ArrayList;
 import java.util.List;
-import java.util.Set;
+import java.util.Map;
 import java.util.UUID;
+import java.util.function.Function;
+import java.util.stream.Collectors;
 
 @Service
 @RequiredArgsConstructor
 public class NotasService {
 
     private final CursoRepository cursoRepository;
-    private final EntregaPracticaRepository entregaPracticaRepository;
-    private final NotaExamenRepository notaExamenRepository;
-    private final AsistenciaRepository asistenciaRepository;
+    private final EstadisticaAlumnoCursoRepository estadisticaRepository;
 
     public List<ResumenNotasCursoDTO> getResumenNotasAlumno(UUID alumnoId) {
         // Obtener todos los cursos del alumno
         List<Curso> cursos = cursoRepository.findCursosByAlumnoId(alumnoId);
-        List<ResumenNotasCursoDTO> resumen = new ArrayList<>();
 
+        // Las estadísticas del alumno en todos sus cursos salen de una sola lectura
+        Map<UUID, EstadisticaAlumnoCurso> estadisticas = estadisticaRepository.findByAlumnoId(alumnoId)
+                .stream()
+                .collect(Collectors.toMap(EstadisticaAlumnoCurso::getCursoId, Function.identity()));
+
+        List<ResumenNotasCursoDTO> resumen = new ArrayList<>();
         for (Curso curso : cursos) {
-            UUID cursoId = curso.getId();
-
-            // Calcular nota de prácticas
-            Double notaPracticas = entregaPracticaRepository.calcularPromedioPracticasAlumno(alumnoId, cursoId);
-            Long practicasCalificadas = entregaPracticaRepository.contarPracticasCalificadas(alumnoId, cursoId);
-
-            // Calcular nota de exámenes
-            Double notaExamenes = notaExamenRepository.calcularPromedioAlumno(alumnoId, cursoId);
-            Long examenesCalificados = notaExamenRepository.countByAlumnoAndCurso(alumnoId, cursoId);
-
-            // Calcular porcentaje de asistencia
-            long totalClases = asistenciaRepository.countByAlumnoAndCurso(alumnoId, cursoId);
-            long presentes = asistenciaRepository.countByAlumnoAndCursoAndEstado(alumnoId, cursoId,
-                    com.infocurso.backend.entity.EstadoAsistencia.PRESENTE);
-            long retrasos = asistenciaRepository.countByAlumnoAndCursoAndEstado(alumnoId, cursoId,
-                    com.infocurso.backend.entity.EstadoAsistencia.RETRASO);
-            long justificados = asistenciaRepository.countByAlumnoAndCursoAndEstado(alumnoId, cursoId,
-                    com.infocurso.backend.entity.EstadoAsistencia.JUSTIFICADO);
-
-            double porcentajeAsistencia = totalClases > 0
-                    ? ((presentes + retrasos + justificados) * 100.0 / totalClases)
-                    : 0;
-
-            // Calcular nota final (70% exámenes, 30% prácticas)
-            Double notaFinal = calcularNotaFinal(notaPracticas, notaExamenes);
-
-            resumen.add(new ResumenNotasCursoDTO(
-                    cursoId,
-                    curso.getNombre(),
-                    notaPracticas != null ? Math.round(notaPracticas * 100.0) / 100.0 : null,
-                    practicasCalificadas != null ? practicasCalificadas.intValue() : 0,
-                    notaExamenes != null ? Math.round(notaExamenes * 100.0) / 100.0 : null,
-                    examenesCalificados != null ? examenesCalificados.intValue() : 0,
-                    Math.round(porcentajeAsistencia * 100.0) / 100.0,
-                    notaFinal
-            ));
+            EstadisticaAlumnoCurso estadistica = estadisticas.get(curso.getId());
+            resumen.add(resumenCurso(curso, estadistica != null
+                    ? estadistica
+                    : EstadisticaAlumnoCurso.vacia(curso.getId(), alumnoId)));
         }
-
         return resumen;
     }
 
@@ -73,39 +46,61 @@ public class NotasService {
         Curso curso = cursoRepository.findById(cursoId)
                 .orElseThrow(() -> new RuntimeException("Curso no encontrado"));
 
-        // Calcular nota de prácticas
-        Double notaPracticas = entregaPracticaRepository.calcularPromedioPracticasAlumno(alumnoId, cursoId);
-        Long practicasCalificadas = entregaPracticaRepository.contarPracticasCalificadas(alumnoId, cursoId);
+        EstadisticaAlumnoCurso estadistica = estadisticaRepository.findByCursoIdAndAlumnoId(cursoId, alumnoId)
+                .orElseGet(() -> EstadisticaAlumnoCurso.vacia(cursoId, alumnoId));
+        return resumenCurso(curso, estadistica);
+    }
+
+    public List<ResumenAlumnoCursoDTO> getResumenAlumnosCurso(UUID cursoId) {
+        if (!cursoRepository.existsById(cursoId)) {
+            throw new RuntimeException("Curso no encontrado");
+        }
+
+        List<Usuario> alumnos = cursoRepository.findAlumnosByCursoId(cursoId);
+
+        // Las estadísticas de todos los alumnos del curso salen de una sola lectura
+        Map<UUID, EstadisticaAlumnoCurso> estadisticas = estadisticaRepository.findByCursoId(cursoId)
+                .stream()
+                .collect(Collectors.toMap(EstadisticaAlumnoCurso::getAlumnoId, Function.identity()));
 
-        // Calcular nota de exámenes
-        Double notaExamenes = notaExamenRepository.calcularPromedioAlumno(alumnoId, cursoId);
-        Long examenesCalificados = notaExamenRepository.countByAlumnoAndCurso(alumnoId, cursoId);
+        List<ResumenAlumnoCursoDTO> resumen = new ArrayList<>();
+        for (Usuario alumno : alumnos) {
+            UUID alumnoId = alumno.getId();
+            EstadisticaAlumnoCurso estadistica = estadisticas.getOrDefault(alumnoId,
+                    EstadisticaAlumnoCurso.vacia(cursoId, alumnoId));
 
-        // Calcular porcentaje de asistencia
-        long totalClases = asistenciaRepository.countByAlumnoAndCurso(alumnoId, cursoId);
-        long presentes = asistenciaRepository.countByAlumnoAndCursoAndEstado(alumnoId, cursoId,
-                com.infocurso.backend.entity.EstadoAsistencia.PRESENTE);
-        long retrasos = asistenciaRepository.countByAlumnoAndCursoAndEstado(alumnoId, cursoId,
-                com.infocurso.backend.entity.EstadoAsistencia.RETRASO);
-        long justificados = asistenciaRepository.countByAlumnoAndCursoAndEstado(alumnoId, cursoId,
-                com.infocurso.backend.entity.EstadoAsistencia.JUSTIFICADO);
+            Double notaPracticas = estadistica.promedioPracticas();
+            Double notaExamenes = estadistica.promedioExamenes();
 
-        double porcentajeAsistencia = totalClases > 0
-                ? ((presentes + retrasos + justificados) * 100.0 / totalClases)
-                : 0;
+            resumen.add(new ResumenAlumnoCursoDTO(
+                    alumnoId,
+                    alumno.getNombre(),
+                    alumno.getEmail(),
+                    redondear(notaPracticas),
+                    (int) estadistica.getPracticasCalificadas(),
+                    redondear(notaExamenes),
+                    (int) estadistica.getExamenesCalificados(),
+                    redondear(estadistica.porcentajeAsistencia()),
+                    calcularNotaFinal(notaPracticas, notaExamenes)
+            ));
+        }
+
+        return resumen;
+    }
 
-        // Calcular nota final
-        Double notaFinal = calcularNotaFinal(notaPracticas, notaExamenes);
+    private ResumenNotasCursoDTO resumenCurso(Curso curso, EstadisticaAlumnoCurso estadistica) {
+        Double notaPracticas = estadistica.promedioPracticas();
+        Double notaExamenes = estadistica.promedioExamenes();
 
         return new ResumenNotasCursoDTO(
-                cursoId,
+                curso.getId(),
                 curso.getNombre(),
-                notaPracticas != null ? Math.round(notaPracticas * 100.0) / 100.0 : null,
-                practicasCalificadas != null ? practicasCalificadas.intValue() : 0,
-                notaExamenes != null ? Math.round(notaExamenes * 100.0) / 100.0 : null,
-                examenesCalificados != null ? examenesCalificados.intValue() : 0,
-                Math.round(porcentajeAsistencia * 100.0) / 100.0,
-                notaFinal
+                redondear(notaPracticas),
+                (int) estadistica.getPracticasCalificadas(),
+                redondear(notaExamenes),
+                (int) estadistica.getExamenesCalificados(),
+                redondear(estadistica.porcentajeAsistencia()),
+                calcularNotaFinal(notaPracticas, notaExamenes)
         );
     }
 
@@ -129,53 +124,7 @@ public class NotasService {
         return Math.round(notaFinal * 100.0) / 100.0;
     }
 
-    public List<ResumenAlumnoCursoDTO> getResumenAlumnosCurso(UUID cursoId) {
-        Curso curso = cursoRepository.findByIdConRelaciones(cursoId)
-                .orElseThrow(() -> new RuntimeException("Curso no encontrado"));
-
-        List<ResumenAlumnoCursoDTO> resumen = new ArrayList<>();
-        Set<Usuario> alumnos = curso.getAlumnos();
-
-        for (Usuario alumno : alumnos) {
-            UUID alumnoId = alumno.getId();
-
-            // Calcular nota de prácticas
-            Double notaPracticas = entregaPracticaRepository.calcularPromedioPracticasAlumno(alumnoId, cursoId);
-            Long practicasCalificadas = entregaPracticaRepository.contarPracticasCalificadas(alumnoId, cursoId);
-
-            // Calcular nota de exámenes
-            Double notaExamenes = notaExamenRepository.calcularPromedioAlumno(alumnoId, cursoId);
-            Long examenesCalificados = notaExamenRepository.countByAlumnoAndCurso(alumnoId, cursoId);
-
-            // Calcular porcentaje de asistencia
-            long totalClases = asistenciaRepository.countByAlumnoAndCurso(alumnoId, cursoId);
-            long presentes = asistenciaRepository.countByAlumnoAndCursoAndEstado(alumnoId, cursoId,
-                    com.infocurso.backend.entity.EstadoAsistencia.PRESENTE);
-            long retrasos = asistenciaRepository.countByAlumnoAndCursoAndEstado(alumnoId, cursoId,
-                    com.infocurso.backend.entity.EstadoAsistencia.RETRASO);
-            long justificados = asistenciaRepository.countByAlumnoAndCursoAndEstado(alumnoId, cursoId,
-                    com.infocurso.backend.entity.EstadoAsistencia.JUSTIFICADO);
-
-            double porcentajeAsistencia = totalClases > 0
-                    ? ((presentes + retrasos + justificados) * 100.0 / totalClases)
-                    : 0;
-
-            // Calcular nota final
-            Double notaFinal = calcularNotaFinal(notaPracticas, notaExamenes);
-
-            resumen.add(new ResumenAlumnoCursoDTO(
-                    alumnoId,
-                    alumno.getNombre(),
-                    alumno.getEmail(),
-                    notaPracticas != null ? Math.round(notaPracticas * 100.0) / 100.0 : null,
-                    practicasCalificadas != null ? practicasCalificadas.intValue() : 0,
-                    notaExamenes != null ? Math.round(notaExamenes * 100.0) / 100.0 : null,
-                    examenesCalificados != null ? examenesCalificados.intValue() : 0,
-                    Math.round(porcentajeAsistencia * 100.0) / 100.0,
-                    notaFinal
-            ));
-        }
-
-        return resumen;
+    private static Double redondear(Double valor) {
+        return valor != null ? Math.round(valor * 100.0) / 100.0 : null;
     }
 }
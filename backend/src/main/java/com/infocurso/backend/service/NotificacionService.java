@@ -1,40 +1,249 @@
 package com.infocurso.backend.service;
 
 import com.infocurso.backend.dto.NotificacionDTO;
+import com.infocurso.backend.dto.ResumenNotificacionesDTO;
 import com.infocurso.backend.entity.Notificacion;
 import com.infocurso.backend.entity.Usuario;
 import com.infocurso.backend.repository.NotificacionRepository;
-import lombok.RequiredArgsConstructor;
+import com.infocurso.backend.repository.UsuarioRepository;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.messaging.simp.SimpMessagingTemplate;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskScheduler;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.transaction.support.TransactionTemplate;
 
+import java.sql.Timestamp;
+import java.time.Duration;
+import java.time.Instant;
 import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
 import java.util.List;
+import java.util.Map;
 import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Supplier;
 
+/**
+ * Notificaciones a los usuarios: una fila en notificaciones y un aviso por WebSocket.
+ * <p>
+ * Quien notifica no espera: el envío se encola al terminar la transacción de quien llama (si hay una)
+ * y un hilo propio inserta las filas en un lote JDBC. Los avisos de cada usuario se acumulan durante
+ * {@code app.notificaciones.ventana}; si en ese tiempo le llega más de una notificación recibe un
+ * único {@link ResumenNotificacionesDTO} en lugar de un mensaje por cada una.
+ * <p>
+ * Como mucho hay {@code app.notificaciones.capacidad} envíos esperando al hilo. Con la cola llena el
+ * envío lo hace quien notifica, en su propio hilo, y se cuenta en {@code notificaciones.sincronas}:
+ * se frena a quien notifica en lugar de perder notificaciones o acumularlas sin límite en memoria.
+ */
 @Service
-@RequiredArgsConstructor
 public class NotificacionService {
 
+    private static final Logger logger = LoggerFactory.getLogger(NotificacionService.class);
+
+    private static final String DESTINO = "/queue/notifications";
+
+    private static final String SQL_INSERTAR = """
+            INSERT INTO notificaciones (id, usuario_id, mensaje, fecha, tipo, leida)
+            VALUES (?, ?, ?, ?, ?, false)
+            """;
+
+    /**
+     * Texto de una notificación. {nombre} se sustituye por el nombre de cada destinatario.
+     */
+    public record Plantilla(String tipo, String mensaje) {
+        String para(Destinatario destinatario) {
+            return mensaje.replace("{nombre}", destinatario.nombre() != null ? destinatario.nombre() : "");
+        }
+    }
+
+    private record Destinatario(UUID id, String email, String nombre) {
+        static Destinatario de(Usuario usuario) {
+            return new Destinatario(usuario.getId(), usuario.getEmail(), usuario.getNombre());
+        }
+    }
+
     private final NotificacionRepository notificacionRepository;
-    private final org.springframework.messaging.simp.SimpMessagingTemplate messagingTemplate;
+    private final UsuarioRepository usuarioRepository;
+    private final SimpMessagingTemplate messagingTemplate;
+    private final JdbcTemplate jdbcTemplate;
+    private final TransactionTemplate transaccionPropia;
+    private final Duration ventana;
+    private final int maximoEnResumen;
+    private final int capacidad;
+    private final ThreadPoolTaskScheduler scheduler;
+    private final AtomicInteger enCola = new AtomicInteger();
+    private final Counter sincronas;
+
+    private final Map<String, List<NotificacionDTO>> pendientes = new ConcurrentHashMap<>();
+    private final AtomicBoolean vaciadoProgramado = new AtomicBoolean();
+
+    public NotificacionService(NotificacionRepository notificacionRepository,
+                               UsuarioRepository usuarioRepository,
+                               SimpMessagingTemplate messagingTemplate,
+                               JdbcTemplate jdbcTemplate,
+                               PlatformTransactionManager transactionManager,
+                               @Value("${app.notificaciones.ventana:500ms}") Duration ventana,
+                               @Value("${app.notificaciones.maximo-en-resumen:20}") int maximoEnResumen,
+                               @Value("${app.notificaciones.capacidad:10000}") int capacidad,
+                               MeterRegistry registry) {
+        this.notificacionRepository = notificacionRepository;
+        this.usuarioRepository = usuarioRepository;
+        this.messagingTemplate = messagingTemplate;
+        this.jdbcTemplate = jdbcTemplate;
+        // Dentro de afterCommit la transacción de quien llama sigue asociada al hilo pero ya no se confirma
+        this.transaccionPropia = new TransactionTemplate(transactionManager);
+        transaccionPropia.setPropagationBehavior(TransactionDefinition.PROPAGATION_REQUIRES_NEW);
+        this.ventana = ventana;
+        this.maximoEnResumen = maximoEnResumen;
+        this.capacidad = capacidad;
+        // No es un bean: uno de tipo TaskScheduler sustituiría al que usan las tareas @Scheduled
+        this.scheduler = new ThreadPoolTaskScheduler();
+        scheduler.setPoolSize(1);
+        scheduler.setThreadNamePrefix("notificaciones-");
+        scheduler.setWaitForTasksToCompleteOnShutdown(true);
+        scheduler.setAwaitTerminationSeconds(30);
+        scheduler.initialize();
+
+        this.sincronas = Counter.builder("notificaciones.sincronas")
+                .description("Envíos hechos por quien notifica porque la cola estaba llena")
+                .register(registry);
+        Gauge.builder("notificaciones.en_cola", enCola, AtomicInteger::get)
+                .description("Envíos de notificaciones esperando al hilo o en curso")
+                .register(registry);
+    }
 
     public void enviar(Usuario usuario, String mensaje, String tipo) {
-        Notificacion n = Notificacion.builder()
-                .usuario(usuario)
-                .mensaje(mensaje)
-                .fecha(LocalDateTime.now())
-                .tipo(tipo)
-                .leida(false)
-                .build();
+        enviar(List.of(usuario), new Plantilla(tipo, mensaje));
+    }
 
-        notificacionRepository.save(n);
+    /**
+     * La misma plantilla para varios usuarios.
+     */
+    public void enviar(Collection<Usuario> usuarios, Plantilla plantilla) {
+        // Los datos se copian aquí: las entidades pueden ser proxies de la sesión de quien llama
+        List<Destinatario> destinatarios = usuarios.stream().map(Destinatario::de).toList();
+        if (!destinatarios.isEmpty()) {
+            encolar(() -> destinatarios, plantilla);
+        }
+    }
 
-        // Enviar por WebSocket
-        NotificacionDTO dto = NotificacionDTO.from(n);
-        messagingTemplate.convertAndSendToUser(
-                usuario.getEmail(),
-                "/queue/notifications",
-                dto);
+    /**
+     * A todos los alumnos matriculados en el curso. La lista se carga ya en segundo plano.
+     */
+    public void enviarACurso(UUID cursoId, Plantilla plantilla) {
+        encolar(() -> usuarioRepository.findMatriculadosEnCurso(cursoId).stream().map(Destinatario::de).toList(),
+                plantilla);
+    }
+
+    // Tras el commit: si la transacción de quien llama se deshace, no se notifica nada
+    private void encolar(Supplier<List<Destinatario>> destinatarios, Plantilla plantilla) {
+        Runnable envio = () -> {
+            try {
+                guardar(destinatarios.get(), plantilla);
+            } catch (RuntimeException e) {
+                logger.warn("No se pudo enviar la notificación '{}'", plantilla.mensaje(), e);
+            }
+        };
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    despachar(envio);
+                }
+            });
+        } else {
+            despachar(envio);
+        }
+    }
+
+    private void despachar(Runnable envio) {
+        if (enCola.incrementAndGet() > capacidad) {
+            enCola.decrementAndGet();
+            sincronas.increment();
+            try {
+                transaccionPropia.executeWithoutResult(status -> envio.run());
+            } catch (RuntimeException e) {
+                logger.warn("No se pudo confirmar el envío síncrono de una notificación", e);
+            }
+            return;
+        }
+        scheduler.execute(() -> {
+            try {
+                envio.run();
+            } finally {
+                enCola.decrementAndGet();
+            }
+        });
+    }
+
+    private void guardar(List<Destinatario> destinatarios, Plantilla plantilla) {
+        LocalDateTime fecha = LocalDateTime.now();
+        Timestamp marca = Timestamp.valueOf(fecha);
+        List<Object[]> filas = new ArrayList<>(destinatarios.size());
+        List<NotificacionDTO> dtos = new ArrayList<>(destinatarios.size());
+        for (Destinatario destinatario : destinatarios) {
+            UUID id = UUID.randomUUID();
+            String mensaje = plantilla.para(destinatario);
+            filas.add(new Object[]{id, destinatario.id(), mensaje, marca, plantilla.tipo()});
+            dtos.add(new NotificacionDTO(id, mensaje, plantilla.tipo(), false, fecha));
+        }
+        if (filas.isEmpty()) {
+            return;
+        }
+        jdbcTemplate.batchUpdate(SQL_INSERTAR, filas);
+
+        for (int i = 0; i < destinatarios.size(); i++) {
+            NotificacionDTO dto = dtos.get(i);
+            pendientes.compute(destinatarios.get(i).email(), (email, lista) -> {
+                List<NotificacionDTO> nueva = lista != null ? lista : new ArrayList<>();
+                nueva.add(dto);
+                return nueva;
+            });
+        }
+        if (vaciadoProgramado.compareAndSet(false, true)) {
+            scheduler.schedule(this::vaciar, Instant.now().plus(ventana));
+        }
+    }
+
+    // Lo que llegue mientras se vacía programa el siguiente vaciado
+    private void vaciar() {
+        vaciadoProgramado.set(false);
+        for (String email : pendientes.keySet()) {
+            List<NotificacionDTO> lista = pendientes.remove(email);
+            if (lista == null) {
+                continue;
+            }
+            try {
+                if (lista.size() == 1) {
+                    messagingTemplate.convertAndSendToUser(email, DESTINO, lista.get(0));
+                } else {
+                    // La más reciente primero, como en la lista de notificaciones
+                    List<NotificacionDTO> ultimas = new ArrayList<>(
+                            lista.subList(Math.max(0, lista.size() - maximoEnResumen), lista.size()));
+                    Collections.reverse(ultimas);
+                    messagingTemplate.convertAndSendToUser(email, DESTINO,
+                            new ResumenNotificacionesDTO(lista.size(), ultimas));
+                }
+            } catch (RuntimeException e) {
+                // La notificación ya está guardada: la verá al recargar la lista
+                logger.warn("No se pudo avisar por WebSocket a {}", email, e);
+            }
+        }
     }
 
     public List<NotificacionDTO> getNotificacionesDeUsuario(UUID usuarioId) {
@@ -56,4 +265,8 @@ public class NotificacionService {
         notificacionRepository.save(noti);
     }
 
+    @PreDestroy
+    public void detener() {
+        scheduler.shutdown();
+    }
 }
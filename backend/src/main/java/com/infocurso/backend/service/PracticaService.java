@@ -23,6 +23,9 @@ public class PracticaService {
     // private final CursoService cursoService;
     private final CursoRepository cursoRepository;
     private final ObjectMapper objectMapper;
+    private final NotificacionService notificacionService;
+    private final CalendarioService calendarioService;
+    private final ReferenciasArchivosService referenciasArchivos;
 
     public Practica crearPractica(UUID cursoId, String titulo, String descripcion, LocalDateTime fechaEntrega) {
         Curso curso = cursoRepository.findById(cursoId)
@@ -35,7 +38,12 @@ public class PracticaService {
                 .fechaEntrega(fechaEntrega)
                 .build();
 
-        return practicaRepository.save(practica);
+        practica = practicaRepository.save(practica);
+        referenciasArchivos.cambiar(null, descripcion);
+        calendarioService.invalidar(cursoId);
+        notificacionService.enviarACurso(cursoId, new NotificacionService.Plantilla("PRACTICA",
+                "Nueva práctica en " + curso.getNombre() + ": '" + titulo + "'"));
+        return practica;
     }
 
     public List<Practica> listarPorCurso(UUID cursoId) {
@@ -0,0 +1,132 @@
+package com.infocurso.backend.service;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * Cuenta cuántas filas enlazan cada blob de {@link AlmacenamientoService}: la entrega de una práctica,
+ * la descripción de una práctica (las imágenes del editor), el avatar de un usuario, las revisiones de
+ * la wiki y sus aportaciones. Quien escribe uno de esos campos
+ * llama a {@link #cambiar} con el valor anterior y el nuevo; la recolección periódica recalcula las
+ * cuentas desde las tablas, por si alguna se hubiera perdido, y borra los blobs que llevan más de la
+ * gracia sin referencias.
+ */
+@Service
+public class ReferenciasArchivosService {
+
+    private static final Logger logger = LoggerFactory.getLogger(ReferenciasArchivosService.class);
+
+    // /archivos/{hash}/{nombre} y /uploads/avatars/{hash}.{ext}; la misma expresión sirve en PostgreSQL
+    private static final String EXPRESION_ENLACE = "/(?:archivos|uploads/avatars)/([0-9a-f]{64})(?:[^0-9a-f]|$)";
+    private static final Pattern ENLACE_BLOB = Pattern.compile(EXPRESION_ENLACE);
+
+    // Un enlace repetido en la misma fila cuenta una vez, igual que en cambiar()
+    private static final String RECONTAR = """
+            WITH enlaces AS (
+                SELECT DISTINCT origen, id, (regexp_matches(texto, ?, 'g'))[1] AS hash
+                FROM (
+                    SELECT 'entrega' AS origen, id, archivo_url AS texto FROM entrega_practica
+                    UNION ALL SELECT 'practica', id, descripcion FROM practica
+                    UNION ALL SELECT 'usuario', id, avatar_url FROM usuario
+                    UNION ALL SELECT 'aportacion', id, contenido FROM aportacion_wiki
+                ) t
+                WHERE texto LIKE '%/archivos/%' OR texto LIKE '%/uploads/avatars/%'
+                -- Las revisiones de la wiki van comprimidas: guardan aparte los hashes que enlazan
+                UNION ALL
+                SELECT 'revision', r.id, e.hash
+                FROM revision_wiki r CROSS JOIN LATERAL unnest(r.enlaces) AS e(hash)
+            ),
+            cuentas AS (
+                SELECT b.hash, count(e.hash) AS referencias
+                FROM blob_archivo b
+                LEFT JOIN enlaces e ON e.hash = b.hash
+                GROUP BY b.hash
+            )
+            UPDATE blob_archivo b
+            SET referencias = c.referencias,
+                actualizado = CASE WHEN c.referencias = 0 THEN now() ELSE b.actualizado END
+            FROM cuentas c
+            WHERE c.hash = b.hash AND c.referencias <> b.referencias
+            """;
+
+    private final JdbcTemplate jdbcTemplate;
+    private final AlmacenamientoService almacenamiento;
+    private final Duration gracia;
+
+    public ReferenciasArchivosService(JdbcTemplate jdbcTemplate,
+                                      AlmacenamientoService almacenamiento,
+                                      @Value("${app.almacenamiento.gracia:24h}") Duration gracia) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.almacenamiento = almacenamiento;
+        this.gracia = gracia;
+    }
+
+    /**
+     * Hashes de los blobs enlazados en una URL o un HTML.
+     */
+    public static Set<String> hashes(String texto) {
+        Set<String> hashes = new HashSet<>();
+        if (texto != null) {
+            Matcher matcher = ENLACE_BLOB.matcher(texto);
+            while (matcher.find()) {
+                hashes.add(matcher.group(1));
+            }
+        }
+        return hashes;
+    }
+
+    /**
+     * Un campo ha pasado de enlazar los blobs de {@code anterior} a los de {@code nuevo}. Un blob que se
+     * queda sin referencias empieza a contar la gracia desde ahora.
+     */
+    public void cambiar(String anterior, String nuevo) {
+        Set<String> antes = hashes(anterior);
+        Set<String> despues = hashes(nuevo);
+        List<Object[]> cambios = new ArrayList<>();
+        for (String hash : despues) {
+            if (!antes.contains(hash)) {
+                cambios.add(new Object[]{1, hash});
+            }
+        }
+        for (String hash : antes) {
+            if (!despues.contains(hash)) {
+                cambios.add(new Object[]{-1, hash});
+            }
+        }
+        if (!cambios.isEmpty()) {
+            jdbcTemplate.batchUpdate("""
+                    UPDATE blob_archivo
+                    SET referencias = GREATEST(referencias + ?, 0), actualizado = now()
+                    WHERE hash = ?
+                    """, cambios);
+        }
+    }
+
+    public int recontar() {
+        return jdbcTemplate.update(RECONTAR, EXPRESION_ENLACE);
+    }
+
+    @Scheduled(cron = "${app.almacenamiento.recoleccion-cron:0 0 4 * * *}")
+    public void recolectar() {
+        int corregidos = recontar();
+        int borrados = 0;
+        int lote;
+        do {
+            lote = almacenamiento.eliminarHuerfanos(gracia);
+            borrados += lote;
+        } while (lote > 0);
+        logger.info("Recolección de archivos: {} cuentas corregidas, {} blobs borrados", corregidos, borrados);
+    }
+}
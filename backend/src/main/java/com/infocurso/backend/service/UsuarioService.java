@@ -2,6 +2,7 @@ package com.infocurso.backend.service;
 
 import com.infocurso.backend.entity.Usuario;
 import com.infocurso.backend.repository.UsuarioRepository;
+import com.infocurso.backend.security.CacheUsuarios;
 import lombok.RequiredArgsConstructor;
 import org.springframework.security.core.userdetails.UserDetails;
 import org.springframework.security.core.userdetails.UserDetailsService;
@@ -10,21 +11,19 @@ import org.springframework.stereotype.Service;
 import org.springframework.web.multipart.MultipartFile;
 
 import java.io.IOException;
-import java.nio.file.Files;
-import java.nio.file.Path;
-import java.nio.file.Paths;
 // import java.nio.file.StandardCopyOption;
 import java.util.List;
 import java.util.Optional;
 import java.util.UUID;
-import net.coobird.thumbnailator.Thumbnails;
-import org.apache.commons.io.FilenameUtils;
 
 @Service
 @RequiredArgsConstructor
 public class UsuarioService implements UserDetailsService {
 
     private final UsuarioRepository usuarioRepository;
+    private final CacheUsuarios cacheUsuarios;
+    private final AvatarService avatares;
+    private final ReferenciasArchivosService referenciasArchivos;
 
     public Optional<Usuario> getByEmail(String email) {
         return usuarioRepository.findByEmail(email);
@@ -36,7 +35,9 @@ public class UsuarioService implements UserDetailsService {
     }
 
     public Usuario save(Usuario usuario) {
-        return usuarioRepository.save(usuario);
+        Usuario guardado = usuarioRepository.save(usuario);
+        cacheUsuarios.invalidar(guardado.getEmail());
+        return guardado;
     }
 
     public List<Usuario> findAll() {
@@ -49,40 +50,22 @@ public class UsuarioService implements UserDetailsService {
                 .orElseThrow(() -> new UsernameNotFoundException("Usuario no encontrado"));
     }
 
+    /**
+     * Cambia el avatar del usuario y devuelve su URL relativa. Las variantes por tamaño se generan en
+     * segundo plano (ver {@link AvatarService}).
+     */
     public String actualizarAvatar(UUID usuarioId, MultipartFile archivo) throws IOException {
-        // Creamos nombre único
-        String nombreArchivo = generarNombreUnico(archivo.getOriginalFilename());
-        String extension = FilenameUtils.getExtension(nombreArchivo);
-        Path destino = Paths.get("uploads/avatars", nombreArchivo);
-
-        // Aseguramos que la carpeta exista
-        Files.createDirectories(destino.getParent());
-
-        // Procesamos la imagen: redimensionamos y comprimimos (calidad 80%)
-        Thumbnails.of(archivo.getInputStream())
-                .size(300, 300) // Puedes ajustar el tamaño según lo que necesites
-                .outputFormat(extension) // Conserva el formato original (png, jpg…)
-                .outputQuality(0.8f) // Calidad (1.0 = sin compresión, 0.0 = máxima compresión)
-                .toFile(destino.toFile());
+        String avatarUrl = avatares.guardar(archivo);
 
         // Guardamos la ruta en el usuario
         Usuario usuario = getById(usuarioId);
-        usuario.setAvatarUrl("/uploads/avatars/" + nombreArchivo);
+        String anterior = usuario.getAvatarUrl();
+        usuario.setAvatarUrl(avatarUrl);
         usuarioRepository.save(usuario);
+        referenciasArchivos.cambiar(anterior, avatarUrl);
+        cacheUsuarios.invalidar(usuario.getEmail());
 
-        return nombreArchivo;
-    }
-
-    private String generarNombreUnico(String originalFilename) {
-        String extension = "";
-
-        int i = originalFilename.lastIndexOf('.');
-        if (i > 0) {
-            extension = originalFilename.substring(i);
-        }
-
-        String nombreUnico = UUID.randomUUID().toString();
-        return nombreUnico + extension;
+        return avatarUrl;
     }
 
     public Usuario getUsuarioById(UUID id) {
@@ -1,43 +1,197 @@
 package com.infocurso.backend.service;
 
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
 import com.infocurso.backend.dto.AportacionWikiDTO;
+import com.infocurso.backend.dto.AportacionWikiResumenDTO;
+import com.infocurso.backend.dto.CursorAportacionWikiDTO;
+import com.infocurso.backend.dto.PaginaAportacionesWikiDTO;
+import com.infocurso.backend.dto.PaginaRevisionesWikiDTO;
+import com.infocurso.backend.dto.RevisionWikiDTO;
 import com.infocurso.backend.entity.AportacionWiki;
 import com.infocurso.backend.entity.Curso;
+import com.infocurso.backend.entity.RevisionWiki;
 import com.infocurso.backend.entity.Usuario;
 import com.infocurso.backend.entity.WikiCurso;
 import com.infocurso.backend.repository.AportacionWikiRepository;
 import com.infocurso.backend.repository.CursoRepository;
+import com.infocurso.backend.repository.RevisionWikiRepository;
 import com.infocurso.backend.repository.UsuarioRepository;
 import com.infocurso.backend.repository.WikiCursoRepository;
-import lombok.RequiredArgsConstructor;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.Limit;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.http.HttpStatus;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.util.unit.DataSize;
+import org.springframework.web.server.ResponseStatusException;
 
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
 import java.time.LocalDateTime;
+import java.util.HexFormat;
 import java.util.List;
+import java.util.Optional;
 import java.util.UUID;
 
+/**
+ * Wiki de cada curso. Cada guardado añade una revisión (RevisionWiki) en lugar de reescribir el
+ * documento: cada {@code app.wiki.revisiones.completa-cada} revisiones, o cuando el cambio es casi
+ * todo el documento, una completa; el resto, las diferencias con la última completa. Leer una
+ * revisión cuesta como mucho dos filas. La versión actual de cada curso se guarda en memoria y se
+ * valida contra el número de la última revisión, así que vale también con varias réplicas. Al
+ * guardar se rehace también el vector de búsqueda de la wiki ({@link BusquedaService}).
+ */
 @Service
-@RequiredArgsConstructor
 public class WikiService {
 
+    public static final String SIN_CONTENIDO = "<p>Esta wiki aún no tiene contenido.</p>";
+
+    public static final int TAMANO_PAGINA_POR_DEFECTO = 20;
+    public static final int TAMANO_PAGINA_MAXIMO = 100;
+
+    /**
+     * El HTML de una revisión con su número y su hash, que es la ETag.
+     */
+    public record VersionWiki(int numero, String hash, String html) {
+    }
+
     private final WikiCursoRepository wikiRepo;
+    private final RevisionWikiRepository revisionRepo;
     private final AportacionWikiRepository aportacionRepo;
     private final CursoRepository cursoRepo;
     private final UsuarioRepository usuarioRepo;
+    private final ReferenciasArchivosService referenciasArchivos;
+    private final int completaCada;
+    private final Cache<UUID, VersionWiki> versiones;
 
-    public String getContenidoWiki(UUID cursoId) {
-        return wikiRepo.findByCursoId(cursoId)
-                .map(WikiCurso::getContenido)
-                .orElse("<p>Esta wiki aún no tiene contenido.</p>");
+    public WikiService(WikiCursoRepository wikiRepo,
+                       RevisionWikiRepository revisionRepo,
+                       AportacionWikiRepository aportacionRepo,
+                       CursoRepository cursoRepo,
+                       UsuarioRepository usuarioRepo,
+                       ReferenciasArchivosService referenciasArchivos,
+                       @Value("${app.wiki.revisiones.completa-cada:20}") int completaCada,
+                       @Value("${app.wiki.cache.tamano-maximo:64MB}") DataSize tamanoCache) {
+        this.wikiRepo = wikiRepo;
+        this.revisionRepo = revisionRepo;
+        this.aportacionRepo = aportacionRepo;
+        this.cursoRepo = cursoRepo;
+        this.usuarioRepo = usuarioRepo;
+        this.referenciasArchivos = referenciasArchivos;
+        this.completaCada = Math.max(1, completaCada);
+        // Peso aproximado en bytes: dos por carácter
+        this.versiones = Caffeine.newBuilder()
+                .maximumWeight(tamanoCache.toBytes())
+                .<UUID, VersionWiki>weigher((cursoId, version) -> version.html().length() * 2)
+                .build();
     }
 
-    public void actualizarContenidoWiki(UUID cursoId, String html) {
-        WikiCurso wiki = wikiRepo.findByCursoId(cursoId)
-                .orElseGet(() -> WikiCurso.builder()
-                        .curso(cursoRepo.findById(cursoId).orElseThrow())
-                        .build());
-        wiki.setContenido(html);
-        wikiRepo.save(wiki);
+    /**
+     * Hash de la versión actual, sin leer el contenido. Vacío si la wiki no tiene revisiones.
+     */
+    public Optional<String> getHashActual(UUID cursoId) {
+        return revisionRepo.findCabeceras(cursoId, Limit.of(1)).stream()
+                .findFirst()
+                .map(RevisionWikiRepository.Cabecera::getHash);
+    }
+
+    public Optional<VersionWiki> getVersionActual(UUID cursoId) {
+        Optional<RevisionWikiRepository.Cabecera> cabecera = revisionRepo.findCabeceras(cursoId, Limit.of(1))
+                .stream()
+                .findFirst();
+        if (cabecera.isEmpty()) {
+            return Optional.empty();
+        }
+        VersionWiki enCache = versiones.getIfPresent(cursoId);
+        if (enCache != null && enCache.numero() == cabecera.get().getNumero()) {
+            return Optional.of(enCache);
+        }
+        // Otra réplica (o un guardado que aún no ha llegado a la caché) ha escrito una revisión nueva
+        VersionWiki version = revisionRepo.findByCursoIdAndNumero(cursoId, cabecera.get().getNumero())
+                .map(r -> new VersionWiki(r.getNumero(), r.getHash(), texto(r)))
+                .orElseThrow(() -> new ResponseStatusException(HttpStatus.NOT_FOUND, "Revisión no encontrada"));
+        versiones.put(cursoId, version);
+        return Optional.of(version);
+    }
+
+    public String getContenidoRevision(UUID cursoId, int numero) {
+        return revisionRepo.findByCursoIdAndNumero(cursoId, numero)
+                .map(this::texto)
+                .orElseThrow(() -> new ResponseStatusException(HttpStatus.NOT_FOUND, "Revisión no encontrada"));
+    }
+
+    public PaginaRevisionesWikiDTO getRevisiones(UUID cursoId, Integer pagina, Integer tamano) {
+        int numero = pagina == null ? 0 : Math.max(0, pagina);
+        int limite = tamano == null
+                ? TAMANO_PAGINA_POR_DEFECTO
+                : Math.max(1, Math.min(tamano, TAMANO_PAGINA_MAXIMO));
+        Page<RevisionWikiDTO> revisiones = revisionRepo.findHistorial(cursoId, PageRequest.of(numero, limite));
+        return new PaginaRevisionesWikiDTO(revisiones.getContent(), numero, limite, revisiones.getTotalElements());
+    }
+
+    @Transactional
+    public void actualizarContenidoWiki(UUID cursoId, String html, Usuario autor) {
+        WikiCurso wiki = wikiRepo.findByCursoIdParaGuardar(cursoId)
+                .orElseGet(() -> wikiRepo.save(WikiCurso.builder()
+                        .curso(cursoRepo.findById(cursoId)
+                                .orElseThrow(() -> new ResponseStatusException(HttpStatus.NOT_FOUND, "Curso no encontrado")))
+                        .build()));
+        String contenido = html != null ? html : "";
+        String hash = sha256(contenido);
+
+        Optional<RevisionWiki> ultima = revisionRepo.findFirstByWikiIdOrderByNumeroDesc(wiki.getId());
+        // El autoguardado del editor repite a menudo el mismo contenido
+        if (ultima.isPresent() && ultima.get().getHash().equals(hash)) {
+            return;
+        }
+        int numero = ultima.map(r -> r.getNumero() + 1).orElse(1);
+
+        Integer base = null;
+        byte[] datos = DeltaTexto.comprimir(contenido);
+        if (ultima.isPresent()) {
+            RevisionWiki anterior = ultima.get();
+            int numeroBase = anterior.getBase() != null ? anterior.getBase() : anterior.getNumero();
+            if (numero - numeroBase < completaCada) {
+                RevisionWiki completa = anterior.getBase() == null
+                        ? anterior
+                        : revisionRepo.findByWikiIdAndNumero(wiki.getId(), numeroBase).orElseThrow();
+                byte[] delta = DeltaTexto.calcular(DeltaTexto.descomprimir(completa.getDatos()), contenido);
+                // Si se ha reescrito casi todo, la siguiente base sale más a cuenta que el delta
+                if (delta.length * 2 < datos.length) {
+                    datos = delta;
+                    base = numeroBase;
+                }
+            }
+        }
+
+        revisionRepo.save(RevisionWiki.builder()
+                .wiki(wiki)
+                .numero(numero)
+                .base(base)
+                .datos(datos)
+                .hash(hash)
+                .tamano(contenido.length())
+                .enlaces(ReferenciasArchivosService.hashes(contenido).toArray(String[]::new))
+                .autor(autor != null ? usuarioRepo.getReferenceById(autor.getId()) : null)
+                .fecha(LocalDateTime.now())
+                .build());
+        // Cada revisión enlaza sus blobs: siguen disponibles mientras esté en el historial
+        referenciasArchivos.cambiar(null, contenido);
+        wikiRepo.actualizarBusqueda(wiki.getId(), contenido);
+
+        VersionWiki version = new VersionWiki(numero, hash, contenido);
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCommit() {
+                versiones.put(cursoId, version);
+            }
+        });
     }
 
     public void crearAportacion(UUID cursoId, UUID autorId, String texto) {
@@ -66,15 +220,62 @@ public class WikiService {
 
         // Guardar la aportación
         aportacionRepo.save(aportacion);
+        referenciasArchivos.cambiar(null, texto);
     }
 
 
 
-    public List<AportacionWikiDTO> getAportaciones(UUID cursoId) {
-        return aportacionRepo.findByWikiCursoIdOrderByFechaDesc(cursoId)
-                .stream()
+    // Sin cursor devuelve las más recientes; "antes" pide las anteriores a una aportación
+    public PaginaAportacionesWikiDTO getAportaciones(UUID cursoId, String antes, Integer limite) {
+        int tamano = limite == null
+                ? TAMANO_PAGINA_POR_DEFECTO
+                : Math.max(1, Math.min(limite, TAMANO_PAGINA_MAXIMO));
+        Optional<UUID> wikiId = wikiRepo.findIdByCursoId(cursoId);
+        if (wikiId.isEmpty()) {
+            return new PaginaAportacionesWikiDTO(List.of(), null, false);
+        }
+
+        // Se pide una aportación de más para saber si quedan anteriores
+        Limit consulta = Limit.of(tamano + 1);
+        List<AportacionWikiResumenDTO> aportaciones;
+        if (antes != null) {
+            CursorAportacionWikiDTO cursor = CursorAportacionWikiDTO.decodificar(antes);
+            aportaciones = aportacionRepo.findAnteriores(wikiId.get(), cursor.fecha(), cursor.id(), consulta);
+        } else {
+            aportaciones = aportacionRepo.findUltimas(wikiId.get(), consulta);
+        }
+
+        boolean hayAnteriores = aportaciones.size() > tamano;
+        List<AportacionWikiResumenDTO> pagina = hayAnteriores ? aportaciones.subList(0, tamano) : aportaciones;
+        String cursorAnterior = pagina.isEmpty()
+                ? null
+                : CursorAportacionWikiDTO.from(pagina.get(pagina.size() - 1)).codificar();
+        return new PaginaAportacionesWikiDTO(List.copyOf(pagina), cursorAnterior, hayAnteriores);
+    }
+
+    public AportacionWikiDTO getAportacion(UUID cursoId, UUID aportacionId) {
+        return aportacionRepo.findByIdAndCursoId(aportacionId, cursoId)
                 .map(AportacionWikiDTO::from)
-                .toList();
+                .orElseThrow(() -> new ResponseStatusException(HttpStatus.NOT_FOUND, "Aportación no encontrada"));
     }
-}
 
+    // Una revisión delta se reconstruye sobre su completa: como mucho dos filas
+    private String texto(RevisionWiki revision) {
+        if (revision.getBase() == null) {
+            return DeltaTexto.descomprimir(revision.getDatos());
+        }
+        RevisionWiki completa = revisionRepo.findByWikiIdAndNumero(revision.getWiki().getId(), revision.getBase())
+                .orElseThrow(() -> new IllegalStateException(
+                        "Falta la revisión " + revision.getBase() + " de la wiki " + revision.getWiki().getId()));
+        return DeltaTexto.aplicar(DeltaTexto.descomprimir(completa.getDatos()), revision.getDatos());
+    }
+
+    private static String sha256(String texto) {
+        try {
+            return HexFormat.of().formatHex(MessageDigest.getInstance("SHA-256")
+                    .digest(texto.getBytes(StandardCharsets.UTF_8)));
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+}
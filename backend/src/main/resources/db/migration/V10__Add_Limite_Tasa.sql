@@ -0,0 +1,12 @@
+-- Buckets de rate limiting compartidos entre réplicas (app.rate-limit.almacen=postgres).
+-- UNLOGGED: no genera WAL y tras una caída se vacía, que para contadores de un minuto da igual.
+CREATE UNLOGGED TABLE IF NOT EXISTS limite_tasa (
+    clave varchar(255) NOT NULL,
+    tokens double precision NOT NULL,
+    actualizado timestamptz NOT NULL,
+    permitido boolean NOT NULL,
+    PRIMARY KEY (clave)
+);
+
+-- Limpieza periódica de buckets inactivos
+CREATE INDEX IF NOT EXISTS idx_limite_tasa_actualizado ON limite_tasa (actualizado);
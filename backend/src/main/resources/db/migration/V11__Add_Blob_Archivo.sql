@@ -0,0 +1,14 @@
+-- Archivos subidos guardados por el SHA-256 de su contenido: la misma entrega subida dos veces
+-- o la misma imagen pegada en varias wikis ocupa disco una sola vez.
+-- referencias cuenta las filas que enlazan el blob (entrega_practica.archivo_url, usuario.avatar_url,
+-- wiki_curso.contenido, aportacion_wiki.contenido); se mantiene al escribirlas y se reconcilia
+-- en la recolección periódica, que borra los que llevan un tiempo sin referencias.
+CREATE TABLE IF NOT EXISTS blob_archivo (
+    hash char(64) NOT NULL,
+    tamano bigint NOT NULL,
+    referencias integer NOT NULL DEFAULT 0,
+    actualizado timestamp NOT NULL DEFAULT now(),
+    PRIMARY KEY (hash)
+);
+
+CREATE INDEX IF NOT EXISTS idx_blob_archivo_huerfanos ON blob_archivo (actualizado) WHERE referencias = 0;
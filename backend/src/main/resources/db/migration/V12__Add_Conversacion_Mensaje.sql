@@ -0,0 +1,20 @@
+-- Mensajes privados: la pareja de usuarios se guarda como una clave ordenada ("menor:mayor" de los
+-- UUID en texto), igual en los dos sentidos. Así un hilo es un rango de un solo índice en lugar de
+-- un OR entre (emisor, receptor) y (receptor, emisor).
+ALTER TABLE mensaje
+    ADD COLUMN IF NOT EXISTS conversacion varchar(73),
+    ADD COLUMN IF NOT EXISTS leido boolean NOT NULL DEFAULT false;
+
+UPDATE mensaje
+SET conversacion = least(emisor_id::text, receptor_id::text) || ':' || greatest(emisor_id::text, receptor_id::text)
+WHERE conversacion IS NULL
+  AND emisor_id IS NOT NULL
+  AND receptor_id IS NOT NULL;
+
+-- Hasta ahora no había marca de lectura: el historial existente cuenta como leído
+UPDATE mensaje SET leido = true;
+
+CREATE INDEX IF NOT EXISTS idx_mensaje_conversacion_fecha ON mensaje (conversacion, fecha_envio, id);
+-- La bandeja de entrada recorre los mensajes enviados (idx_mensaje_emisor_receptor_fecha) y los recibidos
+CREATE INDEX IF NOT EXISTS idx_mensaje_receptor ON mensaje (receptor_id);
+CREATE INDEX IF NOT EXISTS idx_mensaje_no_leidos ON mensaje (receptor_id, conversacion) WHERE NOT leido;
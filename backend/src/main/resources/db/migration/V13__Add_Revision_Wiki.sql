@@ -0,0 +1,35 @@
+-- Historial de la wiki de cada curso. Cada guardado es una revisión: completa (el HTML entero) o
+-- delta (las diferencias con la última completa, que está en base). datos va comprimido con gzip,
+-- salvo las revisiones que se copian aquí desde wiki_curso.contenido, que van en UTF-8 sin comprimir.
+-- hash es el SHA-256 del HTML (la ETag de GET /api/wiki/{cursoId}) y enlaces los blobs que enlaza,
+-- porque la recolección de archivos no puede buscarlos dentro de datos.
+CREATE TABLE IF NOT EXISTS revision_wiki (
+    id uuid NOT NULL,
+    wiki_id uuid NOT NULL,
+    numero integer NOT NULL,
+    base integer,
+    datos bytea NOT NULL,
+    hash char(64) NOT NULL,
+    tamano integer NOT NULL,
+    enlaces text[] NOT NULL DEFAULT '{}',
+    autor_id uuid,
+    fecha timestamp NOT NULL,
+    PRIMARY KEY (id),
+    CONSTRAINT fk_revision_wiki_wiki FOREIGN KEY (wiki_id) REFERENCES wiki_curso (id) ON DELETE CASCADE,
+    CONSTRAINT fk_revision_wiki_autor FOREIGN KEY (autor_id) REFERENCES usuario (id) ON DELETE SET NULL,
+    CONSTRAINT uk_revision_wiki_wiki_numero UNIQUE (wiki_id, numero)
+);
+
+-- El contenido actual pasa a ser la revisión 1. La expresión es la de ReferenciasArchivosService.
+INSERT INTO revision_wiki (id, wiki_id, numero, base, datos, hash, tamano, enlaces, autor_id, fecha)
+SELECT gen_random_uuid(), w.id, 1, NULL,
+       convert_to(w.contenido, 'UTF8'),
+       encode(sha256(convert_to(w.contenido, 'UTF8')), 'hex'),
+       length(w.contenido),
+       ARRAY(SELECT DISTINCT (regexp_matches(w.contenido,
+                     '/(?:archivos|uploads/avatars)/([0-9a-f]{64})(?:[^0-9a-f]|$)', 'g'))[1]),
+       NULL, now()
+FROM wiki_curso w
+WHERE w.contenido IS NOT NULL;
+
+ALTER TABLE wiki_curso DROP COLUMN IF EXISTS contenido;
@@ -0,0 +1,67 @@
+-- Búsqueda de texto en el contenido de cada curso (BusquedaService). Cada tabla lleva una columna
+-- busqueda con su tsvector en español y un índice GIN. Donde el texto está en la fila, la columna es
+-- generada y PostgreSQL la mantiene en cada escritura; la wiki guarda revisiones comprimidas, así que
+-- su vector lo escribe WikiService al guardar.
+
+-- Texto que se indexa y del que salen los fragmentos resaltados: sin etiquetas HTML y, si es un
+-- documento de Editor.js (JSON), solo los textos de los bloques, sin ids, tipos ni versiones.
+CREATE OR REPLACE FUNCTION texto_busqueda(contenido text) RETURNS text
+    LANGUAGE plpgsql IMMUTABLE AS $$
+DECLARE
+    texto text := contenido;
+BEGIN
+    IF contenido IS NULL THEN
+        RETURN NULL;
+    END IF;
+    IF left(ltrim(contenido), 1) IN ('{', '[') THEN
+        BEGIN
+            SELECT string_agg(valor #>> '{}', ' ')
+            INTO texto
+            FROM jsonb_path_query(contenido::jsonb, 'strict $.blocks[*].data.**') AS valor
+            WHERE jsonb_typeof(valor) = 'string';
+        EXCEPTION WHEN others THEN
+            -- No es un documento del editor: se indexa tal cual
+            texto := contenido;
+        END;
+    END IF;
+    RETURN regexp_replace(coalesce(texto, ''), '<[^>]*>', ' ', 'g');
+END
+$$;
+
+ALTER TABLE aportacion_wiki ADD COLUMN IF NOT EXISTS busqueda tsvector
+    GENERATED ALWAYS AS (to_tsvector('spanish'::regconfig, coalesce(texto_busqueda(contenido), ''))) STORED;
+
+ALTER TABLE practica ADD COLUMN IF NOT EXISTS busqueda tsvector
+    GENERATED ALWAYS AS (
+        setweight(to_tsvector('spanish'::regconfig, coalesce(titulo, '')), 'A')
+        || setweight(to_tsvector('spanish'::regconfig, coalesce(texto_busqueda(descripcion), '')), 'B')) STORED;
+
+ALTER TABLE evento_curso ADD COLUMN IF NOT EXISTS busqueda tsvector
+    GENERATED ALWAYS AS (
+        setweight(to_tsvector('spanish'::regconfig, coalesce(titulo, '')), 'A')
+        || setweight(to_tsvector('spanish'::regconfig, coalesce(descripcion, '')), 'B')) STORED;
+
+ALTER TABLE mensaje_curso ADD COLUMN IF NOT EXISTS busqueda tsvector
+    GENERATED ALWAYS AS (to_tsvector('spanish'::regconfig, coalesce(contenido, ''))) STORED;
+
+ALTER TABLE wiki_curso ADD COLUMN IF NOT EXISTS busqueda tsvector;
+
+-- Las wikis cuya última revisión es la copiada por V13 (UTF-8 sin comprimir); las demás se indexan
+-- en su siguiente guardado.
+UPDATE wiki_curso w
+SET busqueda = to_tsvector('spanish'::regconfig, coalesce(texto_busqueda(convert_from(r.datos, 'UTF8')), ''))
+FROM revision_wiki r
+WHERE r.wiki_id = w.id
+  AND r.base IS NULL
+  AND substring(r.datos FROM 1 FOR 2) <> '\x1f8b'::bytea
+  AND r.numero = (SELECT max(numero) FROM revision_wiki u WHERE u.wiki_id = w.id);
+
+CREATE INDEX IF NOT EXISTS idx_wiki_curso_busqueda ON wiki_curso USING gin (busqueda);
+CREATE INDEX IF NOT EXISTS idx_aportacion_wiki_busqueda ON aportacion_wiki USING gin (busqueda);
+CREATE INDEX IF NOT EXISTS idx_practica_busqueda ON practica USING gin (busqueda);
+CREATE INDEX IF NOT EXISTS idx_evento_curso_busqueda ON evento_curso USING gin (busqueda);
+
+-- El chat es la tabla que crece: con btree_gin el curso va en el mismo índice y una palabra frecuente
+-- no obliga a cruzar las filas de todos los cursos con las del curso buscado.
+CREATE EXTENSION IF NOT EXISTS btree_gin;
+CREATE INDEX IF NOT EXISTS idx_mensaje_curso_curso_busqueda ON mensaje_curso USING gin (curso_id, busqueda);
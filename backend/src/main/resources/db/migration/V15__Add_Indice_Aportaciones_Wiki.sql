@@ -0,0 +1,6 @@
+-- Las aportaciones de la wiki se sirven por páginas con un cursor (fecha, id), del más reciente al más
+-- antiguo (WikiService.getAportaciones). El id desempata las aportaciones de la misma fecha; con él en
+-- el índice la página se lee en orden sin ordenar las demás filas de la wiki. Sustituye al de V8.
+CREATE INDEX IF NOT EXISTS idx_aportacion_wiki_wiki_fecha_id ON aportacion_wiki (wiki_id, fecha DESC, id DESC);
+
+DROP INDEX IF EXISTS idx_aportacion_wiki_wiki_fecha;
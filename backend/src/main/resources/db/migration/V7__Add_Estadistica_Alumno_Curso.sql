@@ -0,0 +1,24 @@
+-- Estadísticas precalculadas por (curso, alumno). Se guardan sumas y contadores,
+-- no medias, para poder agregarlas por curso sin perder precisión.
+CREATE TABLE IF NOT EXISTS estadistica_alumno_curso (
+    id uuid NOT NULL,
+    curso_id uuid NOT NULL,
+    alumno_id uuid NOT NULL,
+    entregas bigint NOT NULL DEFAULT 0,
+    practicas_calificadas bigint NOT NULL DEFAULT 0,
+    suma_notas_practicas double precision NOT NULL DEFAULT 0,
+    examenes_calificados bigint NOT NULL DEFAULT 0,
+    suma_notas_examenes double precision NOT NULL DEFAULT 0,
+    asistencias bigint NOT NULL DEFAULT 0,
+    presentes bigint NOT NULL DEFAULT 0,
+    ausentes bigint NOT NULL DEFAULT 0,
+    retrasos bigint NOT NULL DEFAULT 0,
+    justificados bigint NOT NULL DEFAULT 0,
+    actualizado timestamp NOT NULL DEFAULT now(),
+    PRIMARY KEY (id),
+    CONSTRAINT uk_estadistica_curso_alumno UNIQUE (curso_id, alumno_id),
+    CONSTRAINT fk_eac_curso FOREIGN KEY (curso_id) REFERENCES curso (id) ON DELETE CASCADE,
+    CONSTRAINT fk_eac_alumno FOREIGN KEY (alumno_id) REFERENCES usuario (id) ON DELETE CASCADE
+);
+
+CREATE INDEX IF NOT EXISTS idx_estadistica_alumno ON estadistica_alumno_curso (alumno_id);
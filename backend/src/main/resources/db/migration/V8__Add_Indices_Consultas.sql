@@ -0,0 +1,71 @@
+-- Tablas que hasta ahora solo creaba Hibernate (ddl-auto: update). Flyway se ejecuta antes,
+-- así que en una base de datos nueva hay que crearlas aquí para poder indexarlas.
+-- Las restricciones UNIQUE y CHECK las sigue gestionando Hibernate.
+CREATE TABLE IF NOT EXISTS asistencia (
+    id uuid NOT NULL,
+    estado varchar(255) NOT NULL,
+    fecha date NOT NULL,
+    observaciones varchar(255),
+    alumno_id uuid NOT NULL,
+    curso_id uuid NOT NULL,
+    PRIMARY KEY (id),
+    CONSTRAINT fk_asistencia_alumno FOREIGN KEY (alumno_id) REFERENCES usuario (id),
+    CONSTRAINT fk_asistencia_curso FOREIGN KEY (curso_id) REFERENCES curso (id)
+);
+
+CREATE TABLE IF NOT EXISTS examen (
+    id uuid NOT NULL,
+    descripcion varchar(255),
+    fecha timestamp NOT NULL,
+    puntuacion_maxima double precision NOT NULL,
+    tipo varchar(255) NOT NULL,
+    titulo varchar(255) NOT NULL,
+    curso_id uuid NOT NULL,
+    PRIMARY KEY (id),
+    CONSTRAINT fk_examen_curso FOREIGN KEY (curso_id) REFERENCES curso (id)
+);
+
+CREATE TABLE IF NOT EXISTS nota_examen (
+    id uuid NOT NULL,
+    fecha_calificacion timestamp,
+    nota double precision,
+    observaciones varchar(255),
+    alumno_id uuid NOT NULL,
+    examen_id uuid NOT NULL,
+    PRIMARY KEY (id),
+    CONSTRAINT fk_nota_examen_alumno FOREIGN KEY (alumno_id) REFERENCES usuario (id),
+    CONSTRAINT fk_nota_examen_examen FOREIGN KEY (examen_id) REFERENCES examen (id)
+);
+
+-- Cursos
+CREATE INDEX IF NOT EXISTS idx_curso_profesor ON curso (profesor_id);
+CREATE INDEX IF NOT EXISTS idx_curso_alumnos_alumno ON curso_alumnos (alumno_id);
+CREATE INDEX IF NOT EXISTS idx_alumno_curso_curso_alumno ON alumno_curso (curso_id, alumno_id);
+CREATE INDEX IF NOT EXISTS idx_alumno_curso_alumno ON alumno_curso (alumno_id);
+CREATE INDEX IF NOT EXISTS idx_modulo_curso ON modulo (curso_id);
+CREATE INDEX IF NOT EXISTS idx_unidad_formativa_modulo ON unidad_formativa (modulo_id);
+CREATE INDEX IF NOT EXISTS idx_evento_curso_curso_fecha ON evento_curso (curso_id, fecha);
+
+-- Prácticas y entregas
+CREATE INDEX IF NOT EXISTS idx_practica_curso ON practica (curso_id);
+CREATE INDEX IF NOT EXISTS idx_entrega_practica_practica ON entrega_practica (practica_id);
+CREATE INDEX IF NOT EXISTS idx_entrega_practica_alumno_practica ON entrega_practica (alumno_id, practica_id);
+-- Entregas pendientes de calificar: pocas filas frente al total
+CREATE INDEX IF NOT EXISTS idx_entrega_practica_pendiente ON entrega_practica (practica_id) WHERE nota IS NULL;
+
+-- Exámenes (la restricción única de Hibernate ya cubre nota_examen (examen_id, alumno_id))
+CREATE INDEX IF NOT EXISTS idx_examen_curso_fecha ON examen (curso_id, fecha);
+CREATE INDEX IF NOT EXISTS idx_nota_examen_alumno ON nota_examen (alumno_id);
+
+-- Asistencia (la restricción única de Hibernate ya cubre (alumno_id, curso_id, fecha))
+CREATE INDEX IF NOT EXISTS idx_asistencia_curso_fecha ON asistencia (curso_id, fecha DESC);
+
+-- Chat, mensajes y notificaciones
+CREATE INDEX IF NOT EXISTS idx_mensaje_curso_curso_fecha ON mensaje_curso (curso_id, fecha_envio);
+CREATE INDEX IF NOT EXISTS idx_mensaje_curso_leido_curso_usuario ON mensaje_curso_leido (curso_id, usuario_id);
+CREATE INDEX IF NOT EXISTS idx_mensaje_emisor_receptor_fecha ON mensaje (emisor_id, receptor_id, fecha_envio);
+CREATE INDEX IF NOT EXISTS idx_notificaciones_usuario_fecha ON notificaciones (usuario_id, fecha DESC);
+
+-- Wiki
+CREATE INDEX IF NOT EXISTS idx_wiki_curso_curso ON wiki_curso (curso_id);
+CREATE INDEX IF NOT EXISTS idx_aportacion_wiki_wiki_fecha ON aportacion_wiki (wiki_id, fecha DESC);
@@ -0,0 +1,64 @@
+-- Número de secuencia por curso en los mensajes del chat: los no leídos pasan a ser
+-- una resta entre la última secuencia del curso y la marca de lectura del usuario.
+ALTER TABLE mensaje_curso ADD COLUMN IF NOT EXISTS secuencia bigint;
+
+UPDATE mensaje_curso m
+SET secuencia = n.fila
+FROM (SELECT id, row_number() OVER (PARTITION BY curso_id ORDER BY fecha_envio, id) AS fila
+      FROM mensaje_curso) n
+WHERE n.id = m.id;
+
+-- Último número de secuencia asignado en cada curso. La fila se bloquea al reservar un número,
+-- así que no hace falta un índice único sobre (curso_id, secuencia) en mensaje_curso.
+CREATE TABLE IF NOT EXISTS mensaje_curso_secuencia (
+    curso_id uuid NOT NULL,
+    ultima bigint NOT NULL DEFAULT 0,
+    PRIMARY KEY (curso_id),
+    CONSTRAINT fk_mcs_curso FOREIGN KEY (curso_id) REFERENCES curso (id) ON DELETE CASCADE
+);
+
+INSERT INTO mensaje_curso_secuencia (curso_id, ultima)
+SELECT curso_id, MAX(secuencia)
+FROM mensaje_curso
+WHERE curso_id IS NOT NULL
+GROUP BY curso_id;
+
+-- La marca de lectura pasa de un id de mensaje a un número de secuencia. mensajes_propios
+-- cuenta los mensajes enviados por el usuario por encima de su marca, que no son "no leídos".
+ALTER TABLE mensaje_curso_leido
+    ADD COLUMN IF NOT EXISTS ultima_secuencia_leida bigint NOT NULL DEFAULT 0,
+    ADD COLUMN IF NOT EXISTS mensajes_propios bigint NOT NULL DEFAULT 0;
+
+UPDATE mensaje_curso_leido l
+SET ultima_secuencia_leida = m.secuencia
+FROM mensaje_curso m
+WHERE m.id = l.ultimo_mensaje_leido_id;
+
+-- Una sola fila por (curso, usuario): se conserva la de marca más alta
+DELETE FROM mensaje_curso_leido l
+USING mensaje_curso_leido o
+WHERE l.curso_id = o.curso_id
+  AND l.usuario_id = o.usuario_id
+  AND (l.ultima_secuencia_leida, l.id) < (o.ultima_secuencia_leida, o.id);
+
+INSERT INTO mensaje_curso_leido (id, curso_id, usuario_id, ultima_secuencia_leida, mensajes_propios)
+SELECT gen_random_uuid(), m.curso_id, m.emisor_id, 0, 0
+FROM mensaje_curso m
+WHERE m.curso_id IS NOT NULL
+  AND m.emisor_id IS NOT NULL
+  AND NOT EXISTS (SELECT 1 FROM mensaje_curso_leido l
+                  WHERE l.curso_id = m.curso_id AND l.usuario_id = m.emisor_id)
+GROUP BY m.curso_id, m.emisor_id;
+
+UPDATE mensaje_curso_leido l
+SET mensajes_propios = (SELECT COUNT(*)
+                        FROM mensaje_curso m
+                        WHERE m.curso_id = l.curso_id
+                          AND m.emisor_id = l.usuario_id
+                          AND m.secuencia > l.ultima_secuencia_leida);
+
+DROP INDEX IF EXISTS idx_mensaje_curso_leido_curso_usuario;
+ALTER TABLE mensaje_curso_leido
+    ADD CONSTRAINT uk_mensaje_curso_leido_curso_usuario UNIQUE (curso_id, usuario_id);
+
+ALTER TABLE mensaje_curso_leido DROP COLUMN IF EXISTS ultimo_mensaje_leido_id;
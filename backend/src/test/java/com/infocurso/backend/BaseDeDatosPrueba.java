@@ -0,0 +1,139 @@
+package com.infocurso.backend;
+
+import io.zonky.test.db.postgres.embedded.EmbeddedPostgres;
+import org.flywaydb.core.Flyway;
+import org.junit.jupiter.api.extension.AfterAllCallback;
+import org.junit.jupiter.api.extension.BeforeAllCallback;
+import org.junit.jupiter.api.extension.ExtensionContext;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.DataSourceTransactionManager;
+import org.springframework.test.context.DynamicPropertyRegistry;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import javax.sql.DataSource;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.util.UUID;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * PostgreSQL embebido para los tests. El servidor arranca una vez por JVM y aplica las migraciones de
+ * Flyway en una base de datos plantilla; cada clase de test trabaja sobre una copia vacía de la
+ * plantilla, así que no ve los datos de las demás.
+ * <p>
+ * En JUnit se registra con {@code @RegisterExtension static final BaseDeDatosPrueba bd = new BaseDeDatosPrueba();}
+ * y la copia existe desde antes de los {@code @BeforeAll} de la clase hasta después de los {@code @AfterAll}.
+ * Los tests con contexto de Spring ({@code @DataJpaTest}) le pasan además su datasource con
+ * {@link #registrar(DynamicPropertyRegistry)} desde un {@code @DynamicPropertySource}.
+ * Fuera de JUnit (los benchmarks) se llama a {@link #crear()} y {@link #eliminar()}.
+ * <p>
+ * {@link #usuario(JdbcTemplate, String)} y {@link #curso(JdbcTemplate)} insertan las filas mínimas que
+ * piden las claves ajenas. Reciben el JdbcTemplate del test para escribir dentro de su transacción.
+ */
+public class BaseDeDatosPrueba implements BeforeAllCallback, AfterAllCallback {
+
+	private static final String PLANTILLA = "plantilla";
+	private static final AtomicInteger COPIAS = new AtomicInteger();
+
+	private static EmbeddedPostgres postgres;
+
+	private String nombre;
+	private DataSource dataSource;
+
+	private static synchronized EmbeddedPostgres servidor() {
+		if (postgres == null) {
+			try {
+				postgres = EmbeddedPostgres.start();
+			} catch (IOException e) {
+				throw new UncheckedIOException(e);
+			}
+			new JdbcTemplate(postgres.getPostgresDatabase()).execute("CREATE DATABASE " + PLANTILLA);
+			Flyway.configure().dataSource(postgres.getDatabase("postgres", PLANTILLA)).load().migrate();
+			Runtime.getRuntime().addShutdownHook(new Thread(() -> {
+				try {
+					postgres.close();
+				} catch (IOException ignored) {
+					// El proceso termina de todas formas
+				}
+			}));
+		}
+		return postgres;
+	}
+
+	public void crear() {
+		EmbeddedPostgres servidor = servidor();
+		nombre = "prueba_" + COPIAS.incrementAndGet();
+		new JdbcTemplate(servidor.getPostgresDatabase()).execute("CREATE DATABASE " + nombre + " TEMPLATE " + PLANTILLA);
+		dataSource = servidor.getDatabase("postgres", nombre);
+	}
+
+	public void eliminar() {
+		new JdbcTemplate(servidor().getPostgresDatabase()).execute("DROP DATABASE IF EXISTS " + nombre + " WITH (FORCE)");
+		dataSource = null;
+	}
+
+	@Override
+	public void beforeAll(ExtensionContext context) {
+		crear();
+	}
+
+	@Override
+	public void afterAll(ExtensionContext context) {
+		eliminar();
+	}
+
+	public DataSource dataSource() {
+		return dataSource;
+	}
+
+	public JdbcTemplate jdbcTemplate() {
+		return new JdbcTemplate(dataSource);
+	}
+
+	public TransactionTemplate transactionTemplate() {
+		return new TransactionTemplate(new DataSourceTransactionManager(dataSource));
+	}
+
+	/** Para arrancar la aplicación contra esta copia: {@code --spring.datasource.url=...}, usuario y clave postgres */
+	public String jdbcUrl() {
+		return servidor().getJdbcUrl("postgres", nombre);
+	}
+
+	public void registrar(DynamicPropertyRegistry registro) {
+		registro.add("spring.datasource.url", this::jdbcUrl);
+		registro.add("spring.datasource.username", () -> "postgres");
+		registro.add("spring.datasource.password", () -> "postgres");
+	}
+
+	/** Alumno con email {@code <id>@demo.com} */
+	public static UUID usuario(JdbcTemplate jdbcTemplate, String nombre) {
+		return usuario(jdbcTemplate, nombre, "ALUMNO");
+	}
+
+	public static UUID usuario(JdbcTemplate jdbcTemplate, String nombre, String rol) {
+		UUID id = UUID.randomUUID();
+		insertarUsuario(jdbcTemplate, id, nombre, id + "@demo.com", rol);
+		return id;
+	}
+
+	/** Alumno con un email concreto, para lo que se busca por email */
+	public static UUID usuarioConEmail(JdbcTemplate jdbcTemplate, String email) {
+		UUID id = UUID.randomUUID();
+		insertarUsuario(jdbcTemplate, id, email, email, "ALUMNO");
+		return id;
+	}
+
+	public static UUID curso(JdbcTemplate jdbcTemplate) {
+		return curso(jdbcTemplate, "Curso", null);
+	}
+
+	public static UUID curso(JdbcTemplate jdbcTemplate, String nombre, UUID profesorId) {
+		UUID id = UUID.randomUUID();
+		jdbcTemplate.update("INSERT INTO curso (id, nombre, profesor_id) VALUES (?, ?, ?)", id, nombre, profesorId);
+		return id;
+	}
+
+	private static void insertarUsuario(JdbcTemplate jdbcTemplate, UUID id, String nombre, String email, String rol) {
+		jdbcTemplate.update("INSERT INTO usuario (id, nombre, email, rol) VALUES (?, ?, ?, ?)", id, nombre, email, rol);
+	}
+}
@@ -0,0 +1,73 @@
+package com.infocurso.backend.config;
+
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.WebSocket;
+import java.util.Map;
+import java.util.concurrent.CompletionStage;
+import java.util.function.Consumer;
+
+/**
+ * Cliente STOMP mínimo sobre el WebSocket del JDK para las pruebas del broker. Entrega el cuerpo de
+ * cada frame MESSAGE al receptor. Tras {@link #pausar()} deja de pedir frames, así que deja de leer
+ * del socket y los envíos del servidor se acumulan como con un cliente lento.
+ */
+class ClienteStomp implements WebSocket.Listener {
+
+	private final Consumer<String> receptor;
+	private final StringBuilder frame = new StringBuilder();
+	private volatile boolean pausado;
+	private WebSocket webSocket;
+
+	private ClienteStomp(Consumer<String> receptor) {
+		this.receptor = receptor;
+	}
+
+	static ClienteStomp conectar(int puerto, Map<String, String> cabeceras, Consumer<String> receptor) {
+		ClienteStomp cliente = new ClienteStomp(receptor);
+		WebSocket.Builder builder = HttpClient.newHttpClient().newWebSocketBuilder();
+		cabeceras.forEach(builder::header);
+		cliente.webSocket = builder
+				.buildAsync(URI.create("ws://localhost:" + puerto + "/ws-chat/websocket"), cliente)
+				.join();
+		cliente.frame("CONNECT\naccept-version:1.2\nheart-beat:0,0\n\n");
+		return cliente;
+	}
+
+	void suscribir(String id, String destino) {
+		frame("SUBSCRIBE\nid:" + id + "\ndestination:" + destino + "\n\n");
+	}
+
+	void enviar(String destino, String json) {
+		frame("SEND\ndestination:" + destino + "\ncontent-type:application/json\n\n" + json);
+	}
+
+	void pausar() {
+		pausado = true;
+	}
+
+	void cerrar() {
+		webSocket.abort();
+	}
+
+	private void frame(String texto) {
+		webSocket.sendText(texto + "\0", true).join();
+	}
+
+	@Override
+	public CompletionStage<?> onText(WebSocket webSocket, CharSequence datos, boolean ultimo) {
+		frame.append(datos);
+		if (ultimo) {
+			String texto = frame.toString();
+			frame.setLength(0);
+			if (texto.startsWith("MESSAGE")) {
+				String cuerpo = texto.substring(texto.indexOf("\n\n") + 2);
+				receptor.accept(cuerpo.endsWith("\0") ? cuerpo.substring(0, cuerpo.length() - 1) : cuerpo);
+			}
+		}
+		if (!pausado) {
+			webSocket.request(1);
+		}
+		return null;
+	}
+}
@@ -0,0 +1,160 @@
+package com.infocurso.backend.config;
+
+import com.infocurso.backend.BackendApplication;
+import com.infocurso.backend.BaseDeDatosPrueba;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.extension.RegisterExtension;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.ValueSource;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.boot.web.servlet.context.ServletWebServerApplicationContext;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.messaging.simp.SimpMessagingTemplate;
+
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Consumer;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Dos nodos completos de la aplicación sobre el mismo PostgreSQL embebido: lo que un usuario envía
+ * por STOMP al nodo 2 tiene que llegar a otro conectado al nodo 1, tanto en el chat de curso como en
+ * los mensajes privados. Con "postgres" la propia base de datos embebida hace de broker.
+ */
+class RelayBrokerMultiNodoTest {
+
+	@RegisterExtension
+	static final BaseDeDatosPrueba bd = new BaseDeDatosPrueba();
+
+	private final List<ConfigurableApplicationContext> nodos = new ArrayList<>();
+	private final List<ClienteStomp> clientes = new ArrayList<>();
+
+	@AfterEach
+	void pararNodos() {
+		clientes.forEach(ClienteStomp::cerrar);
+		nodos.forEach(ConfigurableApplicationContext::close);
+	}
+
+	@ParameterizedTest
+	@ValueSource(strings = {"loopback", "postgres"})
+	void losMensajesEnviadosEnUnNodoLleganALasSesionesDelOtro(String transporte) throws Exception {
+		ConfigurableApplicationContext nodo1 = arrancarNodo(transporte);
+		ConfigurableApplicationContext nodo2 = arrancarNodo(transporte);
+
+		JdbcTemplate jdbcTemplate = nodo1.getBean(JdbcTemplate.class);
+		UUID alumnoId = jdbcTemplate.queryForObject(
+				"SELECT id FROM usuario WHERE email = 'alumno1@demo.com'", UUID.class);
+		UUID profesorId = jdbcTemplate.queryForObject(
+				"SELECT id FROM usuario WHERE email = 'profesor1@demo.com'", UUID.class);
+		UUID cursoId = jdbcTemplate.queryForObject("SELECT id FROM curso LIMIT 1", UUID.class);
+
+		BlockingQueue<String> recibidos = new LinkedBlockingQueue<>();
+		ClienteStomp alumno = conectar(nodo1, "alumno1@demo.com", recibidos::add);
+		alumno.suscribir("0", "/topic/curso/" + cursoId);
+		alumno.suscribir("1", "/user/queue/messages");
+		esperarSuscripciones(nodo1, cursoId, recibidos);
+
+		BlockingQueue<String> errores = new LinkedBlockingQueue<>();
+		ClienteStomp profesor = conectar(nodo2, "profesor1@demo.com", errores::add);
+		profesor.suscribir("0", "/user/queue/errors");
+		profesor.enviar("/app/curso-chat", """
+				{"cursoId":"%s","contenido":"hola al curso desde el nodo 2","autor":{"id":"%s"}}
+				""".formatted(cursoId, profesorId));
+		assertTrue(esperarMensaje(recibidos, "hola al curso desde el nodo 2"),
+				"El mensaje de curso no llegó al otro nodo");
+
+		profesor.enviar("/app/chat", """
+				{"emisorId":"%s","receptorId":"%s","contenido":"privado desde el nodo 2"}
+				""".formatted(profesorId, alumnoId));
+		assertTrue(esperarMensaje(recibidos, "privado desde el nodo 2"),
+				"El mensaje privado no llegó al otro nodo");
+
+		// Un envío rechazado no se queda en el log del servidor: vuelve a la sesión que lo hizo
+		boolean rechazado = false;
+		long limite = System.currentTimeMillis() + 10_000;
+		while (!rechazado && System.currentTimeMillis() < limite) {
+			profesor.enviar("/app/curso-chat", """
+					{"cursoId":"%s","contenido":"de un autor que no existe","autor":{"id":"%s"}}
+					""".formatted(cursoId, UUID.randomUUID()));
+			String cuerpo = errores.poll(200, TimeUnit.MILLISECONDS);
+			rechazado = cuerpo != null && cuerpo.contains("\"status\":404");
+		}
+		assertTrue(rechazado, "El remitente no recibió el rechazo en /user/queue/errors");
+	}
+
+	private ConfigurableApplicationContext arrancarNodo(String transporte) {
+		// Como argumentos y no como propiedades por defecto, para que prevalezcan sobre application.yaml
+		ConfigurableApplicationContext nodo = new SpringApplicationBuilder(BackendApplication.class).run(
+				"--server.port=0",
+				"--spring.datasource.url=" + bd.jdbcUrl(),
+				"--spring.datasource.username=postgres",
+				"--spring.datasource.password=postgres",
+				"--spring.jpa.show-sql=false",
+				"--app.websocket.relay.transporte=" + transporte);
+		nodos.add(nodo);
+		return nodo;
+	}
+
+	private ClienteStomp conectar(ConfigurableApplicationContext nodo, String email,
+								  Consumer<String> receptor) throws Exception {
+		int puerto = ((ServletWebServerApplicationContext) nodo).getWebServer().getPort();
+		HttpResponse<String> respuesta = HttpClient.newHttpClient().send(
+				HttpRequest.newBuilder(URI.create("http://localhost:" + puerto + "/api/auth/login"))
+						.header("Content-Type", "application/json")
+						.POST(HttpRequest.BodyPublishers.ofString(
+								"{\"email\":\"" + email + "\",\"password\":\"password\"}"))
+						.build(),
+				HttpResponse.BodyHandlers.ofString());
+		assertEquals(200, respuesta.statusCode(), respuesta.body());
+		String cookie = respuesta.headers().firstValue("Set-Cookie").orElseThrow().split(";")[0];
+
+		ClienteStomp cliente = ClienteStomp.conectar(puerto, Map.of("Cookie", cookie), receptor);
+		clientes.add(cliente);
+		return cliente;
+	}
+
+	// Las suscripciones se registran de forma asíncrona: se avisa desde el propio nodo hasta que llegan ambas
+	private void esperarSuscripciones(ConfigurableApplicationContext nodo, UUID cursoId,
+									  BlockingQueue<String> recibidos) throws InterruptedException {
+		SimpMessagingTemplate messagingTemplate = nodo.getBean(SimpMessagingTemplate.class);
+		boolean curso = false;
+		boolean privado = false;
+		long limite = System.currentTimeMillis() + 10_000;
+		while (!(curso && privado) && System.currentTimeMillis() < limite) {
+			messagingTemplate.convertAndSend("/topic/curso/" + cursoId, "calentamiento-curso");
+			messagingTemplate.convertAndSendToUser("alumno1@demo.com", "/queue/messages", "calentamiento-privado");
+			String cuerpo;
+			while ((cuerpo = recibidos.poll(50, TimeUnit.MILLISECONDS)) != null) {
+				curso |= cuerpo.contains("calentamiento-curso");
+				privado |= cuerpo.contains("calentamiento-privado");
+			}
+		}
+		assertTrue(curso && privado, "No se completaron las suscripciones");
+		// Descarta los avisos que sigan en vuelo
+		TimeUnit.MILLISECONDS.sleep(200);
+		recibidos.clear();
+	}
+
+	private boolean esperarMensaje(BlockingQueue<String> recibidos, String contenido) throws InterruptedException {
+		long limite = System.currentTimeMillis() + 10_000;
+		while (System.currentTimeMillis() < limite) {
+			String cuerpo = recibidos.poll(100, TimeUnit.MILLISECONDS);
+			if (cuerpo != null && cuerpo.contains(contenido)) {
+				return true;
+			}
+		}
+		return false;
+	}
+}
@@ -0,0 +1,182 @@
+package com.infocurso.backend.config;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.SpringBootConfiguration;
+import org.springframework.boot.actuate.autoconfigure.security.servlet.ManagementWebSecurityAutoConfiguration;
+import org.springframework.boot.autoconfigure.EnableAutoConfiguration;
+import org.springframework.boot.autoconfigure.flyway.FlywayAutoConfiguration;
+import org.springframework.boot.autoconfigure.jdbc.DataSourceAutoConfiguration;
+import org.springframework.boot.autoconfigure.orm.jpa.HibernateJpaAutoConfiguration;
+import org.springframework.boot.autoconfigure.security.servlet.SecurityAutoConfiguration;
+import org.springframework.boot.autoconfigure.security.servlet.SecurityFilterAutoConfiguration;
+import org.springframework.boot.autoconfigure.security.servlet.UserDetailsServiceAutoConfiguration;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.web.server.LocalServerPort;
+import org.springframework.context.annotation.Import;
+import org.springframework.messaging.simp.SimpMessagingTemplate;
+import org.springframework.web.socket.config.WebSocketMessageBrokerStats;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Prueba de carga del broker STOMP: varios clientes normales y algunos que dejan de leer del socket
+ * reciben la misma ráfaga en un topic de curso. Con los límites de app.websocket.* las sesiones lentas
+ * se cierran y los clientes normales reciben la ráfaga completa sin que su latencia se dispare: cada
+ * mensaje lleva el instante de envío y el p99 del envío a la recepción se compara con el de una
+ * primera ráfaga sin clientes lentos, medida en la misma máquina y en el mismo momento. Un cliente
+ * normal bloqueado detrás de uno lento esperaría el send-time-limit, muy por encima del margen.
+ * Arranca solo la configuración de WebSocket, sin base de datos ni seguridad.
+ */
+@SpringBootTest(
+		classes = WebSocketCargaTest.Aplicacion.class,
+		webEnvironment = SpringBootTest.WebEnvironment.RANDOM_PORT,
+		properties = {
+				"app.websocket.send-time-limit=2s",
+				"app.websocket.send-buffer-size=256KB"
+		})
+class WebSocketCargaTest {
+
+	private static final String TOPIC = "/topic/curso/carga";
+	private static final int CLIENTES_NORMALES = 4;
+	private static final int CLIENTES_LENTOS = 2;
+	private static final int MENSAJES = 10_000;
+	// Bastantes mensajes para llenar los buffers TCP de los clientes que no leen
+	private static final String RELLENO = "x".repeat(1024);
+	// p99 con clientes lentos <= FACTOR * p99 sin ellos + HOLGURA, que cubre las medidas de pocos milisegundos
+	private static final int FACTOR_P99 = 3;
+	private static final Duration HOLGURA_P99 = Duration.ofMillis(250);
+
+	@SpringBootConfiguration
+	@EnableAutoConfiguration(exclude = {
+			DataSourceAutoConfiguration.class,
+			HibernateJpaAutoConfiguration.class,
+			FlywayAutoConfiguration.class,
+			SecurityAutoConfiguration.class,
+			SecurityFilterAutoConfiguration.class,
+			UserDetailsServiceAutoConfiguration.class,
+			ManagementWebSecurityAutoConfiguration.class
+	})
+	@Import({WebSocketConfig.class, WebSocketMetricsConfig.class, RelayBroker.class})
+	static class Aplicacion {
+	}
+
+	@LocalServerPort
+	private int puerto;
+
+	@Autowired
+	private SimpMessagingTemplate messagingTemplate;
+
+	@Autowired
+	private WebSocketMessageBrokerStats stats;
+
+	private final List<ClienteMedido> clientes = new ArrayList<>();
+
+	@AfterEach
+	void cerrarClientes() {
+		clientes.forEach(c -> c.cliente.cerrar());
+	}
+
+	@Test
+	void losClientesLentosSeCierranYElRestoRecibeTodaLaDifusion() throws Exception {
+		List<ClienteMedido> normales = new ArrayList<>();
+		for (int i = 0; i < CLIENTES_NORMALES; i++) {
+			normales.add(conectar(false));
+		}
+		esperarSuscripciones();
+		// La primera ráfaga solo calienta el JIT y los pools: en frío su p99 es varias veces mayor
+		difundir(normales);
+		Duration p99SinLentos = difundir(normales);
+
+		for (int i = 0; i < CLIENTES_LENTOS; i++) {
+			conectar(true);
+		}
+		esperarSuscripciones();
+		Duration p99 = difundir(normales);
+
+		Duration maximo = p99SinLentos.multipliedBy(FACTOR_P99).plus(HOLGURA_P99);
+		assertTrue(p99.compareTo(maximo) <= 0, "El p99 de los clientes normales es " + p99.toMillis()
+				+ " ms con clientes lentos y " + p99SinLentos.toMillis() + " ms sin ellos");
+		assertEquals(CLIENTES_LENTOS, stats.getWebSocketSessionStats().getLimitExceededSessions(),
+				"Las sesiones lentas deberían cerrarse al superar los límites de envío");
+	}
+
+	// Envía la ráfaga, espera a que los clientes normales la reciban entera y devuelve su p99
+	private Duration difundir(List<ClienteMedido> normales) throws InterruptedException {
+		normales.forEach(c -> c.recibidos.set(0));
+		for (int i = 0; i < MENSAJES; i++) {
+			messagingTemplate.convertAndSend(TOPIC, System.nanoTime() + ":" + RELLENO);
+			// Ritmo de una clase muy activa sin desbordar la cola del canal outbound
+			if (i % 2 == 1) {
+				TimeUnit.MILLISECONDS.sleep(1);
+			}
+		}
+
+		long limite = System.currentTimeMillis() + 30_000;
+		while (normales.stream().anyMatch(c -> c.recibidos.get() < MENSAJES) && System.currentTimeMillis() < limite) {
+			TimeUnit.MILLISECONDS.sleep(50);
+		}
+		for (ClienteMedido cliente : normales) {
+			assertEquals(MENSAJES, cliente.recibidos.get(), "Un cliente normal ha perdido mensajes");
+		}
+		return p99(normales);
+	}
+
+	private ClienteMedido conectar(boolean lento) {
+		ClienteMedido medido = new ClienteMedido();
+		medido.cliente = ClienteStomp.conectar(puerto, Map.of(), cuerpo -> {
+			if (cuerpo.startsWith("calentamiento")) {
+				medido.suscrito = true;
+				// Uno lento deja de leer del socket tras el primer aviso
+				if (lento) {
+					medido.cliente.pausar();
+				}
+				return;
+			}
+			long enviado = Long.parseLong(cuerpo.substring(0, cuerpo.indexOf(':')));
+			int indice = medido.recibidos.getAndIncrement();
+			if (indice < MENSAJES) {
+				medido.latencias[indice] = System.nanoTime() - enviado;
+			}
+		});
+		medido.cliente.suscribir("0", TOPIC);
+		clientes.add(medido);
+		return medido;
+	}
+
+	private static Duration p99(List<ClienteMedido> normales) {
+		long[] todas = normales.stream()
+				.flatMapToLong(c -> Arrays.stream(c.latencias))
+				.sorted()
+				.toArray();
+		return Duration.ofNanos(todas[(int) Math.ceil(todas.length * 0.99) - 1]);
+	}
+
+	// El broker registra las suscripciones de forma asíncrona: se difunde un aviso hasta que llega a todos
+	private void esperarSuscripciones() throws InterruptedException {
+		long limite = System.currentTimeMillis() + 10_000;
+		while (clientes.stream().anyMatch(c -> !c.suscrito) && System.currentTimeMillis() < limite) {
+			messagingTemplate.convertAndSend(TOPIC, "calentamiento");
+			TimeUnit.MILLISECONDS.sleep(50);
+		}
+		assertTrue(clientes.stream().allMatch(c -> c.suscrito), "No se completaron las suscripciones");
+	}
+
+	private static class ClienteMedido {
+
+		private final AtomicInteger recibidos = new AtomicInteger();
+		private final long[] latencias = new long[MENSAJES];
+		private volatile boolean suscrito;
+		private ClienteStomp cliente;
+	}
+}
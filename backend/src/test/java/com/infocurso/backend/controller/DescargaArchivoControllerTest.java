@@ -0,0 +1,161 @@
+package com.infocurso.backend.controller;
+
+import com.infocurso.backend.service.AlmacenamientoService;
+import com.infocurso.backend.service.AvatarService;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.http.HttpHeaders;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.MvcResult;
+import org.springframework.test.web.servlet.setup.MockMvcBuilders;
+import org.springframework.util.unit.DataSize;
+
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.security.MessageDigest;
+import java.time.Duration;
+import java.util.HexFormat;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.header;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+/**
+ * Cabeceras HTTP de la descarga de archivos: rangos, revalidación y caché. Sin Tomcat no hay sendfile,
+ * así que aquí el contenido sale por FileChannel.transferTo.
+ */
+class DescargaArchivoControllerTest {
+
+	private static final String NOMBRE = "informe.pdf";
+	private static final byte[] CONTENIDO = "0123456789abcdefghij".getBytes(StandardCharsets.US_ASCII);
+
+	@TempDir
+	Path raiz;
+
+	private MockMvc mockMvc;
+
+	@BeforeEach
+	void preparar() throws Exception {
+		Files.write(raiz.resolve(NOMBRE), CONTENIDO);
+		// Servir archivos no toca la base de datos
+		AlmacenamientoService almacenamiento = new AlmacenamientoService(raiz.toString(), null, null);
+		mockMvc = MockMvcBuilders
+				.standaloneSetup(new DescargaArchivoController(almacenamiento,
+						new AvatarService(almacenamiento, List.of(32, 64, 128, 300), DataSize.ofMegabytes(10), 1, 10),
+						Duration.ofDays(365)))
+				.build();
+	}
+
+	@Test
+	void descargaCompletaConCabecerasDeCache() throws Exception {
+		MvcResult resultado = mockMvc.perform(get("/archivos/" + NOMBRE))
+				.andExpect(status().isOk())
+				.andExpect(header().string(HttpHeaders.CONTENT_TYPE, "application/pdf"))
+				.andExpect(header().longValue(HttpHeaders.CONTENT_LENGTH, CONTENIDO.length))
+				.andExpect(header().string(HttpHeaders.CACHE_CONTROL, "max-age=31536000, public"))
+				.andExpect(header().string(HttpHeaders.ACCEPT_RANGES, "bytes"))
+				.andExpect(header().exists(HttpHeaders.ETAG))
+				.andExpect(header().exists(HttpHeaders.LAST_MODIFIED))
+				.andReturn();
+
+		assertArrayEquals(CONTENIDO, resultado.getResponse().getContentAsByteArray());
+	}
+
+	@Test
+	void unRangoDevuelveSoloEsosBytes() throws Exception {
+		MvcResult resultado = mockMvc.perform(get("/archivos/" + NOMBRE).header(HttpHeaders.RANGE, "bytes=5-9"))
+				.andExpect(status().isPartialContent())
+				.andExpect(header().string(HttpHeaders.CONTENT_RANGE, "bytes 5-9/20"))
+				.andExpect(header().longValue(HttpHeaders.CONTENT_LENGTH, 5))
+				.andReturn();
+
+		assertArrayEquals("56789".getBytes(StandardCharsets.US_ASCII), resultado.getResponse().getContentAsByteArray());
+	}
+
+	@Test
+	void unRangoFueraDelArchivoNoEsSatisfacible() throws Exception {
+		mockMvc.perform(get("/archivos/" + NOMBRE).header(HttpHeaders.RANGE, "bytes=50-"))
+				.andExpect(status().isRequestedRangeNotSatisfiable())
+				.andExpect(header().string(HttpHeaders.CONTENT_RANGE, "bytes */20"));
+	}
+
+	@Test
+	void ifRangeDeOtraVersionDevuelveElArchivoEntero() throws Exception {
+		mockMvc.perform(get("/archivos/" + NOMBRE)
+						.header(HttpHeaders.RANGE, "bytes=5-9")
+						.header(HttpHeaders.IF_RANGE, "\"otra-version\""))
+				.andExpect(status().isOk())
+				.andExpect(header().longValue(HttpHeaders.CONTENT_LENGTH, CONTENIDO.length));
+	}
+
+	@Test
+	void conLaMismaVersionRespondeNoModificado() throws Exception {
+		String etag = mockMvc.perform(get("/archivos/" + NOMBRE))
+				.andReturn().getResponse().getHeader(HttpHeaders.ETAG);
+
+		mockMvc.perform(get("/archivos/" + NOMBRE).header(HttpHeaders.IF_NONE_MATCH, etag))
+				.andExpect(status().isNotModified());
+	}
+
+	@Test
+	void unBlobSeSirvePorSuHashConElNombreDeLaRuta() throws Exception {
+		String hash = HexFormat.of().formatHex(MessageDigest.getInstance("SHA-256").digest(CONTENIDO));
+		Path blob = raiz.resolve("blobs").resolve(hash.substring(0, 2)).resolve(hash);
+		Files.createDirectories(blob.getParent());
+		Files.write(blob, CONTENIDO);
+
+		MvcResult resultado = mockMvc.perform(get("/archivos/" + hash + "/memoria.pdf"))
+				.andExpect(status().isOk())
+				.andExpect(header().string(HttpHeaders.CONTENT_TYPE, "application/pdf"))
+				.andExpect(header().string(HttpHeaders.ETAG, "\"" + hash + "\""))
+				.andExpect(header().string(HttpHeaders.CONTENT_DISPOSITION, "inline; filename=\"memoria.pdf\""))
+				.andReturn();
+		assertArrayEquals(CONTENIDO, resultado.getResponse().getContentAsByteArray());
+
+		mockMvc.perform(get("/archivos/" + hash + "/memoria.pdf").header(HttpHeaders.IF_NONE_MATCH, "\"" + hash + "\""))
+				.andExpect(status().isNotModified());
+		mockMvc.perform(get("/archivos/" + "0".repeat(64) + "/memoria.pdf")).andExpect(status().isNotFound());
+		mockMvc.perform(get("/archivos/blobs/" + hash)).andExpect(status().isNotFound());
+	}
+
+	@Test
+	void unAvatarSinVariantesSirveElOriginalSinCache() throws Exception {
+		String hash = "a".repeat(64);
+		Path original = raiz.resolve("blobs").resolve("aa").resolve(hash);
+		Files.createDirectories(original.getParent());
+		Files.write(original, CONTENIDO);
+
+		mockMvc.perform(get("/uploads/avatars/" + hash + ".png").param("tam", "32"))
+				.andExpect(status().isOk())
+				.andExpect(header().string(HttpHeaders.CACHE_CONTROL, "no-cache"))
+				.andExpect(header().longValue(HttpHeaders.CONTENT_LENGTH, CONTENIDO.length));
+
+		// Ya generadas: la más pequeña que cubre el tamaño pedido, con caché larga
+		Path derivados = raiz.resolve("blobs").resolve("aa").resolve(hash + ".d");
+		Files.createDirectories(derivados);
+		for (int tamano : List.of(32, 64, 128, 300)) {
+			Files.write(derivados.resolve(tamano + ".png"), new byte[tamano]);
+		}
+		mockMvc.perform(get("/uploads/avatars/" + hash + ".png").param("tam", "50"))
+				.andExpect(status().isOk())
+				.andExpect(header().string(HttpHeaders.CONTENT_TYPE, "image/png"))
+				.andExpect(header().string(HttpHeaders.CACHE_CONTROL, "max-age=31536000, public"))
+				.andExpect(header().string(HttpHeaders.VARY, HttpHeaders.ACCEPT))
+				.andExpect(header().string(HttpHeaders.ETAG, "\"" + hash + "-64.png\""))
+				.andExpect(header().longValue(HttpHeaders.CONTENT_LENGTH, 64));
+		mockMvc.perform(get("/uploads/avatars/" + hash + ".png"))
+				.andExpect(header().longValue(HttpHeaders.CONTENT_LENGTH, 300));
+	}
+
+	@Test
+	void noSirveTemporalesNiArchivosInexistentes() throws Exception {
+		Files.write(raiz.resolve(".tmp").resolve("parte"), CONTENIDO);
+
+		mockMvc.perform(get("/archivos/.tmp")).andExpect(status().isNotFound());
+		mockMvc.perform(get("/archivos/otro.pdf")).andExpect(status().isNotFound());
+	}
+}
@@ -0,0 +1,263 @@
+package com.infocurso.backend.repository;
+
+import com.infocurso.backend.BaseDeDatosPrueba;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.RegisterExtension;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.Arguments;
+import org.junit.jupiter.params.provider.MethodSource;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.sql.Connection;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.stream.Stream;
+
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Comprueba con EXPLAIN que las consultas de los repositorios usan los índices de V8 y posteriores.
+ * Las tablas se llenan con datos repartidos entre muchos cursos y usuarios y se analizan, así que el
+ * planificador elige el plan con sus estadísticas reales: si un índice no compensa, la consulta
+ * recorre la tabla y el test falla.
+ */
+class IndicesConsultasTest {
+
+	// Los ids son md5 de un prefijo y un número (md5('c1') es el curso 1) para poder nombrarlos en las consultas
+	private static final String CURSO = "md5('c1')::uuid";
+	private static final String ALUMNO = "md5('u1')::uuid";
+	private static final String PRACTICA = "md5('p1')::uuid";
+	private static final String WIKI = "md5('w1')::uuid";
+	private static final String CURSOR = "'80000000-0000-0000-0000-000000000000'";
+	// AportacionWikiRepository.findAnteriores
+	private static final String APORTACIONES_ANTERIORES = "SELECT id, substring(contenido, 1, 280) FROM aportacion_wiki"
+			+ " WHERE wiki_id = " + WIKI + " AND fecha <= FECHA AND (fecha < FECHA OR id < " + CURSOR + ")"
+			+ " ORDER BY fecha DESC, id DESC LIMIT 21";
+	private static final String BUSQUEDA = "websearch_to_tsquery('spanish', 'funciones recursivas')";
+
+	// Un texto distinto por fila; las palabras buscadas solo aparecen en una de cada mil
+	private static final String TEXTO = "'mensaje ' || i || CASE WHEN i % 1000 = 0 THEN ' funciones recursivas' ELSE ' sobre el temario' END";
+
+	private static final String DATOS = """
+			INSERT INTO usuario (id, nombre, email, rol)
+			SELECT md5('u' || i)::uuid, 'Usuario ' || i, 'u' || i || '@prueba.es', 'ALUMNO'
+			FROM generate_series(1, 5000) i;
+
+			INSERT INTO curso (id, nombre, profesor_id)
+			SELECT md5('c' || i)::uuid, 'Curso ' || i, md5('u' || (i % 5000 + 1))::uuid
+			FROM generate_series(1, 2000) i;
+
+			INSERT INTO alumno_curso (id, curso_id, alumno_id)
+			SELECT gen_random_uuid(), md5('c' || (i % 2000 + 1))::uuid, md5('u' || (i / 2000 + 1))::uuid
+			FROM generate_series(0, 39999) i;
+
+			INSERT INTO mensaje_curso (id, contenido, fecha_envio, curso_id, emisor_id, secuencia)
+			SELECT gen_random_uuid(), TEXTO, now() - i * interval '1 minute',
+			       md5('c' || (i % 2000 + 1))::uuid, md5('u' || (i % 5000 + 1))::uuid, i
+			FROM generate_series(1, 100000) i;
+
+			-- El curso 1 tiene mucho chat: es donde el índice combinado con el texto compensa frente al de fecha
+			INSERT INTO mensaje_curso (id, contenido, fecha_envio, curso_id, emisor_id, secuencia)
+			SELECT gen_random_uuid(), TEXTO, now() - i * interval '1 second', md5('c1')::uuid,
+			       md5('u' || (i % 5000 + 1))::uuid, 100000 + i
+			FROM generate_series(1, 50000) i;
+
+			INSERT INTO mensaje_curso_leido (id, curso_id, usuario_id, ultima_secuencia_leida, mensajes_propios)
+			SELECT gen_random_uuid(), md5('c' || (i % 2000 + 1))::uuid, md5('u' || (i / 2000 + 1))::uuid, 0, 0
+			FROM generate_series(0, 39999) i;
+
+			INSERT INTO mensaje (id, contenido, fecha_envio, emisor_id, receptor_id, conversacion, leido)
+			SELECT i, TEXTO, now() - i * interval '1 minute',
+			       md5('u' || (i % 5000 + 1))::uuid, md5('u' || (i * 7 % 5000 + 1))::uuid,
+			       least(i % 5000 + 1, i * 7 % 5000 + 1) || ':' || greatest(i % 5000 + 1, i * 7 % 5000 + 1),
+			       i % 10 <> 0
+			FROM generate_series(1, 100000) i;
+
+			INSERT INTO notificaciones (id, mensaje, leida, fecha, tipo, usuario_id)
+			SELECT gen_random_uuid(), 'Aviso ' || i, false, now() - i * interval '1 minute', 'MENSAJE',
+			       md5('u' || (i % 5000 + 1))::uuid
+			FROM generate_series(1, 50000) i;
+
+			INSERT INTO practica (id, titulo, descripcion, fecha_entrega, curso_id)
+			SELECT md5('p' || i)::uuid, 'Práctica ' || i, TEXTO, now() + i * interval '1 hour',
+			       md5('c' || (i % 2000 + 1))::uuid
+			FROM generate_series(1, 10000) i;
+
+			INSERT INTO entrega_practica (id, fecha_entrega, nota, practica_id, alumno_id)
+			SELECT gen_random_uuid(), now(), CASE WHEN i % 10 = 0 THEN NULL ELSE 7 END,
+			       md5('p' || (i % 10000 + 1))::uuid, md5('u' || (i / 10000 + 1))::uuid
+			FROM generate_series(0, 49999) i;
+
+			INSERT INTO examen (id, fecha, puntuacion_maxima, tipo, titulo, curso_id)
+			SELECT md5('x' || i)::uuid, now() + (i - 5000) * interval '1 hour', 10, 'PARCIAL', 'Examen ' || i,
+			       md5('c' || (i % 2000 + 1))::uuid
+			FROM generate_series(1, 10000) i;
+
+			INSERT INTO nota_examen (id, nota, alumno_id, examen_id)
+			SELECT gen_random_uuid(), 5, md5('u' || (i / 10000 + 1))::uuid, md5('x' || (i % 10000 + 1))::uuid
+			FROM generate_series(0, 49999) i;
+
+			INSERT INTO asistencia (id, estado, fecha, alumno_id, curso_id)
+			SELECT gen_random_uuid(), 'PRESENTE', current_date - i % 365,
+			       md5('u' || (i % 5000 + 1))::uuid, md5('c' || (i % 2000 + 1))::uuid
+			FROM generate_series(1, 50000) i;
+
+			INSERT INTO evento_curso (id, titulo, descripcion, tipo, fecha, visible_para, curso_id)
+			SELECT gen_random_uuid(), 'Evento ' || i, TEXTO, 'OTRO', current_date + i % 365, 'TODOS',
+			       md5('c' || (i % 2000 + 1))::uuid
+			FROM generate_series(1, 20000) i;
+
+			INSERT INTO wiki_curso (id, titulo, curso_id, busqueda)
+			SELECT md5('w' || i)::uuid, 'Wiki ' || i, md5('c' || i)::uuid, to_tsvector('spanish', TEXTO)
+			FROM generate_series(1, 2000) i;
+
+			INSERT INTO aportacion_wiki (id, contenido, fecha, wiki_id, autor_id)
+			SELECT gen_random_uuid(), TEXTO, now() - i * interval '1 minute',
+			       md5('w' || (i % 2000 + 1))::uuid, md5('u' || (i % 5000 + 1))::uuid
+			FROM generate_series(1, 50000) i;
+			""".replace("TEXTO", TEXTO);
+
+	@RegisterExtension
+	static final BaseDeDatosPrueba bd = new BaseDeDatosPrueba();
+
+	private Connection connection;
+
+	@BeforeAll
+	static void cargarDatos() {
+		JdbcTemplate jdbcTemplate = bd.jdbcTemplate();
+		jdbcTemplate.execute(DATOS);
+		// Como haría autovacuum: además de las estadísticas, vacía la lista pendiente de los índices GIN
+		jdbcTemplate.execute("VACUUM ANALYZE");
+	}
+
+	@BeforeEach
+	void abrirConexion() throws SQLException {
+		connection = bd.dataSource().getConnection();
+	}
+
+	@AfterEach
+	void cerrarConexion() throws SQLException {
+		connection.close();
+	}
+
+	static Stream<Arguments> consultas() {
+		return Stream.of(
+				// MensajeCursoRepository.findUltimosMensajes
+				Arguments.of("idx_mensaje_curso_curso_fecha",
+						"SELECT * FROM mensaje_curso WHERE curso_id = " + CURSO
+								+ " ORDER BY fecha_envio DESC, id DESC LIMIT 51"),
+				// MensajeCursoRepository.findMensajesAnteriores
+				Arguments.of("idx_mensaje_curso_curso_fecha",
+						"SELECT * FROM mensaje_curso WHERE curso_id = " + CURSO
+								+ " AND fecha_envio <= now() AND (fecha_envio < now() OR id < " + CURSOR + ")"
+								+ " ORDER BY fecha_envio DESC, id DESC LIMIT 51"),
+				// NotificacionRepository.findByUsuarioIdOrderByFechaDesc
+				Arguments.of("idx_notificaciones_usuario_fecha",
+						"SELECT * FROM notificaciones WHERE usuario_id = " + ALUMNO + " ORDER BY fecha DESC"),
+				// EntregaPracticaRepository.findByPracticaId
+				Arguments.of("idx_entrega_practica_practica",
+						"SELECT * FROM entrega_practica WHERE practica_id = " + PRACTICA),
+				// EntregaPracticaRepository.findByAlumnoIdAndPracticaId
+				Arguments.of("idx_entrega_practica_alumno_practica",
+						"SELECT * FROM entrega_practica WHERE alumno_id = " + ALUMNO + " AND practica_id = " + PRACTICA),
+				// EntregaPracticaRepository.contarEntregasPendientesCurso
+				Arguments.of("idx_entrega_practica_pendiente",
+						"SELECT COUNT(*) FROM entrega_practica e JOIN practica p ON p.id = e.practica_id"
+								+ " WHERE p.curso_id = " + CURSO + " AND e.nota IS NULL"),
+				// PracticaRepository.findByCursoId
+				Arguments.of("idx_practica_curso",
+						"SELECT * FROM practica WHERE curso_id = " + CURSO),
+				// ExamenRepository.findProximosExamenes
+				Arguments.of("idx_examen_curso_fecha",
+						"SELECT * FROM examen WHERE curso_id = " + CURSO + " AND fecha > now() ORDER BY fecha"),
+				// NotaExamenRepository.findByAlumnoIdAndExamenCursoId
+				Arguments.of("idx_nota_examen_alumno",
+						"SELECT n.* FROM nota_examen n JOIN examen x ON x.id = n.examen_id"
+								+ " WHERE n.alumno_id = " + ALUMNO + " AND x.curso_id = " + CURSO),
+				// AsistenciaRepository.findByCursoIdOrderByFechaDesc
+				Arguments.of("idx_asistencia_curso_fecha",
+						"SELECT * FROM asistencia WHERE curso_id = " + CURSO + " ORDER BY fecha DESC"),
+				// AsistenciaRepository.findDistinctFechasByCursoId
+				Arguments.of("idx_asistencia_curso_fecha",
+						"SELECT DISTINCT fecha FROM asistencia WHERE curso_id = " + CURSO + " ORDER BY fecha DESC"),
+				// CursoRepository.findByProfesorId
+				Arguments.of("idx_curso_profesor",
+						"SELECT * FROM curso WHERE profesor_id = " + ALUMNO),
+				// CursoRepository.findCursosByAlumnoId
+				Arguments.of("idx_alumno_curso_alumno",
+						"SELECT * FROM alumno_curso WHERE alumno_id = " + ALUMNO),
+				// AlumnoCursoRepository.existsByCursoIdAndAlumnoId
+				Arguments.of("idx_alumno_curso_curso_alumno",
+						"SELECT 1 FROM alumno_curso WHERE curso_id = " + CURSO + " AND alumno_id = " + ALUMNO + " LIMIT 1"),
+				// EventoCursoRepository.findByCursoId
+				Arguments.of("idx_evento_curso_curso_fecha",
+						"SELECT * FROM evento_curso WHERE curso_id = " + CURSO),
+				// MensajeRepository.findMensajesAnteriores
+				Arguments.of("idx_mensaje_conversacion_fecha",
+						"SELECT * FROM mensaje WHERE conversacion = '1:7'"
+								+ " AND fecha_envio <= now() AND (fecha_envio < now() OR id < 10)"
+								+ " ORDER BY fecha_envio DESC, id DESC LIMIT 51"),
+				// ChatPrivadoService.obtenerBandeja (mensajes recibidos)
+				Arguments.of("idx_mensaje_receptor",
+						"SELECT * FROM mensaje WHERE emisor_id = " + ALUMNO + " OR receptor_id = " + ALUMNO),
+				// ChatPrivadoService.obtenerBandeja (no leídos) y MensajeRepository.marcarLeidos
+				Arguments.of("idx_mensaje_no_leidos",
+						"SELECT conversacion, count(*) FROM mensaje WHERE receptor_id = " + ALUMNO
+								+ " AND NOT leido GROUP BY conversacion"),
+				// MensajeCursoLeidoRepository.findByCursoIdAndUsuarioId (restricción única desde V9)
+				Arguments.of("uk_mensaje_curso_leido_curso_usuario",
+						"SELECT * FROM mensaje_curso_leido WHERE curso_id = " + CURSO + " AND usuario_id = " + ALUMNO),
+				// WikiCursoRepository.findByCursoId
+				Arguments.of("idx_wiki_curso_curso",
+						"SELECT * FROM wiki_curso WHERE curso_id = " + CURSO),
+				// AportacionWikiRepository.findAnteriores
+				Arguments.of("idx_aportacion_wiki_wiki_fecha_id", APORTACIONES_ANTERIORES.replace("FECHA", "now()")),
+				// BusquedaService.buscar, una tabla por tipo de resultado
+				Arguments.of("idx_mensaje_curso_curso_busqueda",
+						"SELECT id FROM mensaje_curso WHERE curso_id = " + CURSO + " AND busqueda @@ " + BUSQUEDA),
+				Arguments.of("idx_wiki_curso_busqueda",
+						"SELECT id FROM wiki_curso WHERE busqueda @@ " + BUSQUEDA),
+				Arguments.of("idx_aportacion_wiki_busqueda",
+						"SELECT id FROM aportacion_wiki WHERE busqueda @@ " + BUSQUEDA),
+				Arguments.of("idx_practica_busqueda",
+						"SELECT id FROM practica WHERE busqueda @@ " + BUSQUEDA),
+				Arguments.of("idx_evento_curso_busqueda",
+						"SELECT id FROM evento_curso WHERE busqueda @@ " + BUSQUEDA)
+		);
+	}
+
+	@ParameterizedTest(name = "{0}")
+	@MethodSource("consultas")
+	void laConsultaUsaElIndice(String indice, String sql) throws SQLException {
+		String plan = explicar(sql);
+		assertTrue(plan.contains(indice), () -> "Se esperaba " + indice + " en el plan:\n" + plan);
+	}
+
+	@Test
+	void unCursorProfundoDeAportacionesEntraEnElIndicePorLaFecha() throws SQLException {
+		// Más allá de la mitad de las aportaciones de la wiki
+		String plan = explicar(APORTACIONES_ANTERIORES.replace("FECHA", "now() - interval '30000 minutes'"));
+
+		String condicion = plan.lines().filter(l -> l.contains("Index Cond")).findFirst().orElse("");
+		assertTrue(condicion.contains("fecha <="), () -> "La fecha del cursor debería ser Index Cond:\n" + plan);
+		assertFalse(plan.lines().anyMatch(l -> l.contains("Filter") && l.contains("fecha <=")),
+				() -> "La fecha del cursor no debería quedar en un Filter:\n" + plan);
+	}
+
+	private String explicar(String sql) throws SQLException {
+		StringBuilder plan = new StringBuilder();
+		try (Statement st = connection.createStatement();
+			 ResultSet rs = st.executeQuery("EXPLAIN " + sql)) {
+			while (rs.next()) {
+				plan.append(rs.getString(1)).append('\n');
+			}
+		}
+		return plan.toString();
+	}
+
+}
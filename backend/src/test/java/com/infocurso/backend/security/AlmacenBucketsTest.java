@@ -0,0 +1,100 @@
+package com.infocurso.backend.security;
+
+import com.infocurso.backend.BaseDeDatosPrueba;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.RegisterExtension;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.UUID;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Almacenes de buckets del rate limiting. El de PostgreSQL se prueba con dos instancias sobre la
+ * misma base de datos embebida, como dos réplicas del backend.
+ */
+class AlmacenBucketsTest {
+
+	@RegisterExtension
+	static final BaseDeDatosPrueba bd = new BaseDeDatosPrueba();
+
+	private static JdbcTemplate jdbcTemplate;
+
+	@BeforeAll
+	static void conectar() {
+		jdbcTemplate = bd.jdbcTemplate();
+	}
+
+	@Test
+	void localRechazaAlAgotarLaCapacidad() {
+		AlmacenBuckets almacen = new AlmacenBucketsLocal(propiedades(100, Duration.ofMinutes(10)));
+
+		assertEquals(5, consumir(almacen, "login:10.0.0.1", 8, 5, Duration.ofMinutes(1)));
+		// Otra clave tiene su propio bucket
+		assertTrue(almacen.consumir("login:10.0.0.2", 5, Duration.ofMinutes(1)));
+	}
+
+	@Test
+	void localNoCreceMasAllaDelMaximoDeBuckets() {
+		AlmacenBucketsLocal almacen = new AlmacenBucketsLocal(propiedades(100, Duration.ofMinutes(10)));
+
+		for (int i = 0; i < 10_000; i++) {
+			almacen.consumir("lectura:" + i, 300, Duration.ofMinutes(1));
+		}
+		long buckets = almacen.numeroBuckets();
+		assertTrue(buckets <= 100, "Buckets en memoria: " + buckets);
+	}
+
+	@Test
+	void postgresComparteElLimiteEntreReplicas() {
+		AlmacenBuckets replica1 = new AlmacenBucketsPostgres(jdbcTemplate, propiedades(100, Duration.ofMinutes(10)));
+		AlmacenBuckets replica2 = new AlmacenBucketsPostgres(jdbcTemplate, propiedades(100, Duration.ofMinutes(10)));
+		String clave = "login:" + UUID.randomUUID();
+
+		assertEquals(3, consumir(replica1, clave, 3, 5, Duration.ofMinutes(1)));
+		assertEquals(2, consumir(replica2, clave, 3, 5, Duration.ofMinutes(1)));
+		assertFalse(replica1.consumir(clave, 5, Duration.ofMinutes(1)));
+	}
+
+	@Test
+	void postgresRellenaConElTiempo() throws InterruptedException {
+		AlmacenBuckets almacen = new AlmacenBucketsPostgres(jdbcTemplate, propiedades(100, Duration.ofMinutes(10)));
+		String clave = "login:" + UUID.randomUUID();
+
+		assertEquals(2, consumir(almacen, clave, 3, 2, Duration.ofMillis(400)));
+		Thread.sleep(300);
+		assertTrue(almacen.consumir(clave, 2, Duration.ofMillis(400)));
+	}
+
+	@Test
+	void postgresBorraLosBucketsInactivos() throws InterruptedException {
+		AlmacenBucketsPostgres almacen = new AlmacenBucketsPostgres(jdbcTemplate, propiedades(100, Duration.ofMillis(100)));
+		String clave = "login:" + UUID.randomUUID();
+		almacen.consumir(clave, 5, Duration.ofMinutes(1));
+
+		Thread.sleep(200);
+		almacen.limpiar();
+
+		assertEquals(0, jdbcTemplate.queryForObject(
+				"SELECT COUNT(*) FROM limite_tasa WHERE clave = ?", Long.class, clave));
+	}
+
+	private static int consumir(AlmacenBuckets almacen, String clave, int intentos, long capacidad, Duration periodo) {
+		int permitidos = 0;
+		for (int i = 0; i < intentos; i++) {
+			if (almacen.consumir(clave, capacidad, periodo)) {
+				permitidos++;
+			}
+		}
+		return permitidos;
+	}
+
+	private static PropiedadesRateLimit propiedades(long maximoBuckets, Duration inactividad) {
+		return new PropiedadesRateLimit("local", maximoBuckets, inactividad, List.of());
+	}
+}
@@ -0,0 +1,121 @@
+package com.infocurso.backend.security;
+
+import com.infocurso.backend.entity.Rol;
+import com.infocurso.backend.entity.Usuario;
+import com.infocurso.backend.repository.UsuarioRepository;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.time.Duration;
+import java.util.Optional;
+import java.util.UUID;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotSame;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+/**
+ * Caché de usuarios del filtro JWT: copias independientes por petición, caducidad e invalidación,
+ * también la que se repite al confirmar la transacción.
+ */
+class CacheUsuariosTest {
+
+	private static final String EMAIL = "ana@demo.com";
+
+	private UsuarioRepository repositorio;
+	private Usuario enBaseDeDatos;
+
+	@BeforeEach
+	void preparar() {
+		enBaseDeDatos = Usuario.builder().id(UUID.randomUUID()).nombre("Ana").email(EMAIL).rol(Rol.ALUMNO).build();
+		repositorio = mock(UsuarioRepository.class);
+		when(repositorio.findByEmail(EMAIL)).thenAnswer(i -> Optional.of(copia(enBaseDeDatos)));
+	}
+
+	@AfterEach
+	void limpiarTransaccion() {
+		if (TransactionSynchronizationManager.isSynchronizationActive()) {
+			TransactionSynchronizationManager.clearSynchronization();
+		}
+	}
+
+	@Test
+	void cadaPeticionRecibeSuPropiaCopia() {
+		CacheUsuarios cache = new CacheUsuarios(repositorio, 100, Duration.ofMinutes(5));
+
+		Usuario primero = cache.buscarPorEmail(EMAIL).orElseThrow();
+		primero.setNombre("Cambio sin guardar");
+		Usuario segundo = cache.buscarPorEmail(EMAIL).orElseThrow();
+
+		assertNotSame(primero, segundo);
+		assertEquals("Ana", segundo.getNombre());
+		assertEquals(Rol.ALUMNO, segundo.getRol());
+		verify(repositorio, times(1)).findByEmail(EMAIL);
+	}
+
+	@Test
+	void noGuardaLosEmailsQueNoExisten() {
+		CacheUsuarios cache = new CacheUsuarios(repositorio, 100, Duration.ofMinutes(5));
+
+		assertTrue(cache.buscarPorEmail("nadie@demo.com").isEmpty());
+		assertTrue(cache.buscarPorEmail("nadie@demo.com").isEmpty());
+
+		verify(repositorio, times(2)).findByEmail("nadie@demo.com");
+	}
+
+	@Test
+	void vuelveALaBaseDeDatosAlCaducar() throws InterruptedException {
+		CacheUsuarios cache = new CacheUsuarios(repositorio, 100, Duration.ofMillis(50));
+
+		cache.buscarPorEmail(EMAIL);
+		enBaseDeDatos.setNombre("Ana María");
+		TimeUnit.MILLISECONDS.sleep(100);
+
+		assertEquals("Ana María", cache.buscarPorEmail(EMAIL).orElseThrow().getNombre());
+		verify(repositorio, times(2)).findByEmail(EMAIL);
+	}
+
+	@Test
+	void invalidarObligaARecargar() {
+		CacheUsuarios cache = new CacheUsuarios(repositorio, 100, Duration.ofMinutes(5));
+
+		cache.buscarPorEmail(EMAIL);
+		enBaseDeDatos.setAvatarUrl("/api/archivos/avatares/nuevo.png");
+		cache.invalidar(EMAIL);
+
+		assertEquals("/api/archivos/avatares/nuevo.png", cache.buscarPorEmail(EMAIL).orElseThrow().getAvatarUrl());
+		verify(repositorio, times(2)).findByEmail(EMAIL);
+	}
+
+	@Test
+	void dentroDeUnaTransaccionInvalidaOtraVezAlConfirmar() {
+		CacheUsuarios cache = new CacheUsuarios(repositorio, 100, Duration.ofMinutes(5));
+		TransactionSynchronizationManager.initSynchronization();
+
+		cache.invalidar(EMAIL);
+		// Otra petición recarga el usuario antes de que se confirme el cambio
+		cache.buscarPorEmail(EMAIL);
+		enBaseDeDatos.setNombre("Ana María");
+		TransactionSynchronizationManager.getSynchronizations().forEach(TransactionSynchronization::afterCommit);
+
+		assertEquals("Ana María", cache.buscarPorEmail(EMAIL).orElseThrow().getNombre());
+	}
+
+	private static Usuario copia(Usuario usuario) {
+		return Usuario.builder()
+				.id(usuario.getId())
+				.nombre(usuario.getNombre())
+				.email(usuario.getEmail())
+				.avatarUrl(usuario.getAvatarUrl())
+				.rol(usuario.getRol())
+				.build();
+	}
+}
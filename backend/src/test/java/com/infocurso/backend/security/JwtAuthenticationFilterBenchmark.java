@@ -0,0 +1,129 @@
+package com.infocurso.backend.security;
+
+import com.infocurso.backend.entity.Rol;
+import com.infocurso.backend.entity.Usuario;
+import com.infocurso.backend.repository.UsuarioRepository;
+import io.jsonwebtoken.Claims;
+import io.jsonwebtoken.Jwts;
+import io.jsonwebtoken.security.Keys;
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.http.Cookie;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
+import org.springframework.security.core.context.SecurityContextHolder;
+import org.springframework.security.web.authentication.WebAuthenticationDetailsSource;
+
+import java.lang.reflect.Proxy;
+import java.time.Duration;
+import java.util.Optional;
+import java.util.UUID;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Coste por petición del filtro JWT con un token válido en cookie. "anterior" reproduce el filtro
+ * previo: dos verificaciones de firma con parser y clave nuevos en cada una y búsqueda del usuario.
+ * "actual" es {@link JwtAuthenticationFilter} con las cachés calientes.
+ * El repositorio es un stub en memoria, así que la consulta a la base de datos que se ahorra
+ * no entra en la medida.
+ * <p>
+ * No se ejecuta con mvn test: {@code mvn test-compile} y lanzar {@link #main} con el classpath de test.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class JwtAuthenticationFilterBenchmark {
+
+	private static final String SECRET_KEY = "mi-clave-secreta-super-segura-para-jwt-con-mas-de-32-bytes";
+	private static final FilterChain CADENA = (request, response) -> { };
+
+	private UsuarioRepository repositorio;
+	private JwtAuthenticationFilter filtro;
+	private MockHttpServletRequest request;
+	private MockHttpServletResponse response;
+
+	@Setup
+	public void preparar() {
+		Usuario usuario = Usuario.builder()
+				.id(UUID.randomUUID())
+				.nombre("Alumno")
+				.email("alumno@demo.com")
+				.rol(Rol.ALUMNO)
+				.build();
+		repositorio = (UsuarioRepository) Proxy.newProxyInstance(
+				UsuarioRepository.class.getClassLoader(),
+				new Class<?>[]{UsuarioRepository.class},
+				(proxy, metodo, args) -> Optional.of(usuario));
+
+		JwtUtil jwtUtil = new JwtUtil(10_000, Duration.ofMinutes(5));
+		filtro = new JwtAuthenticationFilter(jwtUtil, new CacheUsuarios(repositorio, 10_000, Duration.ofSeconds(30)));
+
+		request = new MockHttpServletRequest("GET", "/api/cursos");
+		request.setCookies(new Cookie("jwt", jwtUtil.generarToken(usuario.getEmail(), usuario.getId(), "ALUMNO")));
+		response = new MockHttpServletResponse();
+	}
+
+	@Benchmark
+	public Object anterior() {
+		String token = request.getCookies()[0].getValue();
+		Object autenticacion = null;
+		if (esTokenValidoAnterior(token)) {
+			Claims claims = claimsAnterior(token);
+			Usuario usuario = repositorio.findByEmail(claims.getSubject()).orElse(null);
+			if (usuario != null) {
+				UsernamePasswordAuthenticationToken authToken = new UsernamePasswordAuthenticationToken(
+						usuario, null, usuario.getAuthorities());
+				authToken.setDetails(new WebAuthenticationDetailsSource().buildDetails(request));
+				autenticacion = authToken;
+			}
+		}
+		return autenticacion;
+	}
+
+	@Benchmark
+	public Object actual() throws Exception {
+		filtro.doFilterInternal(request, response, CADENA);
+		Object autenticacion = SecurityContextHolder.getContext().getAuthentication();
+		SecurityContextHolder.clearContext();
+		return autenticacion;
+	}
+
+	private static boolean esTokenValidoAnterior(String token) {
+		try {
+			claimsAnterior(token);
+			return true;
+		} catch (RuntimeException e) {
+			return false;
+		}
+	}
+
+	private static Claims claimsAnterior(String token) {
+		return Jwts.parserBuilder()
+				.setSigningKey(Keys.hmacShaKeyFor(SECRET_KEY.getBytes()))
+				.build()
+				.parseClaimsJws(token)
+				.getBody();
+	}
+
+	public static void main(String[] args) throws RunnerException {
+		new Runner(new OptionsBuilder()
+				.include(JwtAuthenticationFilterBenchmark.class.getSimpleName())
+				.build()).run();
+	}
+}
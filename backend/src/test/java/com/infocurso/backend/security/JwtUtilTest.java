@@ -0,0 +1,63 @@
+package com.infocurso.backend.security;
+
+import io.jsonwebtoken.Jwts;
+import io.jsonwebtoken.SignatureAlgorithm;
+import io.jsonwebtoken.security.Keys;
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.util.Date;
+import java.util.Optional;
+import java.util.UUID;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Caché de tokens verificados: un token en caché deja de valer cuando caduca el JWT, aunque la
+ * entrada siga dentro de su duración.
+ */
+class JwtUtilTest {
+
+	private static final String SECRET_KEY = "mi-clave-secreta-super-segura-para-jwt-con-mas-de-32-bytes";
+	private static final String OTRA_CLAVE = "otra-clave-distinta-para-firmar-tokens-de-mas-de-32-bytes";
+
+	private final JwtUtil jwtUtil = new JwtUtil(100, Duration.ofMinutes(5));
+
+	@Test
+	void devuelveElEmailDeUnTokenValidoTambienDesdeLaCache() {
+		String token = jwtUtil.generarToken("ana@demo.com", UUID.randomUUID(), "ALUMNO");
+
+		assertEquals(Optional.of("ana@demo.com"), jwtUtil.emailVerificado(token));
+		assertEquals(Optional.of("ana@demo.com"), jwtUtil.emailVerificado(token));
+	}
+
+	@Test
+	void unTokenEnCacheDejaDeValerAlCaducar() throws InterruptedException {
+		// Los JWT caducan con precisión de segundos
+		Date expiracion = new Date((System.currentTimeMillis() / 1000 + 2) * 1000);
+		String token = token(SECRET_KEY, expiracion);
+
+		assertEquals(Optional.of("ana@demo.com"), jwtUtil.emailVerificado(token));
+		TimeUnit.MILLISECONDS.sleep(expiracion.getTime() - System.currentTimeMillis() + 100);
+
+		assertTrue(jwtUtil.emailVerificado(token).isEmpty());
+	}
+
+	@Test
+	void rechazaLosTokensFirmadosConOtraClave() {
+		String token = token(OTRA_CLAVE, new Date(System.currentTimeMillis() + 60_000));
+
+		assertTrue(jwtUtil.emailVerificado(token).isEmpty());
+		assertTrue(jwtUtil.emailVerificado(token).isEmpty());
+	}
+
+	private static String token(String clave, Date expiracion) {
+		return Jwts.builder()
+				.setSubject("ana@demo.com")
+				.setExpiration(expiracion)
+				.signWith(Keys.hmacShaKeyFor(clave.getBytes()), SignatureAlgorithm.HS256)
+				.compact();
+	}
+}
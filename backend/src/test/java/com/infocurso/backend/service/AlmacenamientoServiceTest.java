@@ -0,0 +1,157 @@
+package com.infocurso.backend.service;
+
+import com.infocurso.backend.BaseDeDatosPrueba;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.RegisterExtension;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.mock.web.MockMultipartFile;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.UUID;
+import java.util.stream.Stream;
+
+import static com.infocurso.backend.BaseDeDatosPrueba.curso;
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Almacén por hash de contenido sobre una base de datos embebida: deduplicación de subidas, cuentas de
+ * referencias y recolección de los blobs huérfanos.
+ */
+class AlmacenamientoServiceTest {
+
+	@RegisterExtension
+	static final BaseDeDatosPrueba bd = new BaseDeDatosPrueba();
+
+	private static JdbcTemplate jdbcTemplate;
+	private static TransactionTemplate transactionTemplate;
+
+	@TempDir
+	Path raiz;
+
+	private AlmacenamientoService almacenamiento;
+	private ReferenciasArchivosService referencias;
+
+	@BeforeAll
+	static void conectar() {
+		jdbcTemplate = bd.jdbcTemplate();
+		transactionTemplate = bd.transactionTemplate();
+	}
+
+	@BeforeEach
+	void preparar() {
+		jdbcTemplate.update("DELETE FROM practica");
+		jdbcTemplate.update("DELETE FROM usuario");
+		jdbcTemplate.update("DELETE FROM blob_archivo");
+		almacenamiento = new AlmacenamientoService(raiz.toString(), jdbcTemplate, transactionTemplate);
+		referencias = new ReferenciasArchivosService(jdbcTemplate, almacenamiento, Duration.ZERO);
+	}
+
+	@Test
+	void laMismaSubidaDosVecesOcupaUnSoloBlob() throws IOException {
+		String primera = almacenamiento.guardar(subida("memoria.pdf", "contenido de la entrega"));
+		String segunda = almacenamiento.guardar(subida("Memoria final (v2).pdf", "contenido de la entrega"));
+
+		String hash = primera.substring(0, 64);
+		assertEquals(hash + "/memoria.pdf", primera);
+		assertEquals(hash + "/Memoria_final__v2_.pdf", segunda);
+		assertEquals(1, blobsEnDisco());
+		assertEquals(1, jdbcTemplate.queryForObject("SELECT count(*) FROM blob_archivo", Integer.class));
+		assertArrayEquals("contenido de la entrega".getBytes(StandardCharsets.UTF_8),
+				Files.readAllBytes(almacenamiento.buscarBlob(hash).orElseThrow()));
+		// Las partes no se quedan en los temporales
+		try (Stream<Path> temporales = Files.list(almacenamiento.getTemporales())) {
+			assertEquals(0, temporales.count());
+		}
+	}
+
+	@Test
+	void laRecoleccionSoloBorraLosBlobsSinReferencias() throws IOException {
+		String enlazada = almacenamiento.guardar(subida("avatar.png", "enlazada"));
+		String abandonada = almacenamiento.guardar(subida("borrador.zip", "abandonada"));
+		String url = "/archivos/" + enlazada;
+		UUID usuarioId = UUID.randomUUID();
+
+		// La reconciliación de recolectar() recuenta desde las tablas: el enlace tiene que estar en una fila
+		jdbcTemplate.update("INSERT INTO usuario (id, email, avatar_url) VALUES (?, ?, ?)",
+				usuarioId, "profesor@demo.com", url);
+		referencias.cambiar(null, url);
+		assertEquals(1, referenciasDe(enlazada));
+
+		referencias.recolectar();
+		assertTrue(almacenamiento.buscarBlob(enlazada.substring(0, 64)).isPresent());
+		assertFalse(almacenamiento.buscarBlob(abandonada.substring(0, 64)).isPresent());
+		assertEquals(1, jdbcTemplate.queryForObject("SELECT count(*) FROM blob_archivo", Integer.class));
+
+		// Cambia de avatar: el anterior se queda sin referencias
+		jdbcTemplate.update("UPDATE usuario SET avatar_url = NULL WHERE id = ?", usuarioId);
+		referencias.cambiar(url, null);
+		assertEquals(0, referenciasDe(enlazada));
+		referencias.recolectar();
+		assertEquals(0, blobsEnDisco());
+	}
+
+	@Test
+	void dentroDeLaGraciaNoSeBorraNada() throws IOException {
+		String ruta = almacenamiento.guardar(subida("imagen.png", "recien subida"));
+
+		assertEquals(0, almacenamiento.eliminarHuerfanos(Duration.ofHours(1)));
+		assertTrue(almacenamiento.buscarBlob(ruta.substring(0, 64)).isPresent());
+	}
+
+	@Test
+	void laReconciliacionCuentaLosEnlacesDeLasTablas() throws IOException {
+		String avatar = almacenamiento.guardar("avatar.png", salida -> salida.write(new byte[]{1, 2, 3}));
+		jdbcTemplate.update("INSERT INTO usuario (id, email, avatar_url) VALUES (?, ?, ?)",
+				UUID.randomUUID(), "alumno@demo.com", "/archivos/" + avatar);
+		// Una actualización perdida: la fila enlaza el blob pero la cuenta sigue a cero
+		assertEquals(0, referenciasDe(avatar));
+
+		referencias.recolectar();
+
+		assertEquals(1, referenciasDe(avatar));
+		assertTrue(almacenamiento.buscarBlob(avatar.substring(0, 64)).isPresent());
+	}
+
+	@Test
+	void unaImagenEnlazadaSoloDesdeUnaPracticaNoSeBorra() throws IOException {
+		String imagen = almacenamiento.guardar(subida("diagrama.png", "imagen del enunciado"));
+		UUID cursoId = curso(jdbcTemplate);
+		// La descripción es el JSON de Editor.js con el bloque de imagen que sube EditorPractica
+		jdbcTemplate.update("INSERT INTO practica (id, titulo, descripcion, curso_id) VALUES (?, 'Práctica', ?, ?)",
+				UUID.randomUUID(), """
+						{"blocks": [{"type": "image", "data": {"file": {"url": "http://localhost:8080/api/archivos/%s"}, "caption": ""}}]}
+						""".formatted(imagen), cursoId);
+
+		referencias.recolectar();
+
+		assertEquals(1, referenciasDe(imagen));
+		assertTrue(almacenamiento.buscarBlob(imagen.substring(0, 64)).isPresent());
+	}
+
+	private int referenciasDe(String ruta) {
+		return jdbcTemplate.queryForObject("SELECT referencias FROM blob_archivo WHERE hash = ?",
+				Integer.class, ruta.substring(0, 64));
+	}
+
+	private long blobsEnDisco() throws IOException {
+		try (Stream<Path> archivos = Files.walk(raiz.resolve("blobs"))) {
+			return archivos.filter(Files::isRegularFile).count();
+		}
+	}
+
+	private static MockMultipartFile subida(String nombre, String contenido) {
+		return new MockMultipartFile("file", nombre, "application/octet-stream",
+				contenido.getBytes(StandardCharsets.UTF_8));
+	}
+}
@@ -0,0 +1,169 @@
+package com.infocurso.backend.service;
+
+import com.infocurso.backend.BaseDeDatosPrueba;
+import com.infocurso.backend.dto.RegistroAsistenciaDTO;
+import com.infocurso.backend.entity.EstadoAsistencia;
+import com.infocurso.backend.repository.AsistenciaRepository;
+import com.infocurso.backend.repository.CursoRepository;
+import com.infocurso.backend.repository.EstadisticaAlumnoCursoRepository;
+import com.infocurso.backend.repository.UsuarioRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.RegisterExtension;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.jdbc.AutoConfigureTestDatabase;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.dao.DataAccessException;
+import org.springframework.http.HttpStatus;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.DynamicPropertyRegistry;
+import org.springframework.test.context.DynamicPropertySource;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
+import org.springframework.web.server.ResponseStatusException;
+
+import java.time.LocalDate;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+
+import static com.infocurso.backend.BaseDeDatosPrueba.curso;
+import static com.infocurso.backend.BaseDeDatosPrueba.usuario;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+
+/**
+ * Registro de asistencia de toda la clase sobre PostgreSQL embebido: un lote de upserts por
+ * (alumno, curso, fecha) que se guarda entero o no se guarda.
+ */
+@DataJpaTest
+@AutoConfigureTestDatabase(replace = AutoConfigureTestDatabase.Replace.NONE)
+class AsistenciaServiceTest {
+
+	private static final LocalDate LUNES = LocalDate.of(2026, 10, 5);
+
+	@RegisterExtension
+	static final BaseDeDatosPrueba bd = new BaseDeDatosPrueba();
+
+	@DynamicPropertySource
+	static void baseDeDatos(DynamicPropertyRegistry registro) {
+		bd.registrar(registro);
+	}
+
+	@Autowired
+	private AsistenciaRepository asistenciaRepository;
+	@Autowired
+	private CursoRepository cursoRepository;
+	@Autowired
+	private UsuarioRepository usuarioRepository;
+	@Autowired
+	private EstadisticaAlumnoCursoRepository estadisticaRepository;
+	@Autowired
+	private JdbcTemplate jdbcTemplate;
+	@Autowired
+	private TransactionTemplate transactionTemplate;
+
+	private EstadisticaAlumnoCursoService estadisticas;
+	private AsistenciaService asistencias;
+	private UUID cursoId;
+	private UUID ana;
+	private UUID luis;
+
+	@BeforeEach
+	void preparar() {
+		estadisticas = mock(EstadisticaAlumnoCursoService.class);
+		asistencias = new AsistenciaService(asistenciaRepository, cursoRepository, usuarioRepository,
+				estadisticaRepository, estadisticas, jdbcTemplate, transactionTemplate);
+
+		cursoId = curso(jdbcTemplate);
+		// Uno matriculado por el administrador y otro inscrito por su cuenta
+		ana = usuario(jdbcTemplate, "Ana");
+		luis = usuario(jdbcTemplate, "Luis");
+		jdbcTemplate.update("INSERT INTO curso_alumnos (curso_id, alumno_id) VALUES (?, ?)", cursoId, ana);
+		jdbcTemplate.update("INSERT INTO alumno_curso (id, curso_id, alumno_id) VALUES (?, ?, ?)",
+				UUID.randomUUID(), cursoId, luis);
+	}
+
+	@Test
+	void rechazaElLoteSiHayAlumnosNoMatriculados() {
+		UUID eva = usuario(jdbcTemplate, "Eva");
+
+		ResponseStatusException error = assertThrows(ResponseStatusException.class,
+				() -> asistencias.registrarAsistenciaMultiple(cursoId, List.of(
+						registro(ana, LUNES, EstadoAsistencia.PRESENTE),
+						registro(eva, LUNES, EstadoAsistencia.PRESENTE))));
+
+		assertEquals(HttpStatus.BAD_REQUEST, error.getStatusCode());
+		assertTrue(error.getReason().contains(eva.toString()));
+		assertEquals(Map.of(), estados(LUNES));
+		verify(estadisticas, never()).actualizarCurso(any());
+	}
+
+	@Test
+	void conDosFilasDelMismoAlumnoYFechaGanaLaUltima() {
+		asistencias.registrarAsistenciaMultiple(cursoId, List.of(
+				registro(ana, LUNES, EstadoAsistencia.AUSENTE),
+				registro(luis, LUNES, EstadoAsistencia.PRESENTE),
+				registro(ana, LUNES, EstadoAsistencia.JUSTIFICADO)));
+
+		assertEquals(Map.of(ana, "JUSTIFICADO", luis, "PRESENTE"), estados(LUNES));
+		verify(estadisticas).actualizarCurso(cursoId);
+	}
+
+	@Test
+	void actualizaLaAsistenciaQueYaExistia() {
+		asistencias.registrarAsistenciaMultiple(cursoId, List.of(
+				registro(ana, LUNES, EstadoAsistencia.AUSENTE),
+				registro(luis, LUNES, EstadoAsistencia.PRESENTE)));
+		UUID registroDeAna = idDe(ana, LUNES);
+
+		asistencias.registrarAsistenciaMultiple(cursoId, List.of(
+				new RegistroAsistenciaDTO(ana, LUNES, EstadoAsistencia.JUSTIFICADO, "Médico"),
+				registro(luis, LUNES.plusDays(1), EstadoAsistencia.RETRASO)));
+
+		assertEquals(Map.of(ana, "JUSTIFICADO", luis, "PRESENTE"), estados(LUNES));
+		assertEquals(Map.of(luis, "RETRASO"), estados(LUNES.plusDays(1)));
+		assertEquals(registroDeAna, idDe(ana, LUNES));
+		assertEquals("Médico", jdbcTemplate.queryForObject(
+				"SELECT observaciones FROM asistencia WHERE id = ?", String.class, registroDeAna));
+	}
+
+	@Test
+	@Transactional(propagation = Propagation.NOT_SUPPORTED)
+	void siFallaElLoteNoSeGuardaNinguno() {
+		// Sin la transacción de la prueba, para que el lote tenga que deshacerse por sí solo
+		assertThrows(DataAccessException.class, () -> asistencias.registrarAsistenciaMultiple(cursoId, List.of(
+				registro(ana, LUNES, EstadoAsistencia.PRESENTE),
+				new RegistroAsistenciaDTO(luis, LUNES, EstadoAsistencia.AUSENTE, "x".repeat(300)))));
+
+		assertEquals(Map.of(), estados(LUNES));
+		verify(estadisticas, never()).actualizarCurso(any());
+	}
+
+	private Map<UUID, String> estados(LocalDate fecha) {
+		return jdbcTemplate.query("SELECT alumno_id, estado FROM asistencia WHERE curso_id = ? AND fecha = ?",
+				rs -> {
+					Map<UUID, String> estados = new HashMap<>();
+					while (rs.next()) {
+						estados.put(rs.getObject("alumno_id", UUID.class), rs.getString("estado"));
+					}
+					return estados;
+				}, cursoId, fecha);
+	}
+
+	private UUID idDe(UUID alumno, LocalDate fecha) {
+		return jdbcTemplate.queryForObject("SELECT id FROM asistencia WHERE curso_id = ? AND alumno_id = ? AND fecha = ?",
+				UUID.class, cursoId, alumno, fecha);
+	}
+
+	private static RegistroAsistenciaDTO registro(UUID alumno, LocalDate fecha, EstadoAsistencia estado) {
+		return new RegistroAsistenciaDTO(alumno, fecha, estado, null);
+	}
+}
@@ -0,0 +1,111 @@
+package com.infocurso.backend.service;
+
+import com.infocurso.backend.BaseDeDatosPrueba;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.RegisterExtension;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.http.HttpStatus;
+import org.springframework.mock.web.MockMultipartFile;
+import org.springframework.util.unit.DataSize;
+import org.springframework.web.server.ResponseStatusException;
+
+import javax.imageio.ImageIO;
+import javax.imageio.stream.ImageInputStream;
+import java.awt.image.BufferedImage;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.file.Path;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Generación en segundo plano de las variantes de un avatar y formato con el que se guarda.
+ */
+class AvatarServiceTest {
+
+	@RegisterExtension
+	static final BaseDeDatosPrueba bd = new BaseDeDatosPrueba();
+
+	@TempDir
+	Path raiz;
+
+	@Test
+	void generaUnaVariantePorTamanoYMientrasTantoSirveElOriginal() throws Exception {
+		AlmacenamientoService almacenamiento = new AlmacenamientoService(raiz.toString(),
+				bd.jdbcTemplate(), bd.transactionTemplate());
+		AvatarService avatares = new AvatarService(almacenamiento, List.of(300, 32, 64, 128), DataSize.ofMegabytes(10), 1, 10);
+		try {
+			String url = avatares.guardar(new MockMultipartFile("file", "foto.PNG", "image/png", png(600, 400)));
+			String nombre = url.substring("/uploads/avatars/".length());
+			assertTrue(nombre.matches("[0-9a-f]{64}\\.png"), url);
+			// Hasta que estén las variantes se sirve el original
+			assertTrue(avatares.buscar(nombre, 32, false).isPresent());
+
+			long limite = System.currentTimeMillis() + 10_000;
+			while (!avatares.buscar(nombre, 32, false).orElseThrow().definitivo()) {
+				assertTrue(System.currentTimeMillis() < limite, "Las variantes no se generaron a tiempo");
+				Thread.sleep(20);
+			}
+
+			BufferedImage variante = ImageIO.read(avatares.buscar(nombre, 50, false).orElseThrow().archivo().toFile());
+			assertEquals(64, variante.getWidth());
+			BufferedImage mayor = ImageIO.read(avatares.buscar(nombre, 1000, false).orElseThrow().archivo().toFile());
+			assertEquals(300, mayor.getWidth());
+			assertEquals(200, mayor.getHeight());
+		} finally {
+			avatares.detener();
+		}
+	}
+
+	@Test
+	void elFormatoSaleDelContenidoYLosDemasSeConviertenAPng() throws Exception {
+		AlmacenamientoService almacenamiento = new AlmacenamientoService(raiz.toString(),
+				bd.jdbcTemplate(), bd.transactionTemplate());
+		AvatarService avatares = new AvatarService(almacenamiento, List.of(32), DataSize.ofMegabytes(10), 1, 10);
+		try {
+			String gif = avatares.guardar(new MockMultipartFile("file", "animado.gif", "image/gif", imagen(40, 40, "gif")));
+			assertTrue(gif.endsWith(".png"), gif);
+			Path guardado = avatares.buscar(nombre(gif), null, false).orElseThrow().archivo();
+			assertEquals("png", formato(guardado));
+
+			// Un JPEG con extensión .png sigue siendo un JPEG
+			String jpeg = avatares.guardar(new MockMultipartFile("file", "foto.png", "image/png", imagen(40, 40, "jpg")));
+			assertTrue(jpeg.endsWith(".jpg"), jpeg);
+
+			ResponseStatusException error = assertThrows(ResponseStatusException.class, () -> avatares.guardar(
+					new MockMultipartFile("file", "foto.png", "image/png", "no es una imagen".getBytes())));
+			assertEquals(HttpStatus.UNSUPPORTED_MEDIA_TYPE, error.getStatusCode());
+		} finally {
+			avatares.detener();
+		}
+	}
+
+	private static String nombre(String url) {
+		return url.substring("/uploads/avatars/".length());
+	}
+
+	private static String formato(Path archivo) throws IOException {
+		try (ImageInputStream entrada = ImageIO.createImageInputStream(archivo.toFile())) {
+			return ImageIO.getImageReaders(entrada).next().getFormatName().toLowerCase();
+		}
+	}
+
+	private static byte[] png(int ancho, int alto) throws IOException {
+		return imagen(ancho, alto, "png");
+	}
+
+	private static byte[] imagen(int ancho, int alto, String formato) throws IOException {
+		BufferedImage imagen = new BufferedImage(ancho, alto, BufferedImage.TYPE_INT_RGB);
+		for (int x = 0; x < ancho; x++) {
+			for (int y = 0; y < alto; y++) {
+				imagen.setRGB(x, y, x * y);
+			}
+		}
+		ByteArrayOutputStream salida = new ByteArrayOutputStream();
+		ImageIO.write(imagen, formato, salida);
+		return salida.toByteArray();
+	}
+}
@@ -0,0 +1,155 @@
+package com.infocurso.backend.service;
+
+import com.infocurso.backend.BackendApplication;
+import com.infocurso.backend.BaseDeDatosPrueba;
+import com.infocurso.backend.dto.PaginaResultadosBusquedaDTO;
+import com.infocurso.backend.entity.Curso;
+import com.infocurso.backend.entity.Rol;
+import com.infocurso.backend.entity.Usuario;
+import com.infocurso.backend.repository.CursoRepository;
+import com.infocurso.backend.repository.UsuarioRepository;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Búsqueda en el chat de un curso con 1 000 000 de mensajes en la tabla, 100 000 en cada uno de diez
+ * cursos. Cada mensaje son doce palabras al azar de un vocabulario de 62, así que "examen" sale en
+ * casi uno de cada cinco y "compilador", que se añade a uno de cada mil, es raro. "anterior" es lo que
+ * haría la API sin índice de texto: un ILIKE sobre los mensajes del curso; "actual" es
+ * {@link BusquedaService#buscar} con la primera página de 20 resultados ordenados por relevancia y
+ * resaltados. Usa la aplicación entera sobre un PostgreSQL embebido; sembrar los mensajes tarda un
+ * par de minutos.
+ * <p>
+ * No se ejecuta con mvn test: {@code mvn test-compile} y lanzar {@link #main} con el classpath de test.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class BusquedaCursoBenchmark {
+
+	private static final int CURSOS = 10;
+	private static final int MENSAJES_POR_CURSO = 100_000;
+
+	private static final String SEMBRAR_MENSAJES = """
+			INSERT INTO mensaje_curso (id, contenido, fecha_envio, curso_id, emisor_id, secuencia)
+			SELECT gen_random_uuid(),
+			       array_to_string(ARRAY(
+			           SELECT p.palabras[1 + floor(random() * array_length(p.palabras, 1))::int]
+			           FROM generate_series(1, 12) WHERE g.i > 0), ' ')
+			           || CASE WHEN g.i % 1000 = 0 THEN ' compilador' ELSE '' END,
+			       timestamp '2026-09-01' + g.i * interval '10 seconds',
+			       ?, ?, g.i
+			FROM generate_series(1, ?) AS g(i),
+			     (SELECT string_to_array(?, ' ') AS palabras) p
+			""";
+
+	private static final String VOCABULARIO = "alumno profesor examen práctica entrega nota tema módulo unidad"
+			+ " clase horario duda pregunta respuesta ejercicio solución código programa función variable"
+			+ " bucle condición tarea objeto método herencia interfaz lista mapa cadena número fecha"
+			+ " proyecto equipo reunión tutoría apuntes libro enlace vídeo repaso resumen lunes martes"
+			+ " miércoles jueves viernes mañana tarde noche semana plazo revisión corrección error"
+			+ " arrancar ejecutar prueba servidor base datos consulta";
+
+	private static final String ILIKE_ANTERIOR = """
+			SELECT id, contenido, fecha_envio FROM mensaje_curso
+			WHERE curso_id = ? AND contenido ILIKE ?
+			ORDER BY fecha_envio DESC
+			LIMIT 20
+			""";
+
+	@Param({"compilador", "examen"})
+	public String termino;
+
+	private BaseDeDatosPrueba bd;
+	private ConfigurableApplicationContext contexto;
+	private BusquedaService busquedaService;
+	private JdbcTemplate jdbcTemplate;
+	private Usuario profesor;
+	private UUID cursoId;
+
+	@Setup
+	public void preparar() {
+		bd = new BaseDeDatosPrueba();
+		bd.crear();
+		contexto = new SpringApplicationBuilder(BackendApplication.class).run(
+				"--server.port=0",
+				"--spring.datasource.url=" + bd.jdbcUrl(),
+				"--spring.datasource.username=postgres",
+				"--spring.datasource.password=postgres",
+				"--spring.jpa.show-sql=false",
+				"--logging.level.root=WARN");
+		busquedaService = contexto.getBean(BusquedaService.class);
+		jdbcTemplate = contexto.getBean(JdbcTemplate.class);
+
+		profesor = contexto.getBean(UsuarioRepository.class).save(Usuario.builder()
+				.nombre("Profesor")
+				.email("benchmark-profesor@demo.com")
+				.passwordHash("x")
+				.rol(Rol.PROFESOR)
+				.build());
+		CursoRepository cursoRepository = contexto.getBean(CursoRepository.class);
+		for (int i = 0; i < CURSOS; i++) {
+			UUID id = cursoRepository.save(Curso.builder()
+					.nombre("Curso " + i)
+					.descripcion("Benchmark")
+					.profesor(profesor)
+					.build()).getId();
+			jdbcTemplate.update(SEMBRAR_MENSAJES, id, profesor.getId(), MENSAJES_POR_CURSO, VOCABULARIO);
+			if (i == 0) {
+				cursoId = id;
+			}
+		}
+		jdbcTemplate.execute("VACUUM ANALYZE mensaje_curso");
+
+		long[] coincidencias = jdbcTemplate.queryForObject("""
+				SELECT count(*) FILTER (WHERE busqueda @@ websearch_to_tsquery('spanish', 'compilador')),
+				       count(*) FILTER (WHERE busqueda @@ websearch_to_tsquery('spanish', 'examen'))
+				FROM mensaje_curso WHERE curso_id = ?
+				""", (rs, n) -> new long[]{rs.getLong(1), rs.getLong(2)}, cursoId);
+		System.out.printf("Mensajes en el curso buscado que coinciden: compilador %d, examen %d de %d%n",
+				coincidencias[0], coincidencias[1], MENSAJES_POR_CURSO);
+	}
+
+	@TearDown
+	public void parar() {
+		contexto.close();
+		bd.eliminar();
+	}
+
+	@Benchmark
+	public List<String> anterior() {
+		return jdbcTemplate.query(ILIKE_ANTERIOR, (rs, n) -> rs.getString("contenido"), cursoId, "%" + termino + "%");
+	}
+
+	@Benchmark
+	public PaginaResultadosBusquedaDTO actual() {
+		return busquedaService.buscar(cursoId, profesor, termino, 0, 20);
+	}
+
+	public static void main(String[] args) throws RunnerException {
+		new Runner(new OptionsBuilder().include(BusquedaCursoBenchmark.class.getSimpleName()).build()).run();
+	}
+}
@@ -0,0 +1,185 @@
+package com.infocurso.backend.service;
+
+import com.infocurso.backend.BaseDeDatosPrueba;
+import com.infocurso.backend.dto.PaginaResultadosBusquedaDTO;
+import com.infocurso.backend.dto.ResultadoBusquedaDTO;
+import com.infocurso.backend.entity.Rol;
+import com.infocurso.backend.entity.Usuario;
+import com.infocurso.backend.repository.AlumnoCursoRepository;
+import com.infocurso.backend.repository.CursoRepository;
+import com.infocurso.backend.repository.UsuarioRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.RegisterExtension;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.jdbc.AutoConfigureTestDatabase;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.security.access.AccessDeniedException;
+import org.springframework.test.context.DynamicPropertyRegistry;
+import org.springframework.test.context.DynamicPropertySource;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.UUID;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.Mockito.mock;
+
+/**
+ * Búsqueda en el contenido de un curso sobre PostgreSQL embebido: permisos, visibilidad de los
+ * eventos, fragmentos resaltados y paginación.
+ */
+@DataJpaTest
+@AutoConfigureTestDatabase(replace = AutoConfigureTestDatabase.Replace.NONE)
+class BusquedaServiceTest {
+
+	private static final LocalDateTime INICIO = LocalDateTime.of(2026, 10, 1, 9, 0);
+
+	@RegisterExtension
+	static final BaseDeDatosPrueba bd = new BaseDeDatosPrueba();
+
+	@DynamicPropertySource
+	static void baseDeDatos(DynamicPropertyRegistry registro) {
+		bd.registrar(registro);
+	}
+
+	@Autowired
+	private CursoRepository cursoRepository;
+	@Autowired
+	private AlumnoCursoRepository alumnoCursoRepository;
+	@Autowired
+	private UsuarioRepository usuarioRepository;
+	@Autowired
+	private JdbcTemplate jdbcTemplate;
+
+	private BusquedaService busqueda;
+	private UUID cursoId;
+	private Usuario profesor;
+	private Usuario alumno;
+
+	@BeforeEach
+	void preparar() {
+		busqueda = new BusquedaService(cursoRepository,
+				new AlumnoCursoService(alumnoCursoRepository, usuarioRepository, cursoRepository),
+				mock(WikiService.class), jdbcTemplate);
+
+		profesor = usuario("Marta", Rol.PROFESOR);
+		alumno = usuario("Ana", Rol.ALUMNO);
+		cursoId = BaseDeDatosPrueba.curso(jdbcTemplate, "Curso", profesor.getId());
+		jdbcTemplate.update("INSERT INTO alumno_curso (id, curso_id, alumno_id) VALUES (?, ?, ?)",
+				UUID.randomUUID(), cursoId, alumno.getId());
+	}
+
+	@Test
+	void soloBuscanLosAlumnosInscritosYElProfesorDelCurso() {
+		mensaje("El examen es el lunes", INICIO);
+		Usuario otroAlumno = usuario("Luis", Rol.ALUMNO);
+		Usuario otroProfesor = usuario("Pedro", Rol.PROFESOR);
+
+		assertThrows(AccessDeniedException.class, () -> busqueda.buscar(cursoId, otroAlumno, "examen", null, null));
+		assertThrows(AccessDeniedException.class, () -> busqueda.buscar(cursoId, otroProfesor, "examen", null, null));
+		assertEquals(1, busqueda.buscar(cursoId, alumno, "examen", null, null).resultados().size());
+		assertEquals(1, busqueda.buscar(cursoId, profesor, "examen", null, null).resultados().size());
+	}
+
+	@Test
+	void losAlumnosNoVenLosEventosDelProfesor() {
+		UUID paraTodos = evento("Reunión de tutoría", "TODOS");
+		UUID claustro = evento("Reunión de evaluación", "PROFESOR");
+
+		List<UUID> delAlumno = ids(busqueda.buscar(cursoId, alumno, "reunión", null, null));
+		List<UUID> delProfesor = ids(busqueda.buscar(cursoId, profesor, "reunión", null, null));
+
+		assertEquals(List.of(paraTodos), delAlumno);
+		assertEquals(new HashSet<>(List.of(paraTodos, claustro)), new HashSet<>(delProfesor));
+	}
+
+	@Test
+	void elFragmentoEscapaElTextoDelUsuarioYConservaLasMarcas() {
+		// texto_busqueda quita las etiquetas completas; lo que queda se escapa antes de poner las marcas
+		mensaje("<script>alert('examen')</script> Si 3 < 4 & el examen es \"fácil\" seguro", INICIO);
+
+		String fragmento = busqueda.buscar(cursoId, alumno, "examen", null, null).resultados().get(0).fragmento();
+
+		assertTrue(fragmento.contains("alert(&#39;<mark>examen</mark>&#39;)"), fragmento);
+		assertTrue(fragmento.contains("3 &lt; 4 &amp;"), fragmento);
+		assertTrue(fragmento.contains("&quot;fácil&quot;"), fragmento);
+		assertFalse(fragmento.replace("<mark>", "").replace("</mark>", "").contains("<"), fragmento);
+	}
+
+	@Test
+	void buscaEnElTextoDeLosDocumentosDelEditor() {
+		UUID practica = UUID.randomUUID();
+		jdbcTemplate.update("INSERT INTO practica (id, titulo, descripcion, fecha_entrega, curso_id) VALUES (?, ?, ?, ?, ?)",
+				practica, "Práctica 1", """
+						{"time": 1, "blocks": [
+						  {"type": "header", "data": {"text": "Enunciado", "level": 2}},
+						  {"type": "paragraph", "data": {"text": "Entrega del <b>proyecto</b> final"}},
+						  {"type": "list", "data": {"items": ["Memoria", "Código"]}}
+						]}
+						""", INICIO, cursoId);
+
+		List<ResultadoBusquedaDTO> proyecto = busqueda.buscar(cursoId, alumno, "proyecto", null, null).resultados();
+		List<ResultadoBusquedaDTO> memoria = busqueda.buscar(cursoId, alumno, "memoria", null, null).resultados();
+
+		assertEquals(List.of(practica), proyecto.stream().map(ResultadoBusquedaDTO::id).toList());
+		assertTrue(proyecto.get(0).fragmento().contains("<mark>proyecto</mark>"), proyecto.get(0).fragmento());
+		assertFalse(proyecto.get(0).fragmento().contains("blocks"), proyecto.get(0).fragmento());
+		assertEquals(1, memoria.size());
+		// Las claves del JSON no se indexan
+		assertTrue(busqueda.buscar(cursoId, alumno, "paragraph", null, null).resultados().isEmpty());
+	}
+
+	@Test
+	void recorreLasPaginasHastaQueNoHayMas() {
+		List<UUID> enviados = new ArrayList<>();
+		for (int i = 0; i < 5; i++) {
+			enviados.add(mensaje("Dudas sobre el examen " + i, INICIO.plusMinutes(i)));
+		}
+		mensaje("Otro tema", INICIO);
+
+		List<UUID> recibidos = new ArrayList<>();
+		PaginaResultadosBusquedaDTO pagina;
+		int numero = 0;
+		do {
+			pagina = busqueda.buscar(cursoId, alumno, "examen", numero++, 2);
+			assertEquals(numero < 3 ? 2 : 1, pagina.resultados().size());
+			recibidos.addAll(ids(pagina));
+		} while (pagina.hayMas());
+
+		assertEquals(3, numero);
+		assertEquals(5, new HashSet<>(recibidos).size());
+		assertEquals(new HashSet<>(enviados), new HashSet<>(recibidos));
+	}
+
+	private static List<UUID> ids(PaginaResultadosBusquedaDTO pagina) {
+		return pagina.resultados().stream().map(ResultadoBusquedaDTO::id).toList();
+	}
+
+	private UUID mensaje(String contenido, LocalDateTime fecha) {
+		UUID id = UUID.randomUUID();
+		jdbcTemplate.update("INSERT INTO mensaje_curso (id, contenido, fecha_envio, curso_id, emisor_id) VALUES (?, ?, ?, ?, ?)",
+				id, contenido, fecha, cursoId, alumno.getId());
+		return id;
+	}
+
+	private UUID evento(String titulo, String visiblePara) {
+		UUID id = UUID.randomUUID();
+		jdbcTemplate.update("INSERT INTO evento_curso (id, titulo, tipo, fecha, visible_para, curso_id, autor_id)"
+						+ " VALUES (?, ?, 'REUNION', ?, ?, ?, ?)",
+				id, titulo, LocalDate.of(2026, 10, 20), visiblePara, cursoId, profesor.getId());
+		return id;
+	}
+
+	private Usuario usuario(String nombre, Rol rol) {
+		UUID id = BaseDeDatosPrueba.usuario(jdbcTemplate, nombre, rol.name());
+		return Usuario.builder().id(id).nombre(nombre).email(id + "@demo.com").rol(rol).build();
+	}
+}
@@ -0,0 +1,135 @@
+package com.infocurso.backend.service;
+
+import com.infocurso.backend.BaseDeDatosPrueba;
+import com.infocurso.backend.dto.EntradaCalendarioDTO;
+import com.infocurso.backend.entity.Rol;
+import com.infocurso.backend.entity.Usuario;
+import com.infocurso.backend.repository.CursoRepository;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.RegisterExtension;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.security.access.AccessDeniedException;
+import org.springframework.web.server.ResponseStatusException;
+
+import java.time.Duration;
+import java.time.LocalDate;
+import java.util.List;
+import java.util.UUID;
+
+import static com.infocurso.backend.BaseDeDatosPrueba.curso;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+/**
+ * Calendario de varios cursos sobre una base de datos embebida: mezcla y orden de las fechas,
+ * visibilidad de los eventos por rol, recorte al rango pedido e invalidación de la caché.
+ */
+class CalendarioServiceTest {
+
+	private static final LocalDate OCTUBRE = LocalDate.of(2026, 10, 1);
+
+	@RegisterExtension
+	static final BaseDeDatosPrueba bd = new BaseDeDatosPrueba();
+
+	private static JdbcTemplate jdbcTemplate;
+	private static CalendarioService calendario;
+	private static Usuario alumno;
+	private static Usuario profesor;
+	private static UUID java;
+	private static UUID redes;
+
+	@BeforeAll
+	static void preparar() {
+		jdbcTemplate = bd.jdbcTemplate();
+
+		alumno = Usuario.builder().id(UUID.randomUUID()).rol(Rol.ALUMNO).build();
+		profesor = Usuario.builder().id(UUID.randomUUID()).rol(Rol.PROFESOR).build();
+		java = curso(jdbcTemplate, "Java", null);
+		redes = curso(jdbcTemplate, "Redes", null);
+		UUID ajeno = curso(jdbcTemplate, "Bases de datos", null);
+
+		CursoRepository cursoRepository = mock(CursoRepository.class);
+		when(cursoRepository.findIdsByAlumnoId(alumno.getId())).thenReturn(List.of(java, redes));
+		when(cursoRepository.findIdsByProfesorId(profesor.getId())).thenReturn(List.of(java));
+		calendario = new CalendarioService(cursoRepository, jdbcTemplate, 100, Duration.ofMinutes(5));
+
+		evento(java, "Presentación", OCTUBRE.plusDays(4), "TODOS");
+		evento(java, "Claustro", OCTUBRE.plusDays(4), "PROFESOR");
+		evento(java, "Fuera de rango", OCTUBRE.plusMonths(2), "ALUMNO");
+		evento(ajeno, "De otro curso", OCTUBRE.plusDays(5), "TODOS");
+		jdbcTemplate.update("INSERT INTO examen (id, titulo, fecha, tipo, puntuacion_maxima, curso_id)"
+						+ " VALUES (?, ?, ?, 'PARCIAL', 10, ?)",
+				UUID.randomUUID(), "Parcial", OCTUBRE.plusDays(9).atTime(9, 0), redes);
+		jdbcTemplate.update("INSERT INTO practica (id, titulo, fecha_entrega, curso_id) VALUES (?, ?, ?, ?)",
+				UUID.randomUUID(), "Sockets", OCTUBRE.plusDays(4).atTime(23, 59), redes);
+		// Empieza antes del rango y termina dentro: tiene que salir
+		UUID modulo = UUID.randomUUID();
+		jdbcTemplate.update("INSERT INTO modulo (id, nombre, fecha_inicio, fecha_fin, curso_id) VALUES (?, ?, ?, ?, ?)",
+				modulo, "Programación", OCTUBRE.minusMonths(1), OCTUBRE.plusDays(14), java);
+		jdbcTemplate.update("INSERT INTO unidad_formativa (id, nombre, fecha_inicio, fecha_fin, modulo_id)"
+						+ " VALUES (?, ?, ?, ?, ?)",
+				UUID.randomUUID(), "Colecciones", OCTUBRE.plusDays(20), OCTUBRE.plusDays(30), modulo);
+	}
+
+	@Test
+	void mezclaLasFechasDeTodosLosCursosDelAlumnoEnOrden() {
+		List<EntradaCalendarioDTO> entradas = calendario.getCalendario(alumno, null, OCTUBRE, OCTUBRE.plusDays(15));
+
+		assertEquals(List.of("Programación", "Presentación", "Sockets", "Parcial"), titulos(entradas));
+		EntradaCalendarioDTO parcial = entradas.get(3);
+		assertEquals("EXAMEN", parcial.tipo());
+		assertEquals("PARCIAL", parcial.detalle());
+		assertEquals("Redes", parcial.cursoNombre());
+		assertEquals(OCTUBRE.plusDays(9).atTime(9, 0), parcial.inicio());
+
+		// La unidad empieza el día 21 y el rango acaba ese mismo día
+		assertEquals(List.of("Colecciones"),
+				titulos(calendario.getCalendario(alumno, List.of(java), OCTUBRE.plusDays(20), OCTUBRE.plusDays(20))));
+	}
+
+	@Test
+	void cadaRolVeLosEventosDirigidosAEl() {
+		List<EntradaCalendarioDTO> entradas = calendario.getCalendario(profesor, List.of(java),
+				OCTUBRE.plusDays(4), OCTUBRE.plusDays(4));
+
+		assertEquals(List.of("Programación", "Claustro", "Presentación"), titulos(entradas));
+	}
+
+	@Test
+	void recargaElCursoAlInvalidarlo() {
+		LocalDate dia = OCTUBRE.plusDays(25);
+		assertEquals(List.of("Colecciones"), titulos(calendario.getCalendario(alumno, List.of(java), dia, dia)));
+
+		jdbcTemplate.update("INSERT INTO examen (id, titulo, fecha, tipo, puntuacion_maxima, curso_id)"
+						+ " VALUES (?, ?, ?, 'FINAL', 10, ?)",
+				UUID.randomUUID(), "Final", dia.atTime(10, 0), java);
+		assertEquals(List.of("Colecciones"), titulos(calendario.getCalendario(alumno, List.of(java), dia, dia)));
+
+		calendario.invalidar(java);
+		assertEquals(List.of("Colecciones", "Final"),
+				titulos(calendario.getCalendario(alumno, List.of(java), dia, dia)));
+	}
+
+	@Test
+	void rechazaCursosAjenosYRangosNoValidos() {
+		assertThrows(AccessDeniedException.class,
+				() -> calendario.getCalendario(profesor, List.of(java, redes), OCTUBRE, OCTUBRE));
+		assertThrows(ResponseStatusException.class,
+				() -> calendario.getCalendario(alumno, null, OCTUBRE, OCTUBRE.minusDays(1)));
+		assertThrows(ResponseStatusException.class,
+				() -> calendario.getCalendario(alumno, null, OCTUBRE, OCTUBRE.plusYears(2)));
+	}
+
+	private static List<String> titulos(List<EntradaCalendarioDTO> entradas) {
+		return entradas.stream().map(EntradaCalendarioDTO::titulo).toList();
+	}
+
+	private static void evento(UUID cursoId, String titulo, LocalDate fecha, String visiblePara) {
+		jdbcTemplate.update("INSERT INTO evento_curso (id, titulo, tipo, fecha, visible_para, curso_id)"
+						+ " VALUES (?, ?, 'OTRO', ?, ?, ?)",
+				UUID.randomUUID(), titulo, fecha, visiblePara, cursoId);
+	}
+}
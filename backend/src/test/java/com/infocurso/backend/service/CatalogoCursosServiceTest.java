@@ -0,0 +1,114 @@
+package com.infocurso.backend.service;
+
+import com.infocurso.backend.BaseDeDatosPrueba;
+import com.infocurso.backend.dto.CursoResumenDTO;
+import com.infocurso.backend.dto.PaginaCursosDTO;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.RegisterExtension;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.web.server.ResponseStatusException;
+
+import java.time.LocalDate;
+import java.util.List;
+import java.util.UUID;
+
+import static com.infocurso.backend.BaseDeDatosPrueba.curso;
+import static com.infocurso.backend.BaseDeDatosPrueba.usuario;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+/**
+ * Catálogo de cursos sobre una base de datos embebida: cuentas por curso, próximo evento, orden,
+ * filtro y paginación.
+ */
+class CatalogoCursosServiceTest {
+
+	@RegisterExtension
+	static final BaseDeDatosPrueba bd = new BaseDeDatosPrueba();
+
+	private static JdbcTemplate jdbcTemplate;
+	private static CatalogoCursosService catalogo;
+
+	@BeforeAll
+	static void preparar() {
+		jdbcTemplate = bd.jdbcTemplate();
+		catalogo = new CatalogoCursosService(jdbcTemplate);
+
+		UUID profesora = usuario(jdbcTemplate, "Marta Ruiz", "PROFESOR");
+		UUID profesor = usuario(jdbcTemplate, "Luis Gil", "PROFESOR");
+		UUID java = curso(jdbcTemplate, "Java", profesora);
+		UUID redes = curso(jdbcTemplate, "Redes 100%", profesor);
+		curso(jdbcTemplate, "Bases de datos", null);
+		for (int i = 0; i < 3; i++) {
+			jdbcTemplate.update("INSERT INTO curso_alumnos (curso_id, alumno_id) VALUES (?, ?)",
+					java, usuario(jdbcTemplate, "Alumno " + i, "ALUMNO"));
+		}
+		jdbcTemplate.update("INSERT INTO curso_alumnos (curso_id, alumno_id) VALUES (?, ?)",
+				redes, usuario(jdbcTemplate, "Alumno redes", "ALUMNO"));
+		for (int i = 0; i < 2; i++) {
+			jdbcTemplate.update("INSERT INTO practica (id, titulo, curso_id) VALUES (?, ?, ?)",
+					UUID.randomUUID(), "Práctica " + i, java);
+			jdbcTemplate.update("INSERT INTO modulo (id, nombre, curso_id, orden_modulo) VALUES (?, ?, ?, ?)",
+					UUID.randomUUID(), "Módulo " + i, java, i);
+		}
+		LocalDate hoy = LocalDate.now();
+		evento(java, "Examen pasado", hoy.minusDays(3));
+		evento(java, "Entrega final", hoy.plusDays(10));
+		evento(java, "Examen parcial", hoy.plusDays(2));
+	}
+
+	@Test
+	void cuentaLasColeccionesYEligeElProximoEvento() {
+		PaginaCursosDTO pagina = catalogo.buscar(null, null, null, null);
+
+		assertEquals(3, pagina.total());
+		assertEquals(List.of("Bases de datos", "Java", "Redes 100%"), nombres(pagina));
+		CursoResumenDTO java = pagina.cursos().get(1);
+		assertEquals("Marta Ruiz", java.profesorNombre());
+		assertEquals(3, java.totalAlumnos());
+		assertEquals(2, java.totalPracticas());
+		assertEquals(2, java.totalModulos());
+		assertEquals("Examen parcial", java.proximoEventoTitulo());
+		assertEquals(LocalDate.now().plusDays(2), java.proximoEventoFecha());
+		CursoResumenDTO bases = pagina.cursos().get(0);
+		assertNull(bases.profesorNombre());
+		assertEquals(0, bases.totalAlumnos());
+		assertNull(bases.proximoEventoFecha());
+	}
+
+	@Test
+	void ordenaPaginaYFiltra() {
+		assertEquals(List.of("Java", "Redes 100%", "Bases de datos"),
+				nombres(catalogo.buscar(null, null, "alumnos,desc", null)));
+		// Los cursos sin profesor van al final en los dos sentidos
+		assertEquals(List.of("Redes 100%", "Java", "Bases de datos"),
+				nombres(catalogo.buscar(null, null, "profesor", null)));
+
+		PaginaCursosDTO segunda = catalogo.buscar(1, 2, "nombre", null);
+		assertEquals(List.of("Redes 100%"), nombres(segunda));
+		assertEquals(3, segunda.total());
+		assertEquals(List.of(), nombres(catalogo.buscar(5, 2, null, null)));
+
+		// Por curso o por profesor, sin distinguir mayúsculas; el % se busca literal
+		assertEquals(List.of("Java"), nombres(catalogo.buscar(null, null, null, "marta")));
+		assertEquals(List.of("Redes 100%"), nombres(catalogo.buscar(null, null, null, "0%")));
+		assertEquals(1, catalogo.buscar(null, null, null, "0%").total());
+	}
+
+	@Test
+	void rechazaUnOrdenDesconocido() {
+		assertThrows(ResponseStatusException.class, () -> catalogo.buscar(null, null, "c.id; DROP TABLE curso", null));
+		assertThrows(ResponseStatusException.class, () -> catalogo.buscar(null, null, "nombre,arriba", null));
+	}
+
+	private static List<String> nombres(PaginaCursosDTO pagina) {
+		return pagina.cursos().stream().map(CursoResumenDTO::nombre).toList();
+	}
+
+	private static void evento(UUID cursoId, String titulo, LocalDate fecha) {
+		jdbcTemplate.update("INSERT INTO evento_curso (id, titulo, fecha, curso_id) VALUES (?, ?, ?, ?)",
+				UUID.randomUUID(), titulo, fecha, cursoId);
+	}
+}
@@ -0,0 +1,324 @@
+package com.infocurso.backend.service;
+
+import com.infocurso.backend.BaseDeDatosPrueba;
+import com.infocurso.backend.dto.CursorMensajeDTO;
+import com.infocurso.backend.dto.LecturaMensajesCursoDTO;
+import com.infocurso.backend.dto.MensajeCursoDTO;
+import com.infocurso.backend.dto.PaginaMensajesCursoDTO;
+import com.infocurso.backend.entity.Usuario;
+import com.infocurso.backend.repository.MensajeCursoLeidoRepository;
+import com.infocurso.backend.repository.MensajeCursoRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.RegisterExtension;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.jdbc.AutoConfigureTestDatabase;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.http.HttpStatus;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.messaging.simp.SimpMessagingTemplate;
+import org.springframework.test.context.DynamicPropertyRegistry;
+import org.springframework.test.context.DynamicPropertySource;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
+import org.springframework.web.server.ResponseStatusException;
+
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Base64;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.UUID;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.function.Consumer;
+
+import static com.infocurso.backend.BaseDeDatosPrueba.curso;
+import static com.infocurso.backend.BaseDeDatosPrueba.usuario;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.Mockito.mock;
+
+/**
+ * Chat de curso sobre PostgreSQL embebido: historial por cursor en las dos direcciones y contadores
+ * de no leídos. Las pruebas de no leídos escriben con el hilo real de EscrituraMensajesCursoService,
+ * que usa sus propias transacciones, así que no corren dentro de la transacción de la prueba.
+ */
+@DataJpaTest
+@AutoConfigureTestDatabase(replace = AutoConfigureTestDatabase.Replace.NONE)
+class ChatCursoServiceTest {
+
+	private static final LocalDateTime INICIO = LocalDateTime.of(2026, 10, 1, 9, 0);
+
+	@RegisterExtension
+	static final BaseDeDatosPrueba bd = new BaseDeDatosPrueba();
+
+	@DynamicPropertySource
+	static void baseDeDatos(DynamicPropertyRegistry registro) {
+		bd.registrar(registro);
+	}
+
+	@Autowired
+	private MensajeCursoRepository mensajeCursoRepository;
+
+	@Autowired
+	private MensajeCursoLeidoRepository leidoRepository;
+
+	@Autowired
+	private JdbcTemplate jdbcTemplate;
+
+	@Autowired
+	private TransactionTemplate transactionTemplate;
+
+	private ChatCursoService chat;
+	private UUID cursoId;
+	private UUID alumnoId;
+
+	@BeforeEach
+	void preparar() {
+		chat = new ChatCursoService(leidoRepository, mensajeCursoRepository,
+				mock(EscrituraMensajesCursoService.class), mock(SimpMessagingTemplate.class));
+		alumnoId = usuario(jdbcTemplate, "Ana");
+		cursoId = curso(jdbcTemplate);
+	}
+
+	@Test
+	void recorreElHistorialHaciaAtrasSinHuecosNiRepetidos() {
+		// Dos mensajes con la misma fecha: solo el id los separa y caen en páginas distintas
+		List<UUID> enviados = new ArrayList<>();
+		for (int i = 0; i < 7; i++) {
+			enviados.add(mensaje(cursoId, INICIO.plusMinutes(i == 4 ? 3 : i)));
+		}
+		List<UUID> esperados = ordenados(enviados);
+
+		PaginaMensajesCursoDTO pagina = chat.obtenerHistorial(cursoId, null, null, 3);
+		List<UUID> recibidos = new ArrayList<>(ids(pagina));
+		while (pagina.hayAnteriores()) {
+			pagina = chat.obtenerHistorial(cursoId, pagina.cursorAnterior(), null, 3);
+			recibidos.addAll(0, ids(pagina));
+			assertTrue(pagina.hayPosteriores());
+		}
+
+		assertEquals(esperados, recibidos);
+	}
+
+	@Test
+	void recorreElHistorialHaciaDelanteDesdeElPrimerMensaje() {
+		List<UUID> enviados = new ArrayList<>();
+		for (int i = 0; i < 5; i++) {
+			enviados.add(mensaje(cursoId, INICIO.plusMinutes(i < 3 ? 0 : i)));
+		}
+		List<UUID> esperados = ordenados(enviados);
+		MensajeCursoDTO primero = chat.obtenerHistorial(cursoId, null, null, 5).mensajes().get(0);
+
+		List<UUID> recibidos = new ArrayList<>(List.of(primero.getId()));
+		PaginaMensajesCursoDTO pagina;
+		String cursor = CursorMensajeDTO.from(primero).codificar();
+		do {
+			pagina = chat.obtenerHistorial(cursoId, null, cursor, 2);
+			recibidos.addAll(ids(pagina));
+			cursor = pagina.cursorPosterior();
+		} while (pagina.hayPosteriores());
+
+		assertEquals(esperados, recibidos);
+		assertTrue(pagina.hayAnteriores());
+	}
+
+	@Test
+	void limitaElTamanoDeLaPagina() {
+		for (int i = 0; i < ChatCursoService.TAMANO_PAGINA_MAXIMO + 5; i++) {
+			mensaje(cursoId, INICIO.plusSeconds(i));
+		}
+
+		PaginaMensajesCursoDTO grande = chat.obtenerHistorial(cursoId, null, null, 10_000);
+		PaginaMensajesCursoDTO porDefecto = chat.obtenerHistorial(cursoId, null, null, null);
+		PaginaMensajesCursoDTO minima = chat.obtenerHistorial(cursoId, null, null, 0);
+
+		assertEquals(ChatCursoService.TAMANO_PAGINA_MAXIMO, grande.mensajes().size());
+		assertTrue(grande.hayAnteriores());
+		assertEquals(ChatCursoService.TAMANO_PAGINA_POR_DEFECTO, porDefecto.mensajes().size());
+		assertEquals(1, minima.mensajes().size());
+	}
+
+	@Test
+	void noMezclaMensajesDeOtrosCursos() {
+		UUID propio = mensaje(cursoId, INICIO);
+		mensaje(curso(jdbcTemplate), INICIO);
+
+		PaginaMensajesCursoDTO pagina = chat.obtenerHistorial(cursoId, null, null, null);
+
+		assertEquals(List.of(propio), ids(pagina));
+		assertFalse(pagina.hayAnteriores());
+		assertFalse(pagina.hayPosteriores());
+	}
+
+	@Test
+	void rechazaCursoresNoValidos() {
+		String sinId = Base64.getUrlEncoder().encodeToString("2026-10-01T09:00|no-es-uuid".getBytes(StandardCharsets.UTF_8));
+		String valido = new CursorMensajeDTO(INICIO, UUID.randomUUID()).codificar();
+
+		for (String cursor : List.of("%%%", sinId)) {
+			ResponseStatusException error = assertThrows(ResponseStatusException.class,
+					() -> chat.obtenerHistorial(cursoId, cursor, null, null));
+			assertEquals(HttpStatus.BAD_REQUEST, error.getStatusCode());
+		}
+		ResponseStatusException ambos = assertThrows(ResponseStatusException.class,
+				() -> chat.obtenerHistorial(cursoId, valido, valido, null));
+		assertEquals(HttpStatus.BAD_REQUEST, ambos.getStatusCode());
+	}
+
+	@Test
+	@Transactional(propagation = Propagation.NOT_SUPPORTED)
+	void losMensajesPropiosNoCuentanComoNoLeidos() {
+		Usuario ana = autor(alumnoId, "Ana");
+		Usuario luis = autor(usuario(jdbcTemplate, "Luis"), "Luis");
+
+		escribir(chat -> {
+			for (int i = 0; i < 3; i++) {
+				chat.enviarMensajeCurso(cursoId, ana, "de Ana " + i);
+			}
+			for (int i = 0; i < 2; i++) {
+				chat.enviarMensajeCurso(cursoId, luis, "de Luis " + i);
+			}
+		});
+
+		assertEquals(2, chat.getNumeroMensajesNoLeidos(cursoId, ana.getId()));
+		assertEquals(3, chat.getNumeroMensajesNoLeidos(cursoId, luis.getId()));
+		// Quien no ha escrito ni leído nada tiene todos pendientes
+		assertEquals(5, chat.getNumeroMensajesNoLeidos(cursoId, usuario(jdbcTemplate, "Eva")));
+	}
+
+	@Test
+	@Transactional(propagation = Propagation.NOT_SUPPORTED)
+	void marcarComoLeidosPoneElContadorACeroHastaElSiguienteMensaje() {
+		Usuario ana = autor(alumnoId, "Ana");
+		Usuario luis = autor(usuario(jdbcTemplate, "Luis"), "Luis");
+		escribir(chat -> {
+			chat.enviarMensajeCurso(cursoId, ana, "uno");
+			chat.enviarMensajeCurso(cursoId, ana, "dos");
+			chat.enviarMensajeCurso(cursoId, luis, "tres");
+		});
+
+		assertEquals(Optional.of(new LecturaMensajesCursoDTO(0, 3)), chat.marcarMensajesComoLeidos(cursoId, luis.getId()));
+		assertEquals(0, chat.getNumeroMensajesNoLeidos(cursoId, luis.getId()));
+
+		escribir(chat -> {
+			chat.enviarMensajeCurso(cursoId, ana, "cuatro");
+			chat.enviarMensajeCurso(cursoId, luis, "cinco");
+		});
+
+		assertEquals(1, chat.getNumeroMensajesNoLeidos(cursoId, luis.getId()));
+		assertEquals(2, chat.getNumeroMensajesNoLeidos(cursoId, ana.getId()));
+		assertEquals(Optional.of(new LecturaMensajesCursoDTO(0, 5)), chat.marcarMensajesComoLeidos(cursoId, ana.getId()));
+		assertEquals(Optional.of(new LecturaMensajesCursoDTO(3, 5)), chat.marcarMensajesComoLeidos(cursoId, luis.getId()));
+		assertEquals(0, chat.getNumeroMensajesNoLeidos(cursoId, ana.getId()));
+		// Un curso sin mensajes no tiene nada que marcar
+		assertEquals(Optional.empty(), chat.marcarMensajesComoLeidos(curso(jdbcTemplate), ana.getId()));
+	}
+
+	@Test
+	@Transactional(propagation = Propagation.NOT_SUPPORTED)
+	void losEnviosConcurrentesCuentanCadaMensajeUnaVez() throws Exception {
+		List<Usuario> autores = List.of(autor(alumnoId, "Ana"), autor(usuario(jdbcTemplate, "Luis"), "Luis"),
+				autor(usuario(jdbcTemplate, "Eva"), "Eva"));
+		int porHilo = 40;
+
+		escribir(chat -> {
+			ExecutorService hilos = Executors.newFixedThreadPool(6);
+			try {
+				List<Future<?>> envios = new ArrayList<>();
+				for (int h = 0; h < 6; h++) {
+					Usuario autor = autores.get(h % autores.size());
+					envios.add(hilos.submit(() -> {
+						for (int i = 0; i < porHilo; i++) {
+							chat.enviarMensajeCurso(cursoId, autor, "mensaje " + i);
+						}
+					}));
+				}
+				for (Future<?> envio : envios) {
+					envio.get();
+				}
+			} catch (Exception e) {
+				throw new IllegalStateException(e);
+			} finally {
+				hilos.shutdown();
+			}
+		});
+
+		int total = 6 * porHilo;
+		assertEquals(total, jdbcTemplate.queryForObject(
+				"SELECT COUNT(DISTINCT secuencia) FROM mensaje_curso WHERE curso_id = ?", Integer.class, cursoId));
+		for (Usuario autor : autores) {
+			assertEquals(total - 2 * porHilo, chat.getNumeroMensajesNoLeidos(cursoId, autor.getId()));
+		}
+	}
+
+	@Test
+	@Transactional(propagation = Propagation.NOT_SUPPORTED)
+	void losNoLeidosPorCursoIncluyenLasDosTablasDeMatriculaYLosCursosDelProfesor() {
+		Usuario luis = autor(usuario(jdbcTemplate, "Luis"), "Luis");
+		UUID inscrito = cursoId;
+		UUID matriculado = curso(jdbcTemplate);
+		UUID comoProfesor = curso(jdbcTemplate);
+		UUID sinMensajes = curso(jdbcTemplate);
+		UUID ajeno = curso(jdbcTemplate);
+		jdbcTemplate.update("INSERT INTO alumno_curso (id, curso_id, alumno_id) VALUES (?, ?, ?)",
+				UUID.randomUUID(), inscrito, alumnoId);
+		jdbcTemplate.update("INSERT INTO curso_alumnos (curso_id, alumno_id) VALUES (?, ?)", matriculado, alumnoId);
+		jdbcTemplate.update("INSERT INTO curso_alumnos (curso_id, alumno_id) VALUES (?, ?)", sinMensajes, alumnoId);
+		jdbcTemplate.update("UPDATE curso SET profesor_id = ? WHERE id = ?", alumnoId, comoProfesor);
+
+		escribir(chat -> {
+			chat.enviarMensajeCurso(inscrito, luis, "uno");
+			chat.enviarMensajeCurso(matriculado, luis, "uno");
+			chat.enviarMensajeCurso(matriculado, luis, "dos");
+			chat.enviarMensajeCurso(comoProfesor, luis, "uno");
+			chat.enviarMensajeCurso(ajeno, luis, "uno");
+		});
+
+		assertEquals(Map.of(inscrito, 1L, matriculado, 2L, comoProfesor, 1L, sinMensajes, 0L),
+				chat.getMensajesNoLeidosPorCurso(alumnoId));
+	}
+
+	// Envía con el hilo de escritura real y espera a que todo esté guardado
+	private void escribir(Consumer<ChatCursoService> envios) {
+		EscrituraMensajesCursoService escritura = new EscrituraMensajesCursoService(jdbcTemplate, transactionTemplate,
+				mock(SimpMessagingTemplate.class), 1000, 50, Duration.ofSeconds(1));
+		escritura.start();
+		try {
+			envios.accept(new ChatCursoService(leidoRepository, mensajeCursoRepository, escritura,
+					mock(SimpMessagingTemplate.class)));
+		} finally {
+			escritura.stop();
+		}
+	}
+
+	private static Usuario autor(UUID id, String nombre) {
+		return Usuario.builder().id(id).nombre(nombre).build();
+	}
+
+	// Orden del historial: fecha y, con la misma fecha, id
+	private List<UUID> ordenados(List<UUID> ids) {
+		return jdbcTemplate.queryForList(
+				"SELECT id FROM mensaje_curso WHERE id = ANY (?) ORDER BY fecha_envio, id", UUID.class,
+				(Object) ids.toArray(UUID[]::new));
+	}
+
+	private static List<UUID> ids(PaginaMensajesCursoDTO pagina) {
+		return pagina.mensajes().stream().map(MensajeCursoDTO::getId).toList();
+	}
+
+	private UUID mensaje(UUID curso, LocalDateTime fecha) {
+		UUID id = UUID.randomUUID();
+		jdbcTemplate.update("INSERT INTO mensaje_curso (id, contenido, fecha_envio, curso_id, emisor_id) VALUES (?, ?, ?, ?, ?)",
+				id, "mensaje " + id, fecha, curso, alumnoId);
+		return id;
+	}
+}
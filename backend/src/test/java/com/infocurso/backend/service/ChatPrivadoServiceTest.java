@@ -0,0 +1,176 @@
+package com.infocurso.backend.service;
+
+import com.infocurso.backend.BaseDeDatosPrueba;
+import com.infocurso.backend.dto.ConversacionDTO;
+import com.infocurso.backend.dto.CursorMensajePrivadoDTO;
+import com.infocurso.backend.dto.MensajeDTO;
+import com.infocurso.backend.dto.PaginaMensajesPrivadosDTO;
+import com.infocurso.backend.entity.Mensaje;
+import com.infocurso.backend.repository.MensajeRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.RegisterExtension;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.jdbc.AutoConfigureTestDatabase;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.DynamicPropertyRegistry;
+import org.springframework.test.context.DynamicPropertySource;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.ThreadLocalRandom;
+
+import static com.infocurso.backend.BaseDeDatosPrueba.usuario;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Mensajes privados sobre PostgreSQL embebido: historial por cursor, no leídos por conversación y
+ * vista previa del último mensaje en la bandeja.
+ */
+@DataJpaTest
+@AutoConfigureTestDatabase(replace = AutoConfigureTestDatabase.Replace.NONE)
+class ChatPrivadoServiceTest {
+
+	private static final LocalDateTime INICIO = LocalDateTime.of(2026, 10, 1, 9, 0);
+
+	@RegisterExtension
+	static final BaseDeDatosPrueba bd = new BaseDeDatosPrueba();
+
+	@DynamicPropertySource
+	static void baseDeDatos(DynamicPropertyRegistry registro) {
+		bd.registrar(registro);
+	}
+
+	@Autowired
+	private MensajeRepository mensajeRepository;
+
+	@Autowired
+	private JdbcTemplate jdbcTemplate;
+
+	private ChatPrivadoService chat;
+	private UUID ana;
+	private UUID luis;
+	private UUID eva;
+
+	@BeforeEach
+	void preparar() {
+		chat = new ChatPrivadoService(mensajeRepository, jdbcTemplate);
+		ana = usuario(jdbcTemplate, "Ana");
+		luis = usuario(jdbcTemplate, "Luis");
+		eva = usuario(jdbcTemplate, "Eva");
+	}
+
+	@Test
+	void recorreLaConversacionSinHuecosNiRepetidosConFechasIguales() {
+		// Cuatro mensajes con la misma fecha: solo el id los separa y caen en páginas distintas
+		List<Long> enviados = new ArrayList<>();
+		for (int i = 0; i < 8; i++) {
+			LocalDateTime fecha = INICIO.plusMinutes(i >= 2 && i < 6 ? 2 : i);
+			enviados.add(i % 2 == 0 ? mensaje(ana, luis, fecha) : mensaje(luis, ana, fecha));
+		}
+		mensaje(ana, eva, INICIO.plusMinutes(3));
+		List<Long> esperados = ordenados(enviados);
+
+		PaginaMensajesPrivadosDTO pagina = chat.obtenerConversacion(ana, luis, null, null, 3);
+		List<Long> haciaAtras = new ArrayList<>(ids(pagina));
+		while (pagina.hayAnteriores()) {
+			pagina = chat.obtenerConversacion(ana, luis, pagina.cursorAnterior(), null, 3);
+			haciaAtras.addAll(0, ids(pagina));
+		}
+
+		// Hacia delante desde el primer mensaje, visto por el otro usuario
+		MensajeDTO primero = chat.obtenerConversacion(luis, ana, null, null, 8).mensajes().get(0);
+		List<Long> haciaDelante = new ArrayList<>(List.of(primero.getId()));
+		String cursor = CursorMensajePrivadoDTO.from(primero).codificar();
+		do {
+			pagina = chat.obtenerConversacion(luis, ana, null, cursor, 3);
+			haciaDelante.addAll(ids(pagina));
+			cursor = pagina.cursorPosterior();
+		} while (pagina.hayPosteriores());
+
+		assertEquals(esperados, haciaAtras);
+		assertEquals(esperados, haciaDelante);
+	}
+
+	@Test
+	void cuentaLosNoLeidosDeCadaConversacion() {
+		mensaje(luis, ana, INICIO);
+		mensaje(luis, ana, INICIO.plusMinutes(1));
+		mensaje(ana, luis, INICIO.plusMinutes(2));
+		mensaje(luis, ana, INICIO.plusMinutes(3));
+		mensaje(eva, ana, INICIO.plusMinutes(4));
+		mensaje(eva, luis, INICIO.plusMinutes(5));
+
+		assertEquals(3, noLeidos(ana, luis));
+		assertEquals(1, noLeidos(ana, eva));
+		assertEquals(1, noLeidos(luis, ana));
+
+		assertEquals(3, chat.marcarLeidos(ana, luis));
+		assertEquals(0, chat.marcarLeidos(ana, luis));
+
+		assertEquals(0, noLeidos(ana, luis));
+		assertEquals(1, noLeidos(ana, eva));
+		// Lo que Ana envió sigue sin leer para Luis
+		assertEquals(1, noLeidos(luis, ana));
+		assertEquals(1, noLeidos(luis, eva));
+	}
+
+	@Test
+	void laBandejaMuestraElUltimoMensajeDeCadaConversacion() {
+		mensaje(luis, ana, INICIO, "hola");
+		// Misma fecha: el último es el de id mayor
+		long primero = mensaje(luis, ana, INICIO.plusMinutes(5), "¿vienes?");
+		long segundo = mensaje(ana, luis, INICIO.plusMinutes(5), "sí");
+		String ultimo = primero > segundo ? "¿vienes?" : "sí";
+		mensaje(eva, ana, INICIO.plusMinutes(2), "apuntes");
+
+		List<ConversacionDTO> bandeja = chat.obtenerBandeja(ana);
+
+		assertEquals(List.of(luis, eva), bandeja.stream().map(ConversacionDTO::usuarioId).toList());
+		ConversacionDTO conLuis = bandeja.get(0);
+		assertEquals("Luis", conLuis.usuarioNombre());
+		assertEquals(ultimo, conLuis.ultimoMensaje());
+		assertEquals(INICIO.plusMinutes(5), conLuis.fechaUltimoMensaje());
+		assertEquals(primero < segundo, conLuis.ultimoMensajePropio());
+		ConversacionDTO conEva = bandeja.get(1);
+		assertEquals("apuntes", conEva.ultimoMensaje());
+		assertFalse(conEva.ultimoMensajePropio());
+		assertTrue(chat.obtenerBandeja(usuario(jdbcTemplate, "Sin mensajes")).isEmpty());
+	}
+
+	private long noLeidos(UUID usuario, UUID otro) {
+		return chat.obtenerBandeja(usuario).stream()
+				.filter(c -> c.usuarioId().equals(otro))
+				.findFirst()
+				.orElseThrow()
+				.noLeidos();
+	}
+
+	// Orden de la conversación: fecha y, con la misma fecha, id
+	private List<Long> ordenados(List<Long> ids) {
+		return jdbcTemplate.queryForList("SELECT id FROM mensaje WHERE id = ANY (?) ORDER BY fecha_envio, id",
+				Long.class, (Object) ids.toArray(Long[]::new));
+	}
+
+	private static List<Long> ids(PaginaMensajesPrivadosDTO pagina) {
+		return pagina.mensajes().stream().map(MensajeDTO::getId).toList();
+	}
+
+	private long mensaje(UUID emisor, UUID receptor, LocalDateTime fecha) {
+		return mensaje(emisor, receptor, fecha, "mensaje");
+	}
+
+	// Ids al azar: el orden de inserción no coincide con el de la conversación
+	private long mensaje(UUID emisor, UUID receptor, LocalDateTime fecha, String contenido) {
+		long id = ThreadLocalRandom.current().nextLong(1, Long.MAX_VALUE);
+		jdbcTemplate.update("INSERT INTO mensaje (id, contenido, fecha_envio, emisor_id, receptor_id, conversacion, leido)"
+						+ " VALUES (?, ?, ?, ?, ?, ?, false)",
+				id, contenido, fecha, emisor, receptor, Mensaje.claveConversacion(emisor, receptor));
+		return id;
+	}
+}
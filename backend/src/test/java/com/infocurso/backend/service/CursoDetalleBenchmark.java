@@ -0,0 +1,197 @@
+package com.infocurso.backend.service;
+
+import com.infocurso.backend.BackendApplication;
+import com.infocurso.backend.BaseDeDatosPrueba;
+import com.infocurso.backend.dto.AlumnoDTO;
+import com.infocurso.backend.dto.CursoDTO;
+import com.infocurso.backend.entity.Curso;
+import com.infocurso.backend.entity.EventoCurso;
+import com.infocurso.backend.entity.Modulo;
+import com.infocurso.backend.entity.Practica;
+import com.infocurso.backend.entity.Rol;
+import com.infocurso.backend.entity.TipoEvento;
+import com.infocurso.backend.entity.UnidadFormativa;
+import com.infocurso.backend.entity.Usuario;
+import com.infocurso.backend.entity.VisibilidadEvento;
+import com.infocurso.backend.repository.CursoRepository;
+import com.infocurso.backend.repository.UsuarioRepository;
+import jakarta.persistence.EntityManager;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Carga del detalle de un curso grande: 40 alumnos, 15 prácticas, 10 módulos de 5 unidades y 20 eventos.
+ * "anterior" es el JOIN FETCH de todas las colecciones que usaba getCursoDTO; "actual" es
+ * {@link CursoService#getCursoDTO}, con una consulta por colección. Al arrancar imprime las filas que
+ * devuelve cada forma. Usa la aplicación entera sobre un PostgreSQL embebido.
+ * <p>
+ * No se ejecuta con mvn test: {@code mvn test-compile} y lanzar {@link #main} con el classpath de test.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class CursoDetalleBenchmark {
+
+	private static final String JOIN_FETCH_ANTERIOR = """
+			SELECT DISTINCT c FROM Curso c
+			LEFT JOIN FETCH c.profesor
+			LEFT JOIN FETCH c.alumnos
+			LEFT JOIN FETCH c.practicas
+			LEFT JOIN FETCH c.modulos m
+			LEFT JOIN FETCH m.unidades
+			LEFT JOIN FETCH c.eventos
+			WHERE c.id = :id
+			""";
+
+	private static final String FILAS_JOIN_ANTERIOR = """
+			SELECT count(*) FROM curso c
+			LEFT JOIN curso_alumnos ca ON ca.curso_id = c.id
+			LEFT JOIN practica p ON p.curso_id = c.id
+			LEFT JOIN modulo m ON m.curso_id = c.id
+			LEFT JOIN unidad_formativa u ON u.modulo_id = m.id
+			LEFT JOIN evento_curso e ON e.curso_id = c.id
+			WHERE c.id = ?
+			""";
+
+	private BaseDeDatosPrueba bd;
+	private ConfigurableApplicationContext contexto;
+	private CursoService cursoService;
+	private EntityManager entityManager;
+	private TransactionTemplate transactionTemplate;
+	private UUID cursoId;
+
+	@Setup
+	public void preparar() {
+		bd = new BaseDeDatosPrueba();
+		bd.crear();
+		contexto = new SpringApplicationBuilder(BackendApplication.class).run(
+				"--server.port=0",
+				"--spring.datasource.url=" + bd.jdbcUrl(),
+				"--spring.datasource.username=postgres",
+				"--spring.datasource.password=postgres",
+				"--spring.jpa.show-sql=false",
+				"--logging.level.root=WARN");
+		cursoService = contexto.getBean(CursoService.class);
+		entityManager = contexto.getBean(EntityManager.class);
+		transactionTemplate = contexto.getBean(TransactionTemplate.class);
+		cursoId = transactionTemplate.execute(status -> crearCursoGrande());
+
+		JdbcTemplate jdbcTemplate = contexto.getBean(JdbcTemplate.class);
+		Long filasAnterior = jdbcTemplate.queryForObject(FILAS_JOIN_ANTERIOR, Long.class, cursoId);
+		Long filasActual = jdbcTemplate.queryForObject("""
+				SELECT 1
+				    + (SELECT count(*) FROM curso_alumnos WHERE curso_id = ?)
+				    + (SELECT count(*) FROM practica WHERE curso_id = ?)
+				    + (SELECT count(*) FROM modulo WHERE curso_id = ?)
+				    + (SELECT count(*) FROM unidad_formativa u JOIN modulo m ON m.id = u.modulo_id WHERE m.curso_id = ?)
+				    + (SELECT count(*) FROM evento_curso WHERE curso_id = ?)
+				""", Long.class, cursoId, cursoId, cursoId, cursoId, cursoId);
+		System.out.printf("Filas leídas: JOIN FETCH %d en 1 consulta, por colección %d en 6 consultas%n",
+				filasAnterior, filasActual);
+	}
+
+	@TearDown
+	public void parar() {
+		contexto.close();
+		bd.eliminar();
+	}
+
+	@Benchmark
+	public CursoDTO anterior() {
+		return transactionTemplate.execute(status -> {
+			Curso curso = entityManager.createQuery(JOIN_FETCH_ANTERIOR, Curso.class)
+					.setParameter("id", cursoId)
+					.getSingleResult();
+			List<AlumnoDTO> alumnos = curso.getAlumnos().stream().map(AlumnoDTO::from).toList();
+			return CursoDTO.from(curso, alumnos);
+		});
+	}
+
+	@Benchmark
+	public CursoDTO actual() {
+		return cursoService.getCursoDTO(cursoId);
+	}
+
+	private UUID crearCursoGrande() {
+		UsuarioRepository usuarioRepository = contexto.getBean(UsuarioRepository.class);
+		List<Usuario> alumnos = new ArrayList<>();
+		for (int i = 0; i < 40; i++) {
+			alumnos.add(Usuario.builder()
+					.nombre("Alumno " + i)
+					.email("benchmark" + i + "@demo.com")
+					.passwordHash("x")
+					.rol(Rol.ALUMNO)
+					.build());
+		}
+		usuarioRepository.saveAll(alumnos);
+
+		Curso curso = Curso.builder().nombre("Curso grande").descripcion("Benchmark").build();
+		curso.getAlumnos().addAll(alumnos);
+		LocalDate inicio = LocalDate.of(2026, 9, 1);
+		for (int i = 0; i < 15; i++) {
+			curso.getPracticas().add(Practica.builder()
+					.curso(curso)
+					.titulo("Práctica " + i)
+					.descripcion("Enunciado de la práctica " + i)
+					.fechaEntrega(LocalDateTime.of(2026, 10, 1, 23, 59).plusWeeks(i))
+					.build());
+		}
+		for (int i = 0; i < 10; i++) {
+			Modulo modulo = Modulo.builder()
+					.nombre("Módulo " + i)
+					.fechaInicio(inicio.plusMonths(i))
+					.fechaFin(inicio.plusMonths(i + 1))
+					.build();
+			for (int j = 0; j < 5; j++) {
+				modulo.getUnidades().add(UnidadFormativa.builder()
+						.nombre("Unidad " + i + "." + j)
+						.fechaInicio(inicio.plusMonths(i).plusDays(j * 6L))
+						.fechaFin(inicio.plusMonths(i).plusDays(j * 6L + 5))
+						.modulo(modulo)
+						.build());
+			}
+			curso.agregarModulo(modulo);
+		}
+		for (int i = 0; i < 20; i++) {
+			curso.getEventos().add(EventoCurso.builder()
+					.curso(curso)
+					.titulo("Evento " + i)
+					.descripcion("Descripción del evento " + i)
+					.fecha(inicio.plusWeeks(i))
+					.tipo(TipoEvento.values()[i % TipoEvento.values().length])
+					.visiblePara(VisibilidadEvento.values()[i % VisibilidadEvento.values().length])
+					.build());
+		}
+		return contexto.getBean(CursoRepository.class).save(curso).getId();
+	}
+
+	public static void main(String[] args) throws RunnerException {
+		new Runner(new OptionsBuilder().include(CursoDetalleBenchmark.class.getSimpleName()).build()).run();
+	}
+}
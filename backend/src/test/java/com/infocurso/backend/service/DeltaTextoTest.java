@@ -0,0 +1,50 @@
+package com.infocurso.backend.service;
+
+import org.junit.jupiter.api.Test;
+
+import java.nio.charset.StandardCharsets;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Diferencias entre revisiones de la wiki: el texto se reconstruye igual y un cambio pequeño en un
+ * documento grande ocupa poco.
+ */
+class DeltaTextoTest {
+
+	@Test
+	void unCambioPequenoEnUnDocumentoGrandeOcupaPoco() {
+		StringBuilder html = new StringBuilder();
+		for (int i = 0; i < 20_000; i++) {
+			html.append("<p>Párrafo ").append(i).append(" de la wiki del curso</p>\n");
+		}
+		String base = html.toString();
+		String nuevo = base.replace("<p>Párrafo 10000 ", "<p>Párrafo diez mil, revisado, ")
+				.replace("<p>Párrafo 3 ", "<h2>Tema 1</h2><p>Párrafo 3 ")
+				+ "<p>Final 😀</p>";
+
+		byte[] delta = DeltaTexto.calcular(base, nuevo);
+
+		assertEquals(nuevo, DeltaTexto.aplicar(base, delta));
+		assertTrue(delta.length < 1_000, () -> "Delta de " + delta.length + " bytes");
+	}
+
+	@Test
+	void reconstruyeTextosSinNadaEnComun() {
+		String base = "😀".repeat(40) + "contenido anterior";
+		String nuevo = "otro contenido " + "😀".repeat(17) + "x";
+
+		assertEquals(nuevo, DeltaTexto.aplicar(base, DeltaTexto.calcular(base, nuevo)));
+		assertEquals("", DeltaTexto.aplicar(base, DeltaTexto.calcular(base, "")));
+		assertEquals(nuevo, DeltaTexto.aplicar("", DeltaTexto.calcular("", nuevo)));
+	}
+
+	@Test
+	void leeLasRevisionesCopiadasSinComprimir() {
+		String html = "<p>Wiki anterior a las revisiones, ñ</p>";
+
+		assertEquals(html, DeltaTexto.descomprimir(html.getBytes(StandardCharsets.UTF_8)));
+		assertEquals(html, DeltaTexto.descomprimir(DeltaTexto.comprimir(html)));
+	}
+}
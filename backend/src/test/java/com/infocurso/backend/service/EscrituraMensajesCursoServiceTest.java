@@ -0,0 +1,159 @@
+package com.infocurso.backend.service;
+
+import com.infocurso.backend.BaseDeDatosPrueba;
+import com.infocurso.backend.dto.MensajeCursoDTO;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.RegisterExtension;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.DataSourceTransactionManager;
+import org.springframework.jdbc.datasource.DelegatingDataSource;
+import org.springframework.messaging.simp.SimpMessagingTemplate;
+import org.springframework.transaction.support.TransactionTemplate;
+import org.springframework.web.server.ResponseStatusException;
+
+import javax.sql.DataSource;
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.function.BooleanSupplier;
+
+import static com.infocurso.backend.BaseDeDatosPrueba.curso;
+import static com.infocurso.backend.BaseDeDatosPrueba.usuario;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.mockito.Mockito.mock;
+
+/**
+ * Escritura por lotes de los mensajes de curso contra un PostgreSQL embebido con las migraciones aplicadas.
+ */
+class EscrituraMensajesCursoServiceTest {
+
+	@RegisterExtension
+	static final BaseDeDatosPrueba bd = new BaseDeDatosPrueba();
+
+	private static JdbcTemplate jdbcTemplate;
+	private static TransactionTemplate transactionTemplate;
+
+	private UUID cursoId;
+	private UUID usuarioId;
+	private EscrituraMensajesCursoService escritura;
+
+	@BeforeAll
+	static void conectar() {
+		jdbcTemplate = bd.jdbcTemplate();
+		transactionTemplate = bd.transactionTemplate();
+	}
+
+	@BeforeEach
+	void crearCurso() {
+		usuarioId = usuario(jdbcTemplate, "Alumno");
+		cursoId = curso(jdbcTemplate);
+		escritura = new EscrituraMensajesCursoService(jdbcTemplate, transactionTemplate,
+				mock(SimpMessagingTemplate.class), 1000, 50, Duration.ofSeconds(1));
+	}
+
+	@Test
+	void alPararGuardaTodosLosMensajesAceptados() {
+		escritura.start();
+		for (int i = 0; i < 300; i++) {
+			escritura.encolar(mensaje(cursoId, "mensaje " + i));
+		}
+		escritura.stop();
+
+		assertEquals(300, contar("SELECT COUNT(*) FROM mensaje_curso WHERE curso_id = ?"));
+		// Secuencias 1..300 sin huecos ni repetidos
+		assertEquals(300, contar("SELECT COUNT(DISTINCT secuencia) FROM mensaje_curso WHERE curso_id = ?"));
+		assertEquals(300, contar("SELECT MAX(secuencia) FROM mensaje_curso WHERE curso_id = ?"));
+		assertEquals(300, contar("SELECT ultima FROM mensaje_curso_secuencia WHERE curso_id = ?"));
+		assertEquals(300, contar("SELECT mensajes_propios FROM mensaje_curso_leido WHERE curso_id = ?"));
+	}
+
+	@Test
+	void unMensajeInvalidoNoHacePerderElRestoDelLote() {
+		List<MensajeCursoDTO> mensajes = List.of(
+				mensaje(cursoId, "primero"),
+				mensaje(UUID.randomUUID(), "curso inexistente"),
+				mensaje(cursoId, "segundo"));
+
+		escritura.start();
+		mensajes.forEach(escritura::encolar);
+		escritura.stop();
+
+		assertEquals(2, contar("SELECT COUNT(*) FROM mensaje_curso WHERE curso_id = ?"));
+		assertEquals(2, contar("SELECT ultima FROM mensaje_curso_secuencia WHERE curso_id = ?"));
+	}
+
+	@Test
+	void rechazaMensajesDespuesDeParar() {
+		escritura.start();
+		escritura.stop();
+
+		assertThrows(ResponseStatusException.class, () -> escritura.encolar(mensaje(cursoId, "tarde")));
+	}
+
+	@Test
+	void siLaBaseDeDatosCaeUnRatoNoSePierdeNadaYLosEnviosEsperan() throws Exception {
+		AtomicBoolean caida = new AtomicBoolean(true);
+		DataSource intermitente = new DelegatingDataSource(bd.dataSource()) {
+			@Override
+			public Connection getConnection() throws SQLException {
+				if (caida.get()) {
+					throw new SQLException("Conexión rechazada", "08001");
+				}
+				return super.getConnection();
+			}
+		};
+		escritura = new EscrituraMensajesCursoService(new JdbcTemplate(intermitente),
+				new TransactionTemplate(new DataSourceTransactionManager(intermitente)),
+				mock(SimpMessagingTemplate.class), 5, 50, Duration.ofMillis(100));
+		escritura.start();
+
+		// El escritor se queda con el primero y lo reintenta; los siguientes llenan la cola
+		escritura.encolar(mensaje(cursoId, "primero"));
+		esperarHasta(() -> escritura.pendientes() == 0);
+		for (int i = 0; i < 5; i++) {
+			escritura.encolar(mensaje(cursoId, "en cola " + i));
+		}
+		assertThrows(ResponseStatusException.class, () -> escritura.encolar(mensaje(cursoId, "sin sitio")));
+		Thread.sleep(500);
+		assertEquals(0, contar("SELECT COUNT(*) FROM mensaje_curso WHERE curso_id = ?"));
+
+		caida.set(false);
+		escritura.stop();
+
+		assertEquals(6, contar("SELECT COUNT(*) FROM mensaje_curso WHERE curso_id = ?"));
+		assertEquals(6, contar("SELECT COUNT(DISTINCT secuencia) FROM mensaje_curso WHERE curso_id = ?"));
+		assertEquals(6, contar("SELECT MAX(secuencia) FROM mensaje_curso WHERE curso_id = ?"));
+	}
+
+	private static void esperarHasta(BooleanSupplier condicion) throws InterruptedException {
+		long limite = System.nanoTime() + TimeUnit.SECONDS.toNanos(10);
+		while (!condicion.getAsBoolean()) {
+			if (System.nanoTime() > limite) {
+				throw new AssertionError("La condición no se cumplió a tiempo");
+			}
+			Thread.sleep(10);
+		}
+	}
+
+	private long contar(String sql) {
+		return jdbcTemplate.queryForObject(sql, Long.class, cursoId);
+	}
+
+	private MensajeCursoDTO mensaje(UUID curso, String contenido) {
+		return MensajeCursoDTO.builder()
+				.id(UUID.randomUUID())
+				.cursoId(curso)
+				.contenido(contenido)
+				.fechaEnvio(LocalDateTime.now())
+				.autor(MensajeCursoDTO.AutorDTO.builder().id(usuarioId).nombre("Alumno").build())
+				.build();
+	}
+}
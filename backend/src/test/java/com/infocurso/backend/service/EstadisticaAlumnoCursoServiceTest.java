@@ -0,0 +1,188 @@
+package com.infocurso.backend.service;
+
+import com.infocurso.backend.BaseDeDatosPrueba;
+import com.infocurso.backend.dto.RegistrarNotaDTO;
+import com.infocurso.backend.dto.RegistroAsistenciaDTO;
+import com.infocurso.backend.entity.EstadoAsistencia;
+import com.infocurso.backend.repository.AsistenciaRepository;
+import com.infocurso.backend.repository.CursoRepository;
+import com.infocurso.backend.repository.EstadisticaAlumnoCursoRepository;
+import com.infocurso.backend.repository.ExamenRepository;
+import com.infocurso.backend.repository.NotaExamenRepository;
+import com.infocurso.backend.repository.UsuarioRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.RegisterExtension;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.jdbc.AutoConfigureTestDatabase;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.DynamicPropertyRegistry;
+import org.springframework.test.context.DynamicPropertySource;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+
+import static com.infocurso.backend.BaseDeDatosPrueba.curso;
+import static com.infocurso.backend.BaseDeDatosPrueba.usuario;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.mockito.Mockito.mock;
+
+/**
+ * Tabla estadistica_alumno_curso sobre PostgreSQL embebido: la mantienen los servicios que cambian
+ * notas y asistencias, y la reconciliación la rehace desde las tablas de origen.
+ */
+@DataJpaTest
+@AutoConfigureTestDatabase(replace = AutoConfigureTestDatabase.Replace.NONE)
+class EstadisticaAlumnoCursoServiceTest {
+
+	// Columnas que se comparan: todas menos id y actualizado
+	private static final String SQL_FILA = """
+			SELECT entregas, practicas_calificadas, suma_notas_practicas, examenes_calificados,
+			       suma_notas_examenes, asistencias, presentes, ausentes, retrasos, justificados
+			FROM estadistica_alumno_curso
+			WHERE curso_id = ? AND alumno_id = ?
+			""";
+
+	@RegisterExtension
+	static final BaseDeDatosPrueba bd = new BaseDeDatosPrueba();
+
+	@DynamicPropertySource
+	static void baseDeDatos(DynamicPropertyRegistry registro) {
+		bd.registrar(registro);
+	}
+
+	@Autowired
+	private EstadisticaAlumnoCursoRepository estadisticaRepository;
+	@Autowired
+	private CursoRepository cursoRepository;
+	@Autowired
+	private UsuarioRepository usuarioRepository;
+	@Autowired
+	private ExamenRepository examenRepository;
+	@Autowired
+	private NotaExamenRepository notaExamenRepository;
+	@Autowired
+	private AsistenciaRepository asistenciaRepository;
+	@Autowired
+	private JdbcTemplate jdbcTemplate;
+	@Autowired
+	private TransactionTemplate transactionTemplate;
+
+	private EstadisticaAlumnoCursoService estadisticas;
+	private ExamenService examenes;
+	private AsistenciaService asistencias;
+	private UUID cursoId;
+	private UUID alumnoId;
+
+	@BeforeEach
+	void preparar() {
+		estadisticas = new EstadisticaAlumnoCursoService(estadisticaRepository, cursoRepository);
+		examenes = new ExamenService(examenRepository, notaExamenRepository, cursoRepository, usuarioRepository,
+				estadisticas, mock(NotificacionService.class), mock(CalendarioService.class));
+		asistencias = new AsistenciaService(asistenciaRepository, cursoRepository, usuarioRepository,
+				estadisticaRepository, estadisticas, jdbcTemplate, transactionTemplate);
+
+		cursoId = curso(jdbcTemplate);
+		alumnoId = usuario(jdbcTemplate, "Ana");
+	}
+
+	@Test
+	void unaNotaNuevaActualizaLaFila() {
+		UUID parcial = examen();
+		UUID final_ = examen();
+
+		examenes.registrarNota(parcial, new RegistrarNotaDTO(alumnoId, 6.5, null));
+		examenes.registrarNota(final_, new RegistrarNotaDTO(alumnoId, 8.0, null));
+
+		Map<String, Object> fila = fila();
+		assertEquals(2, ((Number) fila.get("examenes_calificados")).intValue());
+		assertEquals(14.5, ((Number) fila.get("suma_notas_examenes")).doubleValue());
+	}
+
+	@Test
+	void unaAsistenciaNuevaActualizaLaFila() {
+		asistencias.registrarAsistencia(cursoId,
+				new RegistroAsistenciaDTO(alumnoId, LocalDate.of(2026, 10, 5), EstadoAsistencia.PRESENTE, null));
+		asistencias.registrarAsistencia(cursoId,
+				new RegistroAsistenciaDTO(alumnoId, LocalDate.of(2026, 10, 6), EstadoAsistencia.RETRASO, null));
+
+		Map<String, Object> fila = fila();
+		assertEquals(2, ((Number) fila.get("asistencias")).intValue());
+		assertEquals(1, ((Number) fila.get("presentes")).intValue());
+		assertEquals(1, ((Number) fila.get("retrasos")).intValue());
+		assertEquals(0, ((Number) fila.get("ausentes")).intValue());
+	}
+
+	@Test
+	void borrarUnExamenQuitaSusNotasDeLaFila() {
+		UUID parcial = examen();
+		UUID final_ = examen();
+		examenes.registrarNota(parcial, new RegistrarNotaDTO(alumnoId, 6.5, null));
+		examenes.registrarNota(final_, new RegistrarNotaDTO(alumnoId, 8.0, null));
+
+		examenes.eliminarExamen(parcial);
+
+		Map<String, Object> fila = fila();
+		assertEquals(1, ((Number) fila.get("examenes_calificados")).intValue());
+		assertEquals(8.0, ((Number) fila.get("suma_notas_examenes")).doubleValue());
+	}
+
+	@Test
+	void laReconciliacionReparaUnaFilaCorrompida() {
+		examenes.registrarNota(examen(), new RegistrarNotaDTO(alumnoId, 7.0, null));
+		asistencias.registrarAsistencia(cursoId,
+				new RegistroAsistenciaDTO(alumnoId, LocalDate.of(2026, 10, 5), EstadoAsistencia.AUSENTE, null));
+		Map<String, Object> correcta = fila();
+
+		jdbcTemplate.update("""
+				UPDATE estadistica_alumno_curso
+				SET examenes_calificados = 40, suma_notas_examenes = -3, asistencias = 0, ausentes = 9, entregas = 5
+				WHERE curso_id = ? AND alumno_id = ?
+				""", cursoId, alumnoId);
+		estadisticas.reconciliar();
+
+		assertEquals(correcta, fila());
+	}
+
+	@Test
+	void reconstruirDosVecesDejaLasMismasFilas() {
+		examenes.registrarNota(examen(), new RegistrarNotaDTO(alumnoId, 5.0, null));
+		UUID otroAlumno = usuario(jdbcTemplate, "Luis");
+		asistencias.registrarAsistencia(cursoId,
+				new RegistroAsistenciaDTO(otroAlumno, LocalDate.of(2026, 10, 5), EstadoAsistencia.JUSTIFICADO, null));
+		jdbcTemplate.update("DELETE FROM estadistica_alumno_curso");
+
+		estadisticas.reconstruir();
+		List<Map<String, Object>> primera = filasDelCurso();
+		estadisticas.reconstruir();
+
+		assertEquals(2, primera.size());
+		assertEquals(primera, filasDelCurso());
+	}
+
+	private UUID examen() {
+		UUID id = UUID.randomUUID();
+		jdbcTemplate.update("INSERT INTO examen (id, titulo, fecha, tipo, puntuacion_maxima, curso_id)"
+				+ " VALUES (?, 'Examen', ?, 'PARCIAL', 10, ?)", id, LocalDateTime.of(2026, 10, 20, 9, 0), cursoId);
+		return id;
+	}
+
+	private Map<String, Object> fila() {
+		return jdbcTemplate.queryForMap(SQL_FILA, cursoId, alumnoId);
+	}
+
+	private List<Map<String, Object>> filasDelCurso() {
+		return jdbcTemplate.queryForList("""
+				SELECT alumno_id, entregas, practicas_calificadas, suma_notas_practicas, examenes_calificados,
+				       suma_notas_examenes, asistencias, presentes, ausentes, retrasos, justificados
+				FROM estadistica_alumno_curso
+				WHERE curso_id = ?
+				ORDER BY alumno_id
+				""", cursoId);
+	}
+}
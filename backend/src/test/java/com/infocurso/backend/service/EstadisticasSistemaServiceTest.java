@@ -0,0 +1,113 @@
+package com.infocurso.backend.service;
+
+import com.infocurso.backend.BaseDeDatosPrueba;
+import com.infocurso.backend.dto.EstadisticasSistemaDTO;
+import com.infocurso.backend.repository.EstadisticasSistemaRepository;
+import com.infocurso.backend.repository.EstadisticasSistemaRepository.ResumenSistema;
+import jakarta.persistence.EntityManagerFactory;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.RegisterExtension;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.jdbc.AutoConfigureTestDatabase;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.DynamicPropertyRegistry;
+import org.springframework.test.context.DynamicPropertySource;
+
+import java.util.UUID;
+
+import static com.infocurso.backend.BaseDeDatosPrueba.curso;
+import static com.infocurso.backend.BaseDeDatosPrueba.usuario;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.mockito.Mockito.*;
+
+@DataJpaTest(properties = "spring.jpa.properties.hibernate.generate_statistics=true")
+@AutoConfigureTestDatabase(replace = AutoConfigureTestDatabase.Replace.NONE)
+class EstadisticasSistemaServiceTest {
+
+	@RegisterExtension
+	static final BaseDeDatosPrueba bd = new BaseDeDatosPrueba();
+
+	@DynamicPropertySource
+	static void baseDeDatos(DynamicPropertyRegistry registro) {
+		bd.registrar(registro);
+	}
+
+	@Autowired
+	private EstadisticasSistemaRepository estadisticasSistemaRepository;
+
+	@Autowired
+	private EntityManagerFactory entityManagerFactory;
+
+	@Autowired
+	private JdbcTemplate jdbcTemplate;
+
+	@Test
+	void calculaLasEstadisticasConUnaUnicaConsulta() {
+		EstadisticasSistemaRepository repository = mock(EstadisticasSistemaRepository.class);
+		ResumenSistema resumen = mock(ResumenSistema.class);
+		when(resumen.getTotalUsuarios()).thenReturn(24L);
+		when(resumen.getTotalAlumnos()).thenReturn(20L);
+		when(resumen.getTotalProfesores()).thenReturn(3L);
+		when(resumen.getTotalAdministradores()).thenReturn(1L);
+		when(resumen.getTotalCursos()).thenReturn(6L);
+		when(resumen.getCursosActivos()).thenReturn(2L);
+		when(resumen.getTotalPracticas()).thenReturn(18L);
+		when(resumen.getTotalExamenes()).thenReturn(4L);
+		when(resumen.getEntregasTotales()).thenReturn(60L);
+		when(resumen.getEntregasPendientes()).thenReturn(18L);
+		when(resumen.getTotalAsistencias()).thenReturn(3L);
+		when(resumen.getAsistenciasPresentes()).thenReturn(2L);
+		when(repository.obtenerResumen()).thenReturn(resumen);
+
+		EstadisticasSistemaDTO dto = new EstadisticasSistemaService(repository).getEstadisticasSistema();
+
+		assertEquals(24, dto.totalUsuarios());
+		assertEquals(20, dto.totalAlumnos());
+		assertEquals(3, dto.totalProfesores());
+		assertEquals(1, dto.totalAdministradores());
+		assertEquals(6, dto.totalCursos());
+		assertEquals(2, dto.cursosActivos());
+		assertEquals(18, dto.totalPracticas());
+		assertEquals(4, dto.totalExamenes());
+		assertEquals(60, dto.entregasTotales());
+		assertEquals(18, dto.entregasPendientes());
+		assertEquals(66.67, dto.asistenciaMedia());
+
+		verify(repository, times(1)).obtenerResumen();
+		verifyNoMoreInteractions(repository);
+	}
+
+	@Test
+	void sinAsistenciasLaMediaEsCero() {
+		EstadisticasSistemaRepository repository = mock(EstadisticasSistemaRepository.class);
+		ResumenSistema resumen = mock(ResumenSistema.class, invocation -> 0L);
+		when(repository.obtenerResumen()).thenReturn(resumen);
+
+		EstadisticasSistemaDTO dto = new EstadisticasSistemaService(repository).getEstadisticasSistema();
+
+		assertEquals(0.0, dto.asistenciaMedia());
+	}
+
+	@Test
+	void calculaElResumenSinCargarEntidades() {
+		UUID curso = curso(jdbcTemplate);
+		for (int i = 0; i < 30; i++) {
+			UUID alumno = usuario(jdbcTemplate, "Alumno");
+			jdbcTemplate.update("INSERT INTO curso_alumnos (curso_id, alumno_id) VALUES (?, ?)", curso, alumno);
+		}
+		Statistics estadisticas = entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+		estadisticas.clear();
+
+		EstadisticasSistemaDTO dto = new EstadisticasSistemaService(estadisticasSistemaRepository).getEstadisticasSistema();
+
+		assertEquals(30, dto.totalAlumnos());
+		assertEquals(1, dto.cursosActivos());
+		assertEquals(1, estadisticas.getPrepareStatementCount());
+		assertEquals(0, estadisticas.getEntityLoadCount());
+		assertEquals(0, estadisticas.getCollectionLoadCount());
+	}
+
+}
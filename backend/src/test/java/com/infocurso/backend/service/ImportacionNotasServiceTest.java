@@ -0,0 +1,177 @@
+package com.infocurso.backend.service;
+
+import com.infocurso.backend.BaseDeDatosPrueba;
+import com.infocurso.backend.dto.RegistrarNotaDTO;
+import com.infocurso.backend.dto.ResultadoImportacionNotasDTO;
+import com.infocurso.backend.dto.ResultadoImportacionNotasDTO.ErrorFila;
+import com.infocurso.backend.entity.Usuario;
+import com.infocurso.backend.repository.ExamenRepository;
+import com.infocurso.backend.repository.UsuarioRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.RegisterExtension;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.jdbc.AutoConfigureTestDatabase;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.DynamicPropertyRegistry;
+import org.springframework.test.context.DynamicPropertySource;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.LocalDateTime;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+
+import static com.infocurso.backend.BaseDeDatosPrueba.curso;
+import static com.infocurso.backend.BaseDeDatosPrueba.usuarioConEmail;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.argThat;
+import static org.mockito.Mockito.clearInvocations;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.verifyNoInteractions;
+
+/**
+ * Importación de notas: lectura de los CSV que exportan las hojas de cálculo y, sobre PostgreSQL
+ * embebido, validación por filas y upsert de las notas que cambian.
+ */
+@DataJpaTest
+@AutoConfigureTestDatabase(replace = AutoConfigureTestDatabase.Replace.NONE)
+class ImportacionNotasServiceTest {
+
+	@RegisterExtension
+	static final BaseDeDatosPrueba bd = new BaseDeDatosPrueba();
+
+	@DynamicPropertySource
+	static void baseDeDatos(DynamicPropertyRegistry registro) {
+		bd.registrar(registro);
+	}
+
+	@Autowired
+	private ExamenRepository examenRepository;
+	@Autowired
+	private UsuarioRepository usuarioRepository;
+	@Autowired
+	private JdbcTemplate jdbcTemplate;
+	@Autowired
+	private TransactionTemplate transactionTemplate;
+
+	private NotificacionService notificaciones;
+	private ImportacionNotasService importacion;
+	private UUID cursoId;
+	private UUID examenId;
+	private UUID ana;
+	private UUID luis;
+
+	@BeforeEach
+	void preparar() {
+		notificaciones = mock(NotificacionService.class);
+		importacion = new ImportacionNotasService(examenRepository, usuarioRepository,
+				mock(EstadisticaAlumnoCursoService.class), notificaciones, jdbcTemplate, transactionTemplate);
+
+		cursoId = curso(jdbcTemplate);
+		examenId = UUID.randomUUID();
+		jdbcTemplate.update("INSERT INTO examen (id, titulo, fecha, tipo, puntuacion_maxima, curso_id)"
+				+ " VALUES (?, 'Parcial', ?, 'PARCIAL', 10, ?)", examenId, LocalDateTime.of(2026, 10, 20, 9, 0), cursoId);
+		// Uno matriculado por el administrador y otro inscrito por su cuenta
+		ana = usuarioConEmail(jdbcTemplate, "ana@demo.com");
+		luis = usuarioConEmail(jdbcTemplate, "luis@demo.com");
+		jdbcTemplate.update("INSERT INTO curso_alumnos (curso_id, alumno_id) VALUES (?, ?)", cursoId, ana);
+		jdbcTemplate.update("INSERT INTO alumno_curso (id, curso_id, alumno_id) VALUES (?, ?, ?)",
+				UUID.randomUUID(), cursoId, luis);
+	}
+
+	@Test
+	void leeElCsvDeExcelEnEspanol() {
+		String csv = "\uFEFFalumno;nota;observaciones\r\n"
+				+ "ana@demo.com;7,5;\"Bien; repasar \"\"tema 3\"\"\"\r\n"
+				+ "\r\n"
+				+ "luis@demo.com;4\r\n";
+
+		assertEquals(List.of(
+				List.of("alumno", "nota", "observaciones"),
+				List.of("ana@demo.com", "7,5", "Bien; repasar \"tema 3\""),
+				List.of(""),
+				List.of("luis@demo.com", "4")), ImportacionNotasService.leerCsv(csv));
+	}
+
+	@Test
+	void usaLaComaSiNoHayPuntoYComaEnLaPrimeraLinea() {
+		String csv = "ana@demo.com,\"8,25\",\"Entregó; tarde\"\nluis@demo.com,6";
+
+		assertEquals(List.of(
+				List.of("ana@demo.com", "8,25", "Entregó; tarde"),
+				List.of("luis@demo.com", "6")), ImportacionNotasService.leerCsv(csv));
+	}
+
+	@Test
+	void lasFilasConErroresNoImpidenGuardarLasDemas() {
+		usuarioConEmail(jdbcTemplate, "eva@demo.com");
+		String csv = """
+				alumno;nota;observaciones
+				ana@demo.com;7,5;Bien
+				nadie@demo.com;5
+				eva@demo.com;6
+				%s;11
+				%s;4
+				""".formatted(luis, luis);
+
+		ResultadoImportacionNotasDTO resultado = importacion.importarCsv(cursoId, examenId, csv);
+
+		assertEquals(2, resultado.guardadas());
+		assertEquals(0, resultado.sinCambios());
+		assertEquals(List.of(
+				new ErrorFila(3, "nadie@demo.com", "El alumno no está matriculado en el curso"),
+				new ErrorFila(4, "eva@demo.com", "El alumno no está matriculado en el curso"),
+				new ErrorFila(5, luis.toString(), "La nota tiene que estar entre 0 y 10.0")), resultado.errores());
+		assertEquals(Map.of(ana, 7.5, luis, 4.0), notas());
+		verify(notificaciones).enviar(argThat((Collection<Usuario> alumnos) ->
+				alumnos.stream().map(Usuario::getId).toList().equals(List.of(ana, luis))), any());
+	}
+
+	@Test
+	void sobrescribeLaNotaQueYaTenia() {
+		importacion.importar(cursoId, examenId, List.of(new RegistrarNotaDTO(ana, 5.0, "Justo")));
+
+		ResultadoImportacionNotasDTO resultado = importacion.importar(cursoId, examenId,
+				List.of(new RegistrarNotaDTO(ana, 6.5, "Revisado")));
+
+		assertEquals(1, resultado.guardadas());
+		assertEquals(1, jdbcTemplate.queryForObject(
+				"SELECT count(*) FROM nota_examen WHERE examen_id = ?", Integer.class, examenId));
+		assertEquals(Map.of("nota", 6.5, "observaciones", "Revisado"), jdbcTemplate.queryForMap(
+				"SELECT nota, observaciones FROM nota_examen WHERE examen_id = ? AND alumno_id = ?", examenId, ana));
+	}
+
+	@Test
+	void reimportarLosMismosDatosNoEscribeNiNotifica() {
+		String csv = "ana@demo.com;7,5;Bien\nluis@demo.com;4\n";
+		importacion.importarCsv(cursoId, examenId, csv);
+		LocalDateTime calificada = jdbcTemplate.queryForObject(
+				"SELECT max(fecha_calificacion) FROM nota_examen WHERE examen_id = ?", LocalDateTime.class, examenId);
+		clearInvocations(notificaciones);
+
+		ResultadoImportacionNotasDTO resultado = importacion.importarCsv(cursoId, examenId, csv);
+
+		assertEquals(0, resultado.guardadas());
+		assertEquals(2, resultado.sinCambios());
+		assertEquals(calificada, jdbcTemplate.queryForObject(
+				"SELECT max(fecha_calificacion) FROM nota_examen WHERE examen_id = ?", LocalDateTime.class, examenId));
+		verifyNoInteractions(notificaciones);
+	}
+
+	private Map<UUID, Double> notas() {
+		return jdbcTemplate.query("SELECT alumno_id, nota FROM nota_examen WHERE examen_id = ?",
+				rs -> {
+					Map<UUID, Double> notas = new HashMap<>();
+					while (rs.next()) {
+						notas.put(rs.getObject("alumno_id", UUID.class), rs.getDouble("nota"));
+					}
+					return notas;
+				}, examenId);
+	}
+}
@@ -0,0 +1,171 @@
+package com.infocurso.backend.service;
+
+import com.infocurso.backend.BaseDeDatosPrueba;
+import com.infocurso.backend.dto.NotificacionDTO;
+import com.infocurso.backend.dto.ResumenNotificacionesDTO;
+import com.infocurso.backend.entity.Rol;
+import com.infocurso.backend.entity.Usuario;
+import com.infocurso.backend.repository.NotificacionRepository;
+import com.infocurso.backend.repository.UsuarioRepository;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.RegisterExtension;
+import org.mockito.ArgumentCaptor;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.DataSourceTransactionManager;
+import org.springframework.messaging.simp.SimpMessagingTemplate;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.after;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.timeout;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+/**
+ * Envío de notificaciones sobre PostgreSQL embebido: solo tras el commit de quien llama, avisos
+ * agrupados por usuario dentro de la ventana y cola acotada.
+ */
+class NotificacionServiceTest {
+
+	private static final String DESTINO = "/queue/notifications";
+
+	@RegisterExtension
+	static final BaseDeDatosPrueba bd = new BaseDeDatosPrueba();
+
+	private JdbcTemplate jdbcTemplate;
+	private DataSourceTransactionManager transacciones;
+	private UsuarioRepository usuarioRepository;
+	private SimpMessagingTemplate messaging;
+	private SimpleMeterRegistry registry;
+	private NotificacionService notificaciones;
+	private Usuario ana;
+	private Usuario luis;
+
+	@BeforeEach
+	void preparar() {
+		jdbcTemplate = bd.jdbcTemplate();
+		transacciones = new DataSourceTransactionManager(bd.dataSource());
+		usuarioRepository = mock(UsuarioRepository.class);
+		messaging = mock(SimpMessagingTemplate.class);
+		registry = new SimpleMeterRegistry();
+		ana = usuario("Ana");
+		luis = usuario("Luis");
+	}
+
+	@AfterEach
+	void detener() {
+		notificaciones.detener();
+	}
+
+	@Test
+	void soloSeEnviaSiLaTransaccionSeConfirma() {
+		notificaciones = servicio(Duration.ofMillis(100), 20, 100);
+		TransactionTemplate transaccion = new TransactionTemplate(transacciones);
+
+		transaccion.executeWithoutResult(status -> {
+			notificaciones.enviar(ana, "Deshecha", "AVISO");
+			status.setRollbackOnly();
+		});
+		transaccion.executeWithoutResult(status -> notificaciones.enviar(luis, "Confirmada", "AVISO"));
+
+		verify(messaging, timeout(2000)).convertAndSendToUser(eq(luis.getEmail()), eq(DESTINO), any(NotificacionDTO.class));
+		verify(messaging, after(300).never()).convertAndSendToUser(eq(ana.getEmail()), anyString(), any());
+		assertEquals(0, filas(ana));
+		assertEquals(1, filas(luis));
+	}
+
+	@Test
+	void agrupaLosAvisosDeCadaUsuarioDentroDeLaVentana() {
+		notificaciones = servicio(Duration.ofMillis(300), 20, 100);
+
+		notificaciones.enviar(ana, "Primera", "AVISO");
+		notificaciones.enviar(List.of(ana, luis), new NotificacionService.Plantilla("AVISO", "Hola {nombre}"));
+		notificaciones.enviar(ana, "Tercera", "AVISO");
+
+		ArgumentCaptor<Object> aviso = ArgumentCaptor.forClass(Object.class);
+		verify(messaging, timeout(2000)).convertAndSendToUser(eq(ana.getEmail()), eq(DESTINO), aviso.capture());
+		ResumenNotificacionesDTO resumen = (ResumenNotificacionesDTO) aviso.getValue();
+		assertEquals(3, resumen.total());
+		assertEquals(List.of("Tercera", "Hola Ana", "Primera"),
+				resumen.notificaciones().stream().map(NotificacionDTO::getMensaje).toList());
+		verify(messaging, timeout(2000)).convertAndSendToUser(eq(luis.getEmail()), eq(DESTINO), aviso.capture());
+		assertEquals("Hola Luis", ((NotificacionDTO) aviso.getValue()).getMensaje());
+		assertEquals(3, filas(ana));
+	}
+
+	@Test
+	void elResumenIncluyeComoMuchoLasUltimas() {
+		notificaciones = servicio(Duration.ofMillis(300), 2, 100);
+
+		for (int i = 1; i <= 5; i++) {
+			notificaciones.enviar(ana, "Aviso " + i, "AVISO");
+		}
+
+		ArgumentCaptor<ResumenNotificacionesDTO> aviso = ArgumentCaptor.forClass(ResumenNotificacionesDTO.class);
+		verify(messaging, timeout(2000)).convertAndSendToUser(eq(ana.getEmail()), eq(DESTINO), aviso.capture());
+		assertEquals(5, aviso.getValue().total());
+		assertEquals(List.of("Aviso 5", "Aviso 4"),
+				aviso.getValue().notificaciones().stream().map(NotificacionDTO::getMensaje).toList());
+		assertEquals(5, filas(ana));
+	}
+
+	@Test
+	void conLaColaLlenaEnviaQuienNotifica() throws InterruptedException {
+		notificaciones = servicio(Duration.ofMillis(100), 20, 1);
+		// El único hueco de la cola queda ocupado mientras se cargan los alumnos del curso
+		CountDownLatch cargando = new CountDownLatch(1);
+		CountDownLatch seguir = new CountDownLatch(1);
+		UUID cursoId = UUID.randomUUID();
+		when(usuarioRepository.findMatriculadosEnCurso(cursoId)).thenAnswer(i -> {
+			cargando.countDown();
+			seguir.await(5, TimeUnit.SECONDS);
+			return List.of(luis);
+		});
+		notificaciones.enviarACurso(cursoId, new NotificacionService.Plantilla("AVISO", "Al curso"));
+		assertTrue(cargando.await(5, TimeUnit.SECONDS));
+
+		// Dentro de una transacción: el envío síncrono ocurre en afterCommit y necesita la suya
+		new TransactionTemplate(transacciones).executeWithoutResult(status ->
+				notificaciones.enviar(ana, "Síncrona", "AVISO"));
+
+		assertEquals(1, filas(ana));
+		assertEquals(0, filas(luis));
+		assertEquals(1.0, registry.get("notificaciones.sincronas").counter().count());
+		assertEquals(1.0, registry.get("notificaciones.en_cola").gauge().value());
+
+		seguir.countDown();
+		verify(messaging, timeout(2000)).convertAndSendToUser(eq(luis.getEmail()), eq(DESTINO), any(NotificacionDTO.class));
+		verify(messaging, never()).convertAndSendToUser(eq(luis.getEmail()), eq(DESTINO), any(ResumenNotificacionesDTO.class));
+		assertEquals(1, filas(luis));
+	}
+
+	private NotificacionService servicio(Duration ventana, int maximoEnResumen, int capacidad) {
+		return new NotificacionService(mock(NotificacionRepository.class), usuarioRepository, messaging,
+				jdbcTemplate, transacciones, ventana, maximoEnResumen, capacidad, registry);
+	}
+
+	private int filas(Usuario usuario) {
+		return jdbcTemplate.queryForObject("SELECT count(*) FROM notificaciones WHERE usuario_id = ?",
+				Integer.class, usuario.getId());
+	}
+
+	private Usuario usuario(String nombre) {
+		UUID id = BaseDeDatosPrueba.usuario(jdbcTemplate, nombre);
+		return Usuario.builder().id(id).nombre(nombre).email(id + "@demo.com").rol(Rol.ALUMNO).build();
+	}
+}
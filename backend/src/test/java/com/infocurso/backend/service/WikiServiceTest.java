@@ -0,0 +1,320 @@
+package com.infocurso.backend.service;
+
+import com.infocurso.backend.BaseDeDatosPrueba;
+import com.infocurso.backend.controller.WikiController;
+import com.infocurso.backend.dto.AportacionWikiResumenDTO;
+import com.infocurso.backend.dto.PaginaAportacionesWikiDTO;
+import com.infocurso.backend.entity.Usuario;
+import com.infocurso.backend.repository.AportacionWikiRepository;
+import com.infocurso.backend.repository.CursoRepository;
+import com.infocurso.backend.repository.RevisionWikiRepository;
+import com.infocurso.backend.repository.UsuarioRepository;
+import com.infocurso.backend.repository.WikiCursoRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.RegisterExtension;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.jdbc.AutoConfigureTestDatabase;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+import org.springframework.test.context.DynamicPropertyRegistry;
+import org.springframework.test.context.DynamicPropertySource;
+import org.springframework.util.unit.DataSize;
+import org.springframework.web.context.request.ServletWebRequest;
+import org.springframework.web.server.ResponseStatusException;
+
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Base64;
+import java.util.List;
+import java.util.UUID;
+
+import static com.infocurso.backend.BaseDeDatosPrueba.curso;
+import static com.infocurso.backend.BaseDeDatosPrueba.usuario;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.Mockito.mock;
+
+/**
+ * Wiki sobre PostgreSQL embebido: revisiones completas y deltas, versión actual en caché con su ETag,
+ * listado de aportaciones por cursor (fecha, id) con vista previa y consulta de una aportación
+ * dentro de su curso.
+ */
+@DataJpaTest
+@AutoConfigureTestDatabase(replace = AutoConfigureTestDatabase.Replace.NONE)
+class WikiServiceTest {
+
+	private static final LocalDateTime INICIO = LocalDateTime.of(2026, 10, 1, 9, 0);
+
+	@RegisterExtension
+	static final BaseDeDatosPrueba bd = new BaseDeDatosPrueba();
+
+	@DynamicPropertySource
+	static void baseDeDatos(DynamicPropertyRegistry registro) {
+		bd.registrar(registro);
+	}
+
+	@Autowired
+	private WikiCursoRepository wikiRepository;
+	@Autowired
+	private RevisionWikiRepository revisionRepository;
+	@Autowired
+	private AportacionWikiRepository aportacionRepository;
+	@Autowired
+	private CursoRepository cursoRepository;
+	@Autowired
+	private UsuarioRepository usuarioRepository;
+	@Autowired
+	private JdbcTemplate jdbcTemplate;
+
+	private WikiService wiki;
+	private UUID cursoId;
+	private UUID wikiId;
+	private UUID autorId;
+
+	@BeforeEach
+	void preparar() {
+		wiki = new WikiService(wikiRepository, revisionRepository, aportacionRepository, cursoRepository,
+				usuarioRepository, mock(ReferenciasArchivosService.class), 20, DataSize.ofMegabytes(1));
+		autorId = usuario(jdbcTemplate, "Ana");
+		cursoId = curso(jdbcTemplate);
+		wikiId = wikiDe(cursoId);
+	}
+
+	@Test
+	void recorreLasAportacionesSinHuecosNiRepetidos() {
+		// Cuatro aportaciones con la misma fecha: solo el id las separa y caen en páginas distintas
+		List<UUID> enviadas = new ArrayList<>();
+		for (int i = 0; i < 9; i++) {
+			enviadas.add(aportacion(wikiId, "Aportación " + i, INICIO.plusMinutes(i >= 3 && i < 7 ? 3 : i)));
+		}
+		aportacion(wikiDe(curso(jdbcTemplate)), "De otro curso", INICIO.plusMinutes(4));
+		List<UUID> esperadas = jdbcTemplate.queryForList(
+				"SELECT id FROM aportacion_wiki WHERE wiki_id = ? ORDER BY fecha DESC, id DESC", UUID.class, wikiId);
+
+		PaginaAportacionesWikiDTO pagina = wiki.getAportaciones(cursoId, null, 2);
+		List<UUID> recibidas = new ArrayList<>(ids(pagina));
+		while (pagina.hayAnteriores()) {
+			pagina = wiki.getAportaciones(cursoId, pagina.cursorAnterior(), 2);
+			recibidas.addAll(ids(pagina));
+		}
+
+		assertEquals(9, esperadas.size());
+		assertEquals(esperadas, recibidas);
+		assertEquals(1, pagina.aportaciones().size());
+	}
+
+	@Test
+	void sinWikiDevuelveUnaPaginaVacia() {
+		PaginaAportacionesWikiDTO pagina = wiki.getAportaciones(curso(jdbcTemplate), null, null);
+
+		assertTrue(pagina.aportaciones().isEmpty());
+		assertNull(pagina.cursorAnterior());
+		assertFalse(pagina.hayAnteriores());
+	}
+
+	@Test
+	void unCursorMalFormadoEsUn400() {
+		aportacion(wikiId, "Aportación", INICIO);
+		String sinId = Base64.getUrlEncoder().encodeToString("2026-10-01T09:00|no-es-uuid".getBytes(StandardCharsets.UTF_8));
+		String sinFecha = Base64.getUrlEncoder().encodeToString(("ayer|" + UUID.randomUUID()).getBytes(StandardCharsets.UTF_8));
+
+		for (String cursor : List.of("%%%", sinId, sinFecha)) {
+			ResponseStatusException error = assertThrows(ResponseStatusException.class,
+					() -> wiki.getAportaciones(cursoId, cursor, null));
+			assertEquals(HttpStatus.BAD_REQUEST, error.getStatusCode());
+		}
+	}
+
+	@Test
+	void unaAportacionDeOtroCursoEsUn404() {
+		UUID propia = aportacion(wikiId, "Propia", INICIO);
+		UUID ajena = aportacion(wikiDe(curso(jdbcTemplate)), "Ajena", INICIO);
+
+		assertEquals(propia, wiki.getAportacion(cursoId, propia).id());
+		ResponseStatusException error = assertThrows(ResponseStatusException.class,
+				() -> wiki.getAportacion(cursoId, ajena));
+		assertEquals(HttpStatus.NOT_FOUND, error.getStatusCode());
+	}
+
+	@Test
+	void laVistaPreviaCortaEn280Caracteres() {
+		int longitud = AportacionWikiResumenDTO.LONGITUD_VISTA_PREVIA;
+		String justa = "á".repeat(longitud);
+		String larga = "ñ".repeat(longitud) + " y lo que sigue";
+		UUID idJusta = aportacion(wikiId, justa, INICIO);
+		UUID idLarga = aportacion(wikiId, larga, INICIO.plusMinutes(1));
+
+		List<AportacionWikiResumenDTO> aportaciones = wiki.getAportaciones(cursoId, null, null).aportaciones();
+
+		AportacionWikiResumenDTO resumenLarga = aportaciones.get(0);
+		assertEquals(idLarga, resumenLarga.id());
+		assertEquals("ñ".repeat(longitud), resumenLarga.vistaPrevia());
+		assertTrue(resumenLarga.truncada());
+		assertEquals("Ana", resumenLarga.autorNombre());
+		AportacionWikiResumenDTO resumenJusta = aportaciones.get(1);
+		assertEquals(idJusta, resumenJusta.id());
+		assertEquals(justa, resumenJusta.vistaPrevia());
+		assertFalse(resumenJusta.truncada());
+		assertEquals(larga, wiki.getAportacion(cursoId, idLarga).contenido());
+	}
+
+	@Test
+	void cadaRevisionSeLeeTalCualSeGuardoAUnLadoYOtroDeLaCompleta() {
+		WikiService cadaCuatro = new WikiService(wikiRepository, revisionRepository, aportacionRepository,
+				cursoRepository, usuarioRepository, mock(ReferenciasArchivosService.class), 4, DataSize.ofMegabytes(1));
+		List<String> guardadas = new ArrayList<>();
+		for (int i = 1; i <= 10; i++) {
+			guardadas.add(documento(i));
+			cadaCuatro.actualizarContenidoWiki(cursoId, documento(i), autor());
+		}
+		revisionRepository.flush();
+
+		// Completas la 1, la 5 y la 9; el resto, deltas sobre la completa anterior
+		List<Integer> bases = jdbcTemplate.queryForList(
+				"SELECT base FROM revision_wiki WHERE wiki_id = ? ORDER BY numero", Integer.class, wikiId);
+		assertEquals(Arrays.asList(null, 1, 1, 1, null, 5, 5, 5, null, 9), bases);
+		for (int numero = 1; numero <= 10; numero++) {
+			assertEquals(guardadas.get(numero - 1), cadaCuatro.getContenidoRevision(cursoId, numero));
+		}
+		WikiService.VersionWiki actual = cadaCuatro.getVersionActual(cursoId).orElseThrow();
+		assertEquals(10, actual.numero());
+		assertEquals(documento(10), actual.html());
+	}
+
+	@Test
+	void siSeReescribeCasiTodoSeGuardaUnaRevisionCompleta() {
+		wiki.actualizarContenidoWiki(cursoId, documento(1), autor());
+		StringBuilder reescrito = new StringBuilder();
+		for (int i = 0; i < 200; i++) {
+			reescrito.append("<p>").append(UUID.randomUUID()).append("</p>");
+		}
+		wiki.actualizarContenidoWiki(cursoId, reescrito.toString(), autor());
+		revisionRepository.flush();
+
+		assertNull(jdbcTemplate.queryForObject(
+				"SELECT base FROM revision_wiki WHERE wiki_id = ? AND numero = 2", Integer.class, wikiId));
+		assertEquals(reescrito.toString(), wiki.getContenidoRevision(cursoId, 2));
+		assertEquals(documento(1), wiki.getContenidoRevision(cursoId, 1));
+	}
+
+	@Test
+	void guardarElMismoContenidoNoCreaRevision() {
+		wiki.actualizarContenidoWiki(cursoId, documento(1), autor());
+		wiki.actualizarContenidoWiki(cursoId, documento(1), autor());
+		revisionRepository.flush();
+
+		assertEquals(1, jdbcTemplate.queryForObject(
+				"SELECT count(*) FROM revision_wiki WHERE wiki_id = ?", Integer.class, wikiId));
+		assertEquals(1, wiki.getVersionActual(cursoId).orElseThrow().numero());
+	}
+
+	@Test
+	void unaRevisionDeOtroNodoInvalidaLaCache() {
+		WikiService otroNodo = new WikiService(wikiRepository, revisionRepository, aportacionRepository,
+				cursoRepository, usuarioRepository, mock(ReferenciasArchivosService.class), 20, DataSize.ofMegabytes(1));
+		wiki.actualizarContenidoWiki(cursoId, documento(1), autor());
+		assertEquals(documento(1), wiki.getVersionActual(cursoId).orElseThrow().html());
+
+		otroNodo.actualizarContenidoWiki(cursoId, documento(2), autor());
+
+		WikiService.VersionWiki actual = wiki.getVersionActual(cursoId).orElseThrow();
+		assertEquals(2, actual.numero());
+		assertEquals(documento(2), actual.html());
+		assertEquals(otroNodo.getHashActual(cursoId).orElseThrow(), actual.hash());
+	}
+
+	@Test
+	void conLaEtagActualLaRespuestaEsUn304() {
+		WikiController controller = new WikiController(wiki, mock(UsuarioService.class));
+		wiki.actualizarContenidoWiki(cursoId, documento(1), autor());
+
+		ResponseEntity<String> primera = controller.getContenido(cursoId,
+				new ServletWebRequest(new MockHttpServletRequest(), new MockHttpServletResponse()));
+		assertEquals(documento(1), primera.getBody());
+		String etag = primera.getHeaders().getETag();
+
+		MockHttpServletRequest revalidacion = new MockHttpServletRequest("GET", "/api/wiki/" + cursoId);
+		revalidacion.addHeader(HttpHeaders.IF_NONE_MATCH, etag);
+		MockHttpServletResponse respuesta = new MockHttpServletResponse();
+		assertNull(controller.getContenido(cursoId, new ServletWebRequest(revalidacion, respuesta)));
+		assertEquals(HttpStatus.NOT_MODIFIED.value(), respuesta.getStatus());
+
+		// Tras guardar otra revisión la misma ETag ya no vale
+		wiki.actualizarContenidoWiki(cursoId, documento(2), autor());
+		MockHttpServletRequest caducada = new MockHttpServletRequest("GET", "/api/wiki/" + cursoId);
+		caducada.addHeader(HttpHeaders.IF_NONE_MATCH, etag);
+		ResponseEntity<String> nueva = controller.getContenido(cursoId,
+				new ServletWebRequest(caducada, new MockHttpServletResponse()));
+		assertEquals(documento(2), nueva.getBody());
+	}
+
+	@Test
+	void laRevisionSinComprimirDeLaMigracionSeLeeYSirveDeBase() {
+		// Así copió V13 el contenido anterior: UTF-8 sin gzip, sin base y sin autor
+		String anterior = "<p>Contenido de antes de las revisiones: ñandú, café</p>" + documento(0);
+		jdbcTemplate.update("""
+				INSERT INTO revision_wiki (id, wiki_id, numero, base, datos, hash, tamano, autor_id, fecha)
+				VALUES (gen_random_uuid(), ?, 1, NULL, convert_to(?, 'UTF8'),
+				        encode(sha256(convert_to(?, 'UTF8')), 'hex'), length(?), NULL, now())
+				""", wikiId, anterior, anterior, anterior);
+
+		assertEquals(anterior, wiki.getVersionActual(cursoId).orElseThrow().html());
+
+		// El mismo contenido tiene el mismo hash que calculó la migración: no hay revisión nueva
+		wiki.actualizarContenidoWiki(cursoId, anterior, autor());
+		String editado = anterior.replace("café", "té");
+		wiki.actualizarContenidoWiki(cursoId, editado, autor());
+		revisionRepository.flush();
+
+		assertEquals(2, jdbcTemplate.queryForObject(
+				"SELECT count(*) FROM revision_wiki WHERE wiki_id = ?", Integer.class, wikiId));
+		assertEquals(1, jdbcTemplate.queryForObject(
+				"SELECT base FROM revision_wiki WHERE wiki_id = ? AND numero = 2", Integer.class, wikiId));
+		assertEquals(editado, wiki.getVersionActual(cursoId).orElseThrow().html());
+		assertEquals(anterior, wiki.getContenidoRevision(cursoId, 1));
+	}
+
+	// Un documento largo con una edición pequeña por versión, para que el delta salga a cuenta
+	private static String documento(int version) {
+		StringBuilder html = new StringBuilder("<h1>Apuntes del curso</h1>");
+		for (int i = 0; i < 100; i++) {
+			html.append("<p>Párrafo ").append(i).append(" de los apuntes, con texto suficiente para un bloque.</p>");
+			if (i == 50) {
+				html.append("<p>Edición número ").append(version).append("</p>");
+			}
+		}
+		return html.toString();
+	}
+
+	private Usuario autor() {
+		return usuarioRepository.findById(autorId).orElseThrow();
+	}
+
+	private static List<UUID> ids(PaginaAportacionesWikiDTO pagina) {
+		return pagina.aportaciones().stream().map(AportacionWikiResumenDTO::id).toList();
+	}
+
+	private UUID wikiDe(UUID curso) {
+		UUID id = UUID.randomUUID();
+		jdbcTemplate.update("INSERT INTO wiki_curso (id, titulo, curso_id) VALUES (?, 'Wiki', ?)", id, curso);
+		return id;
+	}
+
+	private UUID aportacion(UUID wiki, String contenido, LocalDateTime fecha) {
+		UUID id = UUID.randomUUID();
+		jdbcTemplate.update("INSERT INTO aportacion_wiki (id, contenido, fecha, wiki_id, autor_id) VALUES (?, ?, ?, ?, ?)",
+				id, contenido, fecha, wiki, autorId);
+		return id;
+	}
+}
@@ -35,6 +35,7 @@ import { Dialog, DialogTrigger, DialogContent } from "@/components/ui/dialog";
 import CalendarioCurso from "@/components/common/CalendarioCurso";
 import { User, Edit, Save, X } from "lucide-react";
 import AvatarAmpliable from "@/components/common/AvatarAmpliable";
+import { urlAvatar } from "@/lib/avatar";
 
 export default function AdminCursoPage() {
   const { cursoId } = useParams();
@@ -293,7 +294,7 @@ export default function AdminCursoPage() {
                       <div className="flex items-center gap-4">
                         {alumno.avatarUrl ? (
                           <img
-                            src={alumno.avatarUrl}
+                            src={urlAvatar(alumno.avatarUrl, 48)}
                             alt={alumno.nombre}
                             className="w-12 h-12 rounded-full object-cover"
                           />
@@ -13,7 +13,7 @@ import {
     getEstadisticasSistema,
     EstadisticasSistemaDTO,
 } from "@/services/adminService";
-import { CursoDTO } from "@/lib/types";
+import { CursoResumenDTO } from "@/lib/types";
 import Link from "next/link";
 import { useAuthStore } from "@/hooks/authStore";
 import {
@@ -37,7 +37,12 @@ export default function AdminPage() {
     const [nombre, setNombre] = useState("");
     const [descripcion, setDescripcion] = useState("");
     const [loading, setLoading] = useState(false);
-    const [cursos, setCursos] = useState<CursoDTO[]>([]);
+    const [cursos, setCursos] = useState<CursoResumenDTO[]>([]);
+    const [totalCursos, setTotalCursos] = useState(0);
+    const [paginaCursos, setPaginaCursos] = useState(0);
+    const [filtroCursos, setFiltroCursos] = useState("");
+    const [filtroAplicado, setFiltroAplicado] = useState("");
+    const [cargandoCursos, setCargandoCursos] = useState(false);
     const [estadisticas, setEstadisticas] = useState<EstadisticasSistemaDTO | null>(null);
     const [loadingStats, setLoadingStats] = useState(true);
 
@@ -61,7 +66,9 @@ export default function AdminPage() {
                 listarCursos(),
                 getEstadisticasSistema(),
             ]);
-            setCursos(cursosData);
+            setCursos(cursosData.cursos);
+            setTotalCursos(cursosData.total);
+            setPaginaCursos(0);
             setEstadisticas(statsData);
         } catch (error) {
             toast.error("Error al cargar los datos");
@@ -70,6 +77,22 @@ export default function AdminPage() {
         }
     };
 
+    // Página 0 sustituye la lista (nuevo filtro); las siguientes se añaden al final
+    const cargarCursos = async (pagina: number, filtro: string) => {
+        try {
+            setCargandoCursos(true);
+            const datos = await listarCursos({ pagina, filtro: filtro.trim() || undefined });
+            setCursos((anteriores) => (pagina === 0 ? datos.cursos : [...anteriores, ...datos.cursos]));
+            setTotalCursos(datos.total);
+            setPaginaCursos(pagina);
+            setFiltroAplicado(filtro);
+        } catch {
+            toast.error("Error al cargar los cursos");
+        } finally {
+            setCargandoCursos(false);
+        }
+    };
+
     const handleCrearCurso = async () => {
         if (!nombre.trim() || !descripcion.trim()) {
             toast.warning("Rellena todos los campos");
@@ -267,13 +290,32 @@ export default function AdminPage() {
             <div className="mt-6">
                 <h2 className="text-xl font-semibold mb-4 flex items-center gap-2">
                     <BookOpen className="h-5 w-5" />
-                    Cursos existentes ({cursos.length})
+                    Cursos existentes ({totalCursos})
                 </h2>
 
+                <form
+                    className="flex gap-2 mb-4 max-w-md"
+                    onSubmit={(e) => {
+                        e.preventDefault();
+                        cargarCursos(0, filtroCursos);
+                    }}
+                >
+                    <Input
+                        placeholder="Buscar por curso o profesor"
+                        value={filtroCursos}
+                        onChange={(e) => setFiltroCursos(e.target.value)}
+                    />
+                    <Button type="submit" variant="secondary" disabled={cargandoCursos}>
+                        Buscar
+                    </Button>
+                </form>
+
                 {cursos.length === 0 ? (
                     <div className="bg-white dark:bg-zinc-900 rounded-lg shadow p-8 text-center">
                         <BookOpen className="h-12 w-12 mx-auto text-muted-foreground mb-4" />
-                        <p className="text-muted-foreground">No hay cursos creados todavía.</p>
+                        <p className="text-muted-foreground">
+                            {filtroAplicado.trim() ? "Ningún curso coincide con la búsqueda." : "No hay cursos creados todavía."}
+                        </p>
                     </div>
                 ) : (
                     <div className="grid gap-4 md:grid-cols-2">
@@ -288,15 +330,29 @@ export default function AdminPage() {
                                         <p className="text-sm text-muted-foreground mt-1 line-clamp-2">
                                             {curso.descripcion}
                                         </p>
-                                        <div className="flex items-center gap-3 mt-3">
+                                        {curso.profesorNombre && (
+                                            <p className="text-sm mt-1">Profesor: {curso.profesorNombre}</p>
+                                        )}
+                                        <div className="flex flex-wrap items-center gap-3 mt-3">
                                             <Badge variant="outline">
                                                 <Users className="h-3 w-3 mr-1" />
-                                                {curso.alumnos?.length || 0} alumnos
+                                                {curso.totalAlumnos} alumnos
                                             </Badge>
                                             <Badge variant="outline">
                                                 <BookOpen className="h-3 w-3 mr-1" />
-                                                {curso.modulos?.length || 0} módulos
+                                                {curso.totalModulos} módulos
+                                            </Badge>
+                                            <Badge variant="outline">
+                                                <FileText className="h-3 w-3 mr-1" />
+                                                {curso.totalPracticas} prácticas
                                             </Badge>
+                                            {curso.proximoEventoFecha && (
+                                                <Badge variant="outline">
+                                                    <Calendar className="h-3 w-3 mr-1" />
+                                                    {curso.proximoEventoTitulo} ·{" "}
+                                                    {new Date(`${curso.proximoEventoFecha}T00:00:00`).toLocaleDateString("es-ES")}
+                                                </Badge>
+                                            )}
                                         </div>
                                     </div>
                                     <Link href={`/admin/curso/${curso.id}`}>
@@ -309,6 +365,18 @@ export default function AdminPage() {
                         ))}
                     </div>
                 )}
+
+                {cursos.length < totalCursos && (
+                    <div className="flex justify-center mt-4">
+                        <Button
+                            variant="outline"
+                            disabled={cargandoCursos}
+                            onClick={() => cargarCursos(paginaCursos + 1, filtroAplicado)}
+                        >
+                            {cargandoCursos ? "Cargando..." : "Cargar más cursos"}
+                        </Button>
+                    </div>
+                )}
             </div>
         </div>
     );
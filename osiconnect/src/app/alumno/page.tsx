@@ -3,16 +3,15 @@
 import { useEffect, useState } from "react";
 import { getPerfil } from "@/services/usuarioService";
 import {
-    getMisCursos,
     listarMisEntregas,
     getMisNotificaciones,
     getEstadisticasAlumno,
     EstadisticasAlumnoDTO,
 } from "@/services/alumnosService";
+import { getCalendario } from "@/services/calendarioService";
 import {
-    Curso,
+    EntradaCalendario,
     EntregaPractica,
-    Practica,
     Perfil,
     Notificacion,
 } from "@/lib/types";
@@ -36,16 +35,19 @@ import {
 import Link from "next/link";
 import { NotificacionesAlumno } from "@/components/alumnos/NotificacionesAlumno";
 
-interface PracticaConCurso extends Practica {
-    cursoId: string;
-}
+// Las fechas de los próximos días de todos los cursos salen en una sola llamada a /calendario
+const DIAS_PROXIMOS = 30;
+
+const ETIQUETAS_TIPO: Record<string, string> = {
+    EVENTO: "Evento",
+    EXAMEN: "Examen",
+    PRACTICA: "Entrega",
+};
 
 export default function DashboardAlumnoPage() {
     const [perfil, setPerfil] = useState<Perfil | null>(null);
-    const [cursos, setCursos] = useState<Curso[]>([]);
     const [entregas, setEntregas] = useState<EntregaPractica[]>([]);
-    const [pendientes, setPendientes] = useState<PracticaConCurso[]>([]);
-    const [proximas, setProximas] = useState<PracticaConCurso[]>([]);
+    const [proximas, setProximas] = useState<EntradaCalendario[]>([]);
     const [notificaciones, setNotificaciones] = useState<Notificacion[]>([]);
     const [estadisticas, setEstadisticas] = useState<EstadisticasAlumnoDTO | null>(null);
     const [loading, setLoading] = useState(true);
@@ -59,39 +61,26 @@ export default function DashboardAlumnoPage() {
 
         const cargarDatos = async () => {
             try {
-                const [cursosData, entregasData, notifsData, statsData] = await Promise.all([
-                    getMisCursos(),
+                const hoy = new Date();
+                const limite = new Date(hoy);
+                limite.setDate(limite.getDate() + DIAS_PROXIMOS);
+                const [calendario, entregasData, notifsData, statsData] = await Promise.all([
+                    getCalendario(hoy, limite),
                     listarMisEntregas(),
                     getMisNotificaciones(),
                     getEstadisticasAlumno(),
                 ]);
 
+                // Ya vienen ordenadas; los módulos y unidades se quedan en el calendario del curso
                 const entregadasIds = new Set(entregasData.map((e) => e.practica.id));
-                const ahora = new Date();
-                const pendientesArr: PracticaConCurso[] = [];
-                const proximasArr: PracticaConCurso[] = [];
-
-                cursosData.forEach((curso) => {
-                    curso.practicas?.forEach((p) => {
-                        const vencimiento = new Date(p.fechaEntrega);
-                        const practicaExtendida: PracticaConCurso = {
-                            ...p,
-                            cursoId: curso.id,
-                        };
-
-                        if (!entregadasIds.has(p.id)) {
-                            pendientesArr.push(practicaExtendida);
-                            if (vencimiento > ahora) proximasArr.push(practicaExtendida);
-                        }
-                    });
+                const ahora = Date.now();
+                const proximasArr = calendario.filter((entrada) => {
+                    if (entrada.tipo === "MODULO" || entrada.tipo === "UNIDAD") return false;
+                    if (entrada.tipo === "PRACTICA" && entregadasIds.has(entrada.id)) return false;
+                    return entrada.todoElDia || new Date(entrada.inicio).getTime() > ahora;
                 });
 
-                // Ordenar por fecha de entrega
-                proximasArr.sort((a, b) => new Date(a.fechaEntrega).getTime() - new Date(b.fechaEntrega).getTime());
-
-                setCursos(cursosData);
                 setEntregas(entregasData);
-                setPendientes(pendientesArr);
                 setProximas(proximasArr.slice(0, 5)); // Solo las 5 más próximas
                 setNotificaciones(notifsData);
                 setEstadisticas(statsData);
@@ -135,7 +124,7 @@ export default function DashboardAlumnoPage() {
             <div className="flex items-center justify-between">
                 <div className="flex items-center gap-4">
                     <Avatar className="h-16 w-16 border-2 border-primary/20">
-                        <AvatarImage src={perfil.avatarUrl || ""} />
+                        <AvatarImage src={perfil.avatarUrl || ""} tam={64} />
                         <AvatarFallback className="text-xl">{perfil.nombre?.[0]}</AvatarFallback>
                     </Avatar>
                     <div>
@@ -309,37 +298,40 @@ export default function DashboardAlumnoPage() {
                         <CardHeader className="pb-3">
                             <CardTitle className="flex items-center gap-2">
                                 <AlertCircle className="w-5 h-5 text-orange-500" />
-                                Próximas entregas
+                                Próximas fechas
                             </CardTitle>
                         </CardHeader>
                         <CardContent>
                             {proximas.length === 0 ? (
                                 <p className="text-sm text-muted-foreground py-4 text-center">
-                                    No hay entregas próximas
+                                    Nada en los próximos {DIAS_PROXIMOS} días
                                 </p>
                             ) : (
                                 <div className="space-y-3">
                                     {proximas.map((p) => {
                                         const diasRestantes = Math.ceil(
-                                            (new Date(p.fechaEntrega).getTime() - Date.now()) / (1000 * 60 * 60 * 24)
+                                            (new Date(p.inicio).getTime() - Date.now()) / (1000 * 60 * 60 * 24)
                                         );
                                         return (
                                             <Link
-                                                key={p.id}
-                                                href={`/curso/${p.cursoId}/practicas`}
+                                                key={`${p.tipo}-${p.id}`}
+                                                href={p.tipo === "PRACTICA" ? `/curso/${p.cursoId}/practicas` : `/curso/${p.cursoId}`}
                                                 className="block"
                                             >
                                                 <div className="p-3 rounded-lg border hover:bg-accent/50 transition-colors">
                                                     <p className="font-medium text-sm truncate">{p.titulo}</p>
+                                                    <p className="text-xs text-muted-foreground truncate">
+                                                        {ETIQUETAS_TIPO[p.tipo]} · {p.cursoNombre}
+                                                    </p>
                                                     <div className="flex items-center justify-between mt-1">
                                                         <span className="text-xs text-muted-foreground">
-                                                            {new Date(p.fechaEntrega).toLocaleDateString("es-ES")}
+                                                            {new Date(p.inicio).toLocaleDateString("es-ES")}
                                                         </span>
                                                         <Badge
                                                             variant={diasRestantes <= 2 ? "destructive" : diasRestantes <= 7 ? "secondary" : "outline"}
                                                             className="text-xs"
                                                         >
-                                                            {diasRestantes} días
+                                                            {diasRestantes <= 0 ? "Hoy" : `${diasRestantes} días`}
                                                         </Badge>
                                                     </div>
                                                 </div>
@@ -34,6 +34,7 @@ import {
     Trash2,
     Users,
     ChevronRight,
+    Upload,
 } from "lucide-react";
 import {
     ExamenDTO,
@@ -41,6 +42,7 @@ import {
     TipoExamen,
     CrearExamenDTO,
     RegistrarNotaDTO,
+    ResultadoImportacionNotasDTO,
     getExamenesCurso,
     getMisNotasExamenes,
     getMiPromedioExamenes,
@@ -49,6 +51,7 @@ import {
     eliminarExamen,
     getNotasExamen,
     registrarNotasMultiples,
+    importarNotasCsv,
 } from "@/services/examenService";
 import { getCursoById } from "@/services/cursoService";
 import { AlumnoDTO, CursoDTO } from "@/lib/types";
@@ -207,15 +210,50 @@ export default function ExamenesPage() {
         }
     };
 
+    // Las filas con errores no se guardan, pero el resto sí
+    const avisarResultado = (resultado: ResultadoImportacionNotasDTO) => {
+        if (resultado.errores.length === 0) {
+            toast.success(`Notas guardadas correctamente (${resultado.guardadas} cambiadas)`);
+            return true;
+        }
+        toast.warning(
+            `${resultado.guardadas} notas guardadas, ${resultado.errores.length} con errores: ` +
+                resultado.errores
+                    .slice(0, 5)
+                    .map((e) => `fila ${e.fila}: ${e.mensaje}`)
+                    .join("; ")
+        );
+        return false;
+    };
+
+    const handleImportarCsv = async (archivo: File | undefined) => {
+        if (!selectedExamen || !archivo) return;
+
+        try {
+            setSubmitting(true);
+            const resultado = await importarNotasCsv(cursoId, selectedExamen.id, archivo);
+            if (avisarResultado(resultado)) {
+                setIsNotasModalOpen(false);
+            }
+            cargarDatos();
+        } catch (error) {
+            toast.error("Error al importar el CSV");
+            console.error(error);
+        } finally {
+            setSubmitting(false);
+        }
+    };
+
     const handleGuardarNotas = async () => {
         if (!selectedExamen) return;
 
         try {
             setSubmitting(true);
             const notasArray = Array.from(notasForm.values()).filter((n) => n.nota !== null);
-            await registrarNotasMultiples(cursoId, selectedExamen.id, notasArray);
-            toast.success("Notas guardadas correctamente");
-            setIsNotasModalOpen(false);
+            const resultado = await registrarNotasMultiples(cursoId, selectedExamen.id, notasArray);
+            if (avisarResultado(resultado)) {
+                setIsNotasModalOpen(false);
+            }
             cargarDatos();
         } catch (error) {
             toast.error("Error al guardar notas");
@@ -713,6 +751,21 @@ export default function ExamenesPage() {
                         </table>
                     </div>
                     <DialogFooter>
+                        <Button variant="outline" asChild disabled={submitting}>
+                            <label className="cursor-pointer">
+                                <Upload className="h-4 w-4 mr-2" />
+                                Importar CSV
+                                <input
+                                    type="file"
+                                    accept=".csv,text/csv"
+                                    className="hidden"
+                                    onChange={(e) => {
+                                        handleImportarCsv(e.target.files?.[0]);
+                                        e.target.value = "";
+                                    }}
+                                />
+                            </label>
+                        </Button>
                         <Button variant="outline" onClick={() => setIsNotasModalOpen(false)}>
                             Cancelar
                         </Button>
@@ -5,12 +5,13 @@ import { useParams } from "next/navigation";
 import {
   getWikiCurso,
   getAportacionesWiki,
+  getAportacionWiki,
   crearAportacionWiki,
   actualizarWikiCurso,
 } from "@/services/wikiServices";
 import { getCursoById } from "@/services/cursoService";
 import { useAuthStore } from "@/hooks/authStore";
-import { AportacionWiki } from "@/lib/types";
+import { AportacionWikiResumen } from "@/lib/types";
 import type { EditorWikiHandle } from "@/components/common/EditorWiki";
 import { Button } from "@/components/ui/button";
 import { Card } from "@/components/ui/card";
@@ -34,7 +35,12 @@ export default function WikiCursoPage() {
   const [nombreCurso, setNombreCurso] = useState("");
   const [descripcionCurso, setDescripcionCurso] = useState("");
   const [contenido, setContenido] = useState<any>(null);
-  const [aportaciones, setAportaciones] = useState<AportacionWiki[]>([]);
+  const [aportaciones, setAportaciones] = useState<AportacionWikiResumen[]>([]);
+  const [cursorAportaciones, setCursorAportaciones] = useState<string | null>(null);
+  const [hayMasAportaciones, setHayMasAportaciones] = useState(false);
+  const [cargandoAportaciones, setCargandoAportaciones] = useState(false);
+  // Texto completo de las aportaciones truncadas que se han abierto
+  const [completas, setCompletas] = useState<Record<string, string>>({});
   const [comentario, setComentario] = useState("");
   const [loading, setLoading] = useState(true);
   const [enviando, setEnviando] = useState(false);
@@ -54,8 +60,10 @@ export default function WikiCursoPage() {
         const contenidoData = await getWikiCurso(cursoId);
         setContenido(contenidoData);
 
-        const listaAportaciones = await getAportacionesWiki(cursoId);
-        setAportaciones(listaAportaciones);
+        const pagina = await getAportacionesWiki(cursoId);
+        setAportaciones(pagina.aportaciones);
+        setCursorAportaciones(pagina.cursorAnterior);
+        setHayMasAportaciones(pagina.hayAnteriores);
       } catch {
         toast.error("Error al cargar la wiki del curso");
       } finally {
@@ -76,8 +84,10 @@ export default function WikiCursoPage() {
       setEnviando(true);
       await crearAportacionWiki(cursoId as string, comentario);
       setComentario("");
-      const actualizadas = await getAportacionesWiki(cursoId as string);
-      setAportaciones(actualizadas);
+      const pagina = await getAportacionesWiki(cursoId as string);
+      setAportaciones(pagina.aportaciones);
+      setCursorAportaciones(pagina.cursorAnterior);
+      setHayMasAportaciones(pagina.hayAnteriores);
       toast.success("Aportación enviada");
     } catch {
       toast.error("No se pudo enviar la aportación");
@@ -86,6 +96,30 @@ export default function WikiCursoPage() {
     }
   };
 
+  const cargarMasAportaciones = async () => {
+    if (!cursorAportaciones) return;
+    try {
+      setCargandoAportaciones(true);
+      const pagina = await getAportacionesWiki(cursoId as string, cursorAportaciones);
+      setAportaciones((prev) => [...prev, ...pagina.aportaciones]);
+      setCursorAportaciones(pagina.cursorAnterior);
+      setHayMasAportaciones(pagina.hayAnteriores);
+    } catch {
+      toast.error("No se pudieron cargar más aportaciones");
+    } finally {
+      setCargandoAportaciones(false);
+    }
+  };
+
+  const leerAportacionCompleta = async (aportacionId: string) => {
+    try {
+      const aportacion = await getAportacionWiki(cursoId as string, aportacionId);
+      setCompletas((prev) => ({ ...prev, [aportacionId]: aportacion.contenido }));
+    } catch {
+      toast.error("No se pudo cargar la aportación");
+    }
+  };
+
   const handleGuardarWiki = async () => {
     if (!editorRef.current) return;
     try {
@@ -177,12 +211,33 @@ export default function WikiCursoPage() {
           aportaciones.map((a) => (
             <div key={a.id} className="border-t pt-4">
               <p className="text-sm text-muted-foreground">
-                {a.autor?.nombre || "Usuario desconocido"} ({new Date(a.fecha).toLocaleString()})
+                {a.autorNombre || "Usuario desconocido"} ({new Date(a.fecha).toLocaleString()})
               </p>
-              <p>{a.contenido}</p>
+              <p>{completas[a.id] ?? (a.truncada ? `${a.vistaPrevia}…` : a.vistaPrevia)}</p>
+              {a.truncada && completas[a.id] === undefined && (
+                <Button
+                  variant="link"
+                  size="sm"
+                  className="px-0"
+                  onClick={() => leerAportacionCompleta(a.id)}
+                >
+                  Leer completa
+                </Button>
+              )}
             </div>
           ))
         )}
+        {hayMasAportaciones && (
+          <div className="flex justify-center">
+            <Button
+              variant="outline"
+              disabled={cargandoAportaciones}
+              onClick={cargarMasAportaciones}
+            >
+              {cargandoAportaciones ? "Cargando..." : "Cargar más aportaciones"}
+            </Button>
+          </div>
+        )}
       </Card>
 
       {/* Formulario de aportación */}
@@ -10,6 +10,7 @@ import {
   subirAvatar,
 } from "@/services/usuarioService";
 import AvatarGallerySelector from "@/components/common/AvatarCustomizer";
+import { urlAvatar } from "@/lib/avatar";
 
 export default function PerfilPage() {
   const [nombre, setNombre] = useState("");
@@ -76,7 +77,7 @@ export default function PerfilPage() {
       <div className="space-y-4">
         <div className="flex items-center gap-4">
           <img
-            src={avatarUrl || "/placeholder-avatar.png"}
+            src={urlAvatar(avatarUrl, 80) || "/placeholder-avatar.png"}
             alt="Avatar"
             className="w-20 h-20 rounded-full object-cover border"
           />
@@ -35,6 +35,7 @@ import ListaPracticasCurso from "@/components/practicas/ListaPracticasCurso";
 import FormularioCrearPractica from "@/components/practicas/FormularioCrearPractica";
 import CalendarioCurso from "@/components/common/CalendarioCurso";
 import { z } from "zod";
+import { urlAvatar } from "@/lib/avatar";
 
 const schema = z.object({
   titulo: z.string(),
@@ -177,7 +178,7 @@ export default function CursoPage() {
                 <div className="flex items-center gap-3">
                   {a.avatarUrl ? (
                     <img
-                      src={a.avatarUrl}
+                      src={urlAvatar(a.avatarUrl, 48)}
                       alt={a.nombre}
                       className="w-12 h-12 rounded-full object-cover"
                     />
@@ -4,6 +4,7 @@ import {
   DialogContent
 } from "@/components/ui/dialog";
 import { cn } from "@/lib/utils";
+import { urlAvatar } from "@/lib/avatar";
 import { User } from "lucide-react";
 import Image from "next/image";
 
@@ -28,6 +29,8 @@ export default function AvatarAmpliable({
   ampliable = true,
 }: AvatarAmpliableProps) {
   const src = url && !url.startsWith("http") ? `${BASE_URL}${url}` : url;
+  // La miniatura pide su tamaño; la ampliada, la variante más grande
+  const miniatura = urlAvatar(src, size);
 
   const fallback = nombre?.trim()
     ? nombre
@@ -61,7 +64,7 @@ export default function AvatarAmpliable({
   if (!ampliable) {
     return (
       <Image
-        src={src}
+        src={miniatura!}
         alt={alt}
         width={size}
         height={size}
@@ -78,7 +81,7 @@ export default function AvatarAmpliable({
     <Dialog>
       <DialogTrigger asChild>
         <Image
-          src={src}
+          src={miniatura!}
           alt={alt}
           width={size}
           height={size}
@@ -5,7 +5,7 @@ import {
     PopoverTrigger,
 } from "@/components/ui/popover";
 import { useEffect, useState, useRef } from "react";
-import { Notificacion } from "@/lib/types";
+import { Notificacion, ResumenNotificaciones } from "@/lib/types";
 import { getMisNotificaciones, marcarNotificacionComoLeida } from "@/services/alumnosService";
 import { createNotificationSocket } from "@/hooks/useNotificationSocket";
 import { toast } from "sonner";
@@ -21,9 +21,21 @@ export function NotificacionesGlobales() {
             .catch(err => console.error('Error cargando notificaciones:', err));
 
         // Conexión Socket
-        socketRef.current = createNotificationSocket((nuevaNotif) => {
-            setNotificaciones((prev) => [nuevaNotif, ...prev]);
-            toast.info("Nueva notificación: " + nuevaNotif.mensaje);
+        socketRef.current = createNotificationSocket((aviso: Notificacion | ResumenNotificaciones) => {
+            if ("total" in aviso) {
+                if (aviso.total > aviso.notificaciones.length) {
+                    // El resumen solo trae las últimas: el resto se recarga
+                    getMisNotificaciones()
+                        .then(setNotificaciones)
+                        .catch(err => console.error('Error cargando notificaciones:', err));
+                } else {
+                    setNotificaciones((prev) => [...aviso.notificaciones, ...prev]);
+                }
+                toast.info(`Tienes ${aviso.total} notificaciones nuevas`);
+            } else {
+                setNotificaciones((prev) => [aviso, ...prev]);
+                toast.info("Nueva notificación: " + aviso.mensaje);
+            }
             try {
                 const audio = new Audio('/notification.mp3');
                 audio.play().catch(e => console.log('Audio play failed', e));
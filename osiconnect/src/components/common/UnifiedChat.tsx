@@ -1,14 +1,17 @@
 "use client";
 
-import { useEffect, useRef, useState, useCallback } from "react";
+import { useEffect, useLayoutEffect, useRef, useState, useCallback } from "react";
 import { MensajeCursoDTO } from "@/lib/types";
 import { Button } from "@/components/ui/button";
 import { Input } from "@/components/ui/input";
-import { Send, Check, CheckCheck } from "lucide-react";
+import { Avatar, AvatarImage, AvatarFallback } from "@/components/ui/avatar";
+import { Send, Check, CheckCheck, Loader2 } from "lucide-react";
 import { formatDistanceToNow } from "date-fns";
 import { es } from "date-fns/locale";
-import { getMensajesCurso, enviarMensajeCurso, marcarMensajesCursoComoLeidos } from "@/services/chatCursoService";
+import { getHistorialMensajesCurso, enviarMensajeCurso, marcarMensajesCursoComoLeidos } from "@/services/chatCursoService";
 import { createChatCursoSocket, sendTypingIndicator } from "@/hooks/useChatCursoSocket";
+import { toast } from "sonner";
+import axios from "axios";
 import EmojiPickerButton from "./EmojiPickerButton";
 import TypingIndicator from "./TypingIndicator";
 
@@ -18,6 +21,9 @@ interface UnifiedChatProps {
     usuarioNombre?: string;
 }
 
+// Esperas entre reintentos cuando el servidor responde 503 porque tiene demasiados mensajes pendientes
+const REINTENTOS_ENVIO_MS = [500, 1000, 2000];
+
 interface ExtendedMessage extends MensajeCursoDTO {
     read?: boolean;
 }
@@ -34,11 +40,23 @@ export default function UnifiedChat({
     const socketRef = useRef<any>(null);
     const scrollRef = useRef<HTMLDivElement>(null);
     const typingTimeoutRef = useRef<NodeJS.Timeout>();
+    // Historial hacia atrás: cursor del mensaje más antiguo cargado
+    const [cursorAnterior, setCursorAnterior] = useState<string | null>(null);
+    const [hayAnteriores, setHayAnteriores] = useState(false);
+    const [cargandoAnteriores, setCargandoAnteriores] = useState(false);
+    const mensajesRef = useRef<HTMLDivElement>(null);
+    // Altura del área antes de añadir mensajes arriba, para no mover lo que se está leyendo
+    const alturaAntesRef = useRef<number | null>(null);
 
     // Cargar mensajes y conectar WebSocket
     useEffect(() => {
-        getMensajesCurso(cursoId).then((msgs) => {
-            setMensajes(msgs);
+        setMensajes([]);
+        setCursorAnterior(null);
+        setHayAnteriores(false);
+        getHistorialMensajesCurso(cursoId).then((pagina) => {
+            setMensajes(pagina.mensajes);
+            setCursorAnterior(pagina.cursorAnterior);
+            setHayAnteriores(pagina.hayAnteriores);
             marcarMensajesCursoComoLeidos(cursoId);
         });
 
@@ -63,12 +81,28 @@ export default function UnifiedChat({
                 }
             },
             (data) => {
-                // Read receipts
+                // Read receipts: el lector ha visto los mensajes con secuencia en (desde, hasta]
                 setMensajes((prev) =>
                     prev.map((msg) =>
-                        data.messageIds.includes(msg.id) ? { ...msg, read: true } : msg
+                        msg.secuencia != null &&
+                        msg.secuencia > data.desdeSecuencia &&
+                        msg.secuencia <= data.hastaSecuencia &&
+                        msg.autor.id !== data.userId
+                            ? { ...msg, read: true }
+                            : msg
                     )
                 );
+            },
+            (secuencias) => {
+                // Secuencia asignada al guardar los mensajes recibidos en vivo
+                setMensajes((prev) =>
+                    prev.map((msg) =>
+                        secuencias[msg.id] != null ? { ...msg, secuencia: secuencias[msg.id] } : msg
+                    )
+                );
+            },
+            (error) => {
+                toast.error(error.message || "No se pudo enviar el mensaje");
             }
         );
 
@@ -77,11 +111,43 @@ export default function UnifiedChat({
         };
     }, [cursoId, usuarioId]);
 
-    // Auto-scroll
-    useEffect(() => {
+    // Auto-scroll, salvo cuando se acaban de añadir mensajes antiguos arriba
+    useLayoutEffect(() => {
+        const area = mensajesRef.current;
+        if (alturaAntesRef.current != null && area) {
+            area.scrollTop += area.scrollHeight - alturaAntesRef.current;
+            alturaAntesRef.current = null;
+            return;
+        }
         scrollRef.current?.scrollIntoView({ behavior: "smooth" });
     }, [mensajes, typingUsers]);
 
+    const cargarAnteriores = useCallback(async () => {
+        if (!hayAnteriores || !cursorAnterior || cargandoAnteriores) return;
+        setCargandoAnteriores(true);
+        try {
+            const pagina = await getHistorialMensajesCurso(cursoId, { antes: cursorAnterior });
+            alturaAntesRef.current = mensajesRef.current?.scrollHeight ?? null;
+            setMensajes((prev) => {
+                const cargados = new Set(prev.map((m) => m.id));
+                return [...pagina.mensajes.filter((m) => !cargados.has(m.id)), ...prev];
+            });
+            setCursorAnterior(pagina.cursorAnterior);
+            setHayAnteriores(pagina.hayAnteriores);
+        } catch (error) {
+            console.error("Error cargando mensajes anteriores:", error);
+        } finally {
+            setCargandoAnteriores(false);
+        }
+    }, [cursoId, cursorAnterior, hayAnteriores, cargandoAnteriores]);
+
+    // Al llegar arriba del todo se pide la página anterior
+    const handleScroll = useCallback(() => {
+        if ((mensajesRef.current?.scrollTop ?? 1) === 0) {
+            cargarAnteriores();
+        }
+    }, [cargarAnteriores]);
+
     // Handle typing indicator
     const handleInputChange = useCallback(
         (value: string) => {
@@ -132,11 +198,26 @@ export default function UnifiedChat({
             );
         }
 
-        try {
-            await enviarMensajeCurso(cursoId, texto);
-            setTexto("");
-        } catch (error) {
-            console.error("Error enviando mensaje:", error);
+        // Con 503 el mensaje no se ha aceptado: se reintenta y, si sigue sin sitio, el texto se queda en el input
+        for (let intento = 0; ; intento++) {
+            try {
+                await enviarMensajeCurso(cursoId, texto);
+                setTexto("");
+                return;
+            } catch (error) {
+                const saturado = axios.isAxiosError(error) && error.response?.status === 503;
+                if (saturado && intento < REINTENTOS_ENVIO_MS.length) {
+                    await new Promise((resolve) => setTimeout(resolve, REINTENTOS_ENVIO_MS[intento]));
+                    continue;
+                }
+                console.error("Error enviando mensaje:", error);
+                toast.error(
+                    saturado
+                        ? "El chat está saturado, inténtalo de nuevo en unos segundos"
+                        : "No se pudo enviar el mensaje"
+                );
+                return;
+            }
         }
     };
 
@@ -165,7 +246,27 @@ export default function UnifiedChat({
             </div>
 
             {/* Área de mensajes */}
-            <div className="flex-1 overflow-y-auto p-4 space-y-4">
+            <div
+                ref={mensajesRef}
+                onScroll={handleScroll}
+                className="flex-1 overflow-y-auto p-4 space-y-4"
+            >
+                {hayAnteriores && (
+                    <div className="flex justify-center">
+                        <Button
+                            variant="ghost"
+                            size="sm"
+                            onClick={cargarAnteriores}
+                            disabled={cargandoAnteriores}
+                        >
+                            {cargandoAnteriores ? (
+                                <Loader2 className="w-4 h-4 animate-spin" />
+                            ) : (
+                                "Cargar mensajes anteriores"
+                            )}
+                        </Button>
+                    </div>
+                )}
                 {mensajes.length === 0 ? (
                     <div className="flex flex-col items-center justify-center h-full text-center">
                         <div className="text-6xl mb-4">💬</div>
@@ -190,11 +291,14 @@ export default function UnifiedChat({
                                     }`}
                             >
                                 {!isOwnMessage && (
-                                    <div className="w-8 h-8 rounded-full bg-primary/10 flex items-center justify-center flex-shrink-0 mb-1">
+                                    <div className="w-8 h-8 flex-shrink-0 mb-1">
                                         {showAvatar && (
-                                            <span className="text-sm font-medium">
-                                                {m.autor.nombre?.charAt(0).toUpperCase()}
-                                            </span>
+                                            <Avatar>
+                                                <AvatarImage src={m.autor.avatarUrl} tam={32} alt={m.autor.nombre} />
+                                                <AvatarFallback className="bg-primary/10 text-sm font-medium">
+                                                    {m.autor.nombre?.charAt(0).toUpperCase()}
+                                                </AvatarFallback>
+                                            </Avatar>
                                         )}
                                     </div>
                                 )}
@@ -243,11 +347,14 @@ export default function UnifiedChat({
                                 </div>
 
                                 {isOwnMessage && (
-                                    <div className="w-8 h-8 rounded-full bg-primary flex items-center justify-center flex-shrink-0 mb-1">
+                                    <div className="w-8 h-8 flex-shrink-0 mb-1">
                                         {showAvatar && (
-                                            <span className="text-sm font-medium text-primary-foreground">
-                                                {m.autor.nombre?.charAt(0).toUpperCase()}
-                                            </span>
+                                            <Avatar>
+                                                <AvatarImage src={m.autor.avatarUrl} tam={32} alt={m.autor.nombre} />
+                                                <AvatarFallback className="bg-primary text-sm font-medium text-primary-foreground">
+                                                    {m.autor.nombre?.charAt(0).toUpperCase()}
+                                                </AvatarFallback>
+                                            </Avatar>
                                         )}
                                     </div>
                                 )}
@@ -4,6 +4,7 @@ import * as React from "react"
 import * as AvatarPrimitive from "@radix-ui/react-avatar"
 
 import { cn } from "@/lib/utils"
+import { urlAvatar } from "@/lib/avatar"
 
 function Avatar({
   className,
@@ -21,14 +22,18 @@ function Avatar({
   )
 }
 
+// tam: lado en píxeles con el que se muestra, para pedir la variante del avatar que le corresponde
 function AvatarImage({
   className,
+  src,
+  tam = 32,
   ...props
-}: React.ComponentProps<typeof AvatarPrimitive.Image>) {
+}: React.ComponentProps<typeof AvatarPrimitive.Image> & { tam?: number }) {
   return (
     <AvatarPrimitive.Image
       data-slot="avatar-image"
       className={cn("aspect-square size-full", className)}
+      src={urlAvatar(src, tam)}
       {...props}
     />
   )
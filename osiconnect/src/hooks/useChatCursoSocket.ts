@@ -6,7 +6,9 @@ export function createChatCursoSocket(
     onMessage: (msg: any) => void,
     onConnected: () => void,
     onTyping?: (data: { userId: string; userName: string; isTyping: boolean }) => void,
-    onReadReceipt?: (data: { userId: string; userName: string; messageIds: string[] }) => void
+    onReadReceipt?: (data: { userId: string; userName: string; desdeSecuencia: number; hastaSecuencia: number }) => void,
+    onSecuencias?: (secuencias: Record<string, number>) => void,
+    onError?: (error: { status: number; message: string }) => void
 ) {
     const client = new Client({
         webSocketFactory: () => new SockJS(`${process.env.NEXT_PUBLIC_API_URL?.replace('/api', '')}/ws-chat`),
@@ -45,6 +47,28 @@ export function createChatCursoSocket(
                 });
             }
 
+            // Subscribe to sequence numbers assigned once messages are stored
+            if (onSecuencias) {
+                client.subscribe(`/topic/curso/${cursoId}/secuencias`, (message) => {
+                    try {
+                        onSecuencias(JSON.parse(message.body));
+                    } catch (error) {
+                        console.error('Error parseando secuencias:', error);
+                    }
+                });
+            }
+
+            // Envíos por STOMP rechazados (p. ej. 503 con la cola de escritura llena): solo a esta sesión
+            if (onError) {
+                client.subscribe('/user/queue/errors', (message) => {
+                    try {
+                        onError(JSON.parse(message.body));
+                    } catch (error) {
+                        console.error('Error parseando error de envío:', error);
+                    }
+                });
+            }
+
             onConnected();
         },
         reconnectDelay: 5000,
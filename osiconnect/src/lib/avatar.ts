@@ -0,0 +1,9 @@
+// src/lib/avatar.ts
+
+// Los avatares subidos (/uploads/avatars/{hash}.png) se sirven en varios tamaños: se pide el menor que
+// cubra el tamaño en pantalla a doble densidad. El resto de URLs (dicebear, externas) no se tocan.
+export const urlAvatar = (url: string | null | undefined, px: number): string | undefined => {
+  if (!url) return undefined;
+  if (!url.includes("/uploads/avatars/")) return url;
+  return `${url}${url.includes("?") ? "&" : "?"}tam=${Math.ceil(px * 2)}`;
+};
@@ -78,6 +78,12 @@ export interface Notificacion {
   fecha: string; // ISO string
 }
 
+// Lo que llega por el socket cuando hay varias notificaciones seguidas; total puede superar las incluidas
+export interface ResumenNotificaciones {
+  total: number;
+  notificaciones: Notificacion[];
+}
+
 export interface EntregasAgrupadas {
   entregadas: EntregaPractica[];
   pendientes: Practica[];
@@ -157,6 +163,7 @@ export interface MensajeCursoDTO {
   id: string;
   contenido: string;
   fechaEnvio: string; // ISO String
+  secuencia?: number; // Posición del mensaje en el chat del curso
   autor: {
     id?: string;
     nombre: string;
@@ -164,6 +171,34 @@ export interface MensajeCursoDTO {
   };
 }
 
+export interface PaginaMensajesCursoDTO {
+  mensajes: MensajeCursoDTO[];
+  cursorAnterior: string | null;
+  cursorPosterior: string | null;
+  hayAnteriores: boolean;
+  hayPosteriores: boolean;
+}
+
+// Resumen de un curso en el catálogo del administrador
+export interface CursoResumenDTO {
+  id: string;
+  nombre: string;
+  descripcion: string | null;
+  profesorNombre: string | null;
+  totalAlumnos: number;
+  totalPracticas: number;
+  totalModulos: number;
+  proximoEventoFecha: string | null; // yyyy-MM-dd
+  proximoEventoTitulo: string | null;
+}
+
+export interface PaginaCursosDTO {
+  cursos: CursoResumenDTO[];
+  pagina: number; // empieza en 0
+  tamano: number;
+  total: number;
+}
+
 export interface AportacionWiki {
   id: string;
   contenido: string;
@@ -173,3 +208,35 @@ export interface AportacionWiki {
     nombre: string;
   };
 }
+
+// Aportación en el listado de la wiki: solo el principio del texto
+export interface AportacionWikiResumen {
+  id: string;
+  autorId: string | null;
+  autorNombre: string | null;
+  autorAvatarUrl: string | null;
+  vistaPrevia: string;
+  truncada: boolean; // el texto completo se pide con getAportacionWiki
+  fecha: string;
+}
+
+export interface PaginaAportacionesWiki {
+  aportaciones: AportacionWikiResumen[];
+  cursorAnterior: string | null;
+  hayAnteriores: boolean;
+}
+
+// Calendario de varios cursos (/calendario): eventos, exámenes, entregas, módulos y unidades por fecha
+export type TipoEntradaCalendario = "EVENTO" | "EXAMEN" | "PRACTICA" | "MODULO" | "UNIDAD";
+
+export interface EntradaCalendario {
+  tipo: TipoEntradaCalendario;
+  id: string;
+  cursoId: string;
+  cursoNombre: string;
+  titulo: string;
+  detalle: string | null; // tipo del evento o del examen, o módulo de la unidad
+  inicio: string;
+  fin: string | null; // solo módulos y unidades
+  todoElDia: boolean;
+}
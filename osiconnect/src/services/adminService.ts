@@ -4,6 +4,7 @@ import {
   ModuloDTO,
   UnidadFormativaDTO,
   EventoCursoDTO,
+  PaginaCursosDTO,
   Usuario
 } from "@/lib/types";
 
@@ -52,8 +53,14 @@ export const crearEventoAdmin = async (cursoId: string, evento: EventoCursoDTO)
   await api.post(`/admin/curso/${cursoId}/evento`, evento);
 };
 
-export const listarCursos = async (): Promise<CursoDTO[]> => {
-  const response = await api.get("/admin/cursos")
+// orden: "nombre" | "profesor" | "alumnos" | "practicas" | "modulos" | "proximoEvento", con ",desc" opcional
+export const listarCursos = async (params: {
+  pagina?: number;
+  tamano?: number;
+  orden?: string;
+  filtro?: string;
+} = {}): Promise<PaginaCursosDTO> => {
+  const response = await api.get("/admin/cursos", { params })
   return response.data
 }
 
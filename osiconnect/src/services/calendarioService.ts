@@ -0,0 +1,22 @@
+import { EntradaCalendario } from "@/lib/types";
+import { api } from "@/services/api";
+
+// yyyy-MM-dd en la zona del navegador; toISOString pasaría a UTC y podría cambiar el día
+const fechaLocal = (fecha: Date) =>
+  `${fecha.getFullYear()}-${String(fecha.getMonth() + 1).padStart(2, "0")}-${String(fecha.getDate()).padStart(2, "0")}`;
+
+// ✅ Fechas de varios cursos entre desde y hasta (incluidos), ya ordenadas; sin cursos, todos los del usuario
+export async function getCalendario(
+  desde: Date,
+  hasta: Date,
+  cursos?: string[]
+): Promise<EntradaCalendario[]> {
+  const res = await api.get("/calendario", {
+    params: {
+      desde: fechaLocal(desde),
+      hasta: fechaLocal(hasta),
+      ...(cursos && cursos.length > 0 ? { cursos: cursos.join(",") } : {}),
+    },
+  });
+  return res.data;
+}
@@ -1,6 +1,6 @@
 // src/services/chatCursoService.ts
 import { api } from './api';
-import { MensajeCursoDTO } from '@/lib/types';
+import { MensajeCursoDTO, PaginaMensajesCursoDTO } from '@/lib/types';
 
 export const obtenerMensajesCurso = async (cursoId: string): Promise<MensajeCursoDTO[]> => {
   const res = await api.get(`/chat-curso/${cursoId}`);
@@ -15,6 +15,14 @@ export const getMensajesCurso = async (cursoId: string): Promise<MensajeCursoDTO
   return res.data;
 };
 
+// ✅ Historial paginado: sin cursor devuelve la página más reciente
+export const getHistorialMensajesCurso = async (
+  cursoId: string,
+  params: { antes?: string; despues?: string; limite?: number } = {}
+): Promise<PaginaMensajesCursoDTO> => {
+  const res = await api.get(`/chat-curso/${cursoId}/historial`, { params });
+  return res.data;
+};
 
 // ✅ Obtener el número de mensajes no leídos del curso para el usuario actual
 export const getMensajesNoLeidos = async (cursoId: string): Promise<number> => {
@@ -22,6 +30,12 @@ export const getMensajesNoLeidos = async (cursoId: string): Promise<number> => {
   return res.data;
 };
 
+// ✅ Mensajes no leídos de todos los cursos del usuario actual, por id de curso
+export const getMensajesNoLeidosPorCurso = async (): Promise<Record<string, number>> => {
+  const res = await api.get(`/chat-curso/no-leidos`);
+  return res.data;
+};
+
 // ✅ Enviar un nuevo mensaje al chat del curso
 export const enviarMensajeCurso = async (cursoId: string, contenido: string): Promise<void> => {
   await api.post(`/chat-curso/${cursoId}`, { contenido });
@@ -40,6 +40,13 @@ export interface RegistrarNotaDTO {
     observaciones?: string;
 }
 
+// Las filas con errores no se guardan; el resto sí
+export interface ResultadoImportacionNotasDTO {
+    guardadas: number;
+    sinCambios: number;
+    errores: { fila: number; alumno: string | null; mensaje: string }[];
+}
+
 // Obtener todos los exámenes del curso
 export async function getExamenesCurso(cursoId: string): Promise<ExamenDTO[]> {
     const res = await api.get(`/curso/${cursoId}/examenes`);
@@ -100,8 +107,17 @@ export async function registrarNota(cursoId: string, examenId: string, nota: Reg
 }
 
 // Registrar múltiples notas (profesor/admin)
-export async function registrarNotasMultiples(cursoId: string, examenId: string, notas: RegistrarNotaDTO[]): Promise<void> {
-    await api.post(`/curso/${cursoId}/examenes/${examenId}/notas/multiple`, notas);
+export async function registrarNotasMultiples(cursoId: string, examenId: string, notas: RegistrarNotaDTO[]): Promise<ResultadoImportacionNotasDTO> {
+    const res = await api.post(`/curso/${cursoId}/examenes/${examenId}/notas/multiple`, notas);
+    return res.data;
+}
+
+// Importar notas desde un CSV: alumno (id o email), nota, observaciones; separado por comas o punto y coma
+export async function importarNotasCsv(cursoId: string, examenId: string, archivo: File): Promise<ResultadoImportacionNotasDTO> {
+    const res = await api.post(`/curso/${cursoId}/examenes/${examenId}/notas/importar`, await archivo.text(), {
+        headers: { "Content-Type": "text/csv; charset=utf-8" },
+    });
+    return res.data;
 }
 
 // Eliminar nota (profesor/admin)
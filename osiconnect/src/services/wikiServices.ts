@@ -1,6 +1,6 @@
 // src/services/wikiService.ts
 
-import { AportacionWiki } from "@/lib/types";
+import { AportacionWiki, PaginaAportacionesWiki } from "@/lib/types";
 import { api } from "@/services/api";
 
 // ✅ Obtener el contenido HTML de la wiki de un curso
@@ -9,9 +9,23 @@ export async function getWikiCurso(cursoId: string): Promise<string> {
   return res.data; // se espera un string HTML
 }
 
-// ✅ Obtener las aportaciones de los alumnos
-export async function getAportacionesWiki(cursoId: string): Promise<AportacionWiki[]> {
-  const res = await api.get(`/wiki/${cursoId}/aportaciones`);
+// ✅ Obtener las aportaciones de los alumnos, por páginas: "antes" es el cursorAnterior de la página previa
+export async function getAportacionesWiki(
+  cursoId: string,
+  antes?: string
+): Promise<PaginaAportacionesWiki> {
+  const res = await api.get(`/wiki/${cursoId}/aportaciones`, {
+    params: antes ? { antes } : undefined,
+  });
+  return res.data;
+}
+
+// ✅ Texto completo de una aportación
+export async function getAportacionWiki(
+  cursoId: string,
+  aportacionId: string
+): Promise<AportacionWiki> {
+  const res = await api.get(`/wiki/${cursoId}/aportaciones/${aportacionId}`);
   return res.data;
 }
 